@@ -0,0 +1,238 @@
+package com.example.Proyecto.Configuration;
+
+import com.example.Proyecto.Service.AdmisionChatbotService;
+import com.example.Proyecto.Service.AdmisionChatbotService.ServicioSaturadoException;
+import com.example.Proyecto.Service.LimiteIntentosService.LimiteExcedidoException;
+import com.example.Proyecto.Service.MotorIntencionesService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Control de admisión delante del chatbot, la pasarela de IA y las rutinas de IA.
+ *
+ * - Toda petición consume de la cubeta del cliente y de la global (429 / 503 con Retry-After si no hay tokens).
+ * - Los POST que llaman a la IA esperan además turno en la cola justa, con un costo según lo que cuestan.
+ *   Los mensajes del chat se clasifican antes (MotorIntencionesService): los que se responden sin IA no hacen cola.
+ * - El cliente es el usuario del token Bearer. La app entra con la cuenta de servicio compartida (httpBasic), así que
+ *   ahí se usa el idUsuario de la ruta, de la query o del cuerpo JSON; sin él, la IP.
+ * Va después de Spring Security (para identificar al usuario) y antes de Idempotencia
+ * (una petición rechazada no reserva su Idempotency-Key).
+ */
+@Component
+@Order(0)
+public class AdmisionChatbotFilter extends OncePerRequestFilter {
+
+    private static final List<String> PREFIJOS = List.of(
+            "/api/InteraccionChatbot/", "/api/SesionChatbot/", "/api/IA/", "/api/RutinaIA/", "/api/ComidaRutinaIA/");
+
+    // Operaciones caras y su costo en la cola: el streaming ocupa el permiso más tiempo
+    private static final Map<String, Double> COSTOSAS = Map.of(
+            "/api/InteraccionChatbot/stream", 3d,
+            "/api/InteraccionChatbot/mensaje", 2d,
+            "/api/IA/consultar", 2d,
+            "/api/RutinaIA/estructurada", 2d);
+    // Rutas cuyo prompt pasa por el motor de intenciones antes de decidir si llama a la IA
+    private static final Set<String> CLASIFICADAS = Set.of(
+            "/api/InteraccionChatbot/stream", "/api/InteraccionChatbot/mensaje");
+
+    // Rutas cuyo {idUsuario} es el usuario que hace la petición
+    private static final Pattern RUTA_CON_USUARIO = Pattern.compile(
+            "^/api/(?:InteraccionChatbot/busqueda|SesionChatbot/iniciar|SesionChatbot/activas)/(\\d+)(?:/|$)");
+    private static final Pattern ID_USUARIO = Pattern.compile("\\d{1,18}");
+    // Más que esto no es una consulta del chatbot: no se lee para buscar el idUsuario
+    private static final long MAXIMO_CUERPO = 64 * 1024;
+
+    @Autowired
+    private AdmisionChatbotService admisionService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MotorIntencionesService motorIntencionesService;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        return PREFIJOS.stream().noneMatch(uri::startsWith);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        // Si hubo que leer el cuerpo, la envoltura sigue por la cadena para que el controlador lo vuelva a leer
+        CuerpoLeido leido = necesitaCuerpo(request) ? new CuerpoLeido(request) : null;
+        if (leido != null) {
+            request = leido;
+        }
+        String cliente = cliente(request, leido);
+        Double costo = costo(request, leido);
+        try {
+            admisionService.admitir(cliente);
+            if (costo != null) {
+                admisionService.entrarCostosa(cliente, costo);
+            }
+        } catch (LimiteExcedidoException e) {
+            rechazar(response, HttpStatus.TOO_MANY_REQUESTS, e.getSegundosEspera(), "Demasiadas peticiones");
+            return;
+        } catch (ServicioSaturadoException e) {
+            rechazar(response, HttpStatus.SERVICE_UNAVAILABLE, e.getSegundosEspera(), "Servicio saturado");
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            rechazar(response, HttpStatus.SERVICE_UNAVAILABLE, 1, "Servicio saturado");
+            return;
+        }
+        if (costo == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        boolean asincrona = false;
+        try {
+            chain.doFilter(request, response);
+            // Respuestas diferidas (CompletableFuture, SSE): el permiso se devuelve cuando la respuesta termina de verdad
+            if (request.isAsyncStarted()) {
+                AtomicBoolean liberado = new AtomicBoolean();
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        liberar(liberado);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                        liberar(liberado);
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                        liberar(liberado);
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+                asincrona = true;
+            }
+        } finally {
+            if (!asincrona) {
+                admisionService.salirCostosa();
+            }
+        }
+    }
+
+    private void liberar(AtomicBoolean liberado) {
+        if (liberado.compareAndSet(false, true)) {
+            admisionService.salirCostosa();
+        }
+    }
+
+    // Con Bearer el usuario sale del token. Con la cuenta de servicio el idUsuario lo declara la app: sirve para
+    // repartir las cubetas entre usuarios, no como identidad; quien lo falsee igual choca con la cubeta global
+    private String cliente(HttpServletRequest request, CuerpoLeido leido) {
+        Authentication autenticacion = SecurityContextHolder.getContext().getAuthentication();
+        if (autenticacion != null && autenticacion.isAuthenticated() && !(autenticacion instanceof AnonymousAuthenticationToken)
+                && !(autenticacion.getPrincipal() instanceof UserDetails)) {
+            return "u:" + autenticacion.getName();
+        }
+        String idUsuario = idUsuarioDeLaPeticion(request, leido);
+        return idUsuario != null ? "u:" + idUsuario : "ip:" + request.getRemoteAddr();
+    }
+
+    private Double costo(HttpServletRequest request, CuerpoLeido leido) {
+        if (!"POST".equals(request.getMethod())) {
+            return null;
+        }
+        Double costo = COSTOSAS.get(request.getRequestURI());
+        if (costo != null && CLASIFICADAS.contains(request.getRequestURI()) && leido != null && !requiereIA(leido)) {
+            return null;
+        }
+        return costo;
+    }
+
+    // Sin prompt legible se cobra como si fuera a la IA; el controlador rechazará la petición si no es válida
+    private boolean requiereIA(CuerpoLeido leido) {
+        try {
+            JsonNode prompt = objectMapper.readTree(leido.cuerpo()).path("prompt");
+            if (!prompt.isTextual() || prompt.asText().isBlank()) {
+                return true;
+            }
+            return motorIntencionesService.clasificar(prompt.asText()).intencion().requiereIA;
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    private static boolean necesitaCuerpo(HttpServletRequest request) {
+        long longitud = request.getContentLengthLong();
+        if (!"POST".equals(request.getMethod())
+                || request.getContentType() == null || !request.getContentType().startsWith(MediaType.APPLICATION_JSON_VALUE)
+                || longitud <= 0 || longitud > MAXIMO_CUERPO) {
+            return false;
+        }
+        if (CLASIFICADAS.contains(request.getRequestURI())) {
+            return true;
+        }
+        Authentication autenticacion = SecurityContextHolder.getContext().getAuthentication();
+        return autenticacion != null && autenticacion.getPrincipal() instanceof UserDetails
+                && !RUTA_CON_USUARIO.matcher(request.getRequestURI()).find()
+                && request.getParameter("idUsuario") == null;
+    }
+
+    private String idUsuarioDeLaPeticion(HttpServletRequest request, CuerpoLeido leido) {
+        Matcher ruta = RUTA_CON_USUARIO.matcher(request.getRequestURI());
+        if (ruta.find()) {
+            return valido(ruta.group(1));
+        }
+        String parametro = request.getParameter("idUsuario");
+        if (parametro != null) {
+            return valido(parametro.trim());
+        }
+        if (leido == null) {
+            return null;
+        }
+        try {
+            JsonNode campo = objectMapper.readTree(leido.cuerpo()).path("idUsuario");
+            return campo.isIntegralNumber() || campo.isTextual() ? valido(campo.asText()) : null;
+        } catch (IOException e) {
+            // Cuerpo inválido: lo rechazará el controlador; aquí cuenta por IP
+            return null;
+        }
+    }
+
+    private static String valido(String idUsuario) {
+        return ID_USUARIO.matcher(idUsuario).matches() ? String.valueOf(Long.parseLong(idUsuario)) : null;
+    }
+
+    private static void rechazar(HttpServletResponse response, HttpStatus estado, long segundos, String mensaje) throws IOException {
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, segundos)));
+        response.sendError(estado.value(), mensaje);
+    }
+}
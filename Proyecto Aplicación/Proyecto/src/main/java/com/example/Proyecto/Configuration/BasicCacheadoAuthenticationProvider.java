@@ -0,0 +1,107 @@
+package com.example.Proyecto.Configuration;
+
+import com.example.Proyecto.Service.HashContrasenaService;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * httpBasic verifica la contraseña con BCrypt en cada petición. Este proveedor guarda los resultados correctos
+ * durante un tiempo (clave: usuario + HMAC de la contraseña con una clave aleatoria del proceso, nunca la contraseña)
+ * y, cuando no hay acierto, ejecuta la verificación en el pool de hash acotado.
+ */
+public class BasicCacheadoAuthenticationProvider implements AuthenticationProvider {
+
+    private record Entrada(Authentication autenticacion, long expiraEn) {
+    }
+
+    private static final int MAX_ENTRADAS = 1000;
+
+    private final AuthenticationProvider delegado;
+    private final HashContrasenaService hashContrasenaService;
+    private final long ttlMillis;
+    private final SecretKeySpec clave;
+    private final ConcurrentHashMap<String, Entrada> cache = new ConcurrentHashMap<>();
+
+    public BasicCacheadoAuthenticationProvider(AuthenticationProvider delegado, HashContrasenaService hashContrasenaService, long ttlSegundos) {
+        this.delegado = delegado;
+        this.hashContrasenaService = hashContrasenaService;
+        this.ttlMillis = ttlSegundos * 1000;
+        byte[] bytes = new byte[32];
+        new SecureRandom().nextBytes(bytes);
+        this.clave = new SecretKeySpec(bytes, "HmacSHA256");
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        String llave = llave(authentication.getName(), String.valueOf(authentication.getCredentials()));
+        long ahora = System.currentTimeMillis();
+        Entrada entrada = cache.get(llave);
+        if (entrada != null && entrada.expiraEn() > ahora) {
+            return entrada.autenticacion();
+        }
+
+        Authentication resultado = verificarEnPool(authentication);
+        if (resultado != null && resultado.isAuthenticated()) {
+            if (cache.size() >= MAX_ENTRADAS) {
+                cache.values().removeIf(e -> e.expiraEn() <= ahora);
+                if (cache.size() >= MAX_ENTRADAS) {
+                    cache.clear();
+                }
+            }
+            cache.put(llave, new Entrada(resultado, ahora + ttlMillis));
+        }
+        return resultado;
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return UsernamePasswordAuthenticationToken.class.isAssignableFrom(authentication);
+    }
+
+    private Authentication verificarEnPool(Authentication authentication) {
+        CompletableFuture<Authentication> tarea;
+        try {
+            tarea = CompletableFuture.supplyAsync(() -> delegado.authenticate(authentication), hashContrasenaService.ejecutorHash);
+        } catch (RuntimeException e) {
+            throw new AuthenticationServiceException("Verificación de credenciales saturada", e);
+        }
+        try {
+            return tarea.get(10, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof AuthenticationException ae) {
+                throw ae;
+            }
+            throw new AuthenticationServiceException("Error verificando credenciales", e.getCause());
+        } catch (TimeoutException e) {
+            throw new AuthenticationServiceException("Tiempo de verificación agotado", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AuthenticationServiceException("Verificación interrumpida", e);
+        }
+    }
+
+    private String llave(String usuario, String contrasena) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(clave);
+            return usuario + ":" + HexFormat.of().formatHex(mac.doFinal(contrasena.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
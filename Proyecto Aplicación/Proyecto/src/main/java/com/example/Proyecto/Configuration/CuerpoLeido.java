@@ -0,0 +1,68 @@
+package com.example.Proyecto.Configuration;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Lee el cuerpo completo una vez y lo vuelve a servir al controlador. Lo usan los filtros que necesitan el cuerpo
+ * antes que Spring MVC (Admisión para el idUsuario, Idempotencia para el hash de la clave); el primero que lo lee
+ * pasa la envoltura por la cadena y el siguiente la encuentra con WebUtils.getNativeRequest.
+ */
+class CuerpoLeido extends HttpServletRequestWrapper {
+    private final byte[] cuerpo;
+
+    CuerpoLeido(HttpServletRequest request) throws IOException {
+        super(request);
+        this.cuerpo = request.getInputStream().readAllBytes();
+    }
+
+    byte[] cuerpo() {
+        return cuerpo;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() {
+        ByteArrayInputStream entrada = new ByteArrayInputStream(cuerpo);
+        return new ServletInputStream() {
+            @Override
+            public int read() {
+                return entrada.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                return entrada.read(b, off, len);
+            }
+
+            @Override
+            public boolean isFinished() {
+                return entrada.available() == 0;
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setReadListener(ReadListener listener) {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    @Override
+    public BufferedReader getReader() {
+        String codificacion = getCharacterEncoding() != null ? getCharacterEncoding() : StandardCharsets.UTF_8.name();
+        return new BufferedReader(new InputStreamReader(getInputStream(), Charset.forName(codificacion)));
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.Proyecto.Configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class EjecutorConfiguration {
+
+    // Ejecutor de hilos virtuales para consultas en paralelo (vista del día, etc.)
+    @Bean(name = "ejecutorVirtual", destroyMethod = "close")
+    public ExecutorService ejecutorVirtual() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    // Pool acotado para BCrypt: pocos hilos y cola corta; si se llena se rechaza (AbortPolicy) y se responde 503
+    @Bean(name = "ejecutorHash", destroyMethod = "shutdown")
+    public ExecutorService ejecutorHash(@Value("${seguridad.hash.hilos:2}") int hilos,
+                                        @Value("${seguridad.hash.cola:32}") int cola) {
+        return new ThreadPoolExecutor(hilos, hilos, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(cola),
+                Thread.ofPlatform().name("hash-", 0).daemon(true).factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+}
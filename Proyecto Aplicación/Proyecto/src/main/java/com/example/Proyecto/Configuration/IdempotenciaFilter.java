@@ -0,0 +1,187 @@
+package com.example.Proyecto.Configuration;
+
+import com.example.Proyecto.Service.IdempotenciaService;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.WebUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Aplica la cabecera Idempotency-Key a todos los POST de /api/**.
+ *
+ * - Clave nueva: se ejecuta la petición y, si responde 2xx, se guarda la respuesta.
+ * - Clave repetida: se devuelve la respuesta guardada sin tocar la BD (cabecera Idempotent-Replayed: true).
+ * - Clave repetida mientras la original sigue en curso: 409 Conflict.
+ * Las respuestas de error no se guardan, así el cliente puede reintentar con la misma clave.
+ *
+ * La clave efectiva incluye el usuario autenticado y un hash del cuerpo: la misma Idempotency-Key de otro usuario
+ * o con otro cuerpo es otra petición. Las respuestas diferidas (CompletableFuture) se guardan al terminar el
+ * despacho asíncrono; las de streaming (SSE) no pasan por aquí porque no se pueden guardar en memoria.
+ */
+@Component
+public class IdempotenciaFilter extends OncePerRequestFilter {
+
+    public static final String CABECERA = "Idempotency-Key";
+    private static final int LONGITUD_MAXIMA_CLAVE = 100;
+    private static final String ATRIBUTO_CLAVE = IdempotenciaFilter.class.getName() + ".clave";
+
+    // Respuestas en streaming: se escriben durante minutos y no tiene sentido repetirlas
+    private static final Set<String> RUTAS_STREAMING = Set.of("/api/InteraccionChatbot/stream");
+
+    @Autowired
+    private IdempotenciaService idempotenciaService;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod())
+                || !request.getRequestURI().startsWith("/api/")
+                || request.getHeader(CABECERA) == null
+                || RUTAS_STREAMING.contains(request.getRequestURI());
+    }
+
+    // El despacho asíncrono también pasa por el filtro para volcar y guardar la respuesta diferida
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (isAsyncDispatch(request)) {
+            ContentCachingResponseWrapper envoltura = WebUtils.getNativeResponse(response, ContentCachingResponseWrapper.class);
+            String clave = (String) request.getAttribute(ATRIBUTO_CLAVE);
+            chain.doFilter(request, response);
+            if (envoltura != null && clave != null && !request.isAsyncStarted()) {
+                terminar(clave, envoltura);
+            }
+            return;
+        }
+
+        String claveCliente = request.getHeader(CABECERA).trim();
+        if (claveCliente.isEmpty() || claveCliente.length() > LONGITUD_MAXIMA_CLAVE) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), "Idempotency-Key inválida");
+            return;
+        }
+        // Si Admisión ya leyó el cuerpo se reutiliza
+        CuerpoLeido leido = WebUtils.getNativeRequest(request, CuerpoLeido.class);
+        CuerpoLeido conCuerpo = leido != null ? leido : new CuerpoLeido(request);
+        String clave = request.getRequestURI() + "|" + sha256(usuario() + "|" + claveCliente + "|" + sha256(conCuerpo.cuerpo()));
+
+        Optional<IdempotenciaService.RespuestaGuardada> previa = idempotenciaService.buscar(clave);
+        if (previa.isPresent()) {
+            responderGuardada(previa.get(), response);
+            return;
+        }
+        if (!idempotenciaService.reservar(clave)) {
+            response.sendError(HttpStatus.CONFLICT.value(), "Petición con la misma Idempotency-Key en curso");
+            return;
+        }
+
+        ContentCachingResponseWrapper envoltura = new ContentCachingResponseWrapper(response);
+        boolean asincrona = false;
+        try {
+            chain.doFilter(conCuerpo, envoltura);
+            if (conCuerpo.isAsyncStarted()) {
+                // La respuesta se escribe en el despacho asíncrono; si nunca llega (timeout, desconexión) se libera la clave
+                conCuerpo.setAttribute(ATRIBUTO_CLAVE, clave);
+                conCuerpo.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        idempotenciaService.liberar(clave);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                        idempotenciaService.liberar(clave);
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                        idempotenciaService.liberar(clave);
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+                asincrona = true;
+                return;
+            }
+        } finally {
+            if (!asincrona) {
+                terminar(clave, envoltura);
+            }
+        }
+    }
+
+    // Guarda la respuesta si fue 2xx (si no, libera la clave) y la envía al cliente
+    private void terminar(String clave, ContentCachingResponseWrapper envoltura) throws IOException {
+        boolean guardada = false;
+        try {
+            int estado = envoltura.getStatus();
+            if (estado >= 200 && estado < 300) {
+                idempotenciaService.guardar(clave, estado, envoltura.getContentType(), envoltura.getContentAsByteArray());
+                guardada = true;
+            }
+        } finally {
+            if (!guardada) {
+                idempotenciaService.liberar(clave);
+            }
+            envoltura.copyBodyToResponse();
+        }
+    }
+
+    private static String usuario() {
+        Authentication autenticacion = SecurityContextHolder.getContext().getAuthentication();
+        if (autenticacion == null || autenticacion instanceof AnonymousAuthenticationToken) {
+            return "";
+        }
+        return autenticacion.getName();
+    }
+
+    private static String sha256(String texto) {
+        return sha256(texto.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String sha256(byte[] datos) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(datos));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void responderGuardada(IdempotenciaService.RespuestaGuardada guardada, HttpServletResponse response) throws IOException {
+        if (guardada.enCurso()) {
+            response.sendError(HttpStatus.CONFLICT.value(), "Petición con la misma Idempotency-Key en curso");
+            return;
+        }
+        response.setStatus(guardada.estado());
+        if (guardada.contentType() != null) {
+            response.setContentType(guardada.contentType());
+        }
+        response.setHeader("Idempotent-Replayed", "true");
+        response.setContentLength(guardada.cuerpo().length);
+        response.getOutputStream().write(guardada.cuerpo());
+    }
+}
@@ -1,14 +1,20 @@
 package com.example.Proyecto.Configuration;
 
+import com.example.Proyecto.Service.HashContrasenaService;
+import com.example.Proyecto.Service.TokenAccesoService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
@@ -17,13 +23,26 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 public class SeguridadConfiguration {
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, TokenAccesoService tokenAccesoService,
+                                                   UserDetailsService userDetailsService, PasswordEncoder passwordEncoder,
+                                                   HashContrasenaService hashContrasenaService,
+                                                   @Value("${seguridad.basic-cache-segundos:300}") long basicCacheSegundos) throws Exception {
+        DaoAuthenticationProvider dao = new DaoAuthenticationProvider();
+        dao.setUserDetailsService(userDetailsService);
+        dao.setPasswordEncoder(passwordEncoder);
+
         http
                 .csrf(csrf -> csrf.disable()) // solo para desarrollo y pruebas con Postman
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/public/**").permitAll()
+                        .requestMatchers("/api/Auth/login", "/api/Auth/refrescar", "/api/Auth/logout").permitAll()
                         .anyRequest().authenticated()
                 )
+                // Bearer (token de acceso firmado) antes que httpBasic; los clientes con Basic siguen funcionando
+                .addFilterBefore(new TokenAutenticacionFilter(tokenAccesoService), BasicAuthenticationFilter.class)
+                // Evita un BCrypt por petición para la cuenta de servicio de httpBasic
+                .authenticationManager(new ProviderManager(
+                        new BasicCacheadoAuthenticationProvider(dao, hashContrasenaService, basicCacheSegundos)))
                 .httpBasic(httpBasic -> {}); //  forma moderna de habilitar httpBasic
 
         return http.build();
@@ -41,8 +60,9 @@ public class SeguridadConfiguration {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${seguridad.bcrypt-costo:10}") int costo) {
+        // Al cambiar el coste, los hashes antiguos se actualizan en el siguiente login correcto
+        return new BCryptPasswordEncoder(costo);
     }
 }
 
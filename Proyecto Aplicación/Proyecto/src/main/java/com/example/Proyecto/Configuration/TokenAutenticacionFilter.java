@@ -0,0 +1,46 @@
+package com.example.Proyecto.Configuration;
+
+import com.example.Proyecto.Service.TokenAccesoService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Autentica peticiones con "Authorization: Bearer <token>" verificando solo la firma,
+ * la expiración y el conjunto de revocaciones en memoria (sin consultar la base de datos).
+ * Cualquier otra cabecera sigue su camino hacia httpBasic.
+ */
+public class TokenAutenticacionFilter extends OncePerRequestFilter {
+
+    private static final String PREFIJO = "Bearer ";
+    private static final List<SimpleGrantedAuthority> ROLES = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+
+    private final TokenAccesoService tokenAccesoService;
+
+    public TokenAutenticacionFilter(TokenAccesoService tokenAccesoService) {
+        this.tokenAccesoService = tokenAccesoService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String cabecera = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (cabecera != null && cabecera.startsWith(PREFIJO)) {
+            tokenAccesoService.validar(cabecera.substring(PREFIJO.length()).trim()).ifPresent(token -> {
+                UsernamePasswordAuthenticationToken autenticacion =
+                        new UsernamePasswordAuthenticationToken(token.idUsuario(), null, ROLES);
+                SecurityContextHolder.getContext().setAuthentication(autenticacion);
+            });
+        }
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.Proyecto.Configuration;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Configuration
+public class TransaccionesConfiguration {
+
+    // La plantilla por defecto (REQUIRED); se declara aquí porque la de Spring Boot se retira al haber otra
+    @Bean
+    @Primary
+    public TransactionTemplate transactionTemplate(PlatformTransactionManager transactionManager) {
+        return new TransactionTemplate(transactionManager);
+    }
+
+    // Siempre en una transacción propia: su commit o rollback no depende de quien la llama
+    @Bean(name = "transaccionNueva")
+    public TransactionTemplate transaccionNueva(PlatformTransactionManager transactionManager) {
+        TransactionTemplate plantilla = new TransactionTemplate(transactionManager);
+        plantilla.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return plantilla;
+    }
+}
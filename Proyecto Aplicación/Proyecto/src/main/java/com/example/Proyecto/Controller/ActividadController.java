@@ -2,12 +2,15 @@ package com.example.Proyecto.Controller;
 
 import com.example.Proyecto.DTO.ActividadDiaDTO;
 import com.example.Proyecto.Service.ActividadService;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -20,9 +23,17 @@ public class ActividadController {
         this.actividadService = actividadService;
     }
 
+    // Sin desde/hasta devuelve todo el historial
     @GetMapping("/dias-con-actividad/{idUsuario}")
-    public ResponseEntity<List<ActividadDiaDTO>> obtenerDiasConActividad(@PathVariable Long idUsuario) {
-        List<ActividadDiaDTO> actividad = actividadService.obtenerDiasConActividad(idUsuario);
+    public ResponseEntity<List<ActividadDiaDTO>> obtenerDiasConActividad(
+            @PathVariable Long idUsuario,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        List<ActividadDiaDTO> actividad = (desde == null && hasta == null)
+                ? actividadService.obtenerDiasConActividad(idUsuario)
+                : actividadService.obtenerDiasConActividad(idUsuario,
+                        desde != null ? desde : LocalDate.of(1, 1, 1),
+                        hasta != null ? hasta : LocalDate.of(9999, 12, 31));
         return ResponseEntity.ok(actividad);
     }
 }
@@ -1,5 +1,6 @@
 package com.example.Proyecto.Controller;
 
+import com.example.Proyecto.DTO.AlimentoDTO;
 import com.example.Proyecto.Model.Alimento;
 import com.example.Proyecto.Service.AlimentoService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,9 +20,9 @@ public class AlimentoController {
     public AlimentoService alimentoService;
 
     @GetMapping("/buscar/{idAlimento}")
-    public ResponseEntity<Alimento> listarPorIdAlimento(@PathVariable long idAlimento){
+    public ResponseEntity<AlimentoDTO> listarPorIdAlimento(@PathVariable long idAlimento){
         try {
-            Optional<Alimento> alimentoOpt = alimentoService.listarPorIdAlimento(idAlimento);
+            Optional<AlimentoDTO> alimentoOpt = alimentoService.listarPorIdAlimento(idAlimento);
             return alimentoOpt.map(alimento -> new ResponseEntity<>(alimento, HttpStatus.OK))
                     .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND)); // 404 Not Found
         } catch (IllegalArgumentException e) {
@@ -30,10 +31,10 @@ public class AlimentoController {
     }
 
     @PostMapping("/guardar")
-    public ResponseEntity<Alimento> guardarAlimento(@RequestBody Alimento alimento){
+    public ResponseEntity<AlimentoDTO> guardarAlimento(@RequestBody Alimento alimento){
         try {
             Alimento nuevoAlimento = alimentoService.guardarAlimento(alimento);
-            return new ResponseEntity<>(nuevoAlimento, HttpStatus.CREATED); // 201 Created
+            return new ResponseEntity<>(AlimentoDTO.de(nuevoAlimento), HttpStatus.CREATED); // 201 Created
         } catch (IllegalArgumentException e) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST); // 400 Bad Request
         }
@@ -52,10 +53,10 @@ public class AlimentoController {
     }
 
     @PutMapping("/actualizar/{id_alimento}")
-    public ResponseEntity<Alimento> actualizarAlimento(@PathVariable long id_alimento, @RequestBody Alimento alimentoActualizado){
+    public ResponseEntity<AlimentoDTO> actualizarAlimento(@PathVariable long id_alimento, @RequestBody Alimento alimentoActualizado){
         try {
             Alimento alimento = alimentoService.actualizarAlimento(id_alimento, alimentoActualizado);
-            return new ResponseEntity<>(alimento, HttpStatus.OK); // 200 OK
+            return new ResponseEntity<>(AlimentoDTO.de(alimento), HttpStatus.OK); // 200 OK
         } catch (NoSuchElementException e) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND); // 404 Not Found
         } catch (IllegalArgumentException e) {
@@ -64,8 +65,8 @@ public class AlimentoController {
     }
 
     @GetMapping("/alimentoCategoria/{categoria}")
-    public ResponseEntity<List<Alimento>> obtenerAlimentosPorCategoria(@PathVariable String categoria) {
-        List<Alimento> alimentos = alimentoService.obtenerAlimentosPorCategoria(categoria);
+    public ResponseEntity<List<AlimentoDTO>> obtenerAlimentosPorCategoria(@PathVariable String categoria) {
+        List<AlimentoDTO> alimentos = alimentoService.obtenerAlimentosPorCategoria(categoria);
         if (alimentos != null && !alimentos.isEmpty()) {
             return ResponseEntity.ok(alimentos);
         } else {
@@ -74,20 +75,20 @@ public class AlimentoController {
     }
 
     @GetMapping("/alimentosUsuario/{id_usuario}")
-    public ResponseEntity<List<Alimento>> obtenerAlimentosPorUsuario(@Param("id_usuario") Long id_usuario){
-        List<Alimento> alimentos = alimentoService.obtenerAlimentosPorUsuario(id_usuario);
+    public ResponseEntity<List<AlimentoDTO>> obtenerAlimentosPorUsuario(@Param("id_usuario") Long id_usuario){
+        List<AlimentoDTO> alimentos = alimentoService.obtenerAlimentosPorUsuario(id_usuario);
         return new ResponseEntity<>(alimentos, HttpStatus.OK);
     }
 
     @GetMapping("/InfNutricional/{id_alimento}")
-    public ResponseEntity<Alimento> obtenerInfNutricional(@Param("id_alimento") Long id_alimento){
-        Alimento alimento = alimentoService.obtenerInfNutricional(id_alimento);
+    public ResponseEntity<AlimentoDTO> obtenerInfNutricional(@Param("id_alimento") Long id_alimento){
+        AlimentoDTO alimento = alimentoService.obtenerInfNutricional(id_alimento);
         return new ResponseEntity<>(alimento, HttpStatus.OK);
     }
 
     @GetMapping("/alimentoNombre/{nombre}")
-    public ResponseEntity<Alimento> obtenerAlimento(@PathVariable String nombre) {
-        Alimento alimento = alimentoService.obtenerAlimentoPorNombre(nombre);
+    public ResponseEntity<AlimentoDTO> obtenerAlimento(@PathVariable String nombre) {
+        AlimentoDTO alimento = alimentoService.obtenerAlimentoPorNombre(nombre);
         if (alimento != null) {
             return ResponseEntity.ok(alimento);
         } else {
@@ -96,13 +97,13 @@ public class AlimentoController {
     }
 
     @GetMapping("/listar")
-    public ResponseEntity<List<Alimento>> listarTodos() {
+    public ResponseEntity<List<AlimentoDTO>> listarTodos() {
         return ResponseEntity.ok(alimentoService.listarAlimentos());
     }
 
     @GetMapping("/buscar/nombre/{nombre}")
-    public ResponseEntity<Alimento> buscarPorNombre(@PathVariable String nombre) {
-        Alimento alimento = alimentoService.obtenerAlimentoPorNombre(nombre);
+    public ResponseEntity<AlimentoDTO> buscarPorNombre(@PathVariable String nombre) {
+        AlimentoDTO alimento = alimentoService.obtenerAlimentoPorNombre(nombre);
         return alimento != null ? ResponseEntity.ok(alimento) : ResponseEntity.notFound().build();
     }
 
@@ -119,7 +120,7 @@ public class AlimentoController {
     }
 
     @GetMapping("/favoritos/{idUsuario}")
-    public ResponseEntity<List<Alimento>> obtenerFavoritos(@PathVariable Long idUsuario) {
+    public ResponseEntity<List<AlimentoDTO>> obtenerFavoritos(@PathVariable Long idUsuario) {
         return ResponseEntity.ok(alimentoService.obtenerFavoritos(idUsuario));
     }
 
@@ -0,0 +1,67 @@
+package com.example.Proyecto.Controller;
+
+import com.example.Proyecto.DTO.LoginDTO;
+import com.example.Proyecto.DTO.RefrescarTokenDTO;
+import com.example.Proyecto.Service.TokenSesionService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequestMapping("/api/Auth")
+public class AutenticacionController {
+
+    private static final Logger log = LoggerFactory.getLogger(AutenticacionController.class);
+
+    @Autowired
+    public TokenSesionService tokenSesionService;
+
+    @PostMapping("/login")
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody LoginDTO login, HttpServletRequest request) {
+        try {
+            return tokenSesionService.iniciarSesion(login.getCorreo(), login.getContrasena(), request.getRemoteAddr())
+                    .<ResponseEntity<?>>thenApply(respuesta -> {
+                        if (respuesta == null) {
+                            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Credenciales incorrectas"));
+                        }
+                        return ResponseEntity.ok(respuesta);
+                    })
+                    .exceptionally(e -> {
+                        log.warn("Login rechazado o fallido: {}", e.getMessage());
+                        return ErroresLogin.aRespuesta(e);
+                    });
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(ErroresLogin.aRespuesta(e));
+        }
+    }
+
+    @PostMapping("/refrescar")
+    public ResponseEntity<?> refrescar(@RequestBody RefrescarTokenDTO dto) {
+        if (dto.getRefreshToken() == null || dto.getRefreshToken().isBlank()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "refreshToken es obligatorio"));
+        }
+        try {
+            return ResponseEntity.ok(tokenSesionService.refrescar(dto.getRefreshToken()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error al refrescar token: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", "Error al refrescar token"));
+        }
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestBody RefrescarTokenDTO dto) {
+        if (dto.getRefreshToken() != null && !dto.getRefreshToken().isBlank()) {
+            tokenSesionService.cerrarSesion(dto.getRefreshToken());
+        }
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.Proyecto.Controller;
 
+import com.example.Proyecto.DTO.ComidaRutinaIADTO;
 import com.example.Proyecto.Model.ComidaRutinaIA;
 import com.example.Proyecto.Service.ComidaRutinaIAService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,8 +19,10 @@ public class ComidaRutinaIAController {
     public ComidaRutinaIAService comidaRutinaIAService;
 
     @GetMapping("/listar")
-    public ResponseEntity<List<ComidaRutinaIA>> listarComidaRutinaIA() {
-        List<ComidaRutinaIA> comidaRutinaIAS = comidaRutinaIAService.listarComidaRutinaIA();
+    public ResponseEntity<List<ComidaRutinaIADTO>> listarComidaRutinaIA() {
+        List<ComidaRutinaIADTO> comidaRutinaIAS = comidaRutinaIAService.listarComidaRutinaIA().stream()
+                .map(ComidaRutinaIADTO::de)
+                .toList();
         // Verificar si la lista está vacía
         if (comidaRutinaIAS.isEmpty()) {
             return new ResponseEntity<>(HttpStatus.NO_CONTENT); // 204 No Content
@@ -28,10 +31,10 @@ public class ComidaRutinaIAController {
     }
 
     @GetMapping("/buscar/{id_comida}")
-    public ResponseEntity<ComidaRutinaIA> listarPorIdComidaRutinaIA(@PathVariable long id_comida){
+    public ResponseEntity<ComidaRutinaIADTO> listarPorIdComidaRutinaIA(@PathVariable long id_comida){
         try {
             Optional<ComidaRutinaIA> comidaOpt = comidaRutinaIAService.listarPorIdComidaRutinaIA(id_comida);
-            return comidaOpt.map(comidaRutinaIA -> new ResponseEntity<>(comidaRutinaIA, HttpStatus.OK))
+            return comidaOpt.map(comidaRutinaIA -> new ResponseEntity<>(ComidaRutinaIADTO.de(comidaRutinaIA), HttpStatus.OK))
                     .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND)); // 404 Not Found
         } catch (IllegalArgumentException e) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST); // 400 Bad Request
@@ -39,10 +42,10 @@ public class ComidaRutinaIAController {
     }
 
     @PostMapping("/guardar")
-    public ResponseEntity<ComidaRutinaIA> guardarComidaRutinaIA(@RequestBody ComidaRutinaIA comidaRutinaIA){
+    public ResponseEntity<ComidaRutinaIADTO> guardarComidaRutinaIA(@RequestBody ComidaRutinaIA comidaRutinaIA){
         try {
             ComidaRutinaIA nuevoComida = comidaRutinaIAService.guardarComidaRutinaIA(comidaRutinaIA);
-            return new ResponseEntity<>(nuevoComida, HttpStatus.CREATED); // 201 Created
+            return new ResponseEntity<>(ComidaRutinaIADTO.de(nuevoComida), HttpStatus.CREATED); // 201 Created
         } catch (IllegalArgumentException e) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST); // 400 Bad Request
         }
@@ -61,14 +64,39 @@ public class ComidaRutinaIAController {
     }
 
     @PutMapping("/actualizar/{id_comida}")
-    public ResponseEntity<ComidaRutinaIA> actualizarComidaRutinaIA(@PathVariable long id_comida, @RequestBody ComidaRutinaIA comidaActualizado){
+    public ResponseEntity<ComidaRutinaIADTO> actualizarComidaRutinaIA(@PathVariable long id_comida, @RequestBody ComidaRutinaIA comidaActualizado){
         try {
             ComidaRutinaIA comidaRutinaIA = comidaRutinaIAService.actualizarComidaRutinaIA(id_comida, comidaActualizado);
-            return new ResponseEntity<>(comidaRutinaIA, HttpStatus.OK); // 200 OK
+            return new ResponseEntity<>(ComidaRutinaIADTO.de(comidaRutinaIA), HttpStatus.OK); // 200 OK
         } catch (NoSuchElementException e) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND); // 404 Not Found
         } catch (IllegalArgumentException e) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST); // 400 Bad Request
         }
     }
+
+    // Agrega un alimento del catálogo a la comida; sin unidad se usa la unidad base del alimento
+    @PostMapping("/{id_comida}/alimentos")
+    public ResponseEntity<ComidaRutinaIADTO> agregarAlimento(@PathVariable long id_comida,
+                                                          @RequestParam Long idAlimento,
+                                                          @RequestParam Float cantidad,
+                                                          @RequestParam(required = false) String unidad){
+        try {
+            return new ResponseEntity<>(ComidaRutinaIADTO.de(comidaRutinaIAService.obtenerAlimentoAComida(id_comida, idAlimento, cantidad, unidad)), HttpStatus.OK); // 200 OK
+        } catch (NoSuchElementException e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND); // 404 Not Found
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST); // 400 Bad Request
+        }
+    }
+
+    // Quita un alimento de la comida por su idItem (el mismo alimento puede estar dos veces con distinta cantidad)
+    @DeleteMapping("/{id_comida}/alimentos/{id_item}")
+    public ResponseEntity<ComidaRutinaIADTO> quitarAlimento(@PathVariable long id_comida, @PathVariable long id_item){
+        try {
+            return new ResponseEntity<>(ComidaRutinaIADTO.de(comidaRutinaIAService.eliminarAlimentoDeComidas(id_comida, id_item)), HttpStatus.OK); // 200 OK
+        } catch (NoSuchElementException e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND); // 404 Not Found
+        }
+    }
 }
@@ -1,5 +1,6 @@
 package com.example.Proyecto.Controller;
 
+import com.example.Proyecto.DTO.ConfiguracionAplicacionDTO;
 import com.example.Proyecto.Model.ConfiguracionAplicacion;
 import com.example.Proyecto.Service.ConfiguracionAplicacionService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,8 +19,8 @@ public class ConfiguracionAplicacionController {
     public ConfiguracionAplicacionService configuracionService;
 
     @GetMapping("/listar")
-    public ResponseEntity<List<ConfiguracionAplicacion>> listarConfiguracionAplicacion() {
-        List<ConfiguracionAplicacion> configuracionAplicacions = configuracionService.listarConfiguracionesAplicacion();
+    public ResponseEntity<List<ConfiguracionAplicacionDTO>> listarConfiguracionAplicacion() {
+        List<ConfiguracionAplicacionDTO> configuracionAplicacions = configuracionService.listarConfiguracionesAplicacion();
         // Verificar si la lista está vacía
         if (configuracionAplicacions.isEmpty()) {
             return new ResponseEntity<>(HttpStatus.NO_CONTENT); // 204 No Content
@@ -28,10 +29,10 @@ public class ConfiguracionAplicacionController {
     }
 
     @GetMapping("/buscar/{id_configuracion}")
-    public ResponseEntity<ConfiguracionAplicacion> listarPorIdConfiguracionAplicacion(@PathVariable long id_configuracion){
+    public ResponseEntity<ConfiguracionAplicacionDTO> listarPorIdConfiguracionAplicacion(@PathVariable long id_configuracion){
         try {
             Optional<ConfiguracionAplicacion> configuracionOpt = configuracionService.listarPorIdConfiguracionAplicacion(id_configuracion);
-            return configuracionOpt.map(configuracionAplicacion -> new ResponseEntity<>(configuracionAplicacion, HttpStatus.OK))
+            return configuracionOpt.map(configuracionAplicacion -> new ResponseEntity<>(ConfiguracionAplicacionDTO.de(configuracionAplicacion), HttpStatus.OK))
                     .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND)); // 404 Not Found
         } catch (IllegalArgumentException e) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST); // 400 Bad Request
@@ -39,10 +40,10 @@ public class ConfiguracionAplicacionController {
     }
 
     @PostMapping("/guardar")
-    public ResponseEntity<ConfiguracionAplicacion> guardarConfiguracionAplicacion(@RequestBody ConfiguracionAplicacion configuracionAplicacion){
+    public ResponseEntity<ConfiguracionAplicacionDTO> guardarConfiguracionAplicacion(@RequestBody ConfiguracionAplicacion configuracionAplicacion){
         try {
             ConfiguracionAplicacion nuevoConfiguracion = configuracionService.guardarConfiguracionAplicacion(configuracionAplicacion);
-            return new ResponseEntity<>(nuevoConfiguracion, HttpStatus.CREATED); // 201 Created
+            return new ResponseEntity<>(ConfiguracionAplicacionDTO.de(nuevoConfiguracion), HttpStatus.CREATED); // 201 Created
         } catch (IllegalArgumentException e) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST); // 400 Bad Request
         }
@@ -61,10 +62,10 @@ public class ConfiguracionAplicacionController {
     }
 
     @PutMapping("/actualizar/{id_configuracion}")
-    public ResponseEntity<ConfiguracionAplicacion> actualizarConfiguracionAplicacion(@PathVariable long id_configuracion, @RequestBody ConfiguracionAplicacion configuracionActualizado){
+    public ResponseEntity<ConfiguracionAplicacionDTO> actualizarConfiguracionAplicacion(@PathVariable long id_configuracion, @RequestBody ConfiguracionAplicacion configuracionActualizado){
         try {
             ConfiguracionAplicacion configuracionAplicacion = configuracionService.actualizarConfiguracionAplicacion(id_configuracion, configuracionActualizado);
-            return new ResponseEntity<>(configuracionAplicacion, HttpStatus.OK); // 200 OK
+            return new ResponseEntity<>(ConfiguracionAplicacionDTO.de(configuracionAplicacion), HttpStatus.OK); // 200 OK
         } catch (NoSuchElementException e) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND); // 404 Not Found
         } catch (IllegalArgumentException e) {
@@ -0,0 +1,36 @@
+package com.example.Proyecto.Controller;
+
+import com.example.Proyecto.DTO.ContextoNutricionalDTO;
+import com.example.Proyecto.Service.ContextoNutricionalService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.NoSuchElementException;
+
+@RestController
+@RequestMapping("/api/ContextoNutricional")
+public class ContextoNutricionalController {
+    @Autowired
+    public ContextoNutricionalService contextoService;
+
+    // Perfil, objetivos, totales de hoy y de la semana, favoritos y exclusiones en una sola llamada.
+    // Con If-None-Match igual a la versión vigente responde 304 sin cuerpo.
+    @GetMapping("/{idUsuario}")
+    public ResponseEntity<ContextoNutricionalDTO> obtenerContexto(
+            @PathVariable Long idUsuario,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        try {
+            ContextoNutricionalDTO contexto = contextoService.obtener(idUsuario);
+            String etiqueta = "\"" + contexto.version() + "\"";
+            if (etiqueta.equals(ifNoneMatch)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etiqueta).build(); // 304 Not Modified
+            }
+            return ResponseEntity.ok().eTag(etiqueta).body(contexto); // 200 OK
+        } catch (NoSuchElementException e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND); // 404 Not Found
+        }
+    }
+}
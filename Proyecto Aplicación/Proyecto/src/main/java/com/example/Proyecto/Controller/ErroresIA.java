@@ -0,0 +1,46 @@
+package com.example.Proyecto.Controller;
+
+import com.example.Proyecto.Service.LimiteIntentosService.LimiteExcedidoException;
+import com.example.Proyecto.Service.PasarelaIAService.ProveedorNoDisponibleException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Traduce los errores de la pasarela de IA a respuestas HTTP (400, 404, 429, 503, 504 y 502).
+ */
+final class ErroresIA {
+
+    private ErroresIA() {
+    }
+
+    static ResponseEntity<?> aRespuesta(Throwable error) {
+        Throwable causa = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (causa instanceof IllegalArgumentException) {
+            return ResponseEntity.badRequest().body(Map.of("error", causa.getMessage()));
+        }
+        if (causa instanceof NoSuchElementException) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", causa.getMessage()));
+        }
+        if (causa instanceof LimiteExcedidoException limite) {
+            // Ya hay demasiadas consultas del mismo usuario en curso
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, limite.getSegundosEspera())))
+                    .build();
+        }
+        if (causa instanceof ProveedorNoDisponibleException circuito) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(circuito.getSegundosEspera()))
+                    .build();
+        }
+        if (causa instanceof TimeoutException) {
+            return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).build();
+        }
+        return ResponseEntity.status(HttpStatus.BAD_GATEWAY).build();
+    }
+}
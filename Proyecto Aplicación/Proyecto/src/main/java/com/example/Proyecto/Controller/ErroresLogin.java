@@ -0,0 +1,34 @@
+package com.example.Proyecto.Controller;
+
+import com.example.Proyecto.Service.LimiteIntentosService.LimiteExcedidoException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Traduce los errores del login asíncrono a respuestas HTTP (429 y 503 con Retry-After).
+ */
+final class ErroresLogin {
+
+    private ErroresLogin() {
+    }
+
+    static <T> ResponseEntity<T> aRespuesta(Throwable error) {
+        Throwable causa = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (causa instanceof LimiteExcedidoException limite) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, limite.getSegundosEspera())))
+                    .build();
+        }
+        if (causa instanceof RejectedExecutionException) {
+            // Pool de hash saturado: se pide reintentar en lugar de encolar sin límite
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .build();
+        }
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+    }
+}
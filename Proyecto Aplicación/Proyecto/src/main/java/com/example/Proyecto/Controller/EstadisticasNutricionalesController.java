@@ -2,9 +2,10 @@ package com.example.Proyecto.Controller;
 
 import com.example.Proyecto.DTO.EstadisticaPorDiaDTO;
 import com.example.Proyecto.DTO.EstadisticaPorMesDTO;
+import com.example.Proyecto.DTO.EstadisticasNutricionalesDTO;
+import com.example.Proyecto.DTO.HidratacionPeriodoDTO;
 import com.example.Proyecto.DTO.NutrientesRecomendadosDTO;
 import com.example.Proyecto.DTO.NutrientesTotalesDTO;
-import com.example.Proyecto.Model.EstadisticasNutricionales;
 import com.example.Proyecto.Service.EstadisticasNutricionalesService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -74,6 +75,39 @@ public class EstadisticasNutricionalesController {
         List<EstadisticaPorMesDTO> datos = estadisticasService.obtenerConsumoPorMesDelAnio(idUsuario, anio);
         return ResponseEntity.ok(datos);
     }
+    // Hidratación por día en un rango (una sola consulta agrupada)
+    @GetMapping("/aguaDiaria/{idUsuario}")
+    public ResponseEntity<List<HidratacionPeriodoDTO>> getAguaPorDia(
+            @PathVariable Long idUsuario,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta
+    ) {
+        if (hasta.isBefore(desde) || desde.plusDays(366).isBefore(hasta)) {
+            return ResponseEntity.badRequest().build(); // máximo un año por consulta
+        }
+        return ResponseEntity.ok(estadisticasService.obtenerAguaPorDia(idUsuario, desde, hasta));
+    }
+
+    @GetMapping("/aguaMes/{idUsuario}/anio")
+    public ResponseEntity<List<HidratacionPeriodoDTO>> getAguaPorMes(
+            @PathVariable Long idUsuario,
+            @RequestParam int anio
+    ) {
+        return ResponseEntity.ok(estadisticasService.obtenerAguaPorMesDelAnio(idUsuario, anio));
+    }
+
+    @GetMapping("/aguaAnual/{idUsuario}")
+    public ResponseEntity<List<HidratacionPeriodoDTO>> getAguaPorAnio(
+            @PathVariable Long idUsuario,
+            @RequestParam int desde,
+            @RequestParam int hasta
+    ) {
+        if (hasta < desde || hasta - desde > 100) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(estadisticasService.obtenerAguaPorAnio(idUsuario, desde, hasta));
+    }
+
     /**
      * Guardar o actualizar estadísticas diarias para un usuario en una fecha específica
      */
@@ -119,11 +153,11 @@ public class EstadisticasNutricionalesController {
 
     // Obtener estadísticas diarias calculadas desde la BD
     @GetMapping("/diaria")
-    public ResponseEntity<EstadisticasNutricionales> obtenerEstadisticasDiarias(
+    public ResponseEntity<EstadisticasNutricionalesDTO> obtenerEstadisticasDiarias(
             @RequestParam Long idUsuario,
             @RequestParam String fecha) {
         try {
-            EstadisticasNutricionales est = estadisticasService.obtenerEstadisticasDiarias(idUsuario, fecha);
+            EstadisticasNutricionalesDTO est = estadisticasService.obtenerEstadisticasDiarias(idUsuario, fecha);
             if (est == null) {
                 return ResponseEntity.noContent().build();
             }
@@ -135,12 +169,12 @@ public class EstadisticasNutricionalesController {
 
     // Obtener progreso semanal
     @GetMapping("/progresoSemanal")
-    public ResponseEntity<List<EstadisticasNutricionales>> obtenerProgresoSemanal(
+    public ResponseEntity<List<EstadisticasNutricionalesDTO>> obtenerProgresoSemanal(
             @RequestParam Long idUsuario,
             @RequestParam String fechaInicio,
             @RequestParam String fechaFin) {
         try {
-            List<EstadisticasNutricionales> progresos =
+            List<EstadisticasNutricionalesDTO> progresos =
                     estadisticasService.obtenerProgresosSemanales(idUsuario, fechaInicio, fechaFin);
             if (progresos.isEmpty()) {
                 return ResponseEntity.noContent().build();
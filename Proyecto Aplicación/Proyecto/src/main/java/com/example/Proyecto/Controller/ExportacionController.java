@@ -0,0 +1,76 @@
+package com.example.Proyecto.Controller;
+
+import com.example.Proyecto.Service.ExportacionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@RequestMapping("/api/Exportacion")
+public class ExportacionController {
+    private static final int SEGUNDOS_REINTENTO = 30;
+
+    @Autowired
+    public ExportacionService exportacionService;
+
+    // Historial completo por defecto; formato csv o json; gzip=true devuelve el archivo comprimido
+    @GetMapping("/{idUsuario}")
+    public ResponseEntity<StreamingResponseBody> exportar(
+            @PathVariable Long idUsuario,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(defaultValue = "csv") String formato,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        ExportacionService.Formato tipo;
+        try {
+            tipo = ExportacionService.Formato.valueOf(formato.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        LocalDate inicio = desde != null ? desde : LocalDate.of(2000, 1, 1);
+        LocalDate fin = hasta != null ? hasta : LocalDate.now();
+        if (fin.isBefore(inicio)) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (!exportacionService.existeUsuario(idUsuario)) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        // Cada exportación en curso ocupa una de las pocas conexiones del pool hasta que el cliente termina de descargar
+        if (!exportacionService.tomarCupo()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(SEGUNDOS_REINTENTO))
+                    .build();
+        }
+
+        String archivo = "historial_" + idUsuario + "_" + inicio + "_" + fin
+                + (tipo == ExportacionService.Formato.JSON ? ".json" : ".csv") + (gzip ? ".gz" : "");
+        StreamingResponseBody cuerpo = salida -> {
+            try {
+                if (gzip) {
+                    GZIPOutputStream comprimido = new GZIPOutputStream(salida, 8192);
+                    exportacionService.exportar(idUsuario, inicio, fin, tipo, comprimido);
+                    comprimido.finish();
+                } else {
+                    exportacionService.exportar(idUsuario, inicio, fin, tipo, salida);
+                }
+            } finally {
+                exportacionService.liberarCupo();
+            }
+        };
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + archivo + "\"")
+                .contentType(gzip ? MediaType.parseMediaType("application/gzip")
+                        : tipo == ExportacionService.Formato.JSON ? MediaType.APPLICATION_JSON
+                        : MediaType.parseMediaType("text/csv; charset=UTF-8"))
+                .body(cuerpo);
+    }
+}
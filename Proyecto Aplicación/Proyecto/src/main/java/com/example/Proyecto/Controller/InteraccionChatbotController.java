@@ -1,15 +1,37 @@
 package com.example.Proyecto.Controller;
 
+import com.example.Proyecto.DTO.ConsultaIADTO;
+import com.example.Proyecto.DTO.InteraccionChatbotDTO;
+import com.example.Proyecto.DTO.InteraccionEntradaDTO;
+import com.example.Proyecto.DTO.InteraccionResumenDTO;
+import com.example.Proyecto.DTO.PaginaHistorialDTO;
+import com.example.Proyecto.DTO.ResultadoBusquedaDTO;
 import com.example.Proyecto.Model.InteraccionChatbot;
+import com.example.Proyecto.Service.BusquedaHistorialService;
 import com.example.Proyecto.Service.InteraccionChatbotService;
+import com.example.Proyecto.Service.MotorIntencionesService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 /**
  * Controlador REST para gestionar las interacciones del chatbot con los usuarios
@@ -32,11 +54,25 @@ import java.util.Optional;
 @RestController
 @RequestMapping("/api/InteraccionChatbot")
 public class InteraccionChatbotController {
+
+    private static final Logger log = LoggerFactory.getLogger(InteraccionChatbotController.class);
     
     // Servicio que contiene la lógica de negocio para las interacciones
     @Autowired
     public InteraccionChatbotService interaccionService;
 
+    // Clasifica los mensajes y responde sin IA los que se resuelven con los datos del usuario
+    @Autowired
+    public MotorIntencionesService motorIntencionesService;
+
+    // Búsqueda de texto completo en el historial del usuario
+    @Autowired
+    public BusquedaHistorialService busquedaHistorialService;
+
+    // Tiempo máximo de una respuesta transmitida por SSE
+    @Value("${chatbot.sse.timeout-ms:60000}")
+    private long sseTimeoutMs;
+
     /**
      * Endpoint para listar todas las interacciones del chatbot
      * 
@@ -45,8 +81,8 @@ public class InteraccionChatbotController {
      *         Código 204: No hay interacciones registradas
      */
     @GetMapping("/listar")
-    public ResponseEntity<List<InteraccionChatbot>> listarInteraccionesChatbot() {
-        List<InteraccionChatbot> interaccionChatbots = interaccionService.listarInteraccionesChatbot();
+    public ResponseEntity<List<InteraccionChatbotDTO>> listarInteraccionesChatbot() {
+        List<InteraccionChatbotDTO> interaccionChatbots = interaccionService.listarInteraccionesChatbot();
         // Verificar si la lista está vacía
         if (interaccionChatbots.isEmpty()) {
             return new ResponseEntity<>(HttpStatus.NO_CONTENT); // 204 No Content
@@ -64,10 +100,10 @@ public class InteraccionChatbotController {
      *         Código 400: ID inválido
      */
     @GetMapping("/buscar/{id_interaccion}")
-    public ResponseEntity<InteraccionChatbot> listarPorIdInteraccionChatbot(@PathVariable long id_interaccion){
+    public ResponseEntity<InteraccionChatbotDTO> listarPorIdInteraccionChatbot(@PathVariable long id_interaccion){
         try {
             Optional<InteraccionChatbot> interaccionOpt = interaccionService.listarPorIdInteraccionChatbot(id_interaccion);
-            return interaccionOpt.map(interaccionChatbot -> new ResponseEntity<>(interaccionChatbot, HttpStatus.OK))
+            return interaccionOpt.map(interaccionChatbot -> new ResponseEntity<>(InteraccionChatbotDTO.de(interaccionChatbot), HttpStatus.OK))
                     .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND)); // 404 Not Found
         } catch (IllegalArgumentException e) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST); // 400 Bad Request
@@ -86,15 +122,122 @@ public class InteraccionChatbotController {
      *         Código 400: Datos inválidos (campos obligatorios faltantes)
      */
     @PostMapping("/guardar")
-    public ResponseEntity<InteraccionChatbot> guardarInteraccionChatbot(@RequestBody InteraccionChatbot interaccionChatbot){
+    public ResponseEntity<InteraccionChatbotDTO> guardarInteraccionChatbot(@RequestBody InteraccionChatbot interaccionChatbot){
         try {
             InteraccionChatbot nuevoInteraccionChatbot = interaccionService.guardarInteraccionChatbot(interaccionChatbot);
-            return new ResponseEntity<>(nuevoInteraccionChatbot, HttpStatus.CREATED); // 201 Created
+            return new ResponseEntity<>(InteraccionChatbotDTO.de(nuevoInteraccionChatbot), HttpStatus.CREATED); // 201 Created
         } catch (IllegalArgumentException e) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST); // 400 Bad Request
         }
     }
 
+    /**
+     * Endpoint para registrar un turno de la conversación sin esperar a la base de datos
+     *
+     * El turno se encola y se guarda en lote en segundo plano, por eso responde 202 con su identificador.
+     *
+     * @param entrada Sesión, consulta del usuario, respuesta de la IA y clasificación opcional
+     * @return ResponseEntity con el identificador del turno o código de error
+     *         Código 202: Turno aceptado
+     *         Código 400: Datos inválidos (campos obligatorios faltantes)
+     */
+    @PostMapping("/registrar")
+    public ResponseEntity<Map<String, UUID>> registrarInteraccion(@RequestBody InteraccionEntradaDTO entrada){
+        try {
+            UUID idEntrada = interaccionService.registrarInteraccion(entrada);
+            return new ResponseEntity<>(Map.of("idEntrada", idEntrada), HttpStatus.ACCEPTED); // 202 Accepted
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST); // 400 Bad Request
+        }
+    }
+
+    /**
+     * Endpoint para responder un mensaje del chat
+     *
+     * El mensaje se clasifica en el servidor (TipoIntento/TipoAccion). Registrar o consultar agua, ver la rutina
+     * de una fecha y el consumo de hoy se responden sin llamar a la IA; las preguntas abiertas van a la pasarela
+     * de IA con el contexto nutricional del usuario.
+     *
+     * @param consulta Usuario, sesión y mensaje (prompt)
+     * @return ResponseEntity con la intención detectada y la respuesta, o código de error
+     *         Código 200: Mensaje respondido
+     *         Código 400: Datos inválidos o la sesión no es del usuario
+     *         Código 404: Usuario no encontrado
+     *         Código 429 / 503: Límite de consultas o proveedor de IA no disponible (Retry-After)
+     */
+    @PostMapping("/mensaje")
+    public CompletableFuture<ResponseEntity<?>> responderMensaje(@RequestBody ConsultaIADTO consulta){
+        try {
+            return motorIntencionesService.responder(consulta.getIdUsuario(), consulta.getIdSesion(), consulta.getPrompt())
+                    .<ResponseEntity<?>>thenApply(ResponseEntity::ok)
+                    .exceptionally(e -> {
+                        log.warn("Respuesta del chatbot fallida: {}", e.getMessage());
+                        return ErroresIA.aRespuesta(e);
+                    });
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(ErroresIA.aRespuesta(e));
+        }
+    }
+
+    /**
+     * Endpoint para responder un mensaje transmitiendo la respuesta por Server-Sent Events
+     *
+     * El mensaje se clasifica igual que en /mensaje. Si la IA responde, se envía un evento "fragmento" ({"texto": ...})
+     * por cada parte generada; las respuestas directas no tienen fragmentos. Al terminar llega un evento "fin" con la
+     * misma respuesta que /mensaje, o un evento "error" con el estado HTTP equivalente.
+     * Si el cliente se desconecta se corta la generación y el turno no se guarda.
+     *
+     * @param consulta Usuario, sesión y mensaje (prompt)
+     * @return ResponseEntity con el flujo de eventos o código de error
+     *         Código 200: Flujo iniciado
+     *         Código 400: Datos inválidos o la sesión no es del usuario
+     *         Código 404: Usuario no encontrado
+     *         Código 429: Demasiadas consultas simultáneas del usuario (Retry-After)
+     *         Código 503: Proveedor de IA no disponible (Retry-After)
+     */
+    @PostMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> responderEnStreaming(@RequestBody ConsultaIADTO consulta){
+        SseEmitter emisor = new SseEmitter(sseTimeoutMs);
+        AtomicBoolean cancelado = new AtomicBoolean();
+        emisor.onTimeout(() -> cancelado.set(true));
+        emisor.onError(e -> cancelado.set(true));
+
+        Consumer<String> alFragmento = fragmento -> {
+            try {
+                emisor.send(SseEmitter.event().name("fragmento").data(Map.of("texto", fragmento)));
+            } catch (IOException | IllegalStateException e) {
+                // El cliente cerró la conexión
+                cancelado.set(true);
+            }
+        };
+        try {
+            motorIntencionesService.responder(consulta.getIdUsuario(), consulta.getIdSesion(), consulta.getPrompt(),
+                            consulta.isConContexto(), alFragmento, cancelado::get)
+                    .whenComplete((respuesta, error) -> {
+                        if (cancelado.get()) {
+                            emisor.complete();
+                            return;
+                        }
+                        try {
+                            if (error == null) {
+                                emisor.send(SseEmitter.event().name("fin").data(respuesta));
+                            } else {
+                                log.warn("Respuesta del chatbot fallida: {}", error.getMessage());
+                                emisor.send(SseEmitter.event().name("error")
+                                        .data(Map.of("estado", ErroresIA.aRespuesta(error).getStatusCode().value())));
+                            }
+                            emisor.complete();
+                        } catch (IOException | IllegalStateException e) {
+                            emisor.complete();
+                        }
+                    });
+        } catch (RuntimeException e) {
+            ResponseEntity<?> respuesta = ErroresIA.aRespuesta(e);
+            return ResponseEntity.status(respuesta.getStatusCode()).headers(respuesta.getHeaders()).build();
+        }
+        return ResponseEntity.ok(emisor); // 200 OK
+    }
+
     /**
      * Endpoint para eliminar una interacción del chatbot
      * 
@@ -130,14 +273,64 @@ public class InteraccionChatbotController {
      *         Código 400: Datos inválidos
      */
     @PutMapping("/actualizar/{id_interaccion}")
-    public ResponseEntity<InteraccionChatbot> actualizarInteraccionChatbot(@PathVariable long id_interaccion, @RequestBody InteraccionChatbot interaccionActualizado){
+    public ResponseEntity<InteraccionChatbotDTO> actualizarInteraccionChatbot(@PathVariable long id_interaccion, @RequestBody InteraccionChatbot interaccionActualizado){
         try {
             InteraccionChatbot interaccionChatbot = interaccionService.actualizarInteraccionChatbot(id_interaccion, interaccionActualizado);
-            return new ResponseEntity<>(interaccionChatbot, HttpStatus.OK); // 200 OK
+            return new ResponseEntity<>(InteraccionChatbotDTO.de(interaccionChatbot), HttpStatus.OK); // 200 OK
         } catch (NoSuchElementException e) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND); // 404 Not Found
         } catch (IllegalArgumentException e) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST); // 400 Bad Request
         }
     }
+
+    /**
+     * Endpoint para leer el historial de una sesión por páginas (del turno más nuevo al más viejo)
+     *
+     * @param id_sesion ID de la sesión
+     * @param cursor siguienteCursor de la página anterior; sin él se devuelve la primera página
+     * @param tamano Turnos por página (por defecto 20, máximo 100)
+     * @param maximoRespuesta Recorta la respuesta de la IA a ese número de caracteres (vista de lista)
+     * @return ResponseEntity con la página o código de error
+     *         Código 200: Página obtenida (siguienteCursor se omite en la última)
+     *         Código 400: Cursor o parámetros inválidos
+     */
+    @GetMapping("/historial/{id_sesion}")
+    public ResponseEntity<PaginaHistorialDTO<InteraccionResumenDTO>> obtenerHistorial(@PathVariable Long id_sesion,
+                                                                                    @RequestParam(required = false) String cursor,
+                                                                                    @RequestParam(required = false) Integer tamano,
+                                                                                    @RequestParam(required = false) Integer maximoRespuesta){
+        try {
+            return new ResponseEntity<>(interaccionService.HistorialInteracciones(id_sesion, cursor, tamano, maximoRespuesta), HttpStatus.OK); // 200 OK
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST); // 400 Bad Request
+        }
+    }
+
+    /**
+     * Endpoint para buscar en el historial del chatbot de un usuario (todas sus sesiones), del resultado más relevante al menos
+     *
+     * @param idUsuario ID del usuario
+     * @param q Términos a buscar; admite "frases", OR y -exclusiones
+     * @param desde Primer día incluido (opcional, yyyy-MM-dd)
+     * @param hasta Último día incluido (opcional, yyyy-MM-dd)
+     * @param cursor siguienteCursor de la página anterior; sin él se devuelve la primera página
+     * @param tamano Resultados por página (por defecto 20, máximo 100)
+     * @return ResponseEntity con la página de resultados o código de error
+     *         Código 200: Búsqueda realizada (siguienteCursor se omite en la última página)
+     *         Código 400: Texto vacío, fechas invertidas o cursor inválido
+     */
+    @GetMapping("/busqueda/{idUsuario}")
+    public ResponseEntity<PaginaHistorialDTO<ResultadoBusquedaDTO>> buscarEnHistorial(@PathVariable Long idUsuario,
+                                                                                     @RequestParam String q,
+                                                                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+                                                                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+                                                                                     @RequestParam(required = false) String cursor,
+                                                                                     @RequestParam(required = false) Integer tamano){
+        try {
+            return new ResponseEntity<>(busquedaHistorialService.buscar(idUsuario, q, desde, hasta, cursor, tamano), HttpStatus.OK); // 200 OK
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST); // 400 Bad Request
+        }
+    }
 }
@@ -0,0 +1,61 @@
+package com.example.Proyecto.Controller;
+
+import com.example.Proyecto.DTO.MedidaCorporalDTO;
+import com.example.Proyecto.DTO.MedidaCorporalEntradaDTO;
+import com.example.Proyecto.DTO.TendenciaCorporalDTO;
+import com.example.Proyecto.Model.MedidaCorporal;
+import com.example.Proyecto.Service.MedidaCorporalService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/MedidaCorporal")
+public class MedidaCorporalController {
+
+    @Autowired
+    public MedidaCorporalService medidaCorporalService;
+
+    // Agrega una medida (con medidoEn se puede cargar historia); no cambia el peso actual del perfil
+    @PostMapping("/{idUsuario}")
+    public ResponseEntity<?> registrar(@PathVariable Long idUsuario, @RequestBody MedidaCorporalEntradaDTO dto) {
+        try {
+            MedidaCorporal medida = medidaCorporalService.registrar(idUsuario, dto.getPeso(), dto.getAltura(), dto.getMedidoEn());
+            return ResponseEntity.status(HttpStatus.CREATED).body(MedidaCorporalDTO.de(medida));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{idUsuario}")
+    public ResponseEntity<List<MedidaCorporalDTO>> listar(
+            @PathVariable Long idUsuario,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        try {
+            return ResponseEntity.ok(medidaCorporalService.listar(idUsuario, desde, hasta));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Periodos con min/prom/max de peso e IMC y la recta de tendencia
+    @GetMapping("/{idUsuario}/tendencia")
+    public ResponseEntity<TendenciaCorporalDTO> obtenerTendencia(
+            @PathVariable Long idUsuario,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(defaultValue = "SEMANA") MedidaCorporalService.Granularidad granularidad) {
+        try {
+            return ResponseEntity.ok(medidaCorporalService.obtenerTendencia(idUsuario, desde, hasta, granularidad));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.Proyecto.Controller;
+
+import com.example.Proyecto.DTO.ConsultaIADTO;
+import com.example.Proyecto.Service.PasarelaIAService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequestMapping("/api/IA")
+public class PasarelaIAController {
+
+    private static final Logger log = LoggerFactory.getLogger(PasarelaIAController.class);
+
+    @Autowired
+    public PasarelaIAService pasarelaIAService;
+
+    // Consulta al proveedor de IA configurado; las preguntas repetidas con el mismo perfil salen de la caché
+    @PostMapping("/consultar")
+    public CompletableFuture<ResponseEntity<?>> consultar(@RequestBody ConsultaIADTO consulta) {
+        try {
+            return pasarelaIAService.consultar(consulta.getIdUsuario(), consulta.getIdSesion(), consulta.getPrompt(),
+                            consulta.isConContexto(), null, () -> false)
+                    .<ResponseEntity<?>>thenApply(ResponseEntity::ok)
+                    .exceptionally(e -> {
+                        log.warn("Consulta de IA fallida: {}", e.getMessage());
+                        return ErroresIA.aRespuesta(e);
+                    });
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(ErroresIA.aRespuesta(e));
+        }
+    }
+}
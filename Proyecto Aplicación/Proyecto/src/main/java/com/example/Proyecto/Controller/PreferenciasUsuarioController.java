@@ -1,5 +1,6 @@
 package com.example.Proyecto.Controller;
 
+import com.example.Proyecto.DTO.PreferenciasUsuarioDTO;
 import com.example.Proyecto.Model.PreferenciasUsuario;
 import com.example.Proyecto.Service.PreferenciasUsuarioService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,8 +19,8 @@ public class PreferenciasUsuarioController {
     public PreferenciasUsuarioService preferenciaService;
 
     @GetMapping("/listar")
-    public ResponseEntity<List<PreferenciasUsuario>> listarPreferenciasUsuario() {
-        List<PreferenciasUsuario> preferenciasUsuarios = preferenciaService.listarPreferenciasUsuario();
+    public ResponseEntity<List<PreferenciasUsuarioDTO>> listarPreferenciasUsuario() {
+        List<PreferenciasUsuarioDTO> preferenciasUsuarios = preferenciaService.listarPreferenciasUsuario();
         // Verificar si la lista está vacía
         if (preferenciasUsuarios.isEmpty()) {
             return new ResponseEntity<>(HttpStatus.NO_CONTENT); // 204 No Content
@@ -28,10 +29,10 @@ public class PreferenciasUsuarioController {
     }
 
     @GetMapping("/buscar/{id_preferencia}")
-    public ResponseEntity<PreferenciasUsuario> listarPorIdPreferenciaUsuario(@PathVariable long id_preferencia){
+    public ResponseEntity<PreferenciasUsuarioDTO> listarPorIdPreferenciaUsuario(@PathVariable long id_preferencia){
         try {
             Optional<PreferenciasUsuario> preferenciaOpt = preferenciaService.listarPorIdPreferenciasUsuario(id_preferencia);
-            return preferenciaOpt.map(preferenciasUsuario -> new ResponseEntity<>(preferenciasUsuario, HttpStatus.OK))
+            return preferenciaOpt.map(preferenciasUsuario -> new ResponseEntity<>(PreferenciasUsuarioDTO.de(preferenciasUsuario), HttpStatus.OK))
                     .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND)); // 404 Not Found
         } catch (IllegalArgumentException e) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST); // 400 Bad Request
@@ -39,10 +40,10 @@ public class PreferenciasUsuarioController {
     }
 
     @PostMapping("/guardar")
-    public ResponseEntity<PreferenciasUsuario> guardarPreferenciasUsuario(@RequestBody PreferenciasUsuario preferenciasUsuario){
+    public ResponseEntity<PreferenciasUsuarioDTO> guardarPreferenciasUsuario(@RequestBody PreferenciasUsuario preferenciasUsuario){
         try {
             PreferenciasUsuario nuevoPreferencia = preferenciaService.guardarPreferenciasUsuario(preferenciasUsuario);
-            return new ResponseEntity<>(nuevoPreferencia, HttpStatus.CREATED); // 201 Created
+            return new ResponseEntity<>(PreferenciasUsuarioDTO.de(nuevoPreferencia), HttpStatus.CREATED); // 201 Created
         } catch (IllegalArgumentException e) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST); // 400 Bad Request
         }
@@ -61,10 +62,10 @@ public class PreferenciasUsuarioController {
     }
 
     @PutMapping("/actualizar/{id_preferencia}")
-    public ResponseEntity<PreferenciasUsuario> actualizarPreferenciasUsuario(@PathVariable long id_preferencia, @RequestBody PreferenciasUsuario preferenciaActualizado){
+    public ResponseEntity<PreferenciasUsuarioDTO> actualizarPreferenciasUsuario(@PathVariable long id_preferencia, @RequestBody PreferenciasUsuario preferenciaActualizado){
         try {
             PreferenciasUsuario preferenciasUsuario = preferenciaService.actualizarPreferenciasUsuario(id_preferencia, preferenciaActualizado);
-            return new ResponseEntity<>(preferenciasUsuario, HttpStatus.OK); // 200 OK
+            return new ResponseEntity<>(PreferenciasUsuarioDTO.de(preferenciasUsuario), HttpStatus.OK); // 200 OK
         } catch (NoSuchElementException e) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND); // 404 Not Found
         } catch (IllegalArgumentException e) {
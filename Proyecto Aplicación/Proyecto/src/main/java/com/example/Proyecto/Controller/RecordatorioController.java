@@ -1,5 +1,6 @@
 package com.example.Proyecto.Controller;
 
+import com.example.Proyecto.DTO.RecordatorioDTO;
 import com.example.Proyecto.Model.Recordatorio;
 import com.example.Proyecto.Service.RecordatorioService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,8 +19,8 @@ public class RecordatorioController {
     public RecordatorioService recordatorioService;
 
     @GetMapping("/listar")
-    public ResponseEntity<List<Recordatorio>> listarRecordatorio() {
-        List<Recordatorio> recordatorios = recordatorioService.listarRecordatorios();
+    public ResponseEntity<List<RecordatorioDTO>> listarRecordatorio() {
+        List<RecordatorioDTO> recordatorios = recordatorioService.listarRecordatorios();
         // Verificar si la lista está vacía
         if (recordatorios.isEmpty()) {
             return new ResponseEntity<>(HttpStatus.NO_CONTENT); // 204 No Content
@@ -28,10 +29,10 @@ public class RecordatorioController {
     }
 
     @GetMapping("/buscar/{id_recordatorio}")
-    public ResponseEntity<Recordatorio> listarPorIdRecordatorio(@PathVariable long id_recordatorio){
+    public ResponseEntity<RecordatorioDTO> listarPorIdRecordatorio(@PathVariable long id_recordatorio){
         try {
             Optional<Recordatorio> recordatorioOpt = recordatorioService.listarPorIdRecordatorio(id_recordatorio);
-            return recordatorioOpt.map(recordatorio -> new ResponseEntity<>(recordatorio, HttpStatus.OK))
+            return recordatorioOpt.map(recordatorio -> new ResponseEntity<>(RecordatorioDTO.de(recordatorio), HttpStatus.OK))
                     .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND)); // 404 Not Found
         } catch (IllegalArgumentException e) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST); // 400 Bad Request
@@ -39,10 +40,10 @@ public class RecordatorioController {
     }
 
     @PostMapping("/guardar")
-    public ResponseEntity<Recordatorio> guardarRecordatorio(@RequestBody Recordatorio recordatorio){
+    public ResponseEntity<RecordatorioDTO> guardarRecordatorio(@RequestBody Recordatorio recordatorio){
         try {
             Recordatorio nuevoRecordatorio = recordatorioService.guardarRecordatorio(recordatorio);
-            return new ResponseEntity<>(nuevoRecordatorio, HttpStatus.CREATED); // 201 Created
+            return new ResponseEntity<>(RecordatorioDTO.de(nuevoRecordatorio), HttpStatus.CREATED); // 201 Created
         } catch (IllegalArgumentException e) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST); // 400 Bad Request
         }
@@ -61,10 +62,10 @@ public class RecordatorioController {
     }
 
     @PutMapping("/actualizar/{id_recordatorio}")
-    public ResponseEntity<Recordatorio> actualizarRecordatorio(@PathVariable long id_recordatorio, @RequestBody Recordatorio recordatorioActualizado){
+    public ResponseEntity<RecordatorioDTO> actualizarRecordatorio(@PathVariable long id_recordatorio, @RequestBody Recordatorio recordatorioActualizado){
         try {
             Recordatorio recordatorio = recordatorioService.actualizarRecordatorio(id_recordatorio, recordatorioActualizado);
-            return new ResponseEntity<>(recordatorio, HttpStatus.OK); // 200 OK
+            return new ResponseEntity<>(RecordatorioDTO.de(recordatorio), HttpStatus.OK); // 200 OK
         } catch (NoSuchElementException e) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND); // 404 Not Found
         } catch (IllegalArgumentException e) {
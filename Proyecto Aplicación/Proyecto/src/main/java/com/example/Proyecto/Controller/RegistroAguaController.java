@@ -1,14 +1,19 @@
 package com.example.Proyecto.Controller;
 
+import com.example.Proyecto.DTO.AguaPorHoraDTO;
+import com.example.Proyecto.DTO.IngestaAguaDTO;
 import com.example.Proyecto.DTO.RegistroAguaEntradaDTO;
 import com.example.Proyecto.DTO.RegistroAguaRespuestaDTO;
 import com.example.Proyecto.Model.RegistroAgua;
+import com.example.Proyecto.Service.IngestaAguaService;
 import com.example.Proyecto.Service.RegistroAguaService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
@@ -20,9 +25,12 @@ public class RegistroAguaController {
     @Autowired
     public RegistroAguaService registroAguaService;
 
+    @Autowired
+    public IngestaAguaService ingestaAguaService;
+
     @GetMapping("/listar")
-    public ResponseEntity<List<RegistroAgua>> listarRegistroAgua() {
-        List<RegistroAgua> registroAguas = registroAguaService.listarRegistrosAgua();
+    public ResponseEntity<List<RegistroAguaRespuestaDTO>> listarRegistroAgua() {
+        List<RegistroAguaRespuestaDTO> registroAguas = registroAguaService.listarRegistrosAgua();
         // Verificar si la lista está vacía
         if (registroAguas.isEmpty()) {
             return new ResponseEntity<>(HttpStatus.NO_CONTENT); // 204 No Content
@@ -31,10 +39,10 @@ public class RegistroAguaController {
     }
 
     @GetMapping("/buscar/{id_registroAgua}")
-    public ResponseEntity<RegistroAgua> listarPorIdRegistroAgua(@PathVariable long id_registroAgua){
+    public ResponseEntity<RegistroAguaRespuestaDTO> listarPorIdRegistroAgua(@PathVariable long id_registroAgua){
         try {
             Optional<RegistroAgua> registroAguaOpt = registroAguaService.listarPorIdRegistroAgua(id_registroAgua);
-            return registroAguaOpt.map(registroAgua -> new ResponseEntity<>(registroAgua, HttpStatus.OK))
+            return registroAguaOpt.map(registroAgua -> new ResponseEntity<>(RegistroAguaRespuestaDTO.de(registroAgua), HttpStatus.OK))
                     .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND)); // 404 Not Found
         } catch (IllegalArgumentException e) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST); // 400 Bad Request
@@ -42,14 +50,14 @@ public class RegistroAguaController {
     }
 
     @PostMapping("/guardar")
-    public ResponseEntity<RegistroAgua> guardarRegistroAgua(@RequestBody RegistroAgua registroAgua){
+    public ResponseEntity<RegistroAguaRespuestaDTO> guardarRegistroAgua(@RequestBody RegistroAgua registroAgua){
         try {
             if (registroAgua.getUsuario() == null || registroAgua.getUsuario().getIdUsuario() == null) {
                 throw new IllegalArgumentException("El ID del usuario es obligatorio.");
             }
 
             RegistroAgua nuevoRegistroAgua = registroAguaService.guardarRegistroAgua(registroAgua);
-            return new ResponseEntity<>(nuevoRegistroAgua, HttpStatus.CREATED);
+            return new ResponseEntity<>(RegistroAguaRespuestaDTO.de(nuevoRegistroAgua), HttpStatus.CREATED);
         } catch (IllegalArgumentException e) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
@@ -68,10 +76,10 @@ public class RegistroAguaController {
     }
 
     @PutMapping("/actualizar/{id_registroAgua}")
-    public ResponseEntity<RegistroAgua> actualizarRegistroAgua(@PathVariable long id_registroAgua, @RequestBody RegistroAgua registroAguaActualizado){
+    public ResponseEntity<RegistroAguaRespuestaDTO> actualizarRegistroAgua(@PathVariable long id_registroAgua, @RequestBody RegistroAgua registroAguaActualizado){
         try {
             RegistroAgua registroAgua = registroAguaService.actualizarRegistroAgua(id_registroAgua, registroAguaActualizado);
-            return new ResponseEntity<>(registroAgua, HttpStatus.OK); // 200 OK
+            return new ResponseEntity<>(RegistroAguaRespuestaDTO.de(registroAgua), HttpStatus.OK); // 200 OK
         } catch (NoSuchElementException e) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND); // 404 Not Found
         } catch (IllegalArgumentException e) {
@@ -85,30 +93,48 @@ public class RegistroAguaController {
             @RequestBody RegistroAguaEntradaDTO entrada) {
 
         RegistroAgua registro = registroAguaService.registrarAgua(idUsuario, entrada.getCantidadml());
+        return ResponseEntity.ok(RegistroAguaRespuestaDTO.de(registro));
+    }
+
+    // Suma (o resta) al consumo de hoy sin pisar otros toques simultáneos
+    @PostMapping("/sumar/{idUsuario}")
+    public ResponseEntity<RegistroAguaRespuestaDTO> sumarAgua(
+            @PathVariable Long idUsuario,
+            @RequestBody RegistroAguaEntradaDTO entrada) {
+        try {
+            int total = ingestaAguaService.sumar(idUsuario, entrada.getCantidadml());
+
+            RegistroAguaRespuestaDTO dto = new RegistroAguaRespuestaDTO();
+            dto.setIdUsuario(idUsuario);
+            dto.setFecha(LocalDate.now().toString());
+            dto.setCantidadml(total);
+            return ResponseEntity.ok(dto);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (RuntimeException e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND); // Usuario no encontrado
+        }
+    }
 
-        RegistroAguaRespuestaDTO dto = new RegistroAguaRespuestaDTO();
-        dto.setIdRegistroAgua(registro.getIdRegistroAgua());
-        dto.setIdUsuario(idUsuario);
-        dto.setFecha(registro.getFecha().toString());
-        dto.setCantidadml(registro.getCantidadml());
+    @GetMapping("/eventos/{idUsuario}")
+    public ResponseEntity<List<IngestaAguaDTO>> obtenerEventos(
+            @PathVariable Long idUsuario,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha) {
+        return ResponseEntity.ok(ingestaAguaService.obtenerEventos(idUsuario, fecha != null ? fecha : LocalDate.now()));
+    }
 
-        return ResponseEntity.ok(dto);
+    // Consumo por hora del día para la gráfica de hidratación
+    @GetMapping("/por-hora/{idUsuario}")
+    public ResponseEntity<List<AguaPorHoraDTO>> obtenerPorHora(
+            @PathVariable Long idUsuario,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha) {
+        return ResponseEntity.ok(ingestaAguaService.obtenerPorHora(idUsuario, fecha != null ? fecha : LocalDate.now()));
     }
 
     @GetMapping("/obtener/{idUsuario}/hoy")
     public ResponseEntity<RegistroAguaRespuestaDTO> obtenerRegistroDeHoy(@PathVariable Long idUsuario) {
         RegistroAgua registro = registroAguaService.obtenerRegistroDeHoy(idUsuario);
-        if (registro == null) {
-            return ResponseEntity.ok(null);
-        }
-
-        RegistroAguaRespuestaDTO dto = new RegistroAguaRespuestaDTO();
-        dto.setIdRegistroAgua(registro.getIdRegistroAgua());
-        dto.setIdUsuario(idUsuario);
-        dto.setFecha(registro.getFecha().toString());
-        dto.setCantidadml(registro.getCantidadml());
-
-        return ResponseEntity.ok(dto);
+        return ResponseEntity.ok(RegistroAguaRespuestaDTO.de(registro));
     }
 
     @DeleteMapping("/eliminar/{idUsuario}/hoy")
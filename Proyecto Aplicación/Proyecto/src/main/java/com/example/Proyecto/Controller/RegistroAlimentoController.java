@@ -53,7 +53,7 @@ public class RegistroAlimentoController {
     public ResponseEntity<?> registrarAlimento(@RequestBody RegistroAlimentoEntradaDTO dto) {
         try {
             RegistroAlimento registro = registroAlimentoService.guardarRegistro(dto);
-            return ResponseEntity.ok(registro);
+            return ResponseEntity.ok(new RegistroAlimentoSalidaDTO(registro));
         } catch (IllegalArgumentException e) {
             return ResponseEntity
                     .badRequest()
@@ -70,8 +70,8 @@ public class RegistroAlimentoController {
     }
 
     @GetMapping("/recientes/{idUsuario}")
-    public ResponseEntity<List<RegistroAlimento>> getRecientesPorUsuario(@PathVariable Long idUsuario) {
-        List<RegistroAlimento> lista = registroAlimentoService.obtenerRecientesPorUsuario(idUsuario);
+    public ResponseEntity<List<RegistroAlimentoSalidaDTO>> getRecientesPorUsuario(@PathVariable Long idUsuario) {
+        List<RegistroAlimentoSalidaDTO> lista = registroAlimentoService.obtenerRecientesPorUsuario(idUsuario);
         return ResponseEntity.ok(lista);
     }
 
@@ -96,6 +96,21 @@ public class RegistroAlimentoController {
         return ResponseEntity.noContent().build();
     }
 
+    // Borrado masivo entre dos fechas (inclusive); momento opcional
+    @DeleteMapping("/eliminar/{idUsuario}/rango")
+    public ResponseEntity<Integer> eliminarRegistrosPorRango(
+            @PathVariable Long idUsuario,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(required = false) String momento) {
+        try {
+            int eliminados = registroAlimentoService.eliminarPorRango(idUsuario, desde, hasta, momento);
+            return ResponseEntity.ok(eliminados);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @DeleteMapping("/eliminar/{idRegistro}")
     public ResponseEntity<String> eliminarRegistroPorId(@PathVariable Long idRegistro) {
         registroAlimentoService.eliminarRegistroPorId(idRegistro);
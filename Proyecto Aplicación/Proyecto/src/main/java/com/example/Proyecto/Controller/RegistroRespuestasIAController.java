@@ -1,5 +1,7 @@
 package com.example.Proyecto.Controller;
 
+import com.example.Proyecto.DTO.PaginaHistorialDTO;
+import com.example.Proyecto.DTO.RespuestaIAResumenDTO;
 import com.example.Proyecto.Model.RegistroRespuestasIA;
 import com.example.Proyecto.Service.RegistroRespuestasIAService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -71,4 +73,17 @@ public class RegistroRespuestasIAController {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST); // 400 Bad Request
         }
     }
+
+    // Respuestas anteriores de la sesión por cursor; maximoRespuesta recorta los textos largos
+    @GetMapping("/anteriores/{id_sesion}")
+    public ResponseEntity<PaginaHistorialDTO<RespuestaIAResumenDTO>> obtenerRespuestasAnteriores(@PathVariable Long id_sesion,
+                                                                                               @RequestParam(required = false) String cursor,
+                                                                                               @RequestParam(required = false) Integer tamano,
+                                                                                               @RequestParam(required = false) Integer maximoRespuesta) {
+        try {
+            return new ResponseEntity<>(respuestasIAService.obtenerRespuestasAnteriores(id_sesion, cursor, tamano, maximoRespuesta), HttpStatus.OK); // 200 OK
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST); // 400 Bad Request
+        }
+    }
 }
@@ -1,7 +1,11 @@
 package com.example.Proyecto.Controller;
 
+import com.example.Proyecto.DTO.RutinaAlimenticiaIADTO;
+import com.example.Proyecto.DTO.RutinaCompletaDTO;
+import com.example.Proyecto.DTO.RutinaEntradaDTO;
 import com.example.Proyecto.Model.RutinaAlimenticiaIA;
 import com.example.Proyecto.Service.RutinaAlimenticiaIAService;
+import com.example.Proyecto.Service.RutinaEstructuradaService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -17,9 +21,12 @@ public class RutinaAlimenticiaIAController {
     @Autowired
     public RutinaAlimenticiaIAService rutinaIAService;
 
+    @Autowired
+    public RutinaEstructuradaService rutinaEstructuradaService;
+
     @GetMapping("/listar")
-    public ResponseEntity<List<RutinaAlimenticiaIA>> listarRutinaAlimenticiaIA() {
-        List<RutinaAlimenticiaIA> rutinaAlimenticiaIAS = rutinaIAService.listarRutinasAlimenticiaIA();
+    public ResponseEntity<List<RutinaAlimenticiaIADTO>> listarRutinaAlimenticiaIA() {
+        List<RutinaAlimenticiaIADTO> rutinaAlimenticiaIAS = rutinaIAService.listarRutinasAlimenticiaIA();
         // Verificar si la lista está vacía
         if (rutinaAlimenticiaIAS.isEmpty()) {
             return new ResponseEntity<>(HttpStatus.NO_CONTENT); // 204 No Content
@@ -28,10 +35,10 @@ public class RutinaAlimenticiaIAController {
     }
 
     @GetMapping("/buscar/{id_rutina}")
-    public ResponseEntity<RutinaAlimenticiaIA> listarPorIdRutinaAlimenticiaIA(@PathVariable long id_rutina){
+    public ResponseEntity<RutinaAlimenticiaIADTO> listarPorIdRutinaAlimenticiaIA(@PathVariable long id_rutina){
         try {
             Optional<RutinaAlimenticiaIA> rutinaAlimenticiaIAOpt = rutinaIAService.listarPorIdRutinaAlimenticiaIA(id_rutina);
-            return rutinaAlimenticiaIAOpt.map(rutinaAlimenticiaIA -> new ResponseEntity<>(rutinaAlimenticiaIA, HttpStatus.OK))
+            return rutinaAlimenticiaIAOpt.map(rutinaAlimenticiaIA -> new ResponseEntity<>(RutinaAlimenticiaIADTO.de(rutinaAlimenticiaIA), HttpStatus.OK))
                     .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND)); // 404 Not Found
         } catch (IllegalArgumentException e) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST); // 400 Bad Request
@@ -39,10 +46,10 @@ public class RutinaAlimenticiaIAController {
     }
 
     @PostMapping("/guardar")
-    public ResponseEntity<RutinaAlimenticiaIA> guardarRutinaAlimenticiaIA(@RequestBody RutinaAlimenticiaIA rutinaAlimenticiaIA){
+    public ResponseEntity<RutinaAlimenticiaIADTO> guardarRutinaAlimenticiaIA(@RequestBody RutinaAlimenticiaIA rutinaAlimenticiaIA){
         try {
             RutinaAlimenticiaIA nuevoRutinaAlimenticiaIA = rutinaIAService.guardarRutinaAlimenticiaIA(rutinaAlimenticiaIA);
-            return new ResponseEntity<>(nuevoRutinaAlimenticiaIA, HttpStatus.CREATED); // 201 Created
+            return new ResponseEntity<>(RutinaAlimenticiaIADTO.de(nuevoRutinaAlimenticiaIA), HttpStatus.CREATED); // 201 Created
         } catch (IllegalArgumentException e) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST); // 400 Bad Request
         }
@@ -61,14 +68,47 @@ public class RutinaAlimenticiaIAController {
     }
 
     @PutMapping("/actualizar/{id_rutina}")
-    public ResponseEntity<RutinaAlimenticiaIA> actualizarRutinaAlimenticiaIA(@PathVariable long id_rutina, @RequestBody RutinaAlimenticiaIA rutinaAlimenticiaIAActualizado){
+    public ResponseEntity<RutinaAlimenticiaIADTO> actualizarRutinaAlimenticiaIA(@PathVariable long id_rutina, @RequestBody RutinaAlimenticiaIA rutinaAlimenticiaIAActualizado){
         try {
             RutinaAlimenticiaIA rutinaAlimenticiaIA = rutinaIAService.actualizarRutinaAlimenticiaIA(id_rutina, rutinaAlimenticiaIAActualizado);
-            return new ResponseEntity<>(rutinaAlimenticiaIA, HttpStatus.OK); // 200 OK
+            return new ResponseEntity<>(RutinaAlimenticiaIADTO.de(rutinaAlimenticiaIA), HttpStatus.OK); // 200 OK
+        } catch (NoSuchElementException e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND); // 404 Not Found
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST); // 400 Bad Request
+        }
+    }
+
+    /**
+     * Guarda una rutina de la IA ya estructurada (comidas con su lista de alimentos); los nutrientes se calculan aquí
+     *
+     * @return ResponseEntity con la rutina completa o código de error
+     *         Código 201: Rutina guardada
+     *         Código 400: Faltan datos o una cantidad no es válida
+     *         Código 404: El usuario o un alimento no existen
+     */
+    @PostMapping("/estructurada")
+    public ResponseEntity<RutinaCompletaDTO> guardarRutinaEstructurada(@RequestBody RutinaEntradaDTO rutina){
+        try {
+            return new ResponseEntity<>(rutinaEstructuradaService.crear(rutina), HttpStatus.CREATED); // 201 Created
         } catch (NoSuchElementException e) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND); // 404 Not Found
         } catch (IllegalArgumentException e) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST); // 400 Bad Request
         }
     }
+
+    /**
+     * Rutina con sus días, comidas y alimentos, con los totales ya calculados
+     *
+     * @return ResponseEntity con la rutina o código 404 si no existe
+     */
+    @GetMapping("/completa/{id_rutina}")
+    public ResponseEntity<RutinaCompletaDTO> obtenerRutinaCompleta(@PathVariable long id_rutina){
+        try {
+            return new ResponseEntity<>(rutinaEstructuradaService.obtener(id_rutina), HttpStatus.OK); // 200 OK
+        } catch (NoSuchElementException e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND); // 404 Not Found
+        }
+    }
 }
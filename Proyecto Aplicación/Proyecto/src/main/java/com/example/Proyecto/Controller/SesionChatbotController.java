@@ -1,5 +1,10 @@
 package com.example.Proyecto.Controller;
 
+import com.example.Proyecto.DTO.InteraccionResumenDTO;
+import com.example.Proyecto.DTO.PaginaHistorialDTO;
+import com.example.Proyecto.DTO.SesionActivaDTO;
+import com.example.Proyecto.DTO.SesionArchivadaDTO;
+import com.example.Proyecto.DTO.SesionChatbotDTO;
 import com.example.Proyecto.Model.SesionChatbot;
 import com.example.Proyecto.Service.SesionChatbotService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,8 +23,8 @@ public class SesionChatbotController {
     public SesionChatbotService sesionChatbotService;
 
     @GetMapping("/listar")
-    public ResponseEntity<List<SesionChatbot>> listarSesionesChatbot() {
-        List<SesionChatbot> sesionChatbots = sesionChatbotService.listarSesionesChatbot();
+    public ResponseEntity<List<SesionChatbotDTO>> listarSesionesChatbot() {
+        List<SesionChatbotDTO> sesionChatbots = sesionChatbotService.listarSesionesChatbot();
         // Verificar si la lista está vacía
         if (sesionChatbots.isEmpty()) {
             return new ResponseEntity<>(HttpStatus.NO_CONTENT); // 204 No Content
@@ -28,10 +33,10 @@ public class SesionChatbotController {
     }
 
     @GetMapping("/buscar/{id_sesion}")
-    public ResponseEntity<SesionChatbot> listarPorIdSesionChatbot(@PathVariable long id_sesion){
+    public ResponseEntity<SesionChatbotDTO> listarPorIdSesionChatbot(@PathVariable long id_sesion){
         try {
             Optional<SesionChatbot> sesionChatbotOpt = sesionChatbotService.listarPorIdSesionChatbot(id_sesion);
-            return sesionChatbotOpt.map(sesionChatbot -> new ResponseEntity<>(sesionChatbot, HttpStatus.OK))
+            return sesionChatbotOpt.map(sesionChatbot -> new ResponseEntity<>(SesionChatbotDTO.de(sesionChatbot), HttpStatus.OK))
                     .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND)); // 404 Not Found
         } catch (IllegalArgumentException e) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST); // 400 Bad Request
@@ -39,10 +44,10 @@ public class SesionChatbotController {
     }
 
     @PostMapping("/guardar")
-    public ResponseEntity<SesionChatbot> guardarSesionChatbot(@RequestBody SesionChatbot sesionChatbot){
+    public ResponseEntity<SesionChatbotDTO> guardarSesionChatbot(@RequestBody SesionChatbot sesionChatbot){
         try {
             SesionChatbot nuevoSesionChatbot = sesionChatbotService.guardarSesionChatbot(sesionChatbot);
-            return new ResponseEntity<>(nuevoSesionChatbot, HttpStatus.CREATED); // 201 Created
+            return new ResponseEntity<>(SesionChatbotDTO.de(nuevoSesionChatbot), HttpStatus.CREATED); // 201 Created
         } catch (IllegalArgumentException e) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST); // 400 Bad Request
         }
@@ -61,14 +66,66 @@ public class SesionChatbotController {
     }
 
     @PutMapping("/actualizar/{id_sesion}")
-    public ResponseEntity<SesionChatbot> actualizarSesionChatbot(@PathVariable long id_sesion, @RequestBody SesionChatbot sesionChatbotActualizado){
+    public ResponseEntity<SesionChatbotDTO> actualizarSesionChatbot(@PathVariable long id_sesion, @RequestBody SesionChatbot sesionChatbotActualizado){
         try {
             SesionChatbot sesionChatbot = sesionChatbotService.actualizarSesionChatbot(id_sesion, sesionChatbotActualizado);
-            return new ResponseEntity<>(sesionChatbot, HttpStatus.OK); // 200 OK
+            return new ResponseEntity<>(SesionChatbotDTO.de(sesionChatbot), HttpStatus.OK); // 200 OK
         } catch (NoSuchElementException e) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND); // 404 Not Found
         } catch (IllegalArgumentException e) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST); // 400 Bad Request
         }
     }
+
+    // Abre una sesión nueva; se cierra sola tras chatbot.sesiones.ttl-minutos sin actividad
+    @PostMapping("/iniciar/{idUsuario}")
+    public ResponseEntity<SesionChatbotDTO> iniciarSesion(@PathVariable Long idUsuario){
+        try {
+            return new ResponseEntity<>(SesionChatbotDTO.de(sesionChatbotService.obtenerNuevaSesion(idUsuario)), HttpStatus.CREATED); // 201 Created
+        } catch (NoSuchElementException e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND); // 404 Not Found
+        }
+    }
+
+    @PutMapping("/finalizar/{id_sesion}")
+    public ResponseEntity<Void> finalizarSesion(@PathVariable Long id_sesion){
+        try {
+            sesionChatbotService.obtenerFinalizarSesion(id_sesion);
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT); // 204 No Content
+        } catch (NoSuchElementException e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND); // 404 Not Found
+        }
+    }
+
+    @GetMapping("/activas/{idUsuario}")
+    public ResponseEntity<List<SesionActivaDTO>> sesionesActivas(@PathVariable Long idUsuario){
+        List<SesionActivaDTO> activas = sesionChatbotService.sesionesActivas(idUsuario);
+        if (activas.isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT); // 204 No Content
+        }
+        return new ResponseEntity<>(activas, HttpStatus.OK); // 200 OK
+    }
+
+    // Turnos y respuestas de una sesión ya compactada en Sesion_Chatbot_Archivada
+    @GetMapping("/archivada/{id_sesion}")
+    public ResponseEntity<SesionArchivadaDTO> sesionArchivada(@PathVariable Long id_sesion){
+        try {
+            return new ResponseEntity<>(sesionChatbotService.sesionArchivada(id_sesion), HttpStatus.OK); // 200 OK
+        } catch (NoSuchElementException e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND); // 404 Not Found
+        }
+    }
+
+    // Mensajes de la sesión por cursor; maximoRespuesta recorta las respuestas largas en la vista de lista
+    @GetMapping("/mensajes/{id_sesion}")
+    public ResponseEntity<PaginaHistorialDTO<InteraccionResumenDTO>> mensajesYRecomendaciones(@PathVariable Long id_sesion,
+                                                                                            @RequestParam(required = false) String cursor,
+                                                                                            @RequestParam(required = false) Integer tamano,
+                                                                                            @RequestParam(required = false) Integer maximoRespuesta) {
+        try {
+            return new ResponseEntity<>(sesionChatbotService.mensajesYRecomendaciones(id_sesion, cursor, tamano, maximoRespuesta), HttpStatus.OK); // 200 OK
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST); // 400 Bad Request
+        }
+    }
 }
@@ -0,0 +1,29 @@
+package com.example.Proyecto.Controller;
+
+import com.example.Proyecto.DTO.SincronizacionEntradaDTO;
+import com.example.Proyecto.DTO.SincronizacionRespuestaDTO;
+import com.example.Proyecto.Service.SincronizacionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/Sincronizacion")
+public class SincronizacionController {
+    @Autowired
+    public SincronizacionService sincronizacionService;
+
+    // Recibe los cambios hechos sin conexión y devuelve lo que cambió en el servidor desde el último token
+    @PostMapping
+    public ResponseEntity<SincronizacionRespuestaDTO> sincronizar(@RequestBody SincronizacionEntradaDTO entrada) {
+        if (entrada.getIdUsuario() == null) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        try {
+            return ResponseEntity.ok(sincronizacionService.sincronizar(entrada));
+        } catch (RuntimeException e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND); // Usuario no encontrado
+        }
+    }
+}
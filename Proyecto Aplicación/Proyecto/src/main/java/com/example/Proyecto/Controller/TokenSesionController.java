@@ -1,5 +1,6 @@
 package com.example.Proyecto.Controller;
 
+import com.example.Proyecto.DTO.TokenSesionDTO;
 import com.example.Proyecto.Model.TokenSesion;
 import com.example.Proyecto.Service.TokenSesionService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,8 +19,8 @@ public class TokenSesionController {
     public TokenSesionService tokenService;
 
     @GetMapping("/listar")
-    public ResponseEntity<List<TokenSesion>> listarTokenSesion() {
-        List<TokenSesion> tokenSesions = tokenService.listarTokenSesion();
+    public ResponseEntity<List<TokenSesionDTO>> listarTokenSesion() {
+        List<TokenSesionDTO> tokenSesions = tokenService.listarTokenSesion();
         // Verificar si la lista está vacía
         if (tokenSesions.isEmpty()) {
             return new ResponseEntity<>(HttpStatus.NO_CONTENT); // 204 No Content
@@ -28,10 +29,10 @@ public class TokenSesionController {
     }
 
     @GetMapping("/buscar/{id_token}")
-    public ResponseEntity<TokenSesion> listarPorIdTokenSesion(@PathVariable long id_token){
+    public ResponseEntity<TokenSesionDTO> listarPorIdTokenSesion(@PathVariable long id_token){
         try {
             Optional<TokenSesion> tokenSesionOpt = tokenService.listarPorIdTokenSesion(id_token);
-            return tokenSesionOpt.map(tokenSesion -> new ResponseEntity<>(tokenSesion, HttpStatus.OK))
+            return tokenSesionOpt.map(tokenSesion -> new ResponseEntity<>(TokenSesionDTO.de(tokenSesion), HttpStatus.OK))
                     .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND)); // 404 Not Found
         } catch (IllegalArgumentException e) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST); // 400 Bad Request
@@ -39,10 +40,10 @@ public class TokenSesionController {
     }
 
     @PostMapping("/guardar")
-    public ResponseEntity<TokenSesion> guardarTokenSesion(@RequestBody TokenSesion tokenSesion){
+    public ResponseEntity<TokenSesionDTO> guardarTokenSesion(@RequestBody TokenSesion tokenSesion){
         try {
             TokenSesion nuevoTokenSesion = tokenService.guardarTokenSesion(tokenSesion);
-            return new ResponseEntity<>(nuevoTokenSesion, HttpStatus.CREATED); // 201 Created
+            return new ResponseEntity<>(TokenSesionDTO.de(nuevoTokenSesion), HttpStatus.CREATED); // 201 Created
         } catch (IllegalArgumentException e) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST); // 400 Bad Request
         }
@@ -61,10 +62,10 @@ public class TokenSesionController {
     }
 
     @PutMapping("/actualizar/{id_token}")
-    public ResponseEntity<TokenSesion> actualizarTokenSesion(@PathVariable long id_token, @RequestBody TokenSesion tokenSesionActualizado){
+    public ResponseEntity<TokenSesionDTO> actualizarTokenSesion(@PathVariable long id_token, @RequestBody TokenSesion tokenSesionActualizado){
         try {
             TokenSesion tokenSesion = tokenService.actualizarTokenSesion(id_token, tokenSesionActualizado);
-            return new ResponseEntity<>(tokenSesion, HttpStatus.OK); // 200 OK
+            return new ResponseEntity<>(TokenSesionDTO.de(tokenSesion), HttpStatus.OK); // 200 OK
         } catch (NoSuchElementException e) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND); // 404 Not Found
         } catch (IllegalArgumentException e) {
@@ -1,16 +1,25 @@
 package com.example.Proyecto.Controller;
 
+import com.example.Proyecto.DTO.EliminacionUsuarioDTO;
 import com.example.Proyecto.DTO.LoginDTO;
 import com.example.Proyecto.DTO.UsuarioEntradaDTO;
 import com.example.Proyecto.DTO.UsuarioRespuestaDTO;
+import com.example.Proyecto.Model.EliminacionUsuario;
 import com.example.Proyecto.Model.Usuario;
+import com.example.Proyecto.Service.EliminacionUsuarioService;
 import com.example.Proyecto.Service.UsuarioService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/Usuario")
@@ -19,6 +28,9 @@ public class UsuarioController {
     @Autowired
     public UsuarioService usuarioService;
 
+    @Autowired
+    public EliminacionUsuarioService eliminacionUsuarioService;
+
     private UsuarioRespuestaDTO mapToResponse(Usuario usuario) {
         UsuarioRespuestaDTO respuesta = new UsuarioRespuestaDTO();
         respuesta.setIdUsuario(usuario.getIdUsuario());
@@ -32,13 +44,14 @@ public class UsuarioController {
         respuesta.setObjetivosSalud(usuario.getObjetivosSalud());
         respuesta.setRestriccionesDieta(usuario.getRestriccionesDieta());
         respuesta.setNivelActividad(usuario.getNivelActividad());
+        respuesta.setVersion(usuario.getVersion());
         return respuesta;
     }
 
     @GetMapping("/buscar/{idUsuario}")
-    public ResponseEntity<Usuario> listarPorIdUsuario(@PathVariable long idUsuario){
+    public ResponseEntity<UsuarioRespuestaDTO> listarPorIdUsuario(@PathVariable long idUsuario){
         try {
-            Optional<Usuario> usuarioOpt = usuarioService.listarPorIdUsuario(idUsuario);
+            Optional<UsuarioRespuestaDTO> usuarioOpt = usuarioService.usuarioRepository.buscarRespuestaPorId(idUsuario);
             return usuarioOpt.map(usuario -> new ResponseEntity<>(usuario, HttpStatus.OK))
                     .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND)); // 404 Not Found
         } catch (IllegalArgumentException e) {
@@ -49,11 +62,9 @@ public class UsuarioController {
     @GetMapping("/{idUsuario}")
     public ResponseEntity<UsuarioRespuestaDTO> usuarioPorId(@PathVariable Long idUsuario) {
         try {
-            Usuario usuario = usuarioService.usuarioRepository.findById(idUsuario)
-                    .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
-
-            UsuarioRespuestaDTO respuesta = mapToResponse(usuario);
-            return new ResponseEntity<>(respuesta, HttpStatus.OK);
+            return usuarioService.usuarioRepository.buscarRespuestaPorId(idUsuario)
+                    .map(respuesta -> new ResponseEntity<>(respuesta, HttpStatus.OK))
+                    .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -63,13 +74,13 @@ public class UsuarioController {
 
     @GetMapping("/existeCorreo")
     public ResponseEntity<Boolean> existeCorreo(@RequestParam String correo) {
-        boolean existe = usuarioService.usuarioRepository.existsByCorreo(correo);
+        boolean existe = usuarioService.disponibilidadUsuarioService.existeCorreo(correo);
         return new ResponseEntity<>(existe, HttpStatus.OK);
     }
 
     @GetMapping("/existeNombre")
     public ResponseEntity<Boolean> existeNombre(@RequestParam String nombre) {
-        boolean existe = usuarioService.usuarioRepository.existsByNombre(nombre);
+        boolean existe = usuarioService.disponibilidadUsuarioService.existeNombre(nombre);
         return new ResponseEntity<>(existe, HttpStatus.OK);
     }
 
@@ -93,28 +104,29 @@ public class UsuarioController {
     }
 
     @PostMapping("/login")
-    public ResponseEntity<UsuarioRespuestaDTO> login(@RequestBody LoginDTO loginDTO) {
+    public CompletableFuture<ResponseEntity<UsuarioRespuestaDTO>> login(@RequestBody LoginDTO loginDTO, HttpServletRequest request) {
         try {
-            Usuario usuario = usuarioService.autenticar(loginDTO.getCorreo(), loginDTO.getContrasena());
-
-            if (usuario == null) {
-                return new ResponseEntity<>(null, HttpStatus.UNAUTHORIZED);
-            }
-
-            UsuarioRespuestaDTO response = new UsuarioRespuestaDTO(usuario);
-            return new ResponseEntity<>(response, HttpStatus.OK);
-
-        } catch (Exception e) {
-            e.printStackTrace(); // <-- Esto es clave para ver el error real
-            return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
+            return usuarioService.autenticar(loginDTO.getCorreo(), loginDTO.getContrasena(), request.getRemoteAddr())
+                    .thenApply(usuario -> {
+                        if (usuario == null) {
+                            return new ResponseEntity<UsuarioRespuestaDTO>(HttpStatus.UNAUTHORIZED);
+                        }
+                        return new ResponseEntity<>(new UsuarioRespuestaDTO(usuario), HttpStatus.OK);
+                    })
+                    .exceptionally(ErroresLogin::aRespuesta);
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(ErroresLogin.aRespuesta(e));
         }
     }
 
     @DeleteMapping("/eliminar/{idUsuario}")
-    public ResponseEntity<Void> eliminarUsuario(@PathVariable long idUsuario){
+    public ResponseEntity<EliminacionUsuarioDTO> eliminarUsuario(@PathVariable long idUsuario){
         try {
-            usuarioService.eliminarUsuario(idUsuario);
-            return new ResponseEntity<>(HttpStatus.NO_CONTENT); // 204 No Content
+            // La cuenta queda eliminada al instante; los datos se borran en segundo plano
+            EliminacionUsuario eliminacion = eliminacionUsuarioService.solicitar(idUsuario);
+            return ResponseEntity.accepted()
+                    .header(HttpHeaders.LOCATION, "/api/Usuario/eliminacion/" + idUsuario)
+                    .body(EliminacionUsuarioDTO.de(eliminacion)); // 202 Accepted
         } catch (NoSuchElementException e) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND); // 404 Not Found
         } catch (IllegalArgumentException e) {
@@ -122,11 +134,21 @@ public class UsuarioController {
         }
     }
 
+    @GetMapping("/eliminacion/{idUsuario}")
+    public ResponseEntity<EliminacionUsuarioDTO> progresoEliminacion(@PathVariable long idUsuario) {
+        return eliminacionUsuarioService.obtenerProgreso(idUsuario)
+                .map(e -> ResponseEntity.ok(EliminacionUsuarioDTO.de(e)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
     @PutMapping("/actualizar/{idUsuario}")
-    public ResponseEntity<Usuario> actualizarUsuario(@PathVariable long idUsuario, @RequestBody Usuario usuarioActualizado){
+    public ResponseEntity<UsuarioRespuestaDTO> actualizarUsuario(@PathVariable long idUsuario, @RequestBody Usuario usuarioActualizado){
         try {
             Usuario usuario = usuarioService.actualizarUsuario(idUsuario, usuarioActualizado);
-            return new ResponseEntity<>(usuario, HttpStatus.OK); // 200 OK
+            if (usuario == null) {
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND); // 404 Not Found
+            }
+            return new ResponseEntity<>(mapToResponse(usuario), HttpStatus.OK); // 200 OK
         } catch (NoSuchElementException e) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND); // 404 Not Found
         } catch (IllegalArgumentException e) {
@@ -134,6 +156,47 @@ public class UsuarioController {
         }
     }
 
+    /**
+     * Actualización parcial del perfil (RFC 7396): solo se modifican las claves enviadas; null borra los campos opcionales.
+     * La versión esperada puede ir en If-Match o en la clave "version"; si no coincide responde 409.
+     * Un correo o nombre que ya usa otro usuario también responde 409.
+     * If-Match: * no compara versión; un If-Match que no es una versión válida responde 412.
+     */
+    @PatchMapping(value = "/{idUsuario}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<UsuarioRespuestaDTO> actualizarPerfil(
+            @PathVariable long idUsuario,
+            @RequestBody Map<String, Object> cambios,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        try {
+            Map<String, Object> campos = new LinkedHashMap<>(cambios);
+            Object versionCuerpo = campos.remove("version");
+            Long version = null;
+            if (ifMatch != null && !ifMatch.isBlank()) {
+                String etiqueta = ifMatch.trim();
+                // "*" solo exige que el recurso exista; una etiqueta que no es una versión nuestra nunca coincide
+                if (!etiqueta.equals("*")) {
+                    try {
+                        version = Long.valueOf(etiqueta.replace("W/", "").replace("\"", "").trim());
+                    } catch (NumberFormatException e) {
+                        return new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
+                    }
+                }
+            } else if (versionCuerpo != null) {
+                version = Long.valueOf(versionCuerpo.toString());
+            }
+            Usuario usuario = usuarioService.actualizarPerfil(idUsuario, campos, version);
+            return ResponseEntity.ok()
+                    .eTag("\"" + usuario.getVersion() + "\"")
+                    .body(new UsuarioRespuestaDTO(usuario));
+        } catch (NoSuchElementException e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        } catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
     @PutMapping("/actualizarAltura/{idUsuario}")
     public ResponseEntity<UsuarioRespuestaDTO> actualizarAltura(@PathVariable long idUsuario, @RequestParam Float alturaActualizada){
         try {
@@ -227,6 +290,8 @@ public class UsuarioController {
             return ResponseEntity.ok(new UsuarioRespuestaDTO(usuario));
         } catch (NoSuchElementException e) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        } catch (DataIntegrityViolationException e) {
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
         } catch (IllegalArgumentException e) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
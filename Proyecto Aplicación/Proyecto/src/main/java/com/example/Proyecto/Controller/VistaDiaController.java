@@ -0,0 +1,31 @@
+package com.example.Proyecto.Controller;
+
+import com.example.Proyecto.DTO.VistaDiaDTO;
+import com.example.Proyecto.Service.VistaDiaService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/VistaDia")
+public class VistaDiaController {
+    @Autowired
+    public VistaDiaService vistaDiaService;
+
+    // Todo lo que necesita InicioScreen en una sola llamada (fecha opcional, por defecto hoy)
+    @GetMapping("/{idUsuario}")
+    public ResponseEntity<VistaDiaDTO> obtenerVistaDia(
+            @PathVariable Long idUsuario,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha) {
+        try {
+            VistaDiaDTO vista = vistaDiaService.obtenerVistaDia(idUsuario, fecha != null ? fecha : LocalDate.now());
+            return ResponseEntity.ok(vista);
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build(); // Usuario no encontrado
+        }
+    }
+}
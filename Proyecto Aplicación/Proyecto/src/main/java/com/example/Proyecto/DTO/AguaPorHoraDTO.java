@@ -0,0 +1,15 @@
+package com.example.Proyecto.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class AguaPorHoraDTO {
+    private int hora; // 0-23
+    private long cantidadml;
+}
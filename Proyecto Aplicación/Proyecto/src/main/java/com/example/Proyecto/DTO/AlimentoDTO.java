@@ -0,0 +1,34 @@
+package com.example.Proyecto.DTO;
+
+import com.example.Proyecto.Model.Alimento;
+
+/**
+ * Proyección de Alimento con solo las columnas del catálogo (mismo JSON que la entidad, sin relaciones).
+ * Los repositorios la construyen directo con "SELECT new", sin cargar la entidad.
+ */
+public record AlimentoDTO(
+        Long idAlimento,
+        String nombreAlimento,
+        Float calorias,
+        Float proteinas,
+        Float carbohidratos,
+        Float grasas,
+        Float azucares,
+        Float fibra,
+        Float sodio,
+        Float grasasSaturadas,
+        String categoria,
+        String urlImagen,
+        Float cantidadBase,
+        String unidadBase) {
+
+    // Lista de columnas para las consultas "SELECT new" (alias "a" para Alimento)
+    public static final String COLUMNAS = "a.idAlimento, a.nombreAlimento, a.calorias, a.proteinas, a.carbohidratos, " +
+            "a.grasas, a.azucares, a.fibra, a.sodio, a.grasasSaturadas, a.categoria, a.urlImagen, a.cantidadBase, a.unidadBase";
+
+    public static AlimentoDTO de(Alimento a) {
+        return a == null ? null : new AlimentoDTO(a.getIdAlimento(), a.getNombreAlimento(), a.getCalorias(), a.getProteinas(),
+                a.getCarbohidratos(), a.getGrasas(), a.getAzucares(), a.getFibra(), a.getSodio(), a.getGrasasSaturadas(),
+                a.getCategoria(), a.getUrlImagen(), a.getCantidadBase(), a.getUnidadBase());
+    }
+}
@@ -1,20 +1,30 @@
 package com.example.Proyecto.DTO;
 
-import com.example.Proyecto.Model.Alimento;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.time.LocalDateTime;
+
 @Setter
 @Getter
 public class AlimentoRecienteDTO {
     private Long idReciente;
     private String consultadoEn;
-    private Alimento alimento;
+    private AlimentoDTO alimento;
 
-    public AlimentoRecienteDTO(Long idReciente, String consultadoEn, Alimento alimento) {
+    public AlimentoRecienteDTO(Long idReciente, String consultadoEn, AlimentoDTO alimento) {
         this.idReciente = idReciente;
         this.consultadoEn = consultadoEn;
         this.alimento = alimento;
     }
-}
 
+    // Usado por la proyección JPQL (alias "ar" para AlimentoReciente y "a" para Alimento)
+    public AlimentoRecienteDTO(Long idReciente, LocalDateTime consultadoEn,
+                               Long idAlimento, String nombreAlimento, Float calorias, Float proteinas,
+                               Float carbohidratos, Float grasas, Float azucares, Float fibra, Float sodio,
+                               Float grasasSaturadas, String categoria, String urlImagen, Float cantidadBase,
+                               String unidadBase) {
+        this(idReciente, consultadoEn.toString(), new AlimentoDTO(idAlimento, nombreAlimento, calorias, proteinas,
+                carbohidratos, grasas, azucares, fibra, sodio, grasasSaturadas, categoria, urlImagen, cantidadBase, unidadBase));
+    }
+}
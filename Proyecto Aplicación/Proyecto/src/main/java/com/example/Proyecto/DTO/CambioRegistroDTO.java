@@ -0,0 +1,72 @@
+package com.example.Proyecto.DTO;
+
+import com.example.Proyecto.Model.RegistroAgua;
+import com.example.Proyecto.Model.RegistroAlimento;
+import com.example.Proyecto.Model.RegistroEliminado;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Cambio del lado del servidor que la app debe aplicar en su copia local
+ */
+@Setter
+@Getter
+@NoArgsConstructor
+public class CambioRegistroDTO {
+    private MutacionSincronizacionDTO.Entidad entidad;
+    private Long idServidor;
+    private String idCliente;
+    private Long version;
+    private boolean eliminado;
+
+    // Registro de alimento
+    private Long idAlimento;
+    private String nombreAlimento;
+    private Float tamanoPorcion;
+    private String unidadMedida;
+    private Float tamanoOriginal;
+    private String unidadOriginal;
+    private String momentoDelDia;
+    private LocalDateTime consumidoEn;
+
+    // Registro de agua
+    private LocalDate fecha;
+    private Integer cantidadml;
+
+    public CambioRegistroDTO(RegistroAlimento registro) {
+        this.entidad = MutacionSincronizacionDTO.Entidad.ALIMENTO;
+        this.idServidor = registro.getIdRegistroAlimento();
+        this.idCliente = registro.getIdCliente();
+        this.version = registro.getVersion();
+        this.idAlimento = registro.getAlimento().getIdAlimento();
+        this.nombreAlimento = registro.getAlimento().getNombreAlimento();
+        this.tamanoPorcion = registro.getTamanoPorcion();
+        this.unidadMedida = registro.getUnidadMedida();
+        this.tamanoOriginal = registro.getTamanoOriginal();
+        this.unidadOriginal = registro.getUnidadOriginal();
+        this.momentoDelDia = registro.getMomentoDelDia();
+        this.consumidoEn = registro.getConsumidoEn();
+    }
+
+    public CambioRegistroDTO(RegistroAgua registro) {
+        this.entidad = MutacionSincronizacionDTO.Entidad.AGUA;
+        this.idServidor = registro.getIdRegistroAgua();
+        this.idCliente = registro.getIdCliente();
+        this.version = registro.getVersion();
+        this.fecha = registro.getFecha();
+        this.cantidadml = registro.getCantidadml();
+    }
+
+    public CambioRegistroDTO(RegistroEliminado eliminado) {
+        this.entidad = eliminado.getTipo() == RegistroEliminado.TipoRegistro.Agua
+                ? MutacionSincronizacionDTO.Entidad.AGUA
+                : MutacionSincronizacionDTO.Entidad.ALIMENTO;
+        this.idServidor = eliminado.getIdRegistro();
+        this.idCliente = eliminado.getIdCliente();
+        this.eliminado = true;
+    }
+}
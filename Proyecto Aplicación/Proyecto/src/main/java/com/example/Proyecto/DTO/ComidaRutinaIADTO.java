@@ -0,0 +1,39 @@
+package com.example.Proyecto.DTO;
+
+import com.example.Proyecto.Model.ComidaRutinaIA;
+import com.example.Proyecto.Model.ComidaRutinaIAAlimento;
+import com.example.Proyecto.Model.ValoresNutricionales;
+
+import java.util.List;
+
+/**
+ * Comida de una rutina con sus alimentos, con el mismo JSON que la entidad (sin la rutina ni el Alimento del catálogo).
+ */
+public record ComidaRutinaIADTO(
+        Long idComida,
+        ComidaRutinaIA.TipoComida tipoComida,
+        ValoresNutricionales nutrientes,
+        int diaNumero,
+        ComidaRutinaIA.DiaSemana diaSemana,
+        List<Alimento> alimentos) {
+
+    public record Alimento(Long idItem, int orden, String nombreAlimento, Float cantidad, String unidad,
+                           ValoresNutricionales nutrientes, Long idAlimento) {
+    }
+
+    public static ComidaRutinaIADTO de(ComidaRutinaIA c) {
+        if (c == null) {
+            return null;
+        }
+        List<Alimento> alimentos = c.getAlimentos() == null ? List.of() : c.getAlimentos().stream()
+                .map(ComidaRutinaIADTO::alimento)
+                .toList();
+        return new ComidaRutinaIADTO(c.getIdComida(), c.getTipoComida(), c.getNutrientes(), c.getDiaNumero(),
+                c.getDiaSemana(), alimentos);
+    }
+
+    private static Alimento alimento(ComidaRutinaIAAlimento a) {
+        return new Alimento(a.getIdItem(), a.getOrden(), a.getNombreAlimento(), a.getCantidad(), a.getUnidad(),
+                a.getNutrientes(), a.getIdAlimento());
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.Proyecto.DTO;
+
+import com.example.Proyecto.Model.ConfiguracionAplicacion;
+
+import java.sql.Timestamp;
+
+/**
+ * Configuración con el id del usuario en lugar de la entidad Usuario embebida. El listado se arma con "SELECT new".
+ */
+public record ConfiguracionAplicacionDTO(
+        Long idConfiguracion,
+        Long idUsuario,
+        ConfiguracionAplicacion.Idioma idioma,
+        boolean notificaciones,
+        ConfiguracionAplicacion.Tema tema,
+        ConfiguracionAplicacion.FrecuenciaActualizacion frecuenciaActualizacion,
+        Timestamp creadoEn) {
+
+    // Lista de columnas para las consultas "SELECT new" (alias "c" para la configuración y "u" para su usuario)
+    public static final String COLUMNAS = "c.idConfiguracion, u.idUsuario, c.idioma, c.notificaciones, c.tema, " +
+            "c.frecuenciaActualizacion, c.creadoEn";
+
+    public static ConfiguracionAplicacionDTO de(ConfiguracionAplicacion c) {
+        return c == null ? null : new ConfiguracionAplicacionDTO(c.getIdConfiguracion(),
+                c.getUsuario() == null ? null : c.getUsuario().getIdUsuario(), c.getIdioma(), c.isNotificaciones(),
+                c.getTema(), c.getFrecuenciaActualizacion(), c.getCreadoEn());
+    }
+}
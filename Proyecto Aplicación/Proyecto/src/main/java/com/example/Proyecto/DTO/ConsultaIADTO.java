@@ -0,0 +1,12 @@
+package com.example.Proyecto.DTO;
+
+import lombok.Data;
+
+@Data
+public class ConsultaIADTO {
+    private Long idUsuario;
+    private Long idSesion;
+    private String prompt;
+    // Antepone al prompt el contexto nutricional del usuario (perfil, objetivos, totales, favoritos y exclusiones)
+    private boolean conContexto;
+}
@@ -0,0 +1,21 @@
+package com.example.Proyecto.DTO;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Contexto nutricional de un usuario en una sola respuesta: perfil, objetivos diarios,
+ * totales de hoy y de la semana (desde el lunes), favoritos y exclusiones.
+ * La versión cambia cada vez que el contexto se vuelve a armar (sirve como ETag).
+ */
+public record ContextoNutricionalDTO(
+        Long idUsuario,
+        long version,
+        LocalDate fecha,
+        UsuarioRespuestaDTO perfil,
+        NutrientesRecomendadosDTO objetivos,
+        NutrientesTotalesDTO hoy,
+        NutrientesTotalesDTO semana,
+        List<String> favoritos,
+        List<String> exclusiones) {
+}
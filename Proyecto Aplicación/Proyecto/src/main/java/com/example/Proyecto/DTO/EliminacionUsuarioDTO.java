@@ -0,0 +1,28 @@
+package com.example.Proyecto.DTO;
+
+import com.example.Proyecto.Model.EliminacionUsuario;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progreso del borrado de una cuenta tal como lo consulta el cliente.
+ */
+public record EliminacionUsuarioDTO(
+        Long idUsuario,
+        EliminacionUsuario.Estado estado,
+        int pasoActual,
+        int totalPasos,
+        String tablaActual,
+        long filasEliminadas,
+        LocalDateTime solicitadoEn,
+        LocalDateTime actualizadoEn,
+        String error,
+        int intentos,
+        LocalDateTime reintentarEn) {
+
+    public static EliminacionUsuarioDTO de(EliminacionUsuario e) {
+        return e == null ? null : new EliminacionUsuarioDTO(e.getIdUsuario(), e.getEstado(), e.getPasoActual(),
+                e.getTotalPasos(), e.getTablaActual(), e.getFilasEliminadas(), e.getSolicitadoEn(), e.getActualizadoEn(),
+                e.getError(), e.getIntentos(), e.getReintentarEn());
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.Proyecto.DTO;
+
+import com.example.Proyecto.Model.EstadisticasNutricionales;
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDate;
+
+/**
+ * Fila de Estadisticas_Nutricionales con el mismo JSON que la entidad, sin el usuario. Se arma con "SELECT new".
+ */
+public record EstadisticasNutricionalesDTO(
+        Long idEstadistica,
+        @JsonFormat(pattern = "yyyy-MM-dd") LocalDate fecha,
+        Float totalCalorias,
+        Float totalProteinas,
+        Float totalCarbohidratos,
+        Float totalGrasas,
+        Float totalAzucares,
+        Float totalFibra,
+        Float totalSodio,
+        Float totalGrasasSaturadas,
+        Float totalAgua,
+        int totalComidas,
+        Float imc,
+        Float caloriasDesayuno,
+        Float caloriasAlmuerzo,
+        Float caloriasCena,
+        Float caloriasSnack) {
+
+    // Lista de columnas para las consultas "SELECT new" (alias "e" para EstadisticasNutricionales)
+    public static final String COLUMNAS = "e.idEstadistica, e.fecha, e.totalCalorias, e.totalProteinas, e.totalCarbohidratos, " +
+            "e.totalGrasas, e.totalAzucares, e.totalFibra, e.totalSodio, e.totalGrasasSaturadas, e.totalAgua, " +
+            "e.totalComidas, e.imc, e.caloriasDesayuno, e.caloriasAlmuerzo, e.caloriasCena, e.caloriasSnack";
+
+    public static EstadisticasNutricionalesDTO de(EstadisticasNutricionales e) {
+        return e == null ? null : new EstadisticasNutricionalesDTO(e.getIdEstadistica(), e.getFecha(), e.getTotalCalorias(),
+                e.getTotalProteinas(), e.getTotalCarbohidratos(), e.getTotalGrasas(), e.getTotalAzucares(), e.getTotalFibra(),
+                e.getTotalSodio(), e.getTotalGrasasSaturadas(), e.getTotalAgua(), e.getTotalComidas(), e.getImc(),
+                e.getCaloriasDesayuno(), e.getCaloriasAlmuerzo(), e.getCaloriasCena(), e.getCaloriasSnack());
+    }
+}
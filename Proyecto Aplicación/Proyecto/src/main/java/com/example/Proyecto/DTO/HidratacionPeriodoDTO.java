@@ -0,0 +1,16 @@
+package com.example.Proyecto.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class HidratacionPeriodoDTO {
+    private String periodo;       // "2025-03-14", "2025-03" o "2025"
+    private long cantidadml;
+    private int diasConRegistro;
+}
@@ -0,0 +1,15 @@
+package com.example.Proyecto.DTO;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Un toque de agua del día, construido con "SELECT new" desde Ingesta_Agua.
+ */
+public record IngestaAguaDTO(
+        Long idIngestaAgua,
+        Long idUsuario,
+        LocalDate fecha,
+        LocalDateTime registradoEn,
+        int cantidadml) {
+}
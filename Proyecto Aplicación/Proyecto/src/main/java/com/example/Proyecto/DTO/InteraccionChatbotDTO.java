@@ -0,0 +1,29 @@
+package com.example.Proyecto.DTO;
+
+import com.example.Proyecto.Model.InteraccionChatbot;
+
+import java.sql.Timestamp;
+import java.util.UUID;
+
+/**
+ * Turno del chatbot con el mismo JSON que la entidad, sin la sesión. El listado se arma con "SELECT new".
+ */
+public record InteraccionChatbotDTO(
+        Long idInteraccion,
+        String consultaUsuario,
+        String respuestaIA,
+        InteraccionChatbot.TipoIntento tipoIntento,
+        InteraccionChatbot.TipoAccion tipoAccion,
+        String tema,
+        Timestamp timestamp,
+        UUID idEntrada) {
+
+    // Lista de columnas para las consultas "SELECT new" (alias "i" para InteraccionChatbot)
+    public static final String COLUMNAS = "i.idInteraccion, i.consultaUsuario, i.respuestaIA, i.tipoIntento, i.tipoAccion, " +
+            "i.tema, i.timestamp, i.idEntrada";
+
+    public static InteraccionChatbotDTO de(InteraccionChatbot i) {
+        return i == null ? null : new InteraccionChatbotDTO(i.getIdInteraccion(), i.getConsultaUsuario(), i.getRespuestaIA(),
+                i.getTipoIntento(), i.getTipoAccion(), i.getTema(), i.getTimestamp(), i.getIdEntrada());
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.Proyecto.DTO;
+
+import com.example.Proyecto.Model.InteraccionChatbot;
+import lombok.Data;
+
+@Data
+public class InteraccionEntradaDTO {
+    private Long idSesion;
+    private String consultaUsuario;
+    private String respuestaIA;
+    private InteraccionChatbot.TipoIntento tipoIntento;
+    private InteraccionChatbot.TipoAccion tipoAccion;
+    private String tema;
+}
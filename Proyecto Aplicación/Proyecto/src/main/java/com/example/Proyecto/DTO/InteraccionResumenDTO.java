@@ -0,0 +1,21 @@
+package com.example.Proyecto.DTO;
+
+import com.example.Proyecto.Model.InteraccionChatbot;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.sql.Timestamp;
+
+/**
+ * Turno del chatbot para listas: respuestaIA puede venir recortada (truncada = true); los campos nulos no se envían.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record InteraccionResumenDTO(
+        Long idInteraccion,
+        String consultaUsuario,
+        String respuestaIA,
+        Boolean truncada,
+        InteraccionChatbot.TipoIntento tipoIntento,
+        InteraccionChatbot.TipoAccion tipoAccion,
+        String tema,
+        Timestamp timestamp) {
+}
@@ -0,0 +1,21 @@
+package com.example.Proyecto.DTO;
+
+import com.example.Proyecto.Model.MedidaCorporal;
+
+import java.time.LocalDateTime;
+
+/**
+ * Medida corporal tal como la expone la API. El listado la construye con "SELECT new", sin cargar la entidad.
+ */
+public record MedidaCorporalDTO(
+        Long idMedida,
+        Long idUsuario,
+        LocalDateTime medidoEn,
+        Float peso,
+        Float altura,
+        Float imc) {
+
+    public static MedidaCorporalDTO de(MedidaCorporal m) {
+        return new MedidaCorporalDTO(m.getIdMedida(), m.getIdUsuario(), m.getMedidoEn(), m.getPeso(), m.getAltura(), m.getImc());
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.Proyecto.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Setter
+@Getter
+public class MedidaCorporalEntradaDTO {
+    private Float peso;
+    private Float altura;           // opcional: si falta se usa la última conocida
+    private LocalDateTime medidoEn; // opcional: por defecto ahora (permite cargar historia)
+}
@@ -0,0 +1,25 @@
+package com.example.Proyecto.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class MedidaPeriodoDTO {
+    private LocalDate inicio; // primer día del periodo (día, semana ISO o mes)
+    private long medidas;
+    private Float pesoMin;
+    private Float pesoPromedio;
+    private Float pesoMax;
+    private Float imcMin;
+    private Float imcPromedio;
+    private Float imcMax;
+    private Float pesoTendencia; // valor de la recta de tendencia al inicio del periodo
+    private Float imcTendencia;
+}
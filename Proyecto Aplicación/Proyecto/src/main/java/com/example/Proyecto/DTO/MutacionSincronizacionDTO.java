@@ -0,0 +1,47 @@
+package com.example.Proyecto.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Cambio hecho en la app sin conexión (crear, actualizar o eliminar un registro de alimento o de agua)
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class MutacionSincronizacionDTO {
+    private Entidad entidad;
+    private Operacion operacion;
+    private String idCliente;          // UUID generado por la app
+    private Long idServidor;           // null en CREAR
+    private Long versionBase;          // versión del servidor sobre la que se hizo el cambio
+    private LocalDateTime marcaCliente; // hora del dispositivo en que se hizo el cambio
+
+    // Registro de alimento
+    private Long idAlimento;
+    private Float tamanoOriginal;
+    private String unidadOriginal;
+    private String momentoDelDia;
+    private LocalDateTime consumidoEn;
+
+    // Registro de agua
+    private LocalDate fecha;
+    private Integer cantidadml;
+
+    public enum Entidad {
+        ALIMENTO,
+        AGUA
+    }
+
+    public enum Operacion {
+        CREAR,
+        ACTUALIZAR,
+        ELIMINAR
+    }
+}
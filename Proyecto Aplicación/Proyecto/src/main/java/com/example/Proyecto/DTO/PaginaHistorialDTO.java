@@ -0,0 +1,12 @@
+package com.example.Proyecto.DTO;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * Página de un historial; siguienteCursor se omite en la última página.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record PaginaHistorialDTO<T>(List<T> elementos, String siguienteCursor) {
+}
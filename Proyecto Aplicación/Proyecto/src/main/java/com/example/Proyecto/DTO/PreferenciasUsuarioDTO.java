@@ -0,0 +1,27 @@
+package com.example.Proyecto.DTO;
+
+import com.example.Proyecto.Model.PreferenciasUsuario;
+
+/**
+ * Preferencias con el id del usuario en lugar de la entidad Usuario embebida. El listado se arma con "SELECT new".
+ */
+public record PreferenciasUsuarioDTO(
+        Long idPreferencia,
+        Long idUsuario,
+        Float objetivoAguaDiario,
+        String comidasPreferidas,
+        String nutrientesRecomendados,
+        String alimentosExcluidos,
+        String configuracionesNotificaciones) {
+
+    // Lista de columnas para las consultas "SELECT new" (alias "p" para la preferencia y "u" para su usuario)
+    public static final String COLUMNAS = "p.idPreferencia, u.idUsuario, p.objetivoAguaDiario, p.comidasPreferidas, " +
+            "p.nutrientesRecomendados, p.alimentosExcluidos, p.configuracionesNotificaciones";
+
+    public static PreferenciasUsuarioDTO de(PreferenciasUsuario p) {
+        return p == null ? null : new PreferenciasUsuarioDTO(p.getIdPreferencia(),
+                p.getUsuario() == null ? null : p.getUsuario().getIdUsuario(), p.getObjetivoAguaDiario(),
+                p.getComidasPreferidas(), p.getNutrientesRecomendados(), p.getAlimentosExcluidos(),
+                p.getConfiguracionesNotificaciones());
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.Proyecto.DTO;
+
+import com.example.Proyecto.Model.Recordatorio;
+
+import java.sql.Time;
+
+/**
+ * Recordatorio con el mismo JSON que la entidad, sin el usuario. El listado se arma con "SELECT new".
+ */
+public record RecordatorioDTO(
+        Long idRecordatorio,
+        Recordatorio.TipoRecordatorio tipoRecordatorio,
+        String mensaje,
+        Time hora,
+        boolean activo) {
+
+    // Lista de columnas para las consultas "SELECT new" (alias "r" para Recordatorio)
+    public static final String COLUMNAS = "r.idRecordatorio, r.tipoRecordatorio, r.mensaje, r.hora, r.activo";
+
+    public static RecordatorioDTO de(Recordatorio r) {
+        return r == null ? null : new RecordatorioDTO(r.getIdRecordatorio(), r.getTipoRecordatorio(), r.getMensaje(),
+                r.getHora(), r.isActivo());
+    }
+}
@@ -1,12 +1,30 @@
 package com.example.Proyecto.DTO;
 
+import com.example.Proyecto.Model.RegistroAgua;
 import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
 
 @Data
+@NoArgsConstructor
 public class RegistroAguaRespuestaDTO {
     private Long idRegistroAgua;
     private Long idUsuario;
     private String fecha;
     private int cantidadml;
 
-}
\ No newline at end of file
+    // Para las consultas "SELECT new" del listado
+    public RegistroAguaRespuestaDTO(Long idRegistroAgua, Long idUsuario, LocalDate fecha, int cantidadml) {
+        this.idRegistroAgua = idRegistroAgua;
+        this.idUsuario = idUsuario;
+        this.fecha = fecha == null ? null : fecha.toString();
+        this.cantidadml = cantidadml;
+    }
+
+    public static RegistroAguaRespuestaDTO de(RegistroAgua registro) {
+        return registro == null ? null : new RegistroAguaRespuestaDTO(registro.getIdRegistroAgua(),
+                registro.getUsuario() == null ? null : registro.getUsuario().getIdUsuario(),
+                registro.getFecha(), registro.getCantidadml());
+    }
+}
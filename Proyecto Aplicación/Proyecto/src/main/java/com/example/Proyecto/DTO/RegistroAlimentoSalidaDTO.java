@@ -1,27 +1,54 @@
 package com.example.Proyecto.DTO;
 
-import com.example.Proyecto.Model.Alimento;
 import com.example.Proyecto.Model.RegistroAlimento;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.time.LocalDateTime;
+
 @Setter
 @Getter
 public class RegistroAlimentoSalidaDTO {
 
+    // Columnas para "SELECT new" (alias "r" para RegistroAlimento y "a" para Alimento), en el orden del constructor plano
+    public static final String COLUMNAS = "r.idRegistroAlimento, r.tamanoPorcion, r.unidadMedida, r.tamanoOriginal, " +
+            "r.unidadOriginal, r.momentoDelDia, r.consumidoEn, " + AlimentoDTO.COLUMNAS;
+
     private Long idRegistroAlimento;
-    private Alimento alimento;
+    private AlimentoDTO alimento;
     private Float tamanoPorcion;
     private String unidadMedida;
+    private Float tamanoOriginal;
+    private String unidadOriginal;
     private String momentoDelDia;
     private String consumidoEn;
 
     public RegistroAlimentoSalidaDTO(RegistroAlimento registro) {
         this.idRegistroAlimento = registro.getIdRegistroAlimento();
-        this.alimento = registro.getAlimento();
+        this.alimento = AlimentoDTO.de(registro.getAlimento());
         this.tamanoPorcion = registro.getTamanoPorcion();
         this.unidadMedida = registro.getUnidadMedida();
+        this.tamanoOriginal = registro.getTamanoOriginal();
+        this.unidadOriginal = registro.getUnidadOriginal();
         this.momentoDelDia = registro.getMomentoDelDia();
         this.consumidoEn = registro.getConsumidoEn().toString(); // ISO format
     }
+
+    // Usado por las proyecciones JPQL: registro y alimento en una sola fila, sin cargar entidades
+    public RegistroAlimentoSalidaDTO(Long idRegistroAlimento, Float tamanoPorcion, String unidadMedida, Float tamanoOriginal,
+                                     String unidadOriginal, String momentoDelDia, LocalDateTime consumidoEn,
+                                     Long idAlimento, String nombreAlimento, Float calorias, Float proteinas,
+                                     Float carbohidratos, Float grasas, Float azucares, Float fibra, Float sodio,
+                                     Float grasasSaturadas, String categoria, String urlImagen, Float cantidadBase,
+                                     String unidadBase) {
+        this.idRegistroAlimento = idRegistroAlimento;
+        this.alimento = new AlimentoDTO(idAlimento, nombreAlimento, calorias, proteinas, carbohidratos, grasas, azucares,
+                fibra, sodio, grasasSaturadas, categoria, urlImagen, cantidadBase, unidadBase);
+        this.tamanoPorcion = tamanoPorcion;
+        this.unidadMedida = unidadMedida;
+        this.tamanoOriginal = tamanoOriginal;
+        this.unidadOriginal = unidadOriginal;
+        this.momentoDelDia = momentoDelDia;
+        this.consumidoEn = consumidoEn.toString(); // ISO format
+    }
 }
@@ -0,0 +1,23 @@
+package com.example.Proyecto.DTO;
+
+import com.example.Proyecto.Model.InteraccionChatbot;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Respuesta a un mensaje del chat: la intención detectada (con los datos que se sacaron del texto)
+ * y el texto de respuesta. desdeIA indica si hizo falta llamar al proveedor de IA.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record RespuestaChatbotDTO(
+        String intencion,
+        InteraccionChatbot.TipoIntento tipoIntento,
+        InteraccionChatbot.TipoAccion tipoAccion,
+        LocalDate fecha,
+        Integer cantidadMl,
+        String respuesta,
+        boolean desdeIA,
+        UUID idEntrada) {
+}
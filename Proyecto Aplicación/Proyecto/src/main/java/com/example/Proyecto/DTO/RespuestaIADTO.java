@@ -0,0 +1,11 @@
+package com.example.Proyecto.DTO;
+
+/**
+ * Respuesta de la pasarela de IA; desdeCache indica que no hubo llamada al proveedor.
+ */
+public record RespuestaIADTO(Long idRespuesta, String respuesta, String proveedor, boolean desdeCache) {
+
+    public RespuestaIADTO comoCompartida() {
+        return new RespuestaIADTO(idRespuesta, respuesta, proveedor, true);
+    }
+}
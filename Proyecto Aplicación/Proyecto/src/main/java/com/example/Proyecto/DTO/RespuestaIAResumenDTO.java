@@ -0,0 +1,16 @@
+package com.example.Proyecto.DTO;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.sql.Timestamp;
+
+/**
+ * Respuesta registrada de la IA para listas: datosRespuesta puede venir recortado (truncada = true).
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record RespuestaIAResumenDTO(
+        Long idRespuesta,
+        String datosRespuesta,
+        Boolean truncada,
+        Timestamp creadoEn) {
+}
@@ -0,0 +1,24 @@
+package com.example.Proyecto.DTO;
+
+import com.example.Proyecto.Model.InteraccionChatbot;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.sql.Timestamp;
+
+/**
+ * Turno encontrado al buscar en el historial: fragmento es la parte de la respuesta de la IA donde aparecen
+ * los términos (marcados con « »), rango es la relevancia calculada por PostgreSQL.
+ * Si archivada es true el resultado es una sesión archivada completa: no trae turno, consulta ni fragmento.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ResultadoBusquedaDTO(
+        Long idInteraccion,
+        Long idSesion,
+        String consultaUsuario,
+        String fragmento,
+        String tema,
+        InteraccionChatbot.TipoIntento tipoIntento,
+        Timestamp timestamp,
+        Float rango,
+        boolean archivada) {
+}
@@ -0,0 +1,25 @@
+package com.example.Proyecto.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoMutacionDTO {
+    private String idCliente;
+    private Long idServidor;
+    private Estado estado;
+    private Long version;
+    private String mensaje;
+
+    public enum Estado {
+        APLICADA,
+        DUPLICADA,  // la mutación ya se había aplicado antes (reintento)
+        CONFLICTO,  // ganó la copia del servidor, que viene en los cambios
+        ERROR
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.Proyecto.DTO;
+
+import com.example.Proyecto.Model.RutinaAlimenticiaIA;
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Cabecera de una rutina de la IA con el mismo JSON que la entidad, sin usuario ni comidas
+ * (la rutina con sus comidas es RutinaCompletaDTO). El listado se arma con "SELECT new".
+ */
+public record RutinaAlimenticiaIADTO(
+        Long idRutina,
+        @JsonFormat(pattern = "yyyy-MM-dd") LocalDate fechaInicio,
+        @JsonFormat(pattern = "yyyy-MM-dd") LocalDate fechaFin,
+        Float objetivoCaloricoDia,
+        List<RutinaAlimenticiaIA.ResumenDia> dias,
+        RutinaAlimenticiaIA.Detalles detalles,
+        Timestamp creadoEn,
+        Timestamp actualizadoEn) {
+
+    // Lista de columnas para las consultas "SELECT new" (alias "r" para RutinaAlimenticiaIA)
+    public static final String COLUMNAS = "r.idRutina, r.fechaInicio, r.fechaFin, r.objetivoCaloricoDia, r.dias, r.detalles, " +
+            "r.creadoEn, r.actualizadoEn";
+
+    public static RutinaAlimenticiaIADTO de(RutinaAlimenticiaIA r) {
+        return r == null ? null : new RutinaAlimenticiaIADTO(r.getIdRutina(), r.getFechaInicio(), r.getFechaFin(),
+                r.getObjetivoCaloricoDia(), r.getDias(), r.getDetalles(), r.getCreadoEn(), r.getActualizadoEn());
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.Proyecto.DTO;
+
+import com.example.Proyecto.Model.ComidaRutinaIA;
+import com.example.Proyecto.Model.RutinaAlimenticiaIA;
+import com.example.Proyecto.Model.ValoresNutricionales;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Rutina lista para mostrar: días con sus totales, comidas con sus totales y alimentos con cantidad y nutrientes.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record RutinaCompletaDTO(
+        Long idRutina,
+        @JsonFormat(pattern = "yyyy-MM-dd") LocalDate fechaInicio,
+        @JsonFormat(pattern = "yyyy-MM-dd") LocalDate fechaFin,
+        Float objetivoCaloricoDia,
+        RutinaAlimenticiaIA.Detalles detalles,
+        List<Dia> dias) {
+
+    public record Dia(int diaNumero, ComidaRutinaIA.DiaSemana diaSemana, ValoresNutricionales nutrientes, List<Comida> comidas) {
+    }
+
+    public record Comida(Long idComida, ComidaRutinaIA.TipoComida tipoComida, ValoresNutricionales nutrientes, List<Alimento> alimentos) {
+    }
+
+    // nutrientes se omite si el alimento no está en el catálogo
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Alimento(Long idItem, Long idAlimento, String nombreAlimento, Float cantidad, String unidad, ValoresNutricionales nutrientes) {
+    }
+}
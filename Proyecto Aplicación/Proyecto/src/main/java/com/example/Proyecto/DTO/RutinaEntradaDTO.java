@@ -0,0 +1,31 @@
+package com.example.Proyecto.DTO;
+
+import com.example.Proyecto.Model.ComidaRutinaIA;
+import com.example.Proyecto.Model.RutinaAlimenticiaIA;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Rutina generada por la IA ya estructurada: cada comida con su lista de alimentos.
+ * Los nutrientes no se reciben, se calculan al guardar a partir del catálogo.
+ */
+public record RutinaEntradaDTO(
+        Long idUsuario,
+        LocalDate fechaInicio,
+        LocalDate fechaFin,
+        Float objetivoCaloricoDia,
+        RutinaAlimenticiaIA.Detalles detalles,
+        List<Comida> comidas) {
+
+    public record Comida(
+            int diaNumero,
+            ComidaRutinaIA.DiaSemana diaSemana,
+            ComidaRutinaIA.TipoComida tipoComida,
+            List<AlimentoEntrada> alimentos) {
+    }
+
+    /** idAlimento o nombreAlimento (se busca en el catálogo sin distinguir mayúsculas); sin unidad se usa la base del alimento. */
+    public record AlimentoEntrada(Long idAlimento, String nombreAlimento, Float cantidad, String unidad) {
+    }
+}
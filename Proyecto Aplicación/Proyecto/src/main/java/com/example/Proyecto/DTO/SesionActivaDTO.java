@@ -0,0 +1,9 @@
+package com.example.Proyecto.DTO;
+
+import java.sql.Timestamp;
+
+/**
+ * Sesión abierta del chatbot según el registro en memoria, con su última actividad.
+ */
+public record SesionActivaDTO(Long idSesion, Timestamp ultimaActividad) {
+}
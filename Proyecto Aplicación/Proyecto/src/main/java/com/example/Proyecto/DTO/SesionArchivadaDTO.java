@@ -0,0 +1,17 @@
+package com.example.Proyecto.DTO;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Contenido de una sesión archivada (se guarda como JSON comprimido en Sesion_Chatbot_Archivada).
+ */
+public record SesionArchivadaDTO(
+        Long idSesion,
+        Long idUsuario,
+        Timestamp inicioSesion,
+        Timestamp finSesion,
+        String retroalimentacion,
+        List<InteraccionResumenDTO> interacciones,
+        List<RespuestaIAResumenDTO> respuestas) {
+}
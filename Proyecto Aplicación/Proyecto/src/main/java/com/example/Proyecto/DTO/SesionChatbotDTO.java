@@ -0,0 +1,24 @@
+package com.example.Proyecto.DTO;
+
+import com.example.Proyecto.Model.SesionChatbot;
+
+import java.sql.Timestamp;
+
+/**
+ * Sesión del chatbot con el mismo JSON que la entidad (sin usuario ni turnos). El listado se arma con "SELECT new".
+ */
+public record SesionChatbotDTO(
+        Long idSesion,
+        Timestamp inicioSesion,
+        Timestamp finSesion,
+        String mensajes,
+        String retroalimentacion) {
+
+    // Lista de columnas para las consultas "SELECT new" (alias "s" para SesionChatbot)
+    public static final String COLUMNAS = "s.idSesion, s.inicioSesion, s.finSesion, s.mensajes, s.retroalimentacion";
+
+    public static SesionChatbotDTO de(SesionChatbot s) {
+        return s == null ? null : new SesionChatbotDTO(s.getIdSesion(), s.getInicioSesion(), s.getFinSesion(),
+                s.getMensajes(), s.getRetroalimentacion());
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.Proyecto.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class SincronizacionEntradaDTO {
+    private Long idUsuario;
+    private Long token; // token devuelto por la última sincronización (null = primera vez)
+    private List<MutacionSincronizacionDTO> mutaciones;
+}
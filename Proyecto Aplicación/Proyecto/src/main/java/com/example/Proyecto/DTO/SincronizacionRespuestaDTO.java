@@ -0,0 +1,18 @@
+package com.example.Proyecto.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class SincronizacionRespuestaDTO {
+    private Long token; // enviar en la próxima sincronización
+    private List<ResultadoMutacionDTO> resultados;
+    private List<CambioRegistroDTO> cambios;
+}
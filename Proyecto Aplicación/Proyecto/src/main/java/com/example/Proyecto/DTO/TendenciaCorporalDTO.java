@@ -0,0 +1,19 @@
+package com.example.Proyecto.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class TendenciaCorporalDTO {
+    private String granularidad;
+    private List<MedidaPeriodoDTO> periodos;
+    private Float pesoCambioSemanal; // kg por semana según la recta de tendencia (null con menos de 2 medidas)
+    private Float imcCambioSemanal;
+}
@@ -0,0 +1,18 @@
+package com.example.Proyecto.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Setter
+@Getter
+public class TokenRespuestaDTO {
+    private String accessToken;
+    private String refreshToken;
+    private String tipo;
+    private long expiraEn; // segundos de vida del accessToken
+    private UsuarioRespuestaDTO usuario;
+}
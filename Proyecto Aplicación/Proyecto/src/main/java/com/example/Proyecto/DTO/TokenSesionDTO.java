@@ -0,0 +1,24 @@
+package com.example.Proyecto.DTO;
+
+import com.example.Proyecto.Model.TokenSesion;
+
+import java.sql.Timestamp;
+
+/**
+ * Sesión de refresco tal como la ve el panel de administración. No incluye el hash del token.
+ * El listado se arma con "SELECT new".
+ */
+public record TokenSesionDTO(
+        Long idToken,
+        Long idUsuario,
+        Timestamp expiracion,
+        boolean revocado) {
+
+    // Lista de columnas para las consultas "SELECT new" (alias "t" para TokenSesion)
+    public static final String COLUMNAS = "t.idToken, t.usuario.idUsuario, t.expiracion, t.revocado";
+
+    public static TokenSesionDTO de(TokenSesion t) {
+        return t == null ? null : new TokenSesionDTO(t.getIdToken(),
+                t.getUsuario() == null ? null : t.getUsuario().getIdUsuario(), t.getExpiracion(), t.isRevocado());
+    }
+}
@@ -25,6 +25,7 @@ public class UsuarioRespuestaDTO {
     private String objetivosSalud;
     private Float pesoObjetivo;
     private String nivelActividad;
+    private Long version;
 
     public UsuarioRespuestaDTO(Usuario usuario) {
         this.idUsuario = usuario.getIdUsuario();
@@ -38,5 +39,6 @@ public class UsuarioRespuestaDTO {
         this.objetivosSalud = usuario.getObjetivosSalud();
         this.pesoObjetivo = usuario.getPesoObjetivo();
         this.nivelActividad = usuario.getNivelActividad();
+        this.version = usuario.getVersion();
     }
 }
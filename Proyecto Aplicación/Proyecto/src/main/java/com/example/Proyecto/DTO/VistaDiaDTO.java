@@ -0,0 +1,28 @@
+package com.example.Proyecto.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Respuesta compuesta de la pantalla de inicio: todo lo necesario para pintar un día
+ * (comidas por momento, totales, recomendados, agua y calendario de actividad) en una sola llamada.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class VistaDiaDTO {
+    private Long idUsuario;
+    private LocalDate fecha;
+    private Map<String, List<RegistroAlimentoSalidaDTO>> comidas; // clave = momento del día
+    private NutrientesTotalesDTO totales;
+    private NutrientesRecomendadosDTO recomendados;
+    private RegistroAguaRespuestaDTO agua; // null si no hay registro ese día
+    private List<ActividadDiaDTO> actividad;
+}
@@ -0,0 +1,42 @@
+package com.example.Proyecto.Model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Calendario de actividad de un usuario en un año: un bit por día (día del año - 1) y por tipo de registro.
+ * Lo mantienen las escrituras de RegistroAlimento y RegistroAgua a través de ActividadService.
+ */
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Setter
+@Getter
+@Table(name = "Actividad_Anual", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_actividad_anual_usuario_anio", columnNames = {"id_usuario", "Anio"})
+})
+public class ActividadAnual {
+    public static final int BYTES_POR_ANIO = 46; // 366 bits
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_actividad_anual")
+    private Long idActividadAnual;
+
+    @Column(name = "id_usuario", nullable = false)
+    private Long idUsuario;
+
+    @Column(name = "Anio", nullable = false)
+    private int anio;
+
+    // Días con al menos un registro de alimento
+    @Column(name = "Comida", nullable = false, columnDefinition = "bytea")
+    private byte[] comida;
+
+    // Días con registro de agua
+    @Column(name = "Agua", nullable = false, columnDefinition = "bytea")
+    private byte[] agua;
+}
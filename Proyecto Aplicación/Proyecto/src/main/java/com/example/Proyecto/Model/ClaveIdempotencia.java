@@ -0,0 +1,37 @@
+package com.example.Proyecto.Model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.sql.Timestamp;
+
+/**
+ * Respuesta guardada para una clave de idempotencia (cabecera Idempotency-Key).
+ * Solo se persiste si idempotencia.persistir=true; por defecto vive en memoria.
+ */
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Setter
+@Getter
+@Table(name = "Clave_Idempotencia")
+public class ClaveIdempotencia {
+    @Id
+    @Column(name = "Clave", length = 200)
+    private String clave; // ruta + hash de (usuario, clave enviada por el cliente, cuerpo)
+
+    @Column(name = "Estado_Http", nullable = false)
+    private int estadoHttp;
+
+    @Column(name = "Content_Type", length = 100)
+    private String contentType;
+
+    @Column(name = "Cuerpo", columnDefinition = "TEXT")
+    private String cuerpo;
+
+    @Column(name = "Creado_En", nullable = false)
+    private Timestamp creadoEn;
+}
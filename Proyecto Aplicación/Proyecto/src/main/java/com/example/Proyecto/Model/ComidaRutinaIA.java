@@ -6,13 +6,20 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.util.ArrayList;
+import java.util.List;
 
 @Entity
 @NoArgsConstructor
 @AllArgsConstructor
 @Setter
 @Getter
-@Table(name = "Comida_Rutina_IA")
+@Table(name = "Comida_Rutina_IA", indexes = {
+        @Index(name = "idx_comida_rutina_ia_rutina_dia", columnList = "id_rutina, Dia_Numero")
+})
 public class ComidaRutinaIA {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -23,14 +30,10 @@ public class ComidaRutinaIA {
     @Enumerated(EnumType.STRING)
     private TipoComida tipoComida;
 
-    @Column(name = "Alimentos_Sugeridos")
-    private String alimentosSugeridos;
-
-    @Column(name = "ValoresNutricionales")
-    private String valoresNutricionales;
-
-    @Column(name = "Tamano_Porciones")
-    private String tamanoPorciones;
+    // Suma de los alimentos de la comida, calculada al guardar
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "Nutrientes")
+    private ValoresNutricionales nutrientes;
 
     @Column(name = "Dia_Numero", nullable = false)
     private int diaNumero;
@@ -62,4 +65,8 @@ public class ComidaRutinaIA {
     @JoinColumn(name="id_rutina", nullable = false)
     @JsonIgnore
     private RutinaAlimenticiaIA rutina;
+
+    @OneToMany(mappedBy = "comida", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
+    @OrderBy("orden")
+    private List<ComidaRutinaIAAlimento> alimentos = new ArrayList<>();
 }
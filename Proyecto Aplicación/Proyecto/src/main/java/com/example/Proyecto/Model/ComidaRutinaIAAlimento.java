@@ -0,0 +1,63 @@
+package com.example.Proyecto.Model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+import org.hibernate.type.SqlTypes;
+
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Setter
+@Getter
+@Table(name = "Comida_Rutina_IA_Alimento", indexes = {
+        @Index(name = "idx_comida_rutina_ia_alimento_comida", columnList = "id_comida, Orden")
+})
+public class ComidaRutinaIAAlimento {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_item")
+    private Long idItem;
+
+    // Posición dentro de la comida, en el orden en que la sugirió la IA
+    @Column(name = "Orden", nullable = false)
+    private int orden;
+
+    // Copia del nombre: se conserva aunque el alimento no esté en el catálogo o se borre
+    @Column(name = "Nombre_Alimento", nullable = false, length = 100)
+    private String nombreAlimento;
+
+    @Column(name = "Cantidad", nullable = false)
+    private Float cantidad;
+
+    @Column(name = "Unidad", length = 50)
+    private String unidad;
+
+    // Calculados al guardar; null si el alimento no está en el catálogo
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "Nutrientes")
+    private ValoresNutricionales nutrientes;
+
+    // Solo lectura: la columna la escribe la relación alimento
+    @Column(name = "id_alimento", insertable = false, updatable = false)
+    private Long idAlimento;
+
+    // Relaciones
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "id_comida", nullable = false)
+    @JsonIgnore
+    private ComidaRutinaIA comida;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "id_alimento")
+    @OnDelete(action = OnDeleteAction.SET_NULL)
+    @JsonIgnore
+    private Alimento alimento;
+}
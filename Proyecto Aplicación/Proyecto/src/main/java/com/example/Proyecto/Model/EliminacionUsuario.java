@@ -0,0 +1,63 @@
+package com.example.Proyecto.Model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progreso del borrado asíncrono de una cuenta. La cuenta queda marcada como eliminada al pedirlo
+ * y los datos se purgan después tabla por tabla; si la aplicación se reinicia, el borrado continúa.
+ */
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Setter
+@Getter
+@Table(name = "Eliminacion_Usuario")
+public class EliminacionUsuario {
+    public enum Estado { PENDIENTE, EN_CURSO, COMPLETADA, ERROR }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_eliminacion")
+    private Long idEliminacion;
+
+    @Column(name = "id_usuario", nullable = false, unique = true)
+    private Long idUsuario;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "Estado", nullable = false, length = 20)
+    private Estado estado;
+
+    @Column(name = "Paso_Actual", nullable = false)
+    private int pasoActual;
+
+    @Column(name = "Total_Pasos", nullable = false)
+    private int totalPasos;
+
+    @Column(name = "Tabla_Actual", length = 60)
+    private String tablaActual;
+
+    @Column(name = "Filas_Eliminadas", nullable = false)
+    private long filasEliminadas;
+
+    @Column(name = "Solicitado_En", nullable = false)
+    private LocalDateTime solicitadoEn;
+
+    @Column(name = "Actualizado_En", nullable = false)
+    private LocalDateTime actualizadoEn;
+
+    @Column(name = "Error", length = 500)
+    private String error;
+
+    // Reintentos tras ERROR: cada fallo suma uno y aleja el siguiente intento; al llegar al máximo se deja de reintentar
+    @Column(name = "Intentos", nullable = false, columnDefinition = "integer default 0")
+    private int intentos;
+
+    @Column(name = "Reintentar_En")
+    private LocalDateTime reintentarEn;
+}
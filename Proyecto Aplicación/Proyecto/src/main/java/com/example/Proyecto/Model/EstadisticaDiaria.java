@@ -15,7 +15,9 @@ import java.time.LocalDate;
 @AllArgsConstructor
 @Setter
 @Getter
-@Table(name = "Estadisticas_Diarias")
+@Table(name = "Estadisticas_Diarias", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_estadistica_diaria_usuario_fecha", columnNames = {"id_usuario", "Fecha"})
+})
 public class EstadisticaDiaria {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -50,6 +52,11 @@ public class EstadisticaDiaria {
     @Column(name = "Grasas_Saturadas")
     private Float grasasSaturadas;
 
+    // Total de agua del día (ml). Solo lo escriben los upserts de EstadisticasNutricionalesService.sumarAgua,
+    // así guardar los nutrientes no pisa un toque de agua simultáneo
+    @Column(name = "Agua_ml", insertable = false, updatable = false)
+    private Integer aguaml;
+
     //Relaciones
 
     @ManyToOne
@@ -15,7 +15,9 @@ import java.time.LocalDate;
 @AllArgsConstructor
 @Setter
 @Getter
-@Table(name = "Estadisticas_Mensuales")
+@Table(name = "Estadisticas_Mensuales", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_estadistica_mensual_usuario_mes", columnNames = {"id_usuario", "Anio", "Mes"})
+})
 public class EstadisticaMensual {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -52,6 +54,13 @@ public class EstadisticaMensual {
     @Column(name = "Grasas_Saturadas")
     private Float grasasSaturadas;
 
+    // Agua del mes (ml) y días con agua, rehechos desde las estadísticas diarias en cada cambio
+    @Column(name = "Agua_ml", insertable = false, updatable = false)
+    private Integer aguaml;
+
+    @Column(name = "Dias_Agua", insertable = false, updatable = false)
+    private Integer diasAgua;
+
     //Relaciones
 
     @ManyToOne
@@ -0,0 +1,41 @@
+package com.example.Proyecto.Model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Evento de consumo de agua (solo se insertan). La suma de los eventos del día es el total de RegistroAgua;
+ * un ajuste manual del total se guarda como evento con la diferencia (puede ser negativa).
+ */
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Setter
+@Getter
+@Table(name = "Ingesta_Agua", indexes = {
+        @Index(name = "idx_ingesta_agua_usuario_fecha", columnList = "id_usuario, Fecha")
+})
+public class IngestaAgua {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_ingesta_agua")
+    private Long idIngestaAgua;
+
+    @Column(name = "id_usuario", nullable = false)
+    private Long idUsuario;
+
+    @Column(name = "Fecha", nullable = false)
+    private LocalDate fecha;
+
+    @Column(name = "Registrado_En", nullable = false)
+    private LocalDateTime registradoEn;
+
+    @Column(name = "Cantidadml", nullable = false)
+    private int cantidadml;
+}
@@ -8,23 +8,27 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.sql.Timestamp;
+import java.util.UUID;
 
 @Entity
 @NoArgsConstructor
 @AllArgsConstructor
 @Setter
 @Getter
-@Table(name = "Interaccion_Chatbot")
+@Table(name = "Interaccion_Chatbot", indexes = {
+        @Index(name = "idx_interaccion_chatbot_sesion_timestamp", columnList = "id_sesion, Timestamp, id_interaccion")
+})
 public class InteraccionChatbot {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "id_interaccion")
     private Long idInteraccion;
 
-    @Column(name = "Consulta_Usuario", nullable = false)
+    // text: las respuestas de la IA suelen pasar de 255 caracteres
+    @Column(name = "Consulta_Usuario", nullable = false, columnDefinition = "text")
     private String consultaUsuario;
 
-    @Column(name = "Respuesta_IA", nullable = false)
+    @Column(name = "Respuesta_IA", nullable = false, columnDefinition = "text")
     private String respuestaIA;
 
     @Column(name = "Tipo_Intento")
@@ -41,6 +45,10 @@ public class InteraccionChatbot {
     @Column(name = "Timestamp", nullable = false)
     private Timestamp timestamp;
 
+    // Identificador generado al encolar el turno; evita duplicados al reinsertar la bitácora
+    @Column(name = "Id_Entrada", unique = true)
+    private UUID idEntrada;
+
     public enum TipoIntento{
         Modificar_Rutina,
         Pregunta_Nutricional,
@@ -0,0 +1,43 @@
+package com.example.Proyecto.Model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Medida corporal en un momento dado (solo se insertan). Usuario.peso y Usuario.altura siguen siendo
+ * el valor actual; esta tabla guarda la historia para las gráficas de progreso.
+ */
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Setter
+@Getter
+@Table(name = "Medida_Corporal", indexes = {
+        @Index(name = "idx_medida_corporal_usuario_fecha", columnList = "id_usuario, Medido_En")
+})
+public class MedidaCorporal {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_medida")
+    private Long idMedida;
+
+    @Column(name = "id_usuario", nullable = false)
+    private Long idUsuario;
+
+    @Column(name = "Medido_En", nullable = false)
+    private LocalDateTime medidoEn;
+
+    @Column(name = "Peso", nullable = false)
+    private Float peso;
+
+    @Column(name = "Altura", nullable = false)
+    private Float altura; // cm
+
+    @Column(name = "IMC", nullable = false)
+    private Float imc;
+}
@@ -8,13 +8,16 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 @Entity
 @NoArgsConstructor
 @AllArgsConstructor
 @Setter
 @Getter
-@Table(name = "Registro_Agua")
+@Table(name = "Registro_Agua", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_registro_agua_usuario_fecha", columnNames = {"id_usuario", "Fecha"})
+})
 public class RegistroAgua {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -27,8 +30,25 @@ public class RegistroAgua {
     @Column(name = "Fecha", nullable = false)
     private LocalDate fecha;
 
+    // Campos de sincronización offline
+    @Column(name = "Id_Cliente", length = 64)
+    private String idCliente;
+
+    @Column(name = "Version")
+    private Long version;
+
+    @Column(name = "Modificado_En")
+    private LocalDateTime modificadoEn;
+
     @ManyToOne
     @JoinColumn(name="id_usuario", nullable = false)
     //@JsonIgnore
     private Usuario usuario;
+
+    @PrePersist
+    @PreUpdate
+    protected void marcarModificacion() {
+        this.version = version == null ? 1L : version + 1;
+        this.modificadoEn = LocalDateTime.now();
+    }
 }
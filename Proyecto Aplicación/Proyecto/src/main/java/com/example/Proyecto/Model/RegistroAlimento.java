@@ -44,6 +44,16 @@ public class RegistroAlimento {
     @Column(name = "Consumido_En", nullable = false)
     private LocalDateTime consumidoEn;  // fecha de consulta del alimento
 
+    // Campos de sincronización offline
+    @Column(name = "Id_Cliente", length = 64)
+    private String idCliente;  // UUID generado por la app cuando el registro se crea sin conexión
+
+    @Column(name = "Version")
+    private Long version;  // se incrementa en cada escritura
+
+    @Column(name = "Modificado_En")
+    private LocalDateTime modificadoEn;  // hora del servidor de la última escritura (base del token de sincronización)
+
     //Relaciones entre tablas
     @ManyToOne
     @JoinColumn(name="id_usuario", nullable = false)
@@ -55,4 +65,11 @@ public class RegistroAlimento {
     //@JsonIgnore
     private Alimento alimento;
 
+    @PrePersist
+    @PreUpdate
+    protected void marcarModificacion() {
+        this.version = version == null ? 1L : version + 1;
+        this.modificadoEn = LocalDateTime.now();
+    }
+
 }
@@ -0,0 +1,50 @@
+package com.example.Proyecto.Model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Marca de borrado (tombstone) de un registro de alimento o agua.
+ * Permite que la sincronización offline informe a los otros dispositivos de lo que se eliminó en el servidor.
+ */
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Setter
+@Getter
+@Table(name = "Registro_Eliminado", indexes = {
+        @Index(name = "idx_registro_eliminado_usuario_fecha", columnList = "id_usuario, Eliminado_En")
+})
+public class RegistroEliminado {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_registro_eliminado")
+    private Long idRegistroEliminado;
+
+    @Column(name = "Tipo", nullable = false, length = 20)
+    @Enumerated(EnumType.STRING)
+    private TipoRegistro tipo;
+
+    @Column(name = "id_registro", nullable = false)
+    private Long idRegistro;
+
+    @Column(name = "Id_Cliente", length = 64)
+    private String idCliente;
+
+    // Solo el id: el borrado de la cuenta limpia esta tabla por id_usuario
+    @Column(name = "id_usuario", nullable = false)
+    private Long idUsuario;
+
+    @Column(name = "Eliminado_En", nullable = false)
+    private LocalDateTime eliminadoEn;
+
+    public enum TipoRegistro {
+        Alimento,
+        Agua
+    }
+}
@@ -14,7 +14,10 @@ import java.sql.Timestamp;
 @AllArgsConstructor
 @Setter
 @Getter
-@Table(name = "Registro_Respuestas_IA")
+@Table(name = "Registro_Respuestas_IA", indexes = {
+        @Index(name = "idx_registro_respuestas_ia_sesion_fecha", columnList = "id_sesion, Creado_En, id_respuesta"),
+        @Index(name = "idx_registro_respuestas_ia_clave", columnList = "Clave_Cache, Creado_En")
+})
 public class RegistroRespuestasIA {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -27,6 +30,17 @@ public class RegistroRespuestasIA {
     @Column(name = "Creado_En", nullable = false)
     private Timestamp creadoEn;
 
+    // Respuesta completa del proveedor; Datos_Respuesta guarda solo el inicio para las listas
+    @Column(name = "Respuesta_Completa", columnDefinition = "text")
+    private String respuestaCompleta;
+
+    // SHA-256 del prompt normalizado + contexto del perfil: las consultas equivalentes reutilizan la respuesta
+    @Column(name = "Clave_Cache", length = 64)
+    private String claveCache;
+
+    @Column(name = "Proveedor", length = 30)
+    private String proveedor;
+
     //Relaciones
 
     @ManyToOne
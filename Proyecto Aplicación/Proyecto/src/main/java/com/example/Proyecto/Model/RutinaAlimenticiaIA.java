@@ -7,6 +7,8 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.sql.Timestamp;
 import java.time.LocalDate;
@@ -17,7 +19,9 @@ import java.util.List;
 @AllArgsConstructor
 @Setter
 @Getter
-@Table(name = "Rutina_Alimentia_IA")
+@Table(name = "Rutina_Alimentia_IA", indexes = {
+        @Index(name = "idx_rutina_alimentia_ia_usuario_inicio", columnList = "id_usuario, Fecha_Inicio")
+})
 public class RutinaAlimenticiaIA {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -35,11 +39,14 @@ public class RutinaAlimenticiaIA {
     @Column(name = "Objetivo_Calorico_Dia", nullable = false)
     private Float objetivoCaloricoDia;
 
-    @Column(name = "Dias")
-    private String dias;
+    // Totales por día calculados al guardar las comidas; no se reciben del cliente
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "Resumen_Dias")
+    private List<ResumenDia> dias;
 
-    @Column(name = "Detalles")
-    private String detalles;
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "Detalles_Rutina")
+    private Detalles detalles;
 
     @Column(name = "Creado_En", nullable = false)
     private Timestamp creadoEn;
@@ -47,6 +54,12 @@ public class RutinaAlimenticiaIA {
     @Column(name = "Actualizado_En")
     private Timestamp actualizadoEn;
 
+    public record ResumenDia(int diaNumero, ComidaRutinaIA.DiaSemana diaSemana, ValoresNutricionales nutrientes) {
+    }
+
+    public record Detalles(String descripcion, List<String> recomendaciones) {
+    }
+
     /*@PrePersist
     protected void onCreate() {
         this.creadoEn = new Timestamp(System.currentTimeMillis());
@@ -15,7 +15,9 @@ import java.util.List;
 @AllArgsConstructor
 @Setter
 @Getter
-@Table(name = "Sesion_Chatbot")
+@Table(name = "Sesion_Chatbot", indexes = {
+        @Index(name = "idx_sesion_chatbot_usuario", columnList = "id_usuario")
+})
 public class SesionChatbot {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,47 @@
+package com.example.Proyecto.Model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.sql.Timestamp;
+
+/**
+ * Sesión del chatbot ya cerrada, compactada fuera de las tablas de conversación: sus interacciones
+ * y respuestas de IA quedan en un solo JSON comprimido con gzip (ver SesionArchivadaDTO).
+ * Conserva el mismo id que tenía en Sesion_Chatbot.
+ */
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Setter
+@Getter
+@Table(name = "Sesion_Chatbot_Archivada", indexes = {
+        @Index(name = "idx_sesion_chatbot_archivada_usuario", columnList = "id_usuario, Fin_Sesion")
+})
+public class SesionChatbotArchivada {
+    @Id
+    @Column(name = "id_sesion")
+    private Long idSesion;
+
+    // Sin llave foránea: el archivo no debe frenar el borrado de la cuenta (ver EliminacionUsuarioService)
+    @Column(name = "id_usuario", nullable = false)
+    private Long idUsuario;
+
+    @Column(name = "Inicio_Sesion", nullable = false)
+    private Timestamp inicioSesion;
+
+    @Column(name = "Fin_Sesion", nullable = false)
+    private Timestamp finSesion;
+
+    @Column(name = "Total_Interacciones", nullable = false)
+    private int totalInteracciones;
+
+    @Column(name = "Contenido", nullable = false, columnDefinition = "bytea")
+    private byte[] contenido;
+
+    @Column(name = "Archivada_En", nullable = false)
+    private Timestamp archivadaEn;
+}
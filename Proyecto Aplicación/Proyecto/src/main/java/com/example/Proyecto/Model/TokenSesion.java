@@ -14,7 +14,9 @@ import java.sql.Timestamp;
 @AllArgsConstructor
 @Setter
 @Getter
-@Table(name = "Token_Sesion")
+@Table(name = "Token_Sesion", indexes = {
+        @Index(name = "idx_token_sesion_token", columnList = "Token")
+})
 public class TokenSesion {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -22,7 +24,7 @@ public class TokenSesion {
     private Long idToken;
 
     @Column(name = "Token", nullable = false)
-    private String token;
+    private String token; // hash SHA-256 (hex) del token de refresco
 
     @Column(name = "Expiracion", nullable = false)
     private Timestamp expiracion;
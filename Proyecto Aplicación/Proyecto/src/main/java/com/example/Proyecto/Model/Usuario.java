@@ -3,6 +3,7 @@ package com.example.Proyecto.Model;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -38,7 +39,10 @@ import java.util.List;
 @AllArgsConstructor
 @Setter
 @Getter
-@Table(name = "Usuario")
+@Table(name = "Usuario", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_usuario_correo", columnNames = "Correo"),
+        @UniqueConstraint(name = "uk_usuario_nombre", columnNames = "Nombre")
+})
 public class Usuario {
     // ==================== CAMPOS BÁSICOS ====================
     
@@ -54,6 +58,7 @@ public class Usuario {
 
     /** Contraseña encriptada del usuario */
     @Column(name = "Contraseña", nullable = false, length = 150)
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     private String contrasena;
 
     /** Nombre completo del usuario */
@@ -107,6 +112,15 @@ public class Usuario {
     @Column(name = "Actualizado_En")
     private Timestamp actualizadoEn;
 
+    /** Momento en que se pidió borrar la cuenta; los datos se purgan después en segundo plano */
+    @Column(name = "Eliminado_En")
+    private Timestamp eliminadoEn;
+
+    /** Versión para bloqueo optimista; el default permite añadir la columna a filas existentes */
+    @Version
+    @Column(name = "Version", nullable = false, columnDefinition = "bigint default 0")
+    private Long version = 0L;
+
     // ==================== RELACIONES ENTRE TABLAS ====================
     // Uno a muchos (Un usuario tiene muchos registros de estos tipos)
 
@@ -0,0 +1,53 @@
+package com.example.Proyecto.Model;
+
+/**
+ * Nutrientes ya calculados de un alimento, una comida o un día de la rutina.
+ * Se guarda como JSONB, así que leer una rutina no requiere volver a calcular ni interpretar texto.
+ */
+public record ValoresNutricionales(
+        float calorias,
+        float proteinas,
+        float carbohidratos,
+        float grasas,
+        float azucares,
+        float fibra,
+        float sodio,
+        float grasasSaturadas) {
+
+    public static final ValoresNutricionales CERO = new ValoresNutricionales(0, 0, 0, 0, 0, 0, 0, 0);
+
+    /**
+     * Nutrientes del alimento escalados por la proporción respecto a su cantidad base.
+     */
+    public static ValoresNutricionales de(Alimento alimento, float proporcion) {
+        return new ValoresNutricionales(
+                valor(alimento.getCalorias()) * proporcion,
+                valor(alimento.getProteinas()) * proporcion,
+                valor(alimento.getCarbohidratos()) * proporcion,
+                valor(alimento.getGrasas()) * proporcion,
+                valor(alimento.getAzucares()) * proporcion,
+                valor(alimento.getFibra()) * proporcion,
+                valor(alimento.getSodio()) * proporcion,
+                valor(alimento.getGrasasSaturadas()) * proporcion);
+    }
+
+    // null se toma como cero (alimento fuera del catálogo)
+    public ValoresNutricionales mas(ValoresNutricionales otro) {
+        if (otro == null) {
+            return this;
+        }
+        return new ValoresNutricionales(
+                calorias + otro.calorias,
+                proteinas + otro.proteinas,
+                carbohidratos + otro.carbohidratos,
+                grasas + otro.grasas,
+                azucares + otro.azucares,
+                fibra + otro.fibra,
+                sodio + otro.sodio,
+                grasasSaturadas + otro.grasasSaturadas);
+    }
+
+    private static float valor(Float f) {
+        return f == null ? 0f : f;
+    }
+}
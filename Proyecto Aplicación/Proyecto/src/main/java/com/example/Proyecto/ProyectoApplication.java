@@ -40,6 +40,8 @@ public class ProyectoApplication {
 	 * - BD_URL: URL de conexión a la base de datos PostgreSQL
 	 * - BD_USERNAME: Usuario de la base de datos
 	 * - BD_PASSWORD: Contraseña de la base de datos
+	 * - TOKEN_SECRETO: clave para firmar los tokens de acceso (opcional)
+	 * - GEMINI_API_KEY: clave de Gemini, obligatoria salvo con IA_PROVEEDOR=stub (por defecto gemini)
 	 * 
 	 * Estas variables se establecen como propiedades del sistema para que
 	 * Spring Boot las pueda leer desde application.properties
@@ -49,6 +51,14 @@ public class ProyectoApplication {
 		System.setProperty("BD_URL", dotenv.get("BD_URL"));
 		System.setProperty("BD_USERNAME", dotenv.get("BD_USERNAME"));
 		System.setProperty("BD_PASSWORD", dotenv.get("BD_PASSWORD"));
+		if (dotenv.get("TOKEN_SECRETO") != null) {
+			System.setProperty("TOKEN_SECRETO", dotenv.get("TOKEN_SECRETO"));
+		}
+		for (String opcional : new String[]{"IA_PROVEEDOR", "GEMINI_API_KEY"}) {
+			if (dotenv.get(opcional) != null) {
+				System.setProperty(opcional, dotenv.get(opcional));
+			}
+		}
 	}
 
 
@@ -0,0 +1,49 @@
+package com.example.Proyecto.Repository;
+
+import com.example.Proyecto.Model.ActividadAnual;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface ActividadAnualRepository extends JpaRepository<ActividadAnual, Long> {
+
+    List<ActividadAnual> findByIdUsuarioAndAnioBetweenOrderByAnio(Long idUsuario, int desde, int hasta);
+
+    boolean existsByIdUsuario(Long idUsuario);
+
+    // Crea la fila del año con todos los bits en 0 si todavía no existe
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO Actividad_Anual (id_usuario, Anio, Comida, Agua) " +
+            "VALUES (:idUsuario, :anio, decode(repeat('00', 46), 'hex'), decode(repeat('00', 46), 'hex')) " +
+            "ON CONFLICT (id_usuario, Anio) DO NOTHING", nativeQuery = true)
+    void crearSiNoExiste(@Param("idUsuario") Long idUsuario, @Param("anio") int anio);
+
+    // set_bit numera los bits igual que BitSet.valueOf(byte[]): el bit n es (n % 8) del byte n / 8
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE Actividad_Anual SET " +
+            "Comida = CASE WHEN :tipo = 'COMIDA' THEN set_bit(Comida, :dia, :valor) ELSE Comida END, " +
+            "Agua = CASE WHEN :tipo = 'AGUA' THEN set_bit(Agua, :dia, :valor) ELSE Agua END " +
+            "WHERE id_usuario = :idUsuario AND Anio = :anio", nativeQuery = true)
+    int cambiarBit(@Param("idUsuario") Long idUsuario,
+                   @Param("anio") int anio,
+                   @Param("dia") int dia,
+                   @Param("tipo") String tipo,
+                   @Param("valor") int valor);
+
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO Actividad_Anual (id_usuario, Anio, Comida, Agua) VALUES (:idUsuario, :anio, :comida, :agua) " +
+            "ON CONFLICT (id_usuario, Anio) DO UPDATE SET Comida = EXCLUDED.Comida, Agua = EXCLUDED.Agua", nativeQuery = true)
+    void reemplazar(@Param("idUsuario") Long idUsuario,
+                    @Param("anio") int anio,
+                    @Param("comida") byte[] comida,
+                    @Param("agua") byte[] agua);
+}
@@ -1,17 +1,24 @@
 package com.example.Proyecto.Repository;
 
+import com.example.Proyecto.DTO.AlimentoDTO;
+import com.example.Proyecto.DTO.AlimentoRecienteDTO;
 import com.example.Proyecto.Model.AlimentoReciente;
 import jakarta.transaction.Transactional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 
 @Repository
 public interface AlimentoRecienteRepository extends JpaRepository<AlimentoReciente, Long> {
-    // Consulta el historial de los alimentos recientes
-    List<AlimentoReciente> findByUsuario_IdUsuarioOrderByConsultadoEnDesc(Long idUsuario);
+    // Proyección del historial: solo las columnas que muestra la app y el límite aplicado en la BD
+    @Query("SELECT new com.example.Proyecto.DTO.AlimentoRecienteDTO(ar.idReciente, ar.consultadoEn, " + AlimentoDTO.COLUMNAS + ") " +
+            "FROM AlimentoReciente ar JOIN ar.alimento a WHERE ar.usuario.idUsuario = :idUsuario ORDER BY ar.consultadoEn DESC")
+    List<AlimentoRecienteDTO> buscarRecientesDTO(@Param("idUsuario") Long idUsuario, Limit limite);
 
     // Elimina uno específico
     @Modifying
@@ -1,34 +1,51 @@
 package com.example.Proyecto.Repository;
 
+import com.example.Proyecto.DTO.AlimentoDTO;
 import com.example.Proyecto.Model.Alimento;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface AlimentoRepository extends JpaRepository<Alimento, Long> {
-    // Filtrar alimentos por categoría
-    @Query(value = "SELECT * FROM Alimento WHERE categoria = :categoria", nativeQuery = true)
-    List<Alimento> filtrarAlimentosPorCategoria(@Param("categoria") String categoria);
+    String SELECT_DTO = "SELECT new com.example.Proyecto.DTO.AlimentoDTO(" + AlimentoDTO.COLUMNAS + ") FROM Alimento a ";
+
+    // ==================== PROYECCIONES (solo columnas del catálogo) ====================
+
+    @Query(SELECT_DTO + "ORDER BY a.idAlimento")
+    List<AlimentoDTO> listarDTO();
+
+    @Query(SELECT_DTO + "WHERE a.idAlimento = :idAlimento")
+    Optional<AlimentoDTO> buscarDTOPorId(@Param("idAlimento") Long idAlimento);
+
+    @Query(SELECT_DTO + "WHERE a.categoria = :categoria")
+    List<AlimentoDTO> buscarDTOPorCategoria(@Param("categoria") String categoria);
+
+    @Query(SELECT_DTO + "WHERE a.nombreAlimento = :nombre")
+    List<AlimentoDTO> buscarDTOPorNombre(@Param("nombre") String nombre, Limit limite);
+
+    @Query("SELECT new com.example.Proyecto.DTO.AlimentoDTO(" + AlimentoDTO.COLUMNAS + ") " +
+            "FROM UsuarioAlimentoFavorito f JOIN f.alimento a WHERE f.usuario.idUsuario = :idUsuario")
+    List<AlimentoDTO> buscarFavoritosDTO(@Param("idUsuario") Long idUsuario);
+
+    // Varios alimentos por nombre de una vez (nombres ya en minúsculas)
+    @Query("SELECT a FROM Alimento a WHERE LOWER(a.nombreAlimento) IN :nombres")
+    List<Alimento> buscarPorNombres(@Param("nombres") Collection<String> nombres);
 
     // Consultar alimentos creados por usuario
     @Query(value = "SELECT * FROM Alimento WHERE creador = :id_usuario", nativeQuery = true)
     List<Alimento> consultarAlimentosPorUsuario(@Param("id_usuario") Long idUsuario);
 
-    // Obtener información nutricional de un alimento
-    @Query(value = "SELECT * FROM Alimento WHERE id_alimento = :id_alimento", nativeQuery = true)
-    Alimento obtenerInformacionNutricional(@Param("id_alimento") Long idAlimento);
-
     // Metodo para verificar si un alimento existe por su nombre usando una consulta nativa
     @Query(value = "SELECT CASE WHEN COUNT(a) > 0 THEN TRUE ELSE FALSE END FROM Alimento a WHERE a.nombre_alimento = :nombreAlimento", nativeQuery = true)
     boolean existeAlimento(@Param("nombreAlimento") String nombreAlimento);
 
-    @Query(value = "SELECT * FROM Alimento WHERE nombre_alimento = :nombre", nativeQuery = true)
-    Alimento BuscarPorNombreAlimento(@Param("nombre") String nombre);
-
     @Query(value = "SELECT url_imagen FROM Alimento WHERE nombre_alimento = :nombre LIMIT 1", nativeQuery = true)
     String encontrarUrlImagenPorNombre(@Param("nombre") String nombre);
 }
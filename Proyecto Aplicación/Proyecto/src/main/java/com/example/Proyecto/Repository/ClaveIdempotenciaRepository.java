@@ -0,0 +1,20 @@
+package com.example.Proyecto.Repository;
+
+import com.example.Proyecto.Model.ClaveIdempotencia;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+
+@Repository
+public interface ClaveIdempotenciaRepository extends JpaRepository<ClaveIdempotencia, String> {
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ClaveIdempotencia c WHERE c.creadoEn < :limite")
+    int eliminarAnterioresA(@Param("limite") Timestamp limite);
+}
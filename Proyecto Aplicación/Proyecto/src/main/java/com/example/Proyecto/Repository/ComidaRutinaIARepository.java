@@ -1,39 +1,48 @@
 package com.example.Proyecto.Repository;
 
-import com.example.Proyecto.Model.Alimento;
 import com.example.Proyecto.Model.ComidaRutinaIA;
+import com.example.Proyecto.Model.ValoresNutricionales;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ComidaRutinaIARepository extends JpaRepository<ComidaRutinaIA, Long> {
-    // Obtener alimentos sugeridos por tipo de comida y fecha
-    @Query(value = "SELECT A.* FROM ComidaRutinaIA CR " +
-            "JOIN ComidaRutinaIA_Alimento CRA ON CR.idComida = CRA.idComida " +
-            "JOIN Alimento A ON CRA.idAlimento = A.idAlimento " +
-            "WHERE CR.tipoComida = :tipoComida AND CR.fecha = :fecha", nativeQuery = true)
-    List<Alimento> obtenerAlimentosSugeridos(@Param("tipoComida") String tipoComida, @Param("fecha") String fecha);
-
-    // Actualizar valores nutricionales de comida
-    @Modifying
-    @Query(value = "UPDATE ComidaRutinaIA SET valoresNutricionales = :valoresNutricionales WHERE idComida = :idComida", nativeQuery = true)
-    void actualizarValoresNutricionales(@Param("idComida") Long idComida, @Param("valoresNutricionales") String valoresNutricionales);
-
-    // Agregar alimento a una comida en rutina
-    @Modifying
-    @Query(value = "INSERT INTO ComidaRutinaIA_Alimento (idComida, idAlimento, cantidad) VALUES (:idComida, :idAlimento, :cantidad)", nativeQuery = true)
-    void agregarAlimentoAComida(@Param("idComida") Long idComida, @Param("idAlimento") Long idAlimento, @Param("cantidad") Float cantidad);
-
-    // Eliminar alimento de una comida en rutina
-    @Modifying
-    @Query(value = "DELETE FROM ComidaRutinaIA_Alimento WHERE idComida = :idComida AND idAlimento = :idAlimento", nativeQuery = true)
-    void eliminarAlimentoDeComida(@Param("idComida") Long idComida, @Param("idAlimento") Long idAlimento);
-
-
-
+    // Los alimentos se devuelven con la comida (ComidaRutinaIADTO) fuera de la transacción del repositorio
+    @Override
+    @EntityGraph(attributePaths = "alimentos")
+    List<ComidaRutinaIA> findAll();
+
+    @Override
+    @EntityGraph(attributePaths = "alimentos")
+    Optional<ComidaRutinaIA> findById(Long idComida);
+
+    // Comidas de la rutina sin sus alimentos: basta con los totales guardados para resumir los días
+    List<ComidaRutinaIA> findByRutina_IdRutina(Long idRutina);
+
+    // Solo lo que se muestra de cada alimento de las comidas del día
+    interface AlimentoDelDia {
+        Long getIdComida();
+        ComidaRutinaIA.TipoComida getTipoComida();
+        ValoresNutricionales getNutrientes();
+        String getNombreAlimento();
+        Float getCantidad();
+        String getUnidad();
+    }
+
+    // Alimentos de las comidas de un día de la semana en la rutina más reciente que cubre la fecha
+    @Query("SELECT c.idComida AS idComida, c.tipoComida AS tipoComida, c.nutrientes AS nutrientes, i.nombreAlimento AS nombreAlimento, " +
+            "i.cantidad AS cantidad, i.unidad AS unidad " +
+            "FROM ComidaRutinaIA c LEFT JOIN c.alimentos i WHERE c.diaSemana = :dia AND c.rutina.idRutina = (" +
+            "SELECT MAX(r.idRutina) FROM RutinaAlimenticiaIA r WHERE r.usuario.idUsuario = :idUsuario " +
+            "AND r.fechaInicio <= :fecha AND r.fechaFin >= :fecha) ORDER BY c.idComida, i.orden")
+    List<AlimentoDelDia> buscarComidasDelDia(@Param("idUsuario") Long idUsuario,
+                                             @Param("fecha") LocalDate fecha,
+                                             @Param("dia") ComidaRutinaIA.DiaSemana dia);
 }
@@ -1,5 +1,6 @@
 package com.example.Proyecto.Repository;
 
+import com.example.Proyecto.DTO.ConfiguracionAplicacionDTO;
 import com.example.Proyecto.Model.ConfiguracionAplicacion;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
@@ -11,6 +12,11 @@ import java.util.List;
 
 @Repository
 public interface ConfiguracionAplicacionRepository extends JpaRepository<ConfiguracionAplicacion, Long> {
+    // Listado sin cargar el Usuario de cada configuración (LEFT JOIN: la relación admite nulos)
+    @Query("SELECT new com.example.Proyecto.DTO.ConfiguracionAplicacionDTO(" + ConfiguracionAplicacionDTO.COLUMNAS + ") " +
+            "FROM ConfiguracionAplicacion c LEFT JOIN c.usuario u ORDER BY c.idConfiguracion")
+    List<ConfiguracionAplicacionDTO> listarDTO();
+
     // Obtener configuraciones del usuario
     @Query(value = "SELECT * FROM ConfiguracionAplicacion WHERE idUsuario = :idUsuario", nativeQuery = true)
     List<ConfiguracionAplicacion> obtenerConfiguracionesDelUsuario(@Param("idUsuario") Long idUsuario);
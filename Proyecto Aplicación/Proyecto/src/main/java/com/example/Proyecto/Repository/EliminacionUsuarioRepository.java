@@ -0,0 +1,59 @@
+package com.example.Proyecto.Repository;
+
+import com.example.Proyecto.Model.EliminacionUsuario;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface EliminacionUsuarioRepository extends JpaRepository<EliminacionUsuario, Long> {
+
+    Optional<EliminacionUsuario> findByIdUsuario(Long idUsuario);
+
+    // Pendientes, en curso sin cambios recientes (la instancia que las tomaba se detuvo) o con error y reintento vencido
+    @Query("SELECT e.idEliminacion FROM EliminacionUsuario e WHERE e.estado = com.example.Proyecto.Model.EliminacionUsuario.Estado.PENDIENTE " +
+            "OR (e.estado = com.example.Proyecto.Model.EliminacionUsuario.Estado.EN_CURSO AND e.actualizadoEn < :vencido) " +
+            "OR (e.estado = com.example.Proyecto.Model.EliminacionUsuario.Estado.ERROR AND e.intentos < :maximoIntentos " +
+            "AND (e.reintentarEn IS NULL OR e.reintentarEn <= :ahora)) ORDER BY e.solicitadoEn")
+    List<Long> findIdsParaProcesar(@Param("vencido") LocalDateTime vencido, @Param("ahora") LocalDateTime ahora,
+                                   @Param("maximoIntentos") int maximoIntentos);
+
+    // Solo una instancia/hilo puede tomar el trabajo: la que cambia la fila
+    @Modifying
+    @Transactional
+    @Query("UPDATE EliminacionUsuario e SET e.estado = com.example.Proyecto.Model.EliminacionUsuario.Estado.EN_CURSO, e.actualizadoEn = :ahora " +
+            "WHERE e.idEliminacion = :id AND (e.estado = com.example.Proyecto.Model.EliminacionUsuario.Estado.PENDIENTE " +
+            "OR (e.estado = com.example.Proyecto.Model.EliminacionUsuario.Estado.EN_CURSO AND e.actualizadoEn < :vencido) " +
+            "OR (e.estado = com.example.Proyecto.Model.EliminacionUsuario.Estado.ERROR AND e.intentos < :maximoIntentos " +
+            "AND (e.reintentarEn IS NULL OR e.reintentarEn <= :ahora)))")
+    int tomar(@Param("id") Long id, @Param("ahora") LocalDateTime ahora, @Param("vencido") LocalDateTime vencido,
+              @Param("maximoIntentos") int maximoIntentos);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE EliminacionUsuario e SET e.pasoActual = :paso, e.tablaActual = :tabla, " +
+            "e.filasEliminadas = e.filasEliminadas + :filas, e.actualizadoEn = :ahora WHERE e.idEliminacion = :id")
+    int registrarAvance(@Param("id") Long id, @Param("paso") int paso, @Param("tabla") String tabla,
+                        @Param("filas") long filas, @Param("ahora") LocalDateTime ahora);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE EliminacionUsuario e SET e.estado = :estado, e.error = :error, e.actualizadoEn = :ahora WHERE e.idEliminacion = :id")
+    int terminar(@Param("id") Long id, @Param("estado") EliminacionUsuario.Estado estado,
+                 @Param("error") String error, @Param("ahora") LocalDateTime ahora);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE EliminacionUsuario e SET e.estado = com.example.Proyecto.Model.EliminacionUsuario.Estado.ERROR, " +
+            "e.error = :error, e.intentos = e.intentos + 1, e.reintentarEn = :reintentarEn, e.actualizadoEn = :ahora " +
+            "WHERE e.idEliminacion = :id")
+    int fallar(@Param("id") Long id, @Param("error") String error, @Param("reintentarEn") LocalDateTime reintentarEn,
+               @Param("ahora") LocalDateTime ahora);
+}
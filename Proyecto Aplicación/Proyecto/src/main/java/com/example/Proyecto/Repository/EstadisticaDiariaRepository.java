@@ -3,13 +3,19 @@ package com.example.Proyecto.Repository;
 import com.example.Proyecto.Model.EstadisticaDiaria;
 import com.example.Proyecto.Model.Usuario;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.QueryHints;
+import java.util.stream.Stream;
 
 @Repository
 public interface EstadisticaDiariaRepository extends JpaRepository<EstadisticaDiaria, Long> {
@@ -19,4 +25,50 @@ public interface EstadisticaDiariaRepository extends JpaRepository<EstadisticaDi
     List<EstadisticaDiaria> findByUsuarioAndMesAndAnio(@Param("usuario") Usuario usuario,
                                                        @Param("mes") int mes,
                                                        @Param("anio") int anio);
-}
\ No newline at end of file
+
+    // Suma la diferencia de agua en la misma sentencia; crea la fila del día si aún no hay (días con agua y sin comidas)
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO Estadisticas_Diarias (id_usuario, Fecha, Calorias, Agua_ml) " +
+            "VALUES (:idUsuario, :fecha, 0, GREATEST(:delta, 0)) " +
+            "ON CONFLICT (id_usuario, Fecha) DO UPDATE SET " +
+            "Agua_ml = GREATEST(COALESCE(Estadisticas_Diarias.Agua_ml, 0) + :delta, 0)", nativeQuery = true)
+    int sumarAgua(@Param("idUsuario") Long idUsuario, @Param("fecha") LocalDate fecha, @Param("delta") int delta);
+
+    // Hidratación por día en una sola pasada: [fecha, total ml]
+    @Query("SELECT e.fecha, e.aguaml FROM EstadisticaDiaria e " +
+            "WHERE e.usuario.idUsuario = :idUsuario AND e.fecha BETWEEN :desde AND :hasta AND e.aguaml > 0")
+    List<Object[]> aguaPorDia(@Param("idUsuario") Long idUsuario,
+                              @Param("desde") LocalDate desde,
+                              @Param("hasta") LocalDate hasta);
+
+    // Resta los nutrientes de registros borrados sin recalcular desde cero
+    @Modifying
+    @Transactional
+    @Query("UPDATE EstadisticaDiaria e SET e.calorias = COALESCE(e.calorias, 0) - :calorias, " +
+            "e.proteinas = COALESCE(e.proteinas, 0) - :proteinas, " +
+            "e.carbohidratos = COALESCE(e.carbohidratos, 0) - :carbohidratos, " +
+            "e.grasas = COALESCE(e.grasas, 0) - :grasas, " +
+            "e.azucares = COALESCE(e.azucares, 0) - :azucares, " +
+            "e.fibra = COALESCE(e.fibra, 0) - :fibra, " +
+            "e.sodio = COALESCE(e.sodio, 0) - :sodio, " +
+            "e.grasasSaturadas = COALESCE(e.grasasSaturadas, 0) - :grasasSaturadas " +
+            "WHERE e.usuario.idUsuario = :idUsuario AND e.fecha = :fecha")
+    int descontarNutrientes(@Param("idUsuario") Long idUsuario,
+                            @Param("fecha") LocalDate fecha,
+                            @Param("calorias") float calorias,
+                            @Param("proteinas") float proteinas,
+                            @Param("carbohidratos") float carbohidratos,
+                            @Param("grasas") float grasas,
+                            @Param("azucares") float azucares,
+                            @Param("fibra") float fibra,
+                            @Param("sodio") float sodio,
+                            @Param("grasasSaturadas") float grasasSaturadas);
+
+    // Exportación
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT e FROM EstadisticaDiaria e WHERE e.usuario.idUsuario = :idUsuario AND e.fecha BETWEEN :desde AND :hasta ORDER BY e.fecha")
+    Stream<EstadisticaDiaria> streamPorRango(@Param("idUsuario") Long idUsuario,
+                                             @Param("desde") LocalDate desde,
+                                             @Param("hasta") LocalDate hasta);
+}
@@ -3,8 +3,13 @@ package com.example.Proyecto.Repository;
 import com.example.Proyecto.Model.EstadisticaMensual;
 import com.example.Proyecto.Model.Usuario;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,4 +19,54 @@ public interface EstadisticaMensualRepository extends JpaRepository<EstadisticaM
 
     List<EstadisticaMensual> findByUsuarioIdUsuarioAndAnio(Long idUsuario, int anio);
 
+    // Crea la fila del mes si falta y la deja bloqueada hasta el final de la transacción (el SET no cambia nada)
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO Estadisticas_Mensuales (id_usuario, Anio, Mes, Calorias) " +
+            "VALUES (:idUsuario, :anio, :mes, 0) " +
+            "ON CONFLICT (id_usuario, Anio, Mes) DO UPDATE SET Agua_ml = Estadisticas_Mensuales.Agua_ml", nativeQuery = true)
+    int bloquearMes(@Param("idUsuario") Long idUsuario, @Param("anio") int anio, @Param("mes") int mes);
+
+    // Rehace el agua del mes desde sus días. Va después de bloquearMes, en otra sentencia: así lee los días
+    // que otras transacciones confirmaron mientras se esperaba el bloqueo
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE Estadisticas_Mensuales m SET Agua_ml = d.total, Dias_Agua = d.dias " +
+            "FROM (SELECT COALESCE(SUM(Agua_ml), 0) AS total, COUNT(*) FILTER (WHERE Agua_ml > 0) AS dias " +
+            "FROM Estadisticas_Diarias WHERE id_usuario = :idUsuario AND Fecha BETWEEN :desde AND :hasta) d " +
+            "WHERE m.id_usuario = :idUsuario AND m.Anio = :anio AND m.Mes = :mes", nativeQuery = true)
+    int recalcularAgua(@Param("idUsuario") Long idUsuario,
+                       @Param("anio") int anio,
+                       @Param("mes") int mes,
+                       @Param("desde") LocalDate desde,
+                       @Param("hasta") LocalDate hasta);
+
+    // Hidratación por mes en una sola pasada: [año, mes, total ml, días con agua]
+    @Query("SELECT e.anio, e.mes, e.aguaml, e.diasAgua FROM EstadisticaMensual e " +
+            "WHERE e.usuario.idUsuario = :idUsuario AND e.anio BETWEEN :desde AND :hasta AND e.aguaml > 0")
+    List<Object[]> aguaPorMes(@Param("idUsuario") Long idUsuario, @Param("desde") int desde, @Param("hasta") int hasta);
+
+    // Resta los nutrientes de registros borrados sin recalcular desde cero
+    @Modifying
+    @Transactional
+    @Query("UPDATE EstadisticaMensual e SET e.calorias = COALESCE(e.calorias, 0) - :calorias, " +
+            "e.proteinas = COALESCE(e.proteinas, 0) - :proteinas, " +
+            "e.carbohidratos = COALESCE(e.carbohidratos, 0) - :carbohidratos, " +
+            "e.grasas = COALESCE(e.grasas, 0) - :grasas, " +
+            "e.azucares = COALESCE(e.azucares, 0) - :azucares, " +
+            "e.fibra = COALESCE(e.fibra, 0) - :fibra, " +
+            "e.sodio = COALESCE(e.sodio, 0) - :sodio, " +
+            "e.grasasSaturadas = COALESCE(e.grasasSaturadas, 0) - :grasasSaturadas " +
+            "WHERE e.usuario.idUsuario = :idUsuario AND e.anio = :anio AND e.mes = :mes")
+    int descontarNutrientes(@Param("idUsuario") Long idUsuario,
+                            @Param("anio") int anio,
+                            @Param("mes") int mes,
+                            @Param("calorias") float calorias,
+                            @Param("proteinas") float proteinas,
+                            @Param("carbohidratos") float carbohidratos,
+                            @Param("grasas") float grasas,
+                            @Param("azucares") float azucares,
+                            @Param("fibra") float fibra,
+                            @Param("sodio") float sodio,
+                            @Param("grasasSaturadas") float grasasSaturadas);
 }
@@ -0,0 +1,31 @@
+package com.example.Proyecto.Repository;
+
+import com.example.Proyecto.DTO.IngestaAguaDTO;
+import com.example.Proyecto.Model.IngestaAgua;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface IngestaAguaRepository extends JpaRepository<IngestaAgua, Long> {
+
+    @Query("SELECT new com.example.Proyecto.DTO.IngestaAguaDTO(i.idIngestaAgua, i.idUsuario, i.fecha, i.registradoEn, i.cantidadml) " +
+            "FROM IngestaAgua i WHERE i.idUsuario = :idUsuario AND i.fecha = :fecha ORDER BY i.registradoEn")
+    List<IngestaAguaDTO> buscarEventosDTO(@Param("idUsuario") Long idUsuario, @Param("fecha") LocalDate fecha);
+
+    // [hora, total ml] de un día
+    @Query("SELECT HOUR(i.registradoEn), SUM(i.cantidadml) FROM IngestaAgua i " +
+            "WHERE i.idUsuario = :idUsuario AND i.fecha = :fecha GROUP BY HOUR(i.registradoEn) ORDER BY HOUR(i.registradoEn)")
+    List<Object[]> sumarPorHora(@Param("idUsuario") Long idUsuario, @Param("fecha") LocalDate fecha);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IngestaAgua i WHERE i.idUsuario = :idUsuario AND i.fecha = :fecha")
+    void eliminarPorUsuarioYFecha(@Param("idUsuario") Long idUsuario, @Param("fecha") LocalDate fecha);
+}
@@ -1,36 +1,55 @@
 package com.example.Proyecto.Repository;
 
+import com.example.Proyecto.DTO.InteraccionChatbotDTO;
+import com.example.Proyecto.DTO.InteraccionResumenDTO;
 import com.example.Proyecto.Model.InteraccionChatbot;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.sql.Timestamp;
 import java.util.List;
 
 @Repository
 public interface InteraccionChatbotRepository extends JpaRepository<InteraccionChatbot, Long> {
-    // Registrar interacción del chatbot
-    @Modifying
-    @Query(value = "INSERT INTO InteraccionChatbot (idSesion, mensajeUsuario, respuestaChatbot, tipoConsulta, fechaRegistro) VALUES (:idSesion, :mensajeUsuario, :respuestaChatbot, :tipoConsulta, CURRENT_TIMESTAMP)", nativeQuery = true)
-    void registrarInteraccion(@Param("idSesion") Long idSesion,
-                              @Param("mensajeUsuario") String mensajeUsuario,
-                              @Param("respuestaChatbot") String respuestaChatbot,
-                              @Param("tipoConsulta") String tipoConsulta);
+    // Todas las interacciones, sin la sesión (la relación es EAGER y cargaría una por fila)
+    @Query("SELECT new com.example.Proyecto.DTO.InteraccionChatbotDTO(" + InteraccionChatbotDTO.COLUMNAS + ") " +
+            "FROM InteraccionChatbot i ORDER BY i.idInteraccion")
+    List<InteraccionChatbotDTO> listarDTO();
+    // Historial por cursor (más nuevo primero), con la respuesta recortada a :maximo caracteres; usa idx_interaccion_chatbot_sesion_timestamp
+    @Query("SELECT new com.example.Proyecto.DTO.InteraccionResumenDTO(i.idInteraccion, i.consultaUsuario, " +
+            "SUBSTRING(i.respuestaIA, 1, :maximo), CASE WHEN LENGTH(i.respuestaIA) > :maximo THEN true ELSE false END, " +
+            "i.tipoIntento, i.tipoAccion, i.tema, i.timestamp) " +
+            "FROM InteraccionChatbot i WHERE i.sesionChatbot.idSesion = :idSesion " +
+            "AND (i.timestamp, i.idInteraccion) < (:momento, :id) ORDER BY i.timestamp DESC, i.idInteraccion DESC")
+    List<InteraccionResumenDTO> obtenerHistorial(@Param("idSesion") Long idSesion,
+                                                 @Param("momento") Timestamp momento,
+                                                 @Param("id") Long id,
+                                                 @Param("maximo") int maximo,
+                                                 Limit limite);
+
+    // Todos los turnos de la sesión, completos y en orden, para archivarla
+    @Query("SELECT new com.example.Proyecto.DTO.InteraccionResumenDTO(i.idInteraccion, i.consultaUsuario, i.respuestaIA, false, " +
+            "i.tipoIntento, i.tipoAccion, i.tema, i.timestamp) " +
+            "FROM InteraccionChatbot i WHERE i.sesionChatbot.idSesion = :idSesion ORDER BY i.timestamp, i.idInteraccion")
+    List<InteraccionResumenDTO> buscarParaArchivar(@Param("idSesion") Long idSesion);
 
-    // Obtener historial de interacciones
-    @Query(value = "SELECT * FROM InteraccionChatbot WHERE idSesion = :idSesion ORDER BY fechaRegistro DESC", nativeQuery = true)
-    List<InteraccionChatbot> obtenerHistorialInteracciones(@Param("idSesion") Long idSesion);
+    @Modifying
+    @Query("DELETE FROM InteraccionChatbot i WHERE i.sesionChatbot.idSesion = :idSesion")
+    int borrarPorSesion(@Param("idSesion") Long idSesion);
 
     // Consultar respuesta según tipo de consulta
     @Query(value = "SELECT respuestaChatbot FROM InteraccionChatbot WHERE idSesion = :idSesion AND tipoConsulta = :tipoConsulta ORDER BY fechaRegistro DESC LIMIT 1", nativeQuery = true)
     String consultarRespuestaPorTipo(@Param("idSesion") Long idSesion, @Param("tipoConsulta") String tipoConsulta);
 
-    // Filtrar por fecha y tipo de respuesta
-    @Query(value = "SELECT * FROM InteraccionChatbot WHERE idSesion = :idSesion AND fechaRegistro BETWEEN :fechaInicio AND :fechaFin AND tipoConsulta = :tipoConsulta", nativeQuery = true)
+    // Filtrar por rango de fechas y tipo de intento dentro de una sesión
+    @Query("SELECT i FROM InteraccionChatbot i WHERE i.sesionChatbot.idSesion = :idSesion " +
+            "AND i.timestamp >= :inicio AND i.timestamp < :fin AND i.tipoIntento = :tipoIntento ORDER BY i.timestamp DESC, i.idInteraccion DESC")
     List<InteraccionChatbot> filtrarPorFechaYTipo(@Param("idSesion") Long idSesion,
-                                                  @Param("fechaInicio") String fechaInicio,
-                                                  @Param("fechaFin") String fechaFin,
-                                                  @Param("tipoConsulta") String tipoConsulta);
+                                                  @Param("inicio") Timestamp inicio,
+                                                  @Param("fin") Timestamp fin,
+                                                  @Param("tipoIntento") InteraccionChatbot.TipoIntento tipoIntento);
 }
@@ -0,0 +1,49 @@
+package com.example.Proyecto.Repository;
+
+import com.example.Proyecto.DTO.MedidaCorporalDTO;
+import com.example.Proyecto.Model.MedidaCorporal;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface MedidaCorporalRepository extends JpaRepository<MedidaCorporal, Long> {
+
+    // Rango [desde, hasta) sobre el índice (id_usuario, Medido_En)
+    @Query("SELECT new com.example.Proyecto.DTO.MedidaCorporalDTO(m.idMedida, m.idUsuario, m.medidoEn, m.peso, m.altura, m.imc) " +
+            "FROM MedidaCorporal m WHERE m.idUsuario = :idUsuario AND m.medidoEn >= :desde AND m.medidoEn < :hasta " +
+            "ORDER BY m.medidoEn")
+    List<MedidaCorporalDTO> listarPorRango(@Param("idUsuario") Long idUsuario,
+                                           @Param("desde") LocalDateTime desde,
+                                           @Param("hasta") LocalDateTime hasta);
+
+    // Última medida anterior a un instante (IMC de una fecha, altura por defecto)
+    Optional<MedidaCorporal> findFirstByIdUsuarioAndMedidoEnLessThanOrderByMedidoEnDesc(Long idUsuario, LocalDateTime antes);
+
+    // [inicio del periodo, medidas, peso min/prom/max, imc min/prom/max]; unidad = 'day' | 'week' | 'month'
+    @Query(value = "SELECT date_trunc(:unidad, Medido_En) AS periodo, COUNT(*), " +
+            "MIN(Peso), AVG(Peso), MAX(Peso), MIN(IMC), AVG(IMC), MAX(IMC) " +
+            "FROM Medida_Corporal " +
+            "WHERE id_usuario = :idUsuario AND Medido_En >= :desde AND Medido_En < :hasta " +
+            "GROUP BY periodo ORDER BY periodo", nativeQuery = true)
+    List<Object[]> agruparPorPeriodo(@Param("idUsuario") Long idUsuario,
+                                     @Param("unidad") String unidad,
+                                     @Param("desde") LocalDateTime desde,
+                                     @Param("hasta") LocalDateTime hasta);
+
+    // Recta de mínimos cuadrados (x en días desde epoch): [pendiente peso, intercepto peso, pendiente imc, intercepto imc]
+    @Query(value = "SELECT regr_slope(Peso, EXTRACT(EPOCH FROM Medido_En) / 86400), " +
+            "regr_intercept(Peso, EXTRACT(EPOCH FROM Medido_En) / 86400), " +
+            "regr_slope(IMC, EXTRACT(EPOCH FROM Medido_En) / 86400), " +
+            "regr_intercept(IMC, EXTRACT(EPOCH FROM Medido_En) / 86400) " +
+            "FROM Medida_Corporal " +
+            "WHERE id_usuario = :idUsuario AND Medido_En >= :desde AND Medido_En < :hasta", nativeQuery = true)
+    List<Object[]> calcularRegresion(@Param("idUsuario") Long idUsuario,
+                                     @Param("desde") LocalDateTime desde,
+                                     @Param("hasta") LocalDateTime hasta);
+}
@@ -1,5 +1,6 @@
 package com.example.Proyecto.Repository;
 
+import com.example.Proyecto.DTO.PreferenciasUsuarioDTO;
 import com.example.Proyecto.Model.PreferenciasUsuario;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
@@ -11,10 +12,19 @@ import java.util.List;
 
 @Repository
 public interface PreferenciasUsuarioRepository extends JpaRepository<PreferenciasUsuario, Long> {
+    // Listado sin cargar el Usuario de cada preferencia (LEFT JOIN: la relación admite nulos)
+    @Query("SELECT new com.example.Proyecto.DTO.PreferenciasUsuarioDTO(" + PreferenciasUsuarioDTO.COLUMNAS + ") " +
+            "FROM PreferenciasUsuario p LEFT JOIN p.usuario u ORDER BY p.idPreferencia")
+    List<PreferenciasUsuarioDTO> listarDTO();
+
     // Obtener preferencias alimenticias por usuario
     @Query(value = "SELECT * FROM PreferenciasUsuario WHERE idUsuario = :idUsuario", nativeQuery = true)
     List<PreferenciasUsuario> obtenerPreferenciasPorUsuario(@Param("idUsuario") Integer idUsuario);
 
+    // Solo el texto de alimentos excluidos de cada preferencia del usuario (para el contexto nutricional)
+    @Query("SELECT p.alimentosExcluidos FROM PreferenciasUsuario p WHERE p.usuario.idUsuario = :idUsuario AND p.alimentosExcluidos IS NOT NULL")
+    List<String> buscarExcluidosPorUsuario(@Param("idUsuario") Long idUsuario);
+
     // Actualizar preferencias
     @Modifying
     @Query(value = "UPDATE PreferenciasUsuario SET tipo = :tipo, valor = :valor WHERE idUsuario = :idUsuario AND tipo = :tipoAntiguo", nativeQuery = true)
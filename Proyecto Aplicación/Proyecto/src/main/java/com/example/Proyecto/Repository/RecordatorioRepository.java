@@ -1,5 +1,6 @@
 package com.example.Proyecto.Repository;
 
+import com.example.Proyecto.DTO.RecordatorioDTO;
 import com.example.Proyecto.Model.Recordatorio;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
@@ -11,6 +12,9 @@ import java.util.List;
 
 @Repository
 public interface RecordatorioRepository extends JpaRepository<Recordatorio, Long> {
+    // Listado sin cargar el Usuario de cada recordatorio
+    @Query("SELECT new com.example.Proyecto.DTO.RecordatorioDTO(" + RecordatorioDTO.COLUMNAS + ") FROM Recordatorio r ORDER BY r.idRecordatorio")
+    List<RecordatorioDTO> listarDTO();
     // Insertar nuevo recordatorio
     @Modifying
     @Query(value = "INSERT INTO Recordatorio (descripcion, hora, tipo, activo) VALUES (:descripcion, :hora, :tipo, true)", nativeQuery = true)
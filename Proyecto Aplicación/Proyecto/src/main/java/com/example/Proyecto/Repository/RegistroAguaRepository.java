@@ -1,7 +1,10 @@
 package com.example.Proyecto.Repository;
 
+import com.example.Proyecto.DTO.RegistroAguaRespuestaDTO;
 import com.example.Proyecto.Model.RegistroAgua;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -9,12 +12,21 @@ import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 import java.util.List;
 import java.util.Optional;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.QueryHints;
+import java.util.stream.Stream;
 
 @Repository
 public interface RegistroAguaRepository extends JpaRepository<RegistroAgua, Long> {
+    // Listado con solo el id del usuario, sin cargar la entidad Usuario de cada fila
+    @Query("SELECT new com.example.Proyecto.DTO.RegistroAguaRespuestaDTO(r.idRegistroAgua, r.usuario.idUsuario, r.fecha, r.cantidadml) " +
+            "FROM RegistroAgua r ORDER BY r.idRegistroAgua")
+    List<RegistroAguaRespuestaDTO> listarDTO();
 
     Optional<RegistroAgua> findByUsuario_IdUsuarioAndFecha(Long idUsuario, LocalDate fecha);
 
@@ -35,4 +47,33 @@ public interface RegistroAguaRepository extends JpaRepository<RegistroAgua, Long
     int obtenerTotalAguaPorFecha(@Param("idUsuario") Long idUsuario,
                                  @Param("fecha") LocalDate fecha);
 
+    // Sincronización offline
+    @Query("SELECT r FROM RegistroAgua r WHERE r.usuario.idUsuario = :idUsuario AND r.modificadoEn > :desde")
+    List<RegistroAgua> findModificadosDesde(@Param("idUsuario") Long idUsuario, @Param("desde") LocalDateTime desde);
+
+    List<RegistroAgua> findByUsuario_IdUsuario(Long idUsuario);
+
+    // Exportación
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT r FROM RegistroAgua r WHERE r.usuario.idUsuario = :idUsuario AND r.fecha BETWEEN :desde AND :hasta ORDER BY r.fecha")
+    Stream<RegistroAgua> streamPorRango(@Param("idUsuario") Long idUsuario,
+                                        @Param("desde") LocalDate desde,
+                                        @Param("hasta") LocalDate hasta);
+
+    // Suma atómica al total del día: crea la fila si no existe, si no suma en la misma sentencia (sin perder toques simultáneos)
+    @Transactional
+    @Query(value = "INSERT INTO Registro_Agua (id_usuario, Fecha, Cantidadml, Version, Modificado_En) " +
+            "VALUES (:idUsuario, :fecha, GREATEST(:delta, 0), 1, now()) " +
+            "ON CONFLICT (id_usuario, Fecha) DO UPDATE SET " +
+            "Cantidadml = GREATEST(Registro_Agua.Cantidadml + :delta, 0), " +
+            "Version = COALESCE(Registro_Agua.Version, 0) + 1, Modificado_En = now() " +
+            "RETURNING Cantidadml", nativeQuery = true)
+    Integer sumarCantidad(@Param("idUsuario") Long idUsuario,
+                          @Param("fecha") LocalDate fecha,
+                          @Param("delta") int delta);
+
+    // Para ajustes del total: se bloquea la fila hasta terminar la transacción
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM RegistroAgua r WHERE r.usuario.idUsuario = :idUsuario AND r.fecha = :fecha")
+    Optional<RegistroAgua> bloquearPorUsuarioYFecha(@Param("idUsuario") Long idUsuario, @Param("fecha") LocalDate fecha);
 }
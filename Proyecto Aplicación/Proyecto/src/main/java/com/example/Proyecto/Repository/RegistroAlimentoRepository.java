@@ -1,21 +1,28 @@
 package com.example.Proyecto.Repository;
 
+import com.example.Proyecto.DTO.RegistroAlimentoSalidaDTO;
 import com.example.Proyecto.Model.RegistroAlimento;
 import jakarta.transaction.Transactional;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.QueryHints;
+import java.util.stream.Stream;
 
 @Repository
 public interface RegistroAlimentoRepository extends JpaRepository<RegistroAlimento, Long> {
 
-    @Query("SELECT r FROM RegistroAlimento r JOIN FETCH r.alimento WHERE r.usuario.idUsuario = :idUsuario ORDER BY r.consumidoEn DESC")
-    List<RegistroAlimento> findRecientesConAlimento(@Param("idUsuario") Long idUsuario);
+    // Proyección: una fila por registro con las columnas del alimento, sin cargar las entidades
+    @Query("SELECT new com.example.Proyecto.DTO.RegistroAlimentoSalidaDTO(" + RegistroAlimentoSalidaDTO.COLUMNAS + ") " +
+            "FROM RegistroAlimento r JOIN r.alimento a WHERE r.usuario.idUsuario = :idUsuario ORDER BY r.consumidoEn DESC")
+    List<RegistroAlimentoSalidaDTO> buscarRecientesDTO(@Param("idUsuario") Long idUsuario);
 
     @Query("SELECT r FROM RegistroAlimento r WHERE r.usuario.idUsuario = :idUsuario AND r.consumidoEn BETWEEN :inicio AND :fin AND r.momentoDelDia = :momento")
     List<RegistroAlimento> findByUsuarioFechaYMomento(
@@ -25,16 +32,6 @@ public interface RegistroAlimentoRepository extends JpaRepository<RegistroAlimen
             @Param("momento") String momento
     );
 
-    @Modifying
-    @Transactional
-    @Query("DELETE FROM RegistroAlimento r WHERE r.usuario.idUsuario = :idUsuario AND r.momentoDelDia = :momento AND r.consumidoEn BETWEEN :inicio AND :fin")
-    void deleteByUsuarioFechaYMomento(
-            @Param("idUsuario") Long idUsuario,
-            @Param("momento") String momento,
-            @Param("inicio") LocalDateTime inicio,
-            @Param("fin") LocalDateTime fin
-    );
-
     @Query("SELECT DISTINCT DATE(r.consumidoEn) FROM RegistroAlimento r WHERE r.usuario.id = :idUsuario")
     List<java.sql.Date> findFechasComidaPorUsuario(@Param("idUsuario") Long idUsuario);
 
@@ -56,4 +53,61 @@ public interface RegistroAlimentoRepository extends JpaRepository<RegistroAlimen
             @Param("inicio") LocalDateTime inicio,
             @Param("fin") LocalDateTime fin
     );
+
+    // Sincronización offline
+    Optional<RegistroAlimento> findByUsuario_IdUsuarioAndIdCliente(Long idUsuario, String idCliente);
+
+    @Query("SELECT r FROM RegistroAlimento r JOIN FETCH r.alimento WHERE r.usuario.idUsuario = :idUsuario AND r.modificadoEn > :desde")
+    List<RegistroAlimento> findModificadosDesde(@Param("idUsuario") Long idUsuario, @Param("desde") LocalDateTime desde);
+
+    @Query("SELECT r FROM RegistroAlimento r JOIN FETCH r.alimento WHERE r.usuario.idUsuario = :idUsuario")
+    List<RegistroAlimento> findTodosConAlimento(@Param("idUsuario") Long idUsuario);
+
+    // Borrado en una sola sentencia: devuelve alimento, cantidad y unidad de cada fila borrada para que las estadísticas
+    // descuenten exactamente lo que sumó obtenerNutrientesPorUsuarioYFecha
+    String BORRAR_Y_DEVOLVER =
+            "SELECT b.id_registro_alimento AS \"idRegistro\", b.Id_Cliente AS \"idCliente\", b.id_usuario AS \"idUsuario\", " +
+            "b.Consumido_En AS \"consumidoEn\", b.id_alimento AS \"idAlimento\", " +
+            "b.Tamano_Porcion AS \"tamanoPorcion\", b.Unidad_Medida AS \"unidadMedida\" " +
+            "FROM borrados b";
+
+    String COLUMNAS_BORRADAS =
+            "RETURNING r.id_registro_alimento, r.Id_Cliente, r.id_usuario, r.Consumido_En, r.id_alimento, " +
+            "r.Tamano_Porcion, r.Unidad_Medida) ";
+
+    @Transactional
+    @Query(value = "WITH borrados AS (DELETE FROM Registro_Alimento r WHERE r.id_registro_alimento = :idRegistro " +
+            COLUMNAS_BORRADAS + BORRAR_Y_DEVOLVER, nativeQuery = true)
+    List<RegistroBorrado> borrarPorId(@Param("idRegistro") Long idRegistro);
+
+    // momento null = todos los momentos del día
+    @Transactional
+    @Query(value = "WITH borrados AS (DELETE FROM Registro_Alimento r WHERE r.id_usuario = :idUsuario " +
+            "AND r.Consumido_En BETWEEN :inicio AND :fin " +
+            "AND (CAST(:momento AS varchar) IS NULL OR r.Momento_Del_Dia = :momento) " +
+            COLUMNAS_BORRADAS + BORRAR_Y_DEVOLVER, nativeQuery = true)
+    List<RegistroBorrado> borrarPorRango(
+            @Param("idUsuario") Long idUsuario,
+            @Param("inicio") LocalDateTime inicio,
+            @Param("fin") LocalDateTime fin,
+            @Param("momento") String momento
+    );
+
+    interface RegistroBorrado {
+        Long getIdRegistro();
+        String getIdCliente();
+        Long getIdUsuario();
+        LocalDateTime getConsumidoEn();
+        Long getIdAlimento();
+        Float getTamanoPorcion();
+        String getUnidadMedida();
+    }
+
+    // Exportación: cursor del lado del servidor, se lee de a 500 filas
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT r FROM RegistroAlimento r JOIN FETCH r.alimento WHERE r.usuario.idUsuario = :idUsuario " +
+            "AND r.consumidoEn BETWEEN :inicio AND :fin ORDER BY r.consumidoEn")
+    Stream<RegistroAlimento> streamPorRango(@Param("idUsuario") Long idUsuario,
+                                            @Param("inicio") LocalDateTime inicio,
+                                            @Param("fin") LocalDateTime fin);
 }
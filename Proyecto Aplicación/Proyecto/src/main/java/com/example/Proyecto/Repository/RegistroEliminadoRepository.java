@@ -0,0 +1,14 @@
+package com.example.Proyecto.Repository;
+
+import com.example.Proyecto.Model.RegistroEliminado;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RegistroEliminadoRepository extends JpaRepository<RegistroEliminado, Long> {
+
+    List<RegistroEliminado> findByIdUsuarioAndEliminadoEnAfter(Long idUsuario, LocalDateTime desde);
+}
@@ -1,12 +1,16 @@
 package com.example.Proyecto.Repository;
 
+import com.example.Proyecto.DTO.RespuestaIADTO;
+import com.example.Proyecto.DTO.RespuestaIAResumenDTO;
 import com.example.Proyecto.Model.RegistroRespuestasIA;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.sql.Timestamp;
 import java.util.List;
 
 @Repository
@@ -16,7 +20,28 @@ public interface RegistroRespuestasIARepository extends JpaRepository<RegistroRe
     @Query(value = "INSERT INTO RegistroRespuestasIA (idSesion, datosRespuesta, timestamp) VALUES (:idSesion, :datosRespuesta, CURRENT_TIMESTAMP)", nativeQuery = true)
     void guardarRespuestaGenerada(@Param("idSesion") Integer idSesion, @Param("datosRespuesta") String datosRespuesta);
 
-    // Consultar respuestas anteriores por sesión
-    @Query(value = "SELECT * FROM RegistroRespuestasIA WHERE idSesion = :idSesion ORDER BY timestamp DESC", nativeQuery = true)
-    List<RegistroRespuestasIA> consultarRespuestasAnteriores(@Param("idSesion") Integer idSesion);
+    // Respuestas anteriores por cursor (más nueva primero); usa idx_registro_respuestas_ia_sesion_fecha
+    @Query("SELECT new com.example.Proyecto.DTO.RespuestaIAResumenDTO(r.idRespuesta, SUBSTRING(r.datosRespuesta, 1, :maximo), " +
+            "CASE WHEN LENGTH(r.datosRespuesta) > :maximo THEN true ELSE false END, r.creadoEn) " +
+            "FROM RegistroRespuestasIA r WHERE r.sesionChatbot.idSesion = :idSesion " +
+            "AND (r.creadoEn, r.idRespuesta) < (:momento, :id) ORDER BY r.creadoEn DESC, r.idRespuesta DESC")
+    List<RespuestaIAResumenDTO> consultarRespuestasAnteriores(@Param("idSesion") Long idSesion,
+                                                             @Param("momento") Timestamp momento,
+                                                             @Param("id") Long id,
+                                                             @Param("maximo") int maximo,
+                                                             Limit limite);
+
+    // Respuesta guardada más reciente para la clave (prompt normalizado + contexto), sin cargar la entidad
+    @Query("SELECT new com.example.Proyecto.DTO.RespuestaIADTO(r.idRespuesta, r.respuestaCompleta, r.proveedor, true) " +
+            "FROM RegistroRespuestasIA r WHERE r.claveCache = :clave AND r.creadoEn >= :desde ORDER BY r.creadoEn DESC")
+    List<RespuestaIADTO> buscarEnCache(@Param("clave") String clave, @Param("desde") Timestamp desde, Limit limite);
+
+    // Respuestas completas de la sesión, en orden, para archivarla
+    @Query("SELECT new com.example.Proyecto.DTO.RespuestaIAResumenDTO(r.idRespuesta, COALESCE(r.respuestaCompleta, r.datosRespuesta), " +
+            "false, r.creadoEn) FROM RegistroRespuestasIA r WHERE r.sesionChatbot.idSesion = :idSesion ORDER BY r.creadoEn, r.idRespuesta")
+    List<RespuestaIAResumenDTO> buscarParaArchivar(@Param("idSesion") Long idSesion);
+
+    @Modifying
+    @Query("DELETE FROM RegistroRespuestasIA r WHERE r.sesionChatbot.idSesion = :idSesion")
+    int borrarPorSesion(@Param("idSesion") Long idSesion);
 }
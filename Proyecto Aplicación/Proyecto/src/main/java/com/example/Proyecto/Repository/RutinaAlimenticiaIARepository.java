@@ -1,16 +1,23 @@
 package com.example.Proyecto.Repository;
 
+import com.example.Proyecto.DTO.RutinaAlimenticiaIADTO;
+import com.example.Proyecto.Model.ComidaRutinaIA;
 import com.example.Proyecto.Model.RutinaAlimenticiaIA;
+import com.example.Proyecto.Model.ValoresNutricionales;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @Repository
 public interface RutinaAlimenticiaIARepository extends JpaRepository<RutinaAlimenticiaIA, Long> {
+    @Query("SELECT new com.example.Proyecto.DTO.RutinaAlimenticiaIADTO(" + RutinaAlimenticiaIADTO.COLUMNAS + ") " +
+            "FROM RutinaAlimenticiaIA r ORDER BY r.idRutina")
+    List<RutinaAlimenticiaIADTO> listarDTO();
     // Obtener rutina alimenticia por usuario y fecha
     @Query(value = "SELECT * FROM RutinaAlimenticiaIA WHERE idUsuario = :idUsuario AND fechaInicio <= :fecha AND fechaFin >= :fecha", nativeQuery = true)
     RutinaAlimenticiaIA obtenerRutinaPorUsuarioYFecha(@Param("idUsuario") Integer idUsuario, @Param("fecha") String fecha);
@@ -42,4 +49,35 @@ public interface RutinaAlimenticiaIARepository extends JpaRepository<RutinaAlime
     // Obtener rutina por día específico
     @Query(value = "SELECT * FROM RutinaAlimenticiaIA WHERE idUsuario = :idUsuario AND fechaInicio <= :fecha AND fechaFin >= :fecha", nativeQuery = true)
     RutinaAlimenticiaIA obtenerRutinaPorDiaEspecifico(@Param("idUsuario") Integer idUsuario, @Param("fecha") String fecha);
+
+    // Una fila por alimento (o por comida vacía) con los datos de su comida y de la rutina
+    interface FilaRutina {
+        Long getIdRutina();
+        LocalDate getFechaInicio();
+        LocalDate getFechaFin();
+        Float getObjetivoCaloricoDia();
+        RutinaAlimenticiaIA.Detalles getDetalles();
+        List<RutinaAlimenticiaIA.ResumenDia> getDias();
+        Long getIdComida();
+        ComidaRutinaIA.TipoComida getTipoComida();
+        Integer getDiaNumero();
+        ComidaRutinaIA.DiaSemana getDiaSemana();
+        ValoresNutricionales getNutrientesComida();
+        Long getIdItem();
+        Long getIdAlimento();
+        String getNombreAlimento();
+        Float getCantidad();
+        String getUnidad();
+        ValoresNutricionales getNutrientesAlimento();
+    }
+
+    // Rutina completa en una sola consulta; los totales ya vienen calculados
+    @Query("SELECT r.idRutina AS idRutina, r.fechaInicio AS fechaInicio, r.fechaFin AS fechaFin, " +
+            "r.objetivoCaloricoDia AS objetivoCaloricoDia, r.detalles AS detalles, r.dias AS dias, " +
+            "c.idComida AS idComida, c.tipoComida AS tipoComida, c.diaNumero AS diaNumero, c.diaSemana AS diaSemana, " +
+            "c.nutrientes AS nutrientesComida, i.idItem AS idItem, i.idAlimento AS idAlimento, " +
+            "i.nombreAlimento AS nombreAlimento, i.cantidad AS cantidad, i.unidad AS unidad, i.nutrientes AS nutrientesAlimento " +
+            "FROM RutinaAlimenticiaIA r LEFT JOIN r.comidaRutinaIAS c LEFT JOIN c.alimentos i " +
+            "WHERE r.idRutina = :idRutina ORDER BY c.diaNumero, c.idComida, i.orden")
+    List<FilaRutina> buscarRutinaCompleta(@Param("idRutina") Long idRutina);
 }
@@ -0,0 +1,27 @@
+package com.example.Proyecto.Repository;
+
+import com.example.Proyecto.Model.SesionChatbotArchivada;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface SesionChatbotArchivadaRepository extends JpaRepository<SesionChatbotArchivada, Long> {
+
+    // La columna busqueda no está mapeada en la entidad (la crea MigracionesService); mismos pesos que en Interaccion_Chatbot
+    @Modifying
+    @Query(value = "UPDATE sesion_chatbot_archivada SET busqueda = " +
+            "setweight(to_tsvector('spanish', :temas), 'A') || " +
+            "setweight(to_tsvector('spanish', :consultas), 'B') || " +
+            "setweight(to_tsvector('spanish', :respuestas), 'C') " +
+            "WHERE id_sesion = :idSesion", nativeQuery = true)
+    int indexar(@Param("idSesion") Long idSesion, @Param("temas") String temas,
+                @Param("consultas") String consultas, @Param("respuestas") String respuestas);
+
+    @Query(value = "SELECT id_sesion FROM sesion_chatbot_archivada WHERE busqueda IS NULL", nativeQuery = true)
+    List<Long> buscarSinIndexar();
+}
@@ -1,32 +1,55 @@
 package com.example.Proyecto.Repository;
 
-import com.example.Proyecto.Model.InteraccionChatbot;
+import com.example.Proyecto.DTO.SesionChatbotDTO;
 import com.example.Proyecto.Model.SesionChatbot;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.sql.Timestamp;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface SesionChatbotRepository extends JpaRepository<SesionChatbot, Long> {
-    // Obtener sesiones activas del usuario
-    @Query(value = "SELECT * FROM SesionChatbot WHERE idUsuario = :idUsuario AND estado = 'ACTIVA'", nativeQuery = true)
-    List<SesionChatbot> obtenerSesionesActivas(@Param("idUsuario") Integer idUsuario);
+    @Query("SELECT new com.example.Proyecto.DTO.SesionChatbotDTO(" + SesionChatbotDTO.COLUMNAS + ") FROM SesionChatbot s ORDER BY s.idSesion")
+    List<SesionChatbotDTO> listarDTO();
+    // Sesiones sin cerrar, para cargar el registro en memoria al arrancar
+    interface SesionAbierta {
+        Long getIdSesion();
+        Long getIdUsuario();
+    }
 
-    // Crear nueva sesión
-    @Modifying
-    @Query(value = "INSERT INTO SesionChatbot (idUsuario, estado, fechaInicio) VALUES (:idUsuario, 'ACTIVA', CURRENT_TIMESTAMP)", nativeQuery = true)
-    void crearNuevaSesion(@Param("idUsuario") Integer idUsuario);
+    @Query("SELECT s.idSesion AS idSesion, s.usuario.idUsuario AS idUsuario FROM SesionChatbot s WHERE s.finSesion IS NULL")
+    List<SesionAbierta> buscarAbiertas();
+
+    @Query("SELECT s.idSesion AS idSesion, s.usuario.idUsuario AS idUsuario FROM SesionChatbot s " +
+            "WHERE s.idSesion = :idSesion AND s.finSesion IS NULL")
+    Optional<SesionAbierta> buscarAbierta(@Param("idSesion") Long idSesion);
 
-    // Finalizar sesión
+    // Cierra varias sesiones en un solo UPDATE; las ya cerradas no cambian
     @Modifying
-    @Query(value = "UPDATE SesionChatbot SET estado = 'FINALIZADA', fechaFin = CURRENT_TIMESTAMP WHERE idSesion = :idSesion", nativeQuery = true)
-    void finalizarSesion(@Param("idSesion") Integer idSesion);
+    @Query("UPDATE SesionChatbot s SET s.finSesion = :fin WHERE s.idSesion IN :ids AND s.finSesion IS NULL")
+    int cerrar(@Param("ids") List<Long> ids, @Param("fin") Timestamp fin);
+
+    // Lo que se guarda de la sesión al archivarla
+    interface SesionCerrada {
+        Long getIdSesion();
+        Long getIdUsuario();
+        Timestamp getInicioSesion();
+        Timestamp getFinSesion();
+        String getRetroalimentacion();
+    }
 
-    // Obtener mensajes y recomendaciones anteriores
-    @Query(value = "SELECT * FROM InteraccionChatbot WHERE idSesion = :idSesion ORDER BY fechaRegistro DESC", nativeQuery = true)
-    List<InteraccionChatbot> obtenerMensajesYRecomendaciones(@Param("idSesion") Integer idSesion);
+    @Query("SELECT s.idSesion AS idSesion, s.usuario.idUsuario AS idUsuario, s.inicioSesion AS inicioSesion, " +
+            "s.finSesion AS finSesion, s.retroalimentacion AS retroalimentacion " +
+            "FROM SesionChatbot s WHERE s.finSesion < :antes ORDER BY s.finSesion")
+    List<SesionCerrada> buscarParaArchivar(@Param("antes") Timestamp antes, Limit limite);
+
+    @Modifying
+    @Query("DELETE FROM SesionChatbot s WHERE s.idSesion = :idSesion")
+    int borrar(@Param("idSesion") Long idSesion);
 }
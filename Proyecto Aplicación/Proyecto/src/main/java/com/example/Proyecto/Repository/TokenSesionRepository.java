@@ -1,25 +1,47 @@
 package com.example.Proyecto.Repository;
 
+import com.example.Proyecto.DTO.TokenSesionDTO;
 import com.example.Proyecto.Model.TokenSesion;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface TokenSesionRepository extends JpaRepository<TokenSesion, Long> {
-    // Generar token al iniciar sesión
+    // Listado sin cargar el Usuario de cada sesión
+    @Query("SELECT new com.example.Proyecto.DTO.TokenSesionDTO(" + TokenSesionDTO.COLUMNAS + ") FROM TokenSesion t ORDER BY t.idToken")
+    List<TokenSesionDTO> listarDTO();
+
+    // Token guarda el hash SHA-256 del token de refresco, nunca el token en claro
+    Optional<TokenSesion> findByToken(String token);
+
+    // Solo una petición puede rotar el mismo token de refresco: la que cambia la fila
+    @Modifying
+    @Transactional
+    @Query("UPDATE TokenSesion t SET t.revocado = true WHERE t.idToken = :idToken AND t.revocado = false")
+    int revocarSiActiva(@Param("idToken") Long idToken);
+
+    @Query("SELECT t.idToken FROM TokenSesion t WHERE t.usuario.idUsuario = :idUsuario AND t.revocado = false")
+    List<Long> findIdsActivosPorUsuario(@Param("idUsuario") Long idUsuario);
+
     @Modifying
-    @Query(value = "INSERT INTO TokenSesion (idUsuario, token, fechaCreacion, fechaExpiracion) VALUES (:idUsuario, :token, CURRENT_TIMESTAMP, DATE_ADD(CURRENT_TIMESTAMP, INTERVAL 1 HOUR))", nativeQuery = true)
-    void generarToken(@Param("idUsuario") Integer idUsuario, @Param("token") String token);
+    @Transactional
+    @Query("UPDATE TokenSesion t SET t.revocado = true WHERE t.usuario.idUsuario = :idUsuario AND t.revocado = false")
+    int revocarTodasPorUsuario(@Param("idUsuario") Long idUsuario);
 
-    // Validar token por expiración
-    @Query(value = "SELECT CASE WHEN fechaExpiracion > CURRENT_TIMESTAMP THEN true ELSE false END FROM TokenSesion WHERE token = :token", nativeQuery = true)
-    boolean validarTokenPorExpiracion(@Param("token") String token);
+    // Para el conjunto de revocaciones en memoria
+    @Query("SELECT t.idToken FROM TokenSesion t WHERE t.revocado = true AND t.expiracion > :ahora")
+    List<Long> findIdsRevocadosVigentes(@Param("ahora") Timestamp ahora);
 
-    // Revocar token activo
     @Modifying
-    @Query(value = "DELETE FROM TokenSesion WHERE token = :token", nativeQuery = true)
-    void revocarTokenActivo(@Param("token") String token);
+    @Transactional
+    @Query("DELETE FROM TokenSesion t WHERE t.expiracion < :limite")
+    int eliminarVencidas(@Param("limite") Timestamp limite);
 }
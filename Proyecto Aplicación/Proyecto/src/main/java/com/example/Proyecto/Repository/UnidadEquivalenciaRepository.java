@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,4 +26,8 @@ public interface UnidadEquivalenciaRepository extends JpaRepository<UnidadEquiva
     @Query("SELECT DISTINCT u.unidadOrigen FROM UnidadEquivalencia u WHERE LOWER(u.alimento.nombreAlimento) = LOWER(:nombreAlimento)")
     List<String> findUnidadOrigenByAlimentoNombre(@Param("nombreAlimento") String nombreAlimento);
 
+    // Equivalencias de varios alimentos de una vez, para calcular una rutina completa
+    @Query("SELECT u FROM UnidadEquivalencia u WHERE u.alimento.idAlimento IN :ids")
+    List<UnidadEquivalencia> buscarPorAlimentos(@Param("ids") Collection<Long> ids);
+
 }
@@ -1,18 +1,54 @@
 package com.example.Proyecto.Repository;
 
+import com.example.Proyecto.DTO.UsuarioRespuestaDTO;
 import com.example.Proyecto.Model.Usuario;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
 
     Optional<Usuario> findByCorreo(String correo);
 
+    // Proyección del perfil: solo las columnas que expone la API y sin cargar la entidad ni sus relaciones
+    @Query("SELECT new com.example.Proyecto.DTO.UsuarioRespuestaDTO(u.idUsuario, u.correo, u.nombre, u.fechaNacimiento, " +
+            "u.altura, u.peso, u.sexo, u.restriccionesDieta, u.objetivosSalud, u.pesoObjetivo, u.nivelActividad, u.version) " +
+            "FROM Usuario u WHERE u.idUsuario = :idUsuario AND u.eliminadoEn IS NULL")
+    Optional<UsuarioRespuestaDTO> buscarRespuestaPorId(@Param("idUsuario") Long idUsuario);
+
     boolean existsByCorreo(String correo);
 
     boolean existsByNombre(String nombre);
 
+    boolean existsByCorreoAndIdUsuarioNot(String correo, Long idUsuario);
+
+    boolean existsByNombreAndIdUsuarioNot(String nombre, Long idUsuario);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Usuario u SET u.eliminadoEn = :ahora WHERE u.idUsuario = :idUsuario AND u.eliminadoEn IS NULL")
+    int marcarEliminado(@Param("idUsuario") Long idUsuario, @Param("ahora") Timestamp ahora);
+
+    // Carga de los filtros de disponibilidad: cursor del lado del servidor
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT u.correo, u.nombre FROM Usuario u")
+    Stream<Object[]> streamCorreosYNombres();
+
+    // Solo reemplaza si el hash no cambió entre tanto (p. ej. un cambio de contraseña simultáneo)
+    @Modifying
+    @Transactional
+    @Query("UPDATE Usuario u SET u.contrasena = :nuevo WHERE u.idUsuario = :idUsuario AND u.contrasena = :anterior")
+    int actualizarContrasena(@Param("idUsuario") Long idUsuario, @Param("anterior") String anterior, @Param("nuevo") String nuevo);
+
 }
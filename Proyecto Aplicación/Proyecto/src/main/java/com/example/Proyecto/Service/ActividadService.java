@@ -1,49 +1,117 @@
 package com.example.Proyecto.Service;
 
 import com.example.Proyecto.DTO.ActividadDiaDTO;
+import com.example.Proyecto.Model.ActividadAnual;
+import com.example.Proyecto.Repository.ActividadAnualRepository;
 import com.example.Proyecto.Repository.RegistroAguaRepository;
 import com.example.Proyecto.Repository.RegistroAlimentoRepository;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Calendario de actividad basado en un bitmap por usuario y año (ver ActividadAnual).
+ * Las escrituras de alimento y agua marcan o revisan el bit del día; la lectura no toca las tablas de registros.
+ */
 @Service
 public class ActividadService {
     private final RegistroAguaRepository registroAguaRepository;
     private final RegistroAlimentoRepository registroAlimentoRepository;
+    private final ActividadAnualRepository actividadAnualRepository;
 
-    public ActividadService(RegistroAguaRepository aguaRepo, RegistroAlimentoRepository alimentoRepo) {
+    // Usuarios cuyo calendario ya se comprobó o reconstruyó desde que arrancó el servidor
+    private final Set<Long> calendarioListo = ConcurrentHashMap.newKeySet();
+
+    public enum TipoActividad {
+        COMIDA,
+        AGUA
+    }
+
+    public ActividadService(RegistroAguaRepository aguaRepo, RegistroAlimentoRepository alimentoRepo,
+                            ActividadAnualRepository actividadRepo) {
         this.registroAguaRepository = aguaRepo;
         this.registroAlimentoRepository = alimentoRepo;
+        this.actividadAnualRepository = actividadRepo;
     }
 
     public List<ActividadDiaDTO> obtenerDiasConActividad(Long idUsuario) {
-        List<LocalDate> fechasAgua = registroAguaRepository.findFechasAguaPorUsuario(idUsuario);
-        List<java.sql.Date> fechasComidaSql = registroAlimentoRepository.findFechasComidaPorUsuario(idUsuario);
-
-        List<LocalDate> fechasComida = fechasComidaSql.stream()
-                .map(java.sql.Date::toLocalDate)
-                .collect(Collectors.toList());
+        return obtenerDiasConActividad(idUsuario, LocalDate.of(1, 1, 1), LocalDate.of(9999, 12, 31));
+    }
 
-        Set<LocalDate> todasLasFechas = new HashSet<>();
-        todasLasFechas.addAll(fechasAgua);
-        todasLasFechas.addAll(fechasComida);
+    // Solo lee las filas de los años que cubre la ventana (una por año)
+    public List<ActividadDiaDTO> obtenerDiasConActividad(Long idUsuario, LocalDate desde, LocalDate hasta) {
+        asegurarCalendario(idUsuario);
 
         List<ActividadDiaDTO> resultado = new ArrayList<>();
+        for (ActividadAnual anio : actividadAnualRepository.findByIdUsuarioAndAnioBetweenOrderByAnio(
+                idUsuario, desde.getYear(), hasta.getYear())) {
+            BitSet comida = BitSet.valueOf(anio.getComida());
+            BitSet agua = BitSet.valueOf(anio.getAgua());
+            BitSet dias = (BitSet) comida.clone();
+            dias.or(agua);
 
-        for (LocalDate fecha : todasLasFechas) {
-            boolean tieneAgua = fechasAgua.contains(fecha);
-            boolean tieneComida = fechasComida.contains(fecha);
+            LocalDate inicioAnio = LocalDate.ofYearDay(anio.getAnio(), 1);
+            for (int dia = dias.nextSetBit(0); dia >= 0; dia = dias.nextSetBit(dia + 1)) {
+                LocalDate fecha = inicioAnio.plusDays(dia);
+                if (fecha.isBefore(desde) || fecha.isAfter(hasta)) {
+                    continue;
+                }
+                boolean tieneAgua = agua.get(dia);
+                boolean tieneComida = comida.get(dia);
+                String tipo = (tieneAgua && tieneComida) ? "AMBOS" : (tieneAgua ? "AGUA" : "COMIDA");
+                resultado.add(new ActividadDiaDTO(fecha, tipo));
+            }
+        }
+        return resultado;
+    }
 
-            String tipo = (tieneAgua && tieneComida) ? "AMBOS" : (tieneAgua ? "AGUA" : "COMIDA");
+    // Se llama después de crear un registro ese día
+    public void marcar(Long idUsuario, LocalDate fecha, TipoActividad tipo) {
+        asegurarCalendario(idUsuario);
+        actividadAnualRepository.crearSiNoExiste(idUsuario, fecha.getYear());
+        actividadAnualRepository.cambiarBit(idUsuario, fecha.getYear(), fecha.getDayOfYear() - 1, tipo.name(), 1);
+    }
 
-            resultado.add(new ActividadDiaDTO(fecha, tipo));
+    // Después de borrar o mover registros: el bit queda en 1 solo si el día todavía tiene registros de ese tipo
+    public void revisar(Long idUsuario, LocalDate fecha, TipoActividad tipo) {
+        boolean hayRegistros = tipo == TipoActividad.COMIDA
+                ? registroAlimentoRepository.countByUsuarioAndFecha(idUsuario, fecha.atStartOfDay(), fecha.atTime(LocalTime.MAX)) > 0
+                : registroAguaRepository.findByUsuario_IdUsuarioAndFecha(idUsuario, fecha).isPresent();
+        if (hayRegistros) {
+            marcar(idUsuario, fecha, tipo);
+        } else {
+            actividadAnualRepository.cambiarBit(idUsuario, fecha.getYear(), fecha.getDayOfYear() - 1, tipo.name(), 0);
         }
+    }
 
-        return resultado;
+    // Usuarios con registros anteriores al calendario: se arma una sola vez con las consultas DISTINCT de antes.
+    // Se recuerda también para usuarios sin actividad, así el camino caliente no vuelve a consultar la BD.
+    private void asegurarCalendario(Long idUsuario) {
+        if (calendarioListo.contains(idUsuario)) {
+            return;
+        }
+        if (!actividadAnualRepository.existsByIdUsuario(idUsuario)) {
+            reconstruir(idUsuario);
+        }
+        calendarioListo.add(idUsuario);
     }
 
+    public void reconstruir(Long idUsuario) {
+        Map<Integer, BitSet[]> porAnio = new TreeMap<>();
+        for (LocalDate fecha : registroAguaRepository.findFechasAguaPorUsuario(idUsuario)) {
+            porAnio.computeIfAbsent(fecha.getYear(), a -> new BitSet[]{new BitSet(), new BitSet()})[1]
+                    .set(fecha.getDayOfYear() - 1);
+        }
+        for (java.sql.Date fechaSql : registroAlimentoRepository.findFechasComidaPorUsuario(idUsuario)) {
+            LocalDate fecha = fechaSql.toLocalDate();
+            porAnio.computeIfAbsent(fecha.getYear(), a -> new BitSet[]{new BitSet(), new BitSet()})[0]
+                    .set(fecha.getDayOfYear() - 1);
+        }
+        porAnio.forEach((anio, bits) -> actividadAnualRepository.reemplazar(idUsuario, anio,
+                Arrays.copyOf(bits[0].toByteArray(), ActividadAnual.BYTES_POR_ANIO),
+                Arrays.copyOf(bits[1].toByteArray(), ActividadAnual.BYTES_POR_ANIO)));
+    }
 }
-
@@ -0,0 +1,111 @@
+package com.example.Proyecto.Service;
+
+import com.example.Proyecto.Service.LimiteIntentosService.LimiteExcedidoException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Control de admisión del chatbot y las rutinas de IA.
+ *
+ * - Cada cliente (el usuario o, si la petición no dice cuál, la IP) tiene su cubeta de tokens; agotada, 429 con Retry-After.
+ * - Una cubeta global protege al servidor completo (el pool de Hikari tiene 3 conexiones); agotada, 503 con Retry-After.
+ * - Las operaciones caras (las que llaman a la IA) además pasan por una cola justa ponderada con pocos permisos,
+ *   así un cliente en bucle solo alarga su propia espera y el resto sigue con la latencia de siempre.
+ */
+@Service
+public class AdmisionChatbotService {
+    private static final Logger log = LoggerFactory.getLogger(AdmisionChatbotService.class);
+
+    public static class ServicioSaturadoException extends RuntimeException {
+        private final long segundosEspera;
+
+        public ServicioSaturadoException(long segundosEspera) {
+            super("Servicio saturado, reintente en " + segundosEspera + " s");
+            this.segundosEspera = segundosEspera;
+        }
+
+        public long getSegundosEspera() {
+            return segundosEspera;
+        }
+    }
+
+    private final double rafagaCliente;
+    private final double porMinutoCliente;
+    private final long esperaCostosaMs;
+
+    private final ConcurrentHashMap<String, CubetaTokens> porCliente = new ConcurrentHashMap<>();
+    private final CubetaTokens global;
+    private final ColaJustaPonderada costosas;
+
+    public AdmisionChatbotService(@Value("${chatbot.admision.cliente.rafaga:20}") double rafagaCliente,
+                                  @Value("${chatbot.admision.cliente.por-minuto:60}") double porMinutoCliente,
+                                  @Value("${chatbot.admision.global.rafaga:100}") double rafagaGlobal,
+                                  @Value("${chatbot.admision.global.por-segundo:30}") double porSegundoGlobal,
+                                  @Value("${chatbot.admision.costosas.concurrencia:4}") int concurrenciaCostosas,
+                                  @Value("${chatbot.admision.costosas.cola:32}") int colaCostosas,
+                                  @Value("${chatbot.admision.costosas.cola-por-cliente:2}") int colaPorCliente,
+                                  @Value("${chatbot.admision.costosas.espera-ms:5000}") long esperaCostosaMs) {
+        this.rafagaCliente = rafagaCliente;
+        this.porMinutoCliente = porMinutoCliente;
+        this.esperaCostosaMs = esperaCostosaMs;
+        this.global = new CubetaTokens(rafagaGlobal, porSegundoGlobal);
+        this.costosas = new ColaJustaPonderada(concurrenciaCostosas, colaCostosas, colaPorCliente);
+    }
+
+    /**
+     * Consume un token del cliente y uno global.
+     *
+     * @throws LimiteExcedidoException Si el cliente agotó su cubeta
+     * @throws ServicioSaturadoException Si se agotó la cubeta global
+     */
+    public void admitir(String cliente) {
+        // get sin bloqueo en el caso común; computeIfAbsent solo para clientes nuevos
+        CubetaTokens cubeta = porCliente.get(cliente);
+        if (cubeta == null) {
+            cubeta = porCliente.computeIfAbsent(cliente, k -> new CubetaTokens(rafagaCliente, porMinutoCliente / 60));
+        }
+        // Primero la del cliente: quien abusa se rechaza sin gastar la cubeta de todos
+        if (!cubeta.intentarConsumir()) {
+            throw new LimiteExcedidoException(cubeta.segundosHastaDisponible());
+        }
+        if (!global.intentarConsumir()) {
+            throw new ServicioSaturadoException(Math.max(1, global.segundosHastaDisponible()));
+        }
+    }
+
+    /**
+     * Espera turno para una operación cara; si vuelve sin excepción hay que llamar a salirCostosa() al terminar.
+     *
+     * @param costo Peso de la operación en la cola (más alto = consume más turno del cliente)
+     * @throws LimiteExcedidoException Si el cliente ya tiene el máximo de operaciones caras esperando
+     * @throws ServicioSaturadoException Si la cola está llena o no hubo turno a tiempo
+     */
+    public void entrarCostosa(String cliente, double costo) throws InterruptedException {
+        ColaJustaPonderada.Resultado resultado = costosas.adquirir(cliente, costo, esperaCostosaMs);
+        switch (resultado) {
+            case CONCEDIDO -> {
+            }
+            case CLIENTE_EN_ESPERA -> throw new LimiteExcedidoException(1);
+            default -> {
+                log.warn("Operación cara rechazada ({}) para {}, en espera: {}", resultado, cliente, costosas.enEspera());
+                throw new ServicioSaturadoException(Math.max(1, esperaCostosaMs / 1000));
+            }
+        }
+    }
+
+    public void salirCostosa() {
+        costosas.liberar();
+    }
+
+    // Cubetas llenas equivalen a no tenerlas; se eliminan para que el mapa no crezca sin límite
+    @Scheduled(fixedDelay = 300_000)
+    public void limpiar() {
+        porCliente.values().removeIf(CubetaTokens::estaLlena);
+        costosas.limpiar();
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.Proyecto.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Autómata de Aho–Corasick sobre un conjunto fijo de frases: encuentra todas las frases de un texto
+ * en una sola pasada, sin importar cuántas sean. Se arma una vez al construirlo y después es de solo lectura,
+ * así que se puede usar desde varios hilos.
+ * Solo cuenta coincidencias de palabras completas ("si" no coincide dentro de "sin").
+ */
+public class AhoCorasick<T> {
+
+    /** Frase encontrada en [inicio, fin) del texto, con el valor asociado al construir el autómata. */
+    public record Coincidencia<T>(T valor, String frase, int inicio, int fin) {
+    }
+
+    private static final class Nodo<T> {
+        final Map<Character, Nodo<T>> hijos = new HashMap<>();
+        Nodo<T> falla;
+        // Frases que terminan en este nodo, incluidas las que llegan por los enlaces de falla
+        final List<Map.Entry<String, T>> salidas = new ArrayList<>();
+    }
+
+    private final Nodo<T> raiz = new Nodo<>();
+
+    public AhoCorasick(Map<String, T> frases) {
+        frases.forEach((frase, valor) -> {
+            Nodo<T> nodo = raiz;
+            for (char c : frase.toCharArray()) {
+                nodo = nodo.hijos.computeIfAbsent(c, k -> new Nodo<>());
+            }
+            nodo.salidas.add(Map.entry(frase, valor));
+        });
+
+        // Enlaces de falla por niveles (BFS)
+        ArrayDeque<Nodo<T>> cola = new ArrayDeque<>();
+        for (Nodo<T> hijo : raiz.hijos.values()) {
+            hijo.falla = raiz;
+            cola.add(hijo);
+        }
+        while (!cola.isEmpty()) {
+            Nodo<T> nodo = cola.poll();
+            for (Map.Entry<Character, Nodo<T>> arista : nodo.hijos.entrySet()) {
+                Nodo<T> hijo = arista.getValue();
+                Nodo<T> f = nodo.falla;
+                while (f != null && !f.hijos.containsKey(arista.getKey())) {
+                    f = f.falla;
+                }
+                hijo.falla = f == null ? raiz : f.hijos.get(arista.getKey());
+                hijo.salidas.addAll(hijo.falla.salidas);
+                cola.add(hijo);
+            }
+        }
+    }
+
+    /**
+     * Todas las coincidencias de palabras completas, en el orden en que terminan dentro del texto.
+     */
+    public List<Coincidencia<T>> buscar(String texto) {
+        List<Coincidencia<T>> coincidencias = new ArrayList<>();
+        Nodo<T> nodo = raiz;
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            while (nodo != raiz && !nodo.hijos.containsKey(c)) {
+                nodo = nodo.falla;
+            }
+            nodo = nodo.hijos.getOrDefault(c, raiz);
+            for (Map.Entry<String, T> salida : nodo.salidas) {
+                int inicio = i + 1 - salida.getKey().length();
+                if (esBorde(texto, inicio - 1) && esBorde(texto, i + 1)) {
+                    coincidencias.add(new Coincidencia<>(salida.getValue(), salida.getKey(), inicio, i + 1));
+                }
+            }
+        }
+        return coincidencias;
+    }
+
+    private static boolean esBorde(String texto, int posicion) {
+        return posicion < 0 || posicion >= texto.length() || !Character.isLetterOrDigit(texto.charAt(posicion));
+    }
+}
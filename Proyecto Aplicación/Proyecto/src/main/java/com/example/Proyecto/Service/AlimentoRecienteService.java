@@ -6,11 +6,11 @@ import com.example.Proyecto.Model.AlimentoReciente;
 import com.example.Proyecto.Model.Usuario;
 import com.example.Proyecto.Repository.AlimentoRecienteRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 public class AlimentoRecienteService {
@@ -31,16 +31,7 @@ public class AlimentoRecienteService {
     }
 
     public List<AlimentoRecienteDTO> obtenerRecientesPorUsuario(Long idUsuario) {
-        List<AlimentoReciente> recientes = alimentoRecienteRepository.findByUsuario_IdUsuarioOrderByConsultadoEnDesc(idUsuario);
-
-        return recientes.stream()
-                .limit(5)
-                .map(reciente -> new AlimentoRecienteDTO(
-                        reciente.getIdReciente(),
-                        reciente.getConsultadoEn().toString(),
-                        reciente.getAlimento()
-                ))
-                .collect(Collectors.toList());
+        return alimentoRecienteRepository.buscarRecientesDTO(idUsuario, Limit.of(5));
     }
 
     public void eliminarTodosPorUsuario(Long idUsuario) {
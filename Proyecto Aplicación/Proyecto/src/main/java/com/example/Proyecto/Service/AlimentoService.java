@@ -1,5 +1,6 @@
 package com.example.Proyecto.Service;
 
+import com.example.Proyecto.DTO.AlimentoDTO;
 import com.example.Proyecto.Model.Alimento;
 import com.example.Proyecto.Model.Usuario;
 import com.example.Proyecto.Model.UsuarioAlimentoFavorito;
@@ -8,13 +9,14 @@ import com.example.Proyecto.Repository.AlimentoRepository;
 import com.example.Proyecto.Repository.UsuarioAlimentoFavoritoRepository;
 import com.example.Proyecto.Repository.UsuarioRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Service
 public class AlimentoService {
@@ -27,9 +29,12 @@ public class AlimentoService {
     @Autowired
     private UsuarioAlimentoFavoritoRepository favoritoRepository;
 
-    public Optional<Alimento> listarPorIdAlimento(long idAlimento){
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    public Optional<AlimentoDTO> listarPorIdAlimento(long idAlimento){
         try {
-            Optional<Alimento> alimento = alimentoRepository.findById(idAlimento);
+            Optional<AlimentoDTO> alimento = alimentoRepository.buscarDTOPorId(idAlimento);
             if (alimento.isPresent()) {
                 return alimento;
             } else {
@@ -115,24 +120,26 @@ public class AlimentoService {
         }
     }
 
-    public List<Alimento> obtenerAlimentosPorCategoria(String categoria){
-        return alimentoRepository.filtrarAlimentosPorCategoria(categoria);
+    public List<AlimentoDTO> obtenerAlimentosPorCategoria(String categoria){
+        return alimentoRepository.buscarDTOPorCategoria(categoria);
     }
 
-    public List<Alimento> obtenerAlimentosPorUsuario(@Param("idUsuario") Long idUsuario){
-        return alimentoRepository.consultarAlimentosPorUsuario(idUsuario);
+    public List<AlimentoDTO> obtenerAlimentosPorUsuario(@Param("idUsuario") Long idUsuario){
+        return alimentoRepository.consultarAlimentosPorUsuario(idUsuario).stream()
+                .map(AlimentoDTO::de)
+                .toList();
     }
 
-    public Alimento obtenerInfNutricional(Long idAlimento){
-        return alimentoRepository.obtenerInformacionNutricional(idAlimento);
+    public AlimentoDTO obtenerInfNutricional(Long idAlimento){
+        return alimentoRepository.buscarDTOPorId(idAlimento).orElse(null);
     }
 
-    public Alimento obtenerAlimentoPorNombre(String nombre) {
-        return alimentoRepository.BuscarPorNombreAlimento(nombre);
+    public AlimentoDTO obtenerAlimentoPorNombre(String nombre) {
+        return alimentoRepository.buscarDTOPorNombre(nombre, Limit.of(1)).stream().findFirst().orElse(null);
     }
 
-    public List<Alimento> listarAlimentos() {
-        return alimentoRepository.findAll();
+    public List<AlimentoDTO> listarAlimentos() {
+        return alimentoRepository.listarDTO();
     }
 
     public void agregarFavorito(Long idUsuario, Long idAlimento) {
@@ -147,18 +154,17 @@ public class AlimentoService {
             favorito.setUsuario(usuario);
             favorito.setAlimento(alimento);
             favoritoRepository.save(favorito);
+            eventPublisher.publishEvent(new DatosNutricionalesCambiadosEvent(idUsuario));
         }
     }
 
     public void eliminarFavorito(Long idUsuario, Long idAlimento) {
         favoritoRepository.deleteByUsuario_IdUsuarioAndAlimento_IdAlimento(idUsuario, idAlimento);
+        eventPublisher.publishEvent(new DatosNutricionalesCambiadosEvent(idUsuario));
     }
 
-    public List<Alimento> obtenerFavoritos(Long idUsuario) {
-        List<UsuarioAlimentoFavorito> relaciones = favoritoRepository.findByUsuario_IdUsuario(idUsuario);
-        return relaciones.stream()
-                .map(UsuarioAlimentoFavorito::getAlimento)
-                .collect(Collectors.toList());
+    public List<AlimentoDTO> obtenerFavoritos(Long idUsuario) {
+        return alimentoRepository.buscarFavoritosDTO(idUsuario);
     }
 
     public String obtenerUrlImagenPorNombre(String nombreAlimento) {
@@ -0,0 +1,325 @@
+package com.example.Proyecto.Service;
+
+import com.example.Proyecto.Model.InteraccionChatbot;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bitácora de escritura diferida para los turnos del chatbot.
+ * Los turnos entran a un buffer circular acotado y un hilo los inserta en lotes (un solo INSERT de varias filas)
+ * cada chatbot.bitacora.intervalo-ms o al juntar chatbot.bitacora.lote. Si el buffer está lleno o la BD falla,
+ * los turnos se agregan a un archivo local (JSON por línea) que se reintenta al arrancar y periódicamente.
+ * Cada turno lleva un UUID (Id_Entrada), así que reinsertar el archivo no duplica filas.
+ *
+ * Si un lote falla por sus datos (no por la conexión) se reintenta fila por fila y las que siguen fallando
+ * se apartan en un archivo de cuarentena, para que una sola fila no bloquee el resto de la bitácora.
+ */
+@Service
+public class BitacoraChatbotService {
+    private static final Logger log = LoggerFactory.getLogger(BitacoraChatbotService.class);
+
+    // Las filas cuya sesión ya no existe, o cuyo usuario está marcado para eliminar, se descartan en el mismo INSERT
+    // en lugar de hacer fallar el lote; así tampoco vuelven los turnos del archivo de respaldo de una cuenta borrada
+    private static final String INSERTAR = "INSERT INTO interaccion_chatbot " +
+            "(id_entrada, id_sesion, consulta_usuario, respuesta_ia, tipo_intento, tipo_accion, tema, \"timestamp\") " +
+            "SELECT v.id_entrada, v.id_sesion, v.consulta, v.respuesta, v.intento, v.accion, v.tema, v.momento FROM (VALUES ";
+    private static final String FILA = "(?::uuid, ?::bigint, ?, ?, ?, ?, ?, ?::timestamp)";
+    private static final int LONGITUD_TEMA = 255;
+
+    private static final String FIN_INSERTAR = ") AS v(id_entrada, id_sesion, consulta, respuesta, intento, accion, tema, momento) " +
+            "JOIN sesion_chatbot s ON s.id_sesion = v.id_sesion " +
+            "JOIN usuario u ON u.id_usuario = s.id_usuario AND u.eliminado_en IS NULL " +
+            "ON CONFLICT (id_entrada) DO NOTHING";
+
+    @Autowired
+    public JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public ObjectMapper objectMapper;
+
+    private final int tamanoLote;
+    private final long intervaloMs;
+    private final Path archivo;
+    private final Path archivoEnProceso;
+    private final Path archivoCuarentena;
+    private final ArrayBlockingQueue<Entrada> buffer;
+
+    private volatile boolean activo;
+    private Thread volcador;
+
+    public BitacoraChatbotService(@Value("${chatbot.bitacora.capacidad:4096}") int capacidad,
+                                  @Value("${chatbot.bitacora.lote:200}") int tamanoLote,
+                                  @Value("${chatbot.bitacora.intervalo-ms:250}") long intervaloMs,
+                                  @Value("${chatbot.bitacora.archivo:bitacora-chatbot.jsonl}") String archivo) {
+        this.buffer = new ArrayBlockingQueue<>(capacidad);
+        this.tamanoLote = tamanoLote;
+        this.intervaloMs = intervaloMs;
+        this.archivo = Path.of(archivo).toAbsolutePath();
+        this.archivoEnProceso = this.archivo.resolveSibling(this.archivo.getFileName() + ".procesando");
+        this.archivoCuarentena = this.archivo.resolveSibling(this.archivo.getFileName() + ".cuarentena");
+    }
+
+    /** Turno pendiente de guardar; es también el formato de cada línea del archivo de respaldo. */
+    public record Entrada(UUID idEntrada, Long idSesion, String consultaUsuario, String respuestaIA,
+                          InteraccionChatbot.TipoIntento tipoIntento, InteraccionChatbot.TipoAccion tipoAccion,
+                          String tema, LocalDateTime momento) {
+    }
+
+    /**
+     * Encola un turno sin esperar a la BD y devuelve su identificador.
+     * Con el buffer lleno el turno va directo al archivo de respaldo.
+     */
+    public UUID registrar(Long idSesion, String consultaUsuario, String respuestaIA,
+                          InteraccionChatbot.TipoIntento tipoIntento, InteraccionChatbot.TipoAccion tipoAccion, String tema) {
+        if (tema != null && tema.length() > LONGITUD_TEMA) {
+            tema = tema.substring(0, LONGITUD_TEMA);
+        }
+        Entrada entrada = new Entrada(UUID.randomUUID(), idSesion, consultaUsuario, respuestaIA,
+                tipoIntento, tipoAccion, tema, LocalDateTime.now());
+        if (!buffer.offer(entrada)) {
+            derramar(List.of(entrada));
+        }
+        return entrada.idEntrada();
+    }
+
+    // Saca del buffer los turnos de estas sesiones (cuenta en eliminación); los que ya están en un lote o en el
+    // archivo los descarta el INSERT
+    public int descartarSesiones(Collection<Long> idsSesion) {
+        if (idsSesion.isEmpty()) {
+            return 0;
+        }
+        int antes = buffer.size();
+        buffer.removeIf(e -> idsSesion.contains(e.idSesion()));
+        return Math.max(antes - buffer.size(), 0);
+    }
+
+    public int pendientes() {
+        return buffer.size();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        reintentarArchivo();
+        activo = true;
+        volcador = Thread.ofPlatform().daemon().name("bitacora-chatbot").start(this::ciclo);
+    }
+
+    // Junta hasta un lote o hasta que vence el intervalo, lo que ocurra primero
+    private void ciclo() {
+        List<Entrada> lote = new ArrayList<>(tamanoLote);
+        while (activo) {
+            try {
+                long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(intervaloMs);
+                while (lote.size() < tamanoLote) {
+                    long resta = limite - System.nanoTime();
+                    Entrada entrada = resta > 0 ? buffer.poll(resta, TimeUnit.NANOSECONDS) : null;
+                    if (entrada == null) {
+                        break;
+                    }
+                    lote.add(entrada);
+                    buffer.drainTo(lote, tamanoLote - lote.size());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                activo = false;
+            }
+            if (!lote.isEmpty()) {
+                guardarODerramar(lote);
+                lote.clear();
+            }
+        }
+    }
+
+    private void guardarODerramar(List<Entrada> lote) {
+        try {
+            insertarOApartar(lote);
+        } catch (RuntimeException ex) {
+            log.warn("No se pudo guardar un lote de {} interacciones, se pasa al archivo de respaldo: {}", lote.size(), ex.getMessage());
+            derramar(lote);
+        }
+    }
+
+    /**
+     * Inserta el lote; si falla por los datos, fila por fila, y las filas que no entran van a cuarentena.
+     * Solo lanza la excepción si la BD no está disponible (el lote entero se reintenta después).
+     */
+    private void insertarOApartar(List<Entrada> lote) {
+        try {
+            insertar(lote);
+        } catch (RuntimeException ex) {
+            if (esTransitorio(ex)) {
+                throw ex;
+            }
+            for (Entrada entrada : lote) {
+                try {
+                    insertar(List.of(entrada));
+                } catch (RuntimeException exFila) {
+                    if (esTransitorio(exFila)) {
+                        throw exFila; // las ya insertadas no se duplican al reintentar (Id_Entrada)
+                    }
+                    log.error("Interacción {} apartada en {}: {}", entrada.idEntrada(), archivoCuarentena, exFila.getMessage());
+                    escribir(archivoCuarentena, List.of(entrada));
+                }
+            }
+        }
+    }
+
+    // Conexión caída o error temporal: vale la pena reintentar. Cualquier otro error de la BD es culpa de los datos
+    private static boolean esTransitorio(RuntimeException ex) {
+        return !(ex instanceof DataAccessException)
+                || ex instanceof TransientDataAccessException
+                || ex instanceof RecoverableDataAccessException
+                || ex instanceof DataAccessResourceFailureException;
+    }
+
+    private void insertar(List<Entrada> lote) {
+        StringBuilder sql = new StringBuilder(INSERTAR);
+        Object[] parametros = new Object[lote.size() * 8];
+        int i = 0;
+        for (Entrada e : lote) {
+            sql.append(i == 0 ? "" : ", ").append(FILA);
+            parametros[i++] = e.idEntrada();
+            parametros[i++] = e.idSesion();
+            parametros[i++] = e.consultaUsuario();
+            parametros[i++] = e.respuestaIA();
+            parametros[i++] = e.tipoIntento() == null ? null : e.tipoIntento().name();
+            parametros[i++] = e.tipoAccion() == null ? null : e.tipoAccion().name();
+            parametros[i++] = e.tema();
+            parametros[i++] = Timestamp.valueOf(e.momento());
+        }
+        sql.append(FIN_INSERTAR);
+        int insertadas = jdbcTemplate.update(sql.toString(), parametros);
+        if (insertadas < lote.size()) {
+            log.debug("Lote de interacciones: {} de {} filas insertadas (duplicadas o sin sesión)", insertadas, lote.size());
+        }
+    }
+
+    private void derramar(List<Entrada> entradas) {
+        escribir(archivo, entradas);
+    }
+
+    // Append + force: lo que llega al archivo sobrevive a una caída del proceso
+    private synchronized void escribir(Path destino, List<Entrada> entradas) {
+        StringBuilder lineas = new StringBuilder();
+        try {
+            for (Entrada e : entradas) {
+                lineas.append(objectMapper.writeValueAsString(e)).append('\n');
+            }
+            try (FileChannel canal = FileChannel.open(destino, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                ByteBuffer datos = ByteBuffer.wrap(lineas.toString().getBytes(StandardCharsets.UTF_8));
+                while (datos.hasRemaining()) {
+                    canal.write(datos);
+                }
+                canal.force(false);
+            }
+        } catch (IOException ex) {
+            log.error("Se perdieron {} interacciones del chatbot: no se pudo escribir {}: {}", entradas.size(), destino, ex.getMessage());
+        }
+    }
+
+    /**
+     * Reinserta el archivo de respaldo por lotes. Se renombra antes de leerlo para que los nuevos derrames
+     * vayan a un archivo limpio; si la BD vuelve a fallar, el archivo en proceso se reintenta la próxima vez.
+     * Terminado el archivo en proceso se sigue con los derrames que llegaron mientras tanto.
+     */
+    @Scheduled(fixedDelayString = "${chatbot.bitacora.reintento-ms:60000}", initialDelayString = "${chatbot.bitacora.reintento-ms:60000}")
+    public void reintentarArchivo() {
+        try {
+            while (tomarArchivo()) {
+                reinsertar();
+            }
+        } catch (IOException | RuntimeException ex) {
+            log.warn("No se pudo reinsertar el archivo de respaldo del chatbot: {}", ex.getMessage());
+        }
+    }
+
+    // true si hay un archivo en proceso (nuevo o de un intento anterior) para reinsertar
+    private synchronized boolean tomarArchivo() throws IOException {
+        if (Files.exists(archivoEnProceso)) {
+            return true;
+        }
+        if (!Files.exists(archivo) || Files.size(archivo) == 0) {
+            return false;
+        }
+        Files.move(archivo, archivoEnProceso, StandardCopyOption.ATOMIC_MOVE);
+        return true;
+    }
+
+    private void reinsertar() throws IOException {
+        int total = 0;
+        List<Entrada> lote = new ArrayList<>(tamanoLote);
+        try (BufferedReader lector = Files.newBufferedReader(archivoEnProceso, StandardCharsets.UTF_8)) {
+            String linea;
+            while ((linea = lector.readLine()) != null) {
+                if (linea.isBlank()) {
+                    continue;
+                }
+                try {
+                    lote.add(objectMapper.readValue(linea, Entrada.class));
+                } catch (IOException ex) {
+                    // Una línea cortada por una caída a mitad de escritura
+                    log.warn("Línea inválida en {}, se omite", archivoEnProceso);
+                    continue;
+                }
+                if (lote.size() == tamanoLote) {
+                    insertarOApartar(lote);
+                    total += lote.size();
+                    lote.clear();
+                }
+            }
+        }
+        if (!lote.isEmpty()) {
+            insertarOApartar(lote);
+            total += lote.size();
+        }
+        Files.delete(archivoEnProceso);
+        log.info("Reinsertadas {} interacciones del chatbot desde {}", total, archivoEnProceso);
+    }
+
+    // Al cerrar se detiene el hilo y lo que quede en el buffer se guarda (o se pasa al archivo)
+    @PreDestroy
+    public void alCerrar() throws InterruptedException {
+        activo = false;
+        if (volcador != null) {
+            volcador.interrupt();
+            volcador.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        List<Entrada> restantes = new ArrayList<>();
+        buffer.drainTo(restantes);
+        for (int desde = 0; desde < restantes.size(); desde += tamanoLote) {
+            guardarODerramar(restantes.subList(desde, Math.min(desde + tamanoLote, restantes.size())));
+        }
+    }
+}
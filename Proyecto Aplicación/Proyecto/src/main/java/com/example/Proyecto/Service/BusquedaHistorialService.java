@@ -0,0 +1,151 @@
+package com.example.Proyecto.Service;
+
+import com.example.Proyecto.DTO.PaginaHistorialDTO;
+import com.example.Proyecto.DTO.ResultadoBusquedaDTO;
+import com.example.Proyecto.Model.InteraccionChatbot;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Búsqueda de texto completo en el historial del chatbot de un usuario (consulta, respuesta y tema).
+ *
+ * Usa la búsqueda de texto de PostgreSQL con la configuración 'spanish': la columna busqueda (tsvector) la
+ * calcula la propia BD al insertar o actualizar (columna generada), así que no hay índice que mantener aparte,
+ * y el índice GIN resuelve el filtro sin recorrer la tabla. El tema pesa más que la consulta y esta más que la respuesta.
+ * La columna no está mapeada en la entidad; la crea una migración (ver MigracionesService) porque ddl-auto
+ * no sabe declarar columnas generadas.
+ *
+ * Las sesiones archivadas también se buscan: GestorSesionesChatbotService llena su columna busqueda al archivarlas
+ * y cada una aparece como un solo resultado (sin turno ni fragmento; el contenido se pide con su idSesion).
+ *
+ * Los resultados se ordenan por relevancia y se paginan por cursor (rango, fecha, id); el fragmento resaltado
+ * (ts_headline, lo más caro) se calcula solo para las filas de la página.
+ */
+@Service
+public class BusquedaHistorialService {
+
+    // websearch_to_tsquery acepta lo que escribe el usuario ("proteína -cena", frases entre comillas) sin errores de sintaxis.
+    // clave desempata el orden: el id del turno, o el id de la sesión en negativo para las archivadas
+    private static final String CANDIDATOS = "WITH q AS (SELECT websearch_to_tsquery('spanish', ?) AS consulta), " +
+            "candidatos AS (SELECT i.id_interaccion, i.id_interaccion AS clave, i.id_sesion, i.consulta_usuario, i.respuesta_ia, " +
+            "i.tema, i.tipo_intento, i.\"timestamp\", ts_rank_cd(i.busqueda, q.consulta) AS rango, false AS archivada " +
+            "FROM interaccion_chatbot i JOIN sesion_chatbot s ON s.id_sesion = i.id_sesion CROSS JOIN q " +
+            "WHERE s.id_usuario = ? AND i.busqueda @@ q.consulta";
+    // Una sesión archivada cuenta como un solo resultado, con la fecha en que se cerró
+    private static final String ARCHIVADAS = " UNION ALL SELECT NULL, -a.id_sesion, a.id_sesion, NULL, NULL, NULL, NULL, " +
+            "a.fin_sesion, ts_rank_cd(a.busqueda, q.consulta), true " +
+            "FROM sesion_chatbot_archivada a CROSS JOIN q " +
+            "WHERE a.id_usuario = ? AND a.busqueda @@ q.consulta";
+    private static final String PAGINA = "), pagina AS (SELECT * FROM candidatos";
+    private static final String FIN = " ORDER BY rango DESC, \"timestamp\" DESC, clave DESC LIMIT ?) " +
+            "SELECT p.id_interaccion, p.id_sesion, p.consulta_usuario, p.tema, p.tipo_intento, p.\"timestamp\", p.rango, p.archivada, " +
+            "ts_headline('spanish', p.respuesta_ia, q.consulta, 'StartSel=«, StopSel=», MaxWords=25, MinWords=10, MaxFragments=2') AS fragmento " +
+            "FROM pagina p CROSS JOIN q ORDER BY p.rango DESC, p.\"timestamp\" DESC, p.clave DESC";
+
+    @Autowired
+    public JdbcTemplate jdbcTemplate;
+
+    /**
+     * Busca en los turnos de todas las sesiones del usuario, incluidas las archivadas, de más relevante a menos.
+     *
+     * @param texto Términos a buscar; admite "frases", OR y -exclusiones
+     * @param desde Primer día incluido (opcional)
+     * @param hasta Último día incluido (opcional)
+     * @param cursor siguienteCursor de la página anterior (null para la primera)
+     * @param tamano Resultados por página (por defecto 20, máximo 100)
+     * @throws IllegalArgumentException Si falta el texto, el rango de fechas está invertido o el cursor no es válido
+     */
+    public PaginaHistorialDTO<ResultadoBusquedaDTO> buscar(Long idUsuario, String texto, LocalDate desde, LocalDate hasta,
+                                                           String cursor, Integer tamano) {
+        if (texto == null || texto.isBlank()) {
+            throw new IllegalArgumentException("El texto a buscar es obligatorio");
+        }
+        if (desde != null && hasta != null && desde.isAfter(hasta)) {
+            throw new IllegalArgumentException("La fecha inicial es posterior a la final");
+        }
+        CursorBusqueda posicion = CursorBusqueda.decodificar(cursor);
+        int tamanoPagina = CursorHistorial.tamanoPagina(tamano);
+
+        StringBuilder sql = new StringBuilder(CANDIDATOS);
+        List<Object> parametros = new ArrayList<>(List.of(texto.trim(), idUsuario));
+        filtrarFechas(sql, parametros, "i.\"timestamp\"", desde, hasta);
+        sql.append(ARCHIVADAS);
+        parametros.add(idUsuario);
+        filtrarFechas(sql, parametros, "a.fin_sesion", desde, hasta);
+        sql.append(PAGINA);
+        if (posicion != null) {
+            sql.append(" WHERE (rango, \"timestamp\", clave) < (?, ?, ?)");
+            parametros.add(posicion.rango());
+            parametros.add(posicion.momento());
+            parametros.add(posicion.id());
+        }
+        sql.append(FIN);
+        parametros.add(tamanoPagina + 1);
+
+        List<ResultadoBusquedaDTO> filas = jdbcTemplate.query(sql.toString(), (rs, n) -> new ResultadoBusquedaDTO(
+                rs.getObject("id_interaccion", Long.class),
+                rs.getLong("id_sesion"),
+                rs.getString("consulta_usuario"),
+                rs.getString("fragmento"),
+                rs.getString("tema"),
+                rs.getString("tipo_intento") == null ? null : InteraccionChatbot.TipoIntento.valueOf(rs.getString("tipo_intento")),
+                rs.getTimestamp("timestamp"),
+                rs.getFloat("rango"),
+                rs.getBoolean("archivada")), parametros.toArray());
+
+        if (filas.size() <= tamanoPagina) {
+            return new PaginaHistorialDTO<>(filas, null);
+        }
+        List<ResultadoBusquedaDTO> elementos = filas.subList(0, tamanoPagina);
+        ResultadoBusquedaDTO ultimo = elementos.get(tamanoPagina - 1);
+        Long clave = ultimo.archivada() ? -ultimo.idSesion() : ultimo.idInteraccion();
+        return new PaginaHistorialDTO<>(elementos, new CursorBusqueda(ultimo.rango(), ultimo.timestamp(), clave).codificar());
+    }
+
+    private static void filtrarFechas(StringBuilder sql, List<Object> parametros, String columna, LocalDate desde, LocalDate hasta) {
+        if (desde != null) {
+            sql.append(" AND ").append(columna).append(" >= ?");
+            parametros.add(Timestamp.valueOf(desde.atStartOfDay()));
+        }
+        if (hasta != null) {
+            sql.append(" AND ").append(columna).append(" < ?");
+            parametros.add(Timestamp.valueOf(hasta.plusDays(1).atStartOfDay()));
+        }
+    }
+
+    /**
+     * Posición en los resultados ordenados por (rango, fecha, id) descendente; texto opaco como el del historial.
+     * El rango es un real de PostgreSQL y Float.toString lo reproduce exacto, así que la comparación no pierde filas.
+     */
+    private record CursorBusqueda(Float rango, Timestamp momento, Long id) {
+
+        String codificar() {
+            String texto = rango + "|" + momento.toLocalDateTime() + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(texto.getBytes(StandardCharsets.UTF_8));
+        }
+
+        // null para la primera página
+        static CursorBusqueda decodificar(String cursor) {
+            if (cursor == null || cursor.isBlank()) {
+                return null;
+            }
+            try {
+                String[] partes = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+                return new CursorBusqueda(Float.parseFloat(partes[0]),
+                        Timestamp.valueOf(LocalDateTime.parse(partes[1])), Long.parseLong(partes[2]));
+            } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+        }
+    }
+}
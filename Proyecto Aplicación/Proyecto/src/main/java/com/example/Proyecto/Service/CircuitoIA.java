@@ -0,0 +1,68 @@
+package com.example.Proyecto.Service;
+
+/**
+ * Cortocircuito del proveedor de IA: tras varios fallos seguidos se abre y rechaza llamadas durante un tiempo;
+ * al vencer deja pasar una sola llamada de prueba (semiabierto) que decide si vuelve a cerrarse.
+ */
+public class CircuitoIA {
+
+    public enum Estado { CERRADO, ABIERTO, SEMIABIERTO }
+
+    private final int fallosParaAbrir;
+    private final long esperaMs;
+
+    private Estado estado = Estado.CERRADO;
+    private int fallosSeguidos;
+    private long abiertoHasta;
+
+    public CircuitoIA(int fallosParaAbrir, long esperaMs) {
+        this.fallosParaAbrir = fallosParaAbrir;
+        this.esperaMs = esperaMs;
+    }
+
+    /**
+     * @return true si la llamada puede hacerse; en semiabierto solo la primera que llega
+     */
+    public synchronized boolean permitir() {
+        if (estado == Estado.ABIERTO && System.currentTimeMillis() >= abiertoHasta) {
+            estado = Estado.SEMIABIERTO;
+            return true;
+        }
+        return estado == Estado.CERRADO;
+    }
+
+    public synchronized void exito() {
+        estado = Estado.CERRADO;
+        fallosSeguidos = 0;
+    }
+
+    public synchronized void fallo() {
+        fallosSeguidos++;
+        if (estado == Estado.SEMIABIERTO || fallosSeguidos >= fallosParaAbrir) {
+            estado = Estado.ABIERTO;
+            abiertoHasta = System.currentTimeMillis() + esperaMs;
+        }
+    }
+
+    /**
+     * La llamada permitida se canceló antes de saber si el proveedor responde: no es éxito ni fallo.
+     * Si era la de prueba, el circuito vuelve a abierto ya vencido para que la próxima llamada pueda probar.
+     */
+    public synchronized void cancelado() {
+        if (estado == Estado.SEMIABIERTO) {
+            estado = Estado.ABIERTO;
+            abiertoHasta = System.currentTimeMillis();
+        }
+    }
+
+    public synchronized long segundosHastaReintento() {
+        if (estado == Estado.CERRADO) {
+            return 0;
+        }
+        return Math.max(1, (abiertoHasta - System.currentTimeMillis() + 999) / 1000);
+    }
+
+    public synchronized Estado estado() {
+        return estado;
+    }
+}
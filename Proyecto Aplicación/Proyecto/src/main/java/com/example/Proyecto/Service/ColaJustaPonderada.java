@@ -0,0 +1,161 @@
+package com.example.Proyecto.Service;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cola justa ponderada (start-time fair queuing) delante de un número fijo de permisos.
+ *
+ * Cada cliente lleva un tiempo virtual que avanza según el costo de cada operación; cuando se libera un permiso
+ * pasa la operación con menor tiempo de inicio. Así un cliente con muchas operaciones en espera no retrasa
+ * a los demás: solo compite consigo mismo. Las esperas usan futuros (no monitores), para no fijar hilos virtuales.
+ */
+public class ColaJustaPonderada {
+
+    /** Resultado de pedir un permiso: CLIENTE_EN_ESPERA si el cliente ya tiene el máximo de operaciones esperando. */
+    public enum Resultado { CONCEDIDO, CLIENTE_EN_ESPERA, COLA_LLENA, TIEMPO_AGOTADO }
+
+    private static final class Turno {
+        final String cliente;
+        final double inicio;
+        final double costo;
+        final long orden;
+        final CompletableFuture<Void> concedido = new CompletableFuture<>();
+
+        Turno(String cliente, double inicio, double costo, long orden) {
+            this.cliente = cliente;
+            this.inicio = inicio;
+            this.costo = costo;
+            this.orden = orden;
+        }
+    }
+
+    private final int permisos;
+    private final int maximoEnEspera;
+    private final int maximoEnEsperaPorCliente;
+
+    private final ReentrantLock candado = new ReentrantLock();
+    private final PriorityQueue<Turno> espera = new PriorityQueue<>(
+            Comparator.comparingDouble((Turno t) -> t.inicio).thenComparingLong(t -> t.orden));
+    private final Map<String, Double> ultimoFin = new HashMap<>();
+    private final Map<String, Integer> esperandoPorCliente = new HashMap<>();
+    private int enUso;
+    private double tiempoVirtual;
+    private long secuencia;
+
+    public ColaJustaPonderada(int permisos, int maximoEnEspera, int maximoEnEsperaPorCliente) {
+        this.permisos = permisos;
+        this.maximoEnEspera = maximoEnEspera;
+        this.maximoEnEsperaPorCliente = maximoEnEsperaPorCliente;
+    }
+
+    /**
+     * Espera un permiso hasta maximoMs. Con CONCEDIDO hay que llamar a liberar() al terminar.
+     *
+     * @param costo Peso relativo de la operación (p. ej. 3 para una respuesta en streaming, 1 para una consulta simple)
+     */
+    public Resultado adquirir(String cliente, double costo, long maximoMs) throws InterruptedException {
+        Turno turno;
+        candado.lock();
+        try {
+            double inicio = Math.max(tiempoVirtual, ultimoFin.getOrDefault(cliente, 0d));
+            ultimoFin.put(cliente, inicio + costo);
+            if (enUso < permisos && espera.isEmpty()) {
+                enUso++;
+                tiempoVirtual = inicio;
+                return Resultado.CONCEDIDO;
+            }
+            int delCliente = esperandoPorCliente.getOrDefault(cliente, 0);
+            if (delCliente >= maximoEnEsperaPorCliente || espera.size() >= maximoEnEspera) {
+                // No entró: se le devuelve el tiempo virtual reservado
+                ultimoFin.put(cliente, inicio);
+                return delCliente >= maximoEnEsperaPorCliente ? Resultado.CLIENTE_EN_ESPERA : Resultado.COLA_LLENA;
+            }
+            turno = new Turno(cliente, inicio, costo, secuencia++);
+            espera.add(turno);
+            esperandoPorCliente.put(cliente, delCliente + 1);
+        } finally {
+            candado.unlock();
+        }
+
+        try {
+            turno.concedido.get(maximoMs, TimeUnit.MILLISECONDS);
+            return Resultado.CONCEDIDO;
+        } catch (TimeoutException | InterruptedException e) {
+            candado.lock();
+            try {
+                // Pudo recibir el permiso justo al vencer la espera
+                if (!espera.remove(turno)) {
+                    if (e instanceof InterruptedException) {
+                        liberarConCandado();
+                        throw (InterruptedException) e;
+                    }
+                    return Resultado.CONCEDIDO;
+                }
+                descontarEspera(turno.cliente);
+                // Igual que si no hubiera entrado: el costo que no se usó no cuenta contra el cliente.
+                // Si tiene otros turnos detrás, estos conservan su inicio; solo se acorta el próximo
+                ultimoFin.computeIfPresent(turno.cliente, (k, fin) -> Math.max(tiempoVirtual, fin - turno.costo));
+            } finally {
+                candado.unlock();
+            }
+            if (e instanceof InterruptedException) {
+                throw (InterruptedException) e;
+            }
+            return Resultado.TIEMPO_AGOTADO;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public void liberar() {
+        candado.lock();
+        try {
+            liberarConCandado();
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    private void liberarConCandado() {
+        Turno siguiente = espera.poll();
+        if (siguiente == null) {
+            enUso--;
+            return;
+        }
+        // El permiso pasa directo al siguiente turno: enUso no cambia
+        descontarEspera(siguiente.cliente);
+        tiempoVirtual = siguiente.inicio;
+        siguiente.concedido.complete(null);
+    }
+
+    private void descontarEspera(String cliente) {
+        esperandoPorCliente.computeIfPresent(cliente, (k, n) -> n > 1 ? n - 1 : null);
+    }
+
+    public int enEspera() {
+        candado.lock();
+        try {
+            return espera.size();
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    // Los clientes cuyo tiempo virtual ya quedó atrás no tienen ventaja ni deuda: se pueden olvidar
+    public void limpiar() {
+        candado.lock();
+        try {
+            ultimoFin.values().removeIf(fin -> fin <= tiempoVirtual);
+        } finally {
+            candado.unlock();
+        }
+    }
+}
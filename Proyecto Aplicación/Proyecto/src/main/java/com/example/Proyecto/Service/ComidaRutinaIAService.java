@@ -1,11 +1,10 @@
 package com.example.Proyecto.Service;
 
-import com.example.Proyecto.Model.Alimento;
 import com.example.Proyecto.Model.ComidaRutinaIA;
 import com.example.Proyecto.Repository.ComidaRutinaIARepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.NoSuchElementException;
@@ -16,6 +15,10 @@ public class ComidaRutinaIAService {
     @Autowired
     public ComidaRutinaIARepository comidaRutinaIARepository;
 
+    // Calcula los nutrientes de los alimentos, de la comida y del día al guardar
+    @Autowired
+    public RutinaEstructuradaService rutinaEstructuradaService;
+
     public List<ComidaRutinaIA> listarComidaRutinaIA(){
         // Validacion para intentar obtener la lista de la comida de la rutina de IA
         try {
@@ -44,6 +47,7 @@ public class ComidaRutinaIAService {
         }
     }
 
+    @Transactional
     public ComidaRutinaIA guardarComidaRutinaIA(ComidaRutinaIA comidaRutinaIA){
         try{
             if(comidaRutinaIA==null){
@@ -56,7 +60,10 @@ public class ComidaRutinaIAService {
                 } else if (comidaRutinaIA.getDiaSemana() == null) {
                     throw new IllegalArgumentException("El dia de la semana de la rutina es obligatorio.");
                 }
-                return  comidaRutinaIARepository.save(comidaRutinaIA);
+                rutinaEstructuradaService.recalcularComida(comidaRutinaIA);
+                ComidaRutinaIA guardada = comidaRutinaIARepository.save(comidaRutinaIA);
+                rutinaEstructuradaService.actualizarDias(guardada.getRutina());
+                return guardada;
             }
         }catch (Exception e){
             throw new RuntimeException("Error al intentar guardar la comida" + e.getMessage(), e);
@@ -77,35 +84,33 @@ public class ComidaRutinaIAService {
         }
     }
 
+    @Transactional
     public ComidaRutinaIA actualizarComidaRutinaIA(long idComida, ComidaRutinaIA comidaRutinaIAActualizado){
         Optional<ComidaRutinaIA> comidaRutinaIAOpt = comidaRutinaIARepository.findById(idComida);
         if(comidaRutinaIAOpt.isPresent()){
             ComidaRutinaIA comidaRutinaIAExistente = comidaRutinaIAOpt.get();
             comidaRutinaIAExistente.setTipoComida(comidaRutinaIAActualizado.getTipoComida());
-            comidaRutinaIAExistente.setAlimentosSugeridos(comidaRutinaIAActualizado.getAlimentosSugeridos());
-            comidaRutinaIAExistente.setValoresNutricionales(comidaRutinaIAActualizado.getValoresNutricionales());
-            comidaRutinaIAExistente.setTamanoPorciones(comidaRutinaIAActualizado.getTamanoPorciones());
             comidaRutinaIAExistente.setDiaNumero(comidaRutinaIAActualizado.getDiaNumero());
             comidaRutinaIAExistente.setDiaSemana(comidaRutinaIAActualizado.getDiaSemana());
+            // Los alimentos se reemplazan completos; los nutrientes nunca se toman del cliente
+            comidaRutinaIAExistente.getAlimentos().clear();
+            if (comidaRutinaIAActualizado.getAlimentos() != null) {
+                comidaRutinaIAActualizado.getAlimentos().forEach(item -> item.setIdItem(null));
+                comidaRutinaIAExistente.getAlimentos().addAll(comidaRutinaIAActualizado.getAlimentos());
+            }
+            rutinaEstructuradaService.recalcularComida(comidaRutinaIAExistente);
+            rutinaEstructuradaService.actualizarDias(comidaRutinaIAExistente.getRutina());
             return comidaRutinaIARepository.save(comidaRutinaIAExistente);
         }else{
             return null;
         }
     }
 
-    public List<Alimento>alimentosSugeridos(@Param("tipoComida") String tipoComida, @Param("fecha") String fecha) {
-        return comidaRutinaIARepository.obtenerAlimentosSugeridos(tipoComida,fecha);
-    }
-
-    public void obtenerValoresNutricionales(@Param("idComida") Long idComida, @Param("valoresNutricionales") String valoresNutricionales){
-        comidaRutinaIARepository.actualizarValoresNutricionales(idComida,valoresNutricionales);
-    }
-
-    public void obtenerAlimentoAComida(@Param("idComida") Long idComida, @Param("idAlimento") Long idAlimento, @Param("cantidad") Float cantidad){
-        comidaRutinaIARepository.agregarAlimentoAComida(idComida,idAlimento,cantidad);
+    public ComidaRutinaIA obtenerAlimentoAComida(Long idComida, Long idAlimento, Float cantidad, String unidad){
+        return rutinaEstructuradaService.agregarAlimento(idComida, idAlimento, cantidad, unidad);
     }
 
-    public void eliminarAlimentoDeComidas(@Param("idComida") Long idComida, @Param("idAlimento") Long idAlimento){
-        comidaRutinaIARepository.eliminarAlimentoDeComida(idComida,idAlimento);
+    public ComidaRutinaIA eliminarAlimentoDeComidas(Long idComida, Long idItem){
+        return rutinaEstructuradaService.quitarAlimento(idComida, idItem);
     }
 }
@@ -1,5 +1,6 @@
 package com.example.Proyecto.Service;
 
+import com.example.Proyecto.DTO.ConfiguracionAplicacionDTO;
 import com.example.Proyecto.Model.ConfiguracionAplicacion;
 import com.example.Proyecto.Repository.ConfiguracionAplicacionRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,10 +17,10 @@ public class ConfiguracionAplicacionService {
     @Autowired
     public ConfiguracionAplicacionRepository configuracionAplicacionRepository;
 
-    public List<ConfiguracionAplicacion> listarConfiguracionesAplicacion(){
+    public List<ConfiguracionAplicacionDTO> listarConfiguracionesAplicacion(){
         // Validacion para intentar obtener la lista de Configuraciones de la Aplicacion
         try {
-            List<ConfiguracionAplicacion> configuracionAplicacions = configuracionAplicacionRepository.findAll();
+            List<ConfiguracionAplicacionDTO> configuracionAplicacions = configuracionAplicacionRepository.listarDTO();
             // Validar que la lista no sea nula
             if (configuracionAplicacions == null) {
                 throw new IllegalStateException("No se encontraron Configuraciones de la Aplicacion.");
@@ -0,0 +1,199 @@
+package com.example.Proyecto.Service;
+
+import com.example.Proyecto.DTO.AlimentoDTO;
+import com.example.Proyecto.DTO.ContextoNutricionalDTO;
+import com.example.Proyecto.DTO.NutrientesRecomendadosDTO;
+import com.example.Proyecto.DTO.NutrientesTotalesDTO;
+import com.example.Proyecto.DTO.UsuarioRespuestaDTO;
+import com.example.Proyecto.Model.RegistroAlimento;
+import com.example.Proyecto.Repository.AlimentoRepository;
+import com.example.Proyecto.Repository.PreferenciasUsuarioRepository;
+import com.example.Proyecto.Repository.RegistroAlimentoRepository;
+import com.example.Proyecto.Repository.UsuarioRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contexto nutricional por usuario, armado una vez y servido desde memoria.
+ *
+ * Antes el chatbot juntaba perfil, registros del día, recientes y el catálogo completo en llamadas separadas.
+ * Aquí se arma todo junto (en una sola transacción de solo lectura) y queda guardado hasta que llega
+ * un evento de escritura del usuario (perfil, registros, favoritos o exclusiones) o cambia el día.
+ * La generación evita guardar un contexto que empezó a armarse antes del cambio, igual que las recomendaciones.
+ */
+@Service
+public class ContextoNutricionalService {
+
+    @Autowired
+    public UsuarioRepository usuarioRepository;
+
+    @Autowired
+    public RegistroAlimentoRepository registroAlimentoRepository;
+
+    @Autowired
+    public AlimentoRepository alimentoRepository;
+
+    @Autowired
+    public PreferenciasUsuarioRepository preferenciasRepository;
+
+    @Autowired
+    public EstadisticasNutricionalesService estadisticasService;
+
+    @Autowired
+    public PlatformTransactionManager transactionManager;
+
+    private final ConcurrentHashMap<Long, ContextoNutricionalDTO> contextos = new ConcurrentHashMap<>();
+    // Por usuario: una escritura de un usuario no descarta los contextos que se están armando para los demás
+    private final ConcurrentHashMap<Long, AtomicLong> generaciones = new ConcurrentHashMap<>();
+    // Parte de la hora de arranque para que las versiones no se repitan después de reiniciar
+    private final AtomicLong versiones = new AtomicLong(System.currentTimeMillis());
+
+    /**
+     * Devuelve el contexto vigente del usuario, armándolo solo si no hay uno de hoy.
+     *
+     * @throws NoSuchElementException Si el usuario no existe
+     */
+    public ContextoNutricionalDTO obtener(Long idUsuario) {
+        LocalDate hoy = LocalDate.now();
+        ContextoNutricionalDTO actual = contextos.get(idUsuario);
+        if (actual != null && actual.fecha().equals(hoy)) {
+            return actual;
+        }
+        AtomicLong generacion = generaciones.computeIfAbsent(idUsuario, k -> new AtomicLong());
+        long generacionInicial = generacion.get();
+        ContextoNutricionalDTO nuevo = armar(idUsuario, hoy);
+        if (generacion.get() == generacionInicial) {
+            contextos.put(idUsuario, nuevo);
+            // Una invalidación entre la comparación y el put no puede dejarlo guardado
+            if (generacion.get() != generacionInicial) {
+                contextos.remove(idUsuario, nuevo);
+            }
+        }
+        return nuevo;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alActualizarPerfil(PerfilActualizadoEvent evento) {
+        invalidar(evento.idUsuario());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCambiarDatos(DatosNutricionalesCambiadosEvent evento) {
+        invalidar(evento.idUsuario());
+    }
+
+    private void invalidar(Long idUsuario) {
+        generaciones.computeIfAbsent(idUsuario, k -> new AtomicLong()).incrementAndGet();
+        contextos.remove(idUsuario);
+    }
+
+    // Las lecturas van una tras otra en la misma transacción de solo lectura: ocupan una sola conexión del pool
+    private ContextoNutricionalDTO armar(Long idUsuario, LocalDate hoy) {
+        TransactionTemplate lectura = new TransactionTemplate(transactionManager);
+        lectura.setReadOnly(true);
+        return lectura.execute(estado -> {
+            LocalDate lunes = hoy.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+
+            // Primero el perfil: así un usuario inexistente falla con NoSuchElementException y no en el cálculo
+            UsuarioRespuestaDTO perfil = usuarioRepository.buscarRespuestaPorId(idUsuario)
+                    .orElseThrow(() -> new NoSuchElementException("Usuario no encontrado"));
+            NutrientesRecomendadosDTO objetivos = estadisticasService.calcularRecomendacionesDiarias(idUsuario);
+
+            // Una sola consulta para la semana; los de hoy se separan en memoria
+            List<RegistroAlimento> semana = registroAlimentoRepository.findByUsuarioAndFecha(idUsuario,
+                    lunes.atStartOfDay(), hoy.atTime(LocalTime.MAX));
+            List<RegistroAlimento> deHoy = semana.stream()
+                    .filter(r -> r.getConsumidoEn() != null && r.getConsumidoEn().toLocalDate().equals(hoy))
+                    .toList();
+
+            List<String> favoritos = alimentoRepository.buscarFavoritosDTO(idUsuario).stream()
+                    .map(AlimentoDTO::nombreAlimento).toList();
+
+            Set<String> exclusiones = new LinkedHashSet<>();
+            separar(perfil.getRestriccionesDieta(), exclusiones);
+            preferenciasRepository.buscarExcluidosPorUsuario(idUsuario).forEach(texto -> separar(texto, exclusiones));
+
+            return new ContextoNutricionalDTO(
+                    idUsuario,
+                    versiones.incrementAndGet(),
+                    hoy,
+                    perfil,
+                    objetivos,
+                    estadisticasService.sumarRegistros(deHoy),
+                    estadisticasService.sumarRegistros(semana),
+                    favoritos,
+                    new ArrayList<>(exclusiones));
+        });
+    }
+
+    // Las restricciones y exclusiones se guardan como texto libre separado por comas, punto y coma o saltos de línea
+    private static void separar(String texto, Set<String> destino) {
+        if (texto == null || texto.isBlank()) {
+            return;
+        }
+        for (String parte : texto.split("[,;\\n]")) {
+            String limpio = parte.trim();
+            if (!limpio.isEmpty()) {
+                destino.add(limpio.toLowerCase(Locale.ROOT));
+            }
+        }
+    }
+
+    /**
+     * Texto compacto para anteponer al prompt del proveedor de IA (un dato por línea).
+     */
+    public String comoTexto(ContextoNutricionalDTO contexto) {
+        UsuarioRespuestaDTO p = contexto.perfil();
+        StringBuilder texto = new StringBuilder("Contexto del usuario (").append(contexto.fecha()).append("):\n");
+        texto.append("- Perfil: sexo ").append(p.getSexo())
+                .append(", nacimiento ").append(p.getFechaNacimiento())
+                .append(", altura ").append(p.getAltura()).append(" cm")
+                .append(", peso ").append(p.getPeso()).append(" kg")
+                .append(", peso objetivo ").append(p.getPesoObjetivo()).append(" kg")
+                .append(", actividad ").append(p.getNivelActividad())
+                .append(", objetivo ").append(p.getObjetivosSalud()).append('\n');
+        NutrientesRecomendadosDTO o = contexto.objetivos();
+        texto.append("- Objetivo diario: ").append(nutrientes(o.getCalorias(), o.getProteinas(), o.getCarbohidratos(),
+                o.getGrasas(), o.getAzucares(), o.getFibra(), o.getSodio())).append('\n');
+        NutrientesTotalesDTO h = contexto.hoy();
+        texto.append("- Consumido hoy: ").append(nutrientes(h.getCalorias(), h.getProteinas(), h.getCarbohidratos(),
+                h.getGrasas(), h.getAzucares(), h.getFibra(), h.getSodio())).append('\n');
+        NutrientesTotalesDTO s = contexto.semana();
+        texto.append("- Consumido esta semana: ").append(nutrientes(s.getCalorias(), s.getProteinas(), s.getCarbohidratos(),
+                s.getGrasas(), s.getAzucares(), s.getFibra(), s.getSodio())).append('\n');
+        if (!contexto.favoritos().isEmpty()) {
+            texto.append("- Favoritos: ").append(String.join(", ", contexto.favoritos())).append('\n');
+        }
+        if (!contexto.exclusiones().isEmpty()) {
+            texto.append("- No incluir: ").append(String.join(", ", contexto.exclusiones())).append('\n');
+        }
+        return texto.toString();
+    }
+
+    private static String nutrientes(Float calorias, Float proteinas, Float carbohidratos, Float grasas,
+                                     Float azucares, Float fibra, Float sodio) {
+        return String.format(Locale.US, "%.0f kcal, %.0f g proteínas, %.0f g carbohidratos, %.0f g grasas, " +
+                        "%.0f g azúcares, %.0f g fibra, %.0f mg sodio",
+                valor(calorias), valor(proteinas), valor(carbohidratos), valor(grasas), valor(azucares), valor(fibra), valor(sodio));
+    }
+
+    private static float valor(Float f) {
+        return f == null ? 0f : f;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.Proyecto.Service;
+
+/**
+ * Cubeta de tokens: admite ráfagas de hasta "capacidad" y luego "recargaPorSegundo" operaciones por segundo.
+ */
+public class CubetaTokens {
+    private final double capacidad;
+    private final double recargaPorSegundo;
+    private double tokens;
+    private long ultimaRecarga;
+
+    public CubetaTokens(double capacidad, double recargaPorSegundo) {
+        this.capacidad = capacidad;
+        this.recargaPorSegundo = recargaPorSegundo;
+        this.tokens = capacidad;
+        this.ultimaRecarga = System.nanoTime();
+    }
+
+    public synchronized boolean intentarConsumir() {
+        recargar();
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    // Devuelve un token consumido cuyo intento no debía contar (sin pasar de la capacidad)
+    public synchronized void devolver() {
+        recargar();
+        tokens = Math.min(capacidad, tokens + 1);
+    }
+
+    // Segundos (redondeados hacia arriba) hasta que haya un token disponible
+    public synchronized long segundosHastaDisponible() {
+        recargar();
+        if (tokens >= 1) {
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) / recargaPorSegundo);
+    }
+
+    // Llena y sin uso reciente: se puede descartar sin cambiar el comportamiento
+    public synchronized boolean estaLlena() {
+        recargar();
+        return tokens >= capacidad;
+    }
+
+    private void recargar() {
+        long ahora = System.nanoTime();
+        tokens = Math.min(capacidad, tokens + (ahora - ultimaRecarga) / 1e9 * recargaPorSegundo);
+        ultimaRecarga = ahora;
+    }
+}
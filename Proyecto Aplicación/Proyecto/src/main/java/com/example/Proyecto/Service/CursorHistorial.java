@@ -0,0 +1,75 @@
+package com.example.Proyecto.Service;
+
+import com.example.Proyecto.DTO.PaginaHistorialDTO;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Posición en un historial ordenado por (fecha, id) de más nuevo a más viejo.
+ * Viaja como texto opaco (Base64 URL de "fecha|id"); la fecha conserva los microsegundos de la BD.
+ */
+public record CursorHistorial(Timestamp momento, Long id) {
+
+    // Antes que cualquier fila: primera página
+    public static final CursorHistorial INICIO = new CursorHistorial(Timestamp.valueOf(LocalDateTime.of(9999, 12, 31, 0, 0)), Long.MAX_VALUE);
+
+    public static final int TAMANO_DEFECTO = 20;
+    public static final int TAMANO_MAXIMO = 100;
+
+    public String codificar() {
+        String texto = momento.toLocalDateTime() + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(texto.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException Si el cursor no fue generado por el servidor
+     */
+    public static CursorHistorial decodificar(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return INICIO;
+        }
+        try {
+            String texto = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separador = texto.lastIndexOf('|');
+            return new CursorHistorial(Timestamp.valueOf(LocalDateTime.parse(texto.substring(0, separador))),
+                    Long.parseLong(texto.substring(separador + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+    }
+
+    /**
+     * Arma la página a partir de hasta tamano + 1 filas: la fila extra solo indica que hay más.
+     */
+    public static <T> PaginaHistorialDTO<T> pagina(List<T> filas, int tamano, Function<T, CursorHistorial> posicion) {
+        if (filas.size() <= tamano) {
+            return new PaginaHistorialDTO<>(filas, null);
+        }
+        List<T> elementos = filas.subList(0, tamano);
+        return new PaginaHistorialDTO<>(elementos, posicion.apply(elementos.get(tamano - 1)).codificar());
+    }
+
+    public static int tamanoPagina(Integer tamano) {
+        if (tamano == null) {
+            return TAMANO_DEFECTO;
+        }
+        return Math.max(1, Math.min(tamano, TAMANO_MAXIMO));
+    }
+
+    // Sin límite pedido se devuelve el texto completo
+    public static int maximoTexto(Integer maximo) {
+        if (maximo == null) {
+            return Integer.MAX_VALUE;
+        }
+        if (maximo < 1) {
+            throw new IllegalArgumentException("El máximo de caracteres debe ser positivo");
+        }
+        return maximo;
+    }
+}
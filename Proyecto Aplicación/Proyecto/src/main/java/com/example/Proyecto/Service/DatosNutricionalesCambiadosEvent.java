@@ -0,0 +1,8 @@
+package com.example.Proyecto.Service;
+
+/**
+ * Se publica cuando cambia algo del usuario que forma parte de su contexto nutricional
+ * (registros de comida, favoritos o alimentos excluidos), para invalidar los datos derivados.
+ */
+public record DatosNutricionalesCambiadosEvent(Long idUsuario) {
+}
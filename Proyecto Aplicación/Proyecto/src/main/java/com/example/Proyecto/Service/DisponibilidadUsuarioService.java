@@ -0,0 +1,151 @@
+package com.example.Proyecto.Service;
+
+import com.example.Proyecto.Repository.UsuarioRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Disponibilidad de correo y nombre para el registro (se consulta mientras el usuario escribe).
+ * Un filtro de Bloom con los valores ya tomados (en minúsculas) responde los "no existe" sin ir a la BD;
+ * los posibles positivos se confirman con la consulta sobre el índice único.
+ * Los filtros no admiten borrado: un usuario eliminado o un correo cambiado queda como falso positivo
+ * hasta la siguiente reconstrucción periódica.
+ */
+@Service
+public class DisponibilidadUsuarioService {
+    private static final Logger log = LoggerFactory.getLogger(DisponibilidadUsuarioService.class);
+    private static final double TASA_FALSOS_POSITIVOS = 0.01;
+    // Un alta anotada poco antes de empezar la carga puede confirmarse en la BD cuando el cursor ya pasó
+    private static final long MARGEN_ALTAS_MS = 60_000;
+
+    private record Filtros(FiltroBloom correos, FiltroBloom nombres) {
+    }
+
+    private record Alta(long instante, String correo, String nombre) {
+    }
+
+    @Autowired
+    public UsuarioRepository usuarioRepository;
+
+    @Autowired
+    public PlatformTransactionManager transactionManager;
+
+    // null hasta terminar la primera carga: mientras tanto se consulta directo a la BD
+    private volatile Filtros filtros;
+
+    // Altas recientes: al reemplazar los filtros se vuelven a agregar las que el cursor pudo no ver
+    private final ConcurrentLinkedQueue<Alta> altasRecientes = new ConcurrentLinkedQueue<>();
+
+    // registrar() toma la lectura (no se bloquean entre sí); el reemplazo de los filtros toma la escritura,
+    // así ninguna alta queda solo en el filtro viejo
+    private final ReentrantReadWriteLock reemplazo = new ReentrantReadWriteLock();
+
+    public boolean existeCorreo(String correo) {
+        Filtros actuales = filtros;
+        if (correo == null || (actuales != null && !actuales.correos().puedeContener(normalizar(correo)))) {
+            return false;
+        }
+        return usuarioRepository.existsByCorreo(correo);
+    }
+
+    public boolean existeNombre(String nombre) {
+        Filtros actuales = filtros;
+        if (nombre == null || (actuales != null && !actuales.nombres().puedeContener(normalizar(nombre)))) {
+            return false;
+        }
+        return usuarioRepository.existsByNombre(nombre);
+    }
+
+    // Llamar antes de guardar un usuario nuevo o un cambio de correo/nombre, así un "no existe" nunca contradice a la BD
+    public void registrar(String correo, String nombre) {
+        Alta alta = new Alta(System.currentTimeMillis(),
+                correo != null ? normalizar(correo) : null, nombre != null ? normalizar(nombre) : null);
+        reemplazo.readLock().lock();
+        try {
+            altasRecientes.add(alta);
+            Filtros actuales = filtros;
+            if (actuales != null) {
+                agregar(actuales, alta);
+            }
+        } finally {
+            reemplazo.readLock().unlock();
+        }
+    }
+
+    private static void agregar(Filtros destino, Alta alta) {
+        if (alta.correo() != null) {
+            destino.correos().agregar(alta.correo());
+        }
+        if (alta.nombre() != null) {
+            destino.nombres().agregar(alta.nombre());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        reconstruir();
+    }
+
+    /**
+     * Carga los filtros recorriendo los usuarios con un cursor (sin materializar la tabla) y los reemplaza.
+     * El cursor necesita una transacción abierta; se abre aquí mismo y no con @Transactional, porque alIniciar()
+     * llama a este método sin pasar por el proxy.
+     * Las altas anotadas desde poco antes de empezar se agregan al filtro nuevo en el mismo paso en que se publica.
+     */
+    @Scheduled(cron = "0 0 */6 * * *")
+    public synchronized void reconstruir() {
+        long inicio = System.currentTimeMillis();
+        try {
+            int esperados = (int) Math.min(Integer.MAX_VALUE / 2, usuarioRepository.count() * 2 + 10_000);
+            FiltroBloom correos = new FiltroBloom(esperados, TASA_FALSOS_POSITIVOS);
+            FiltroBloom nombres = new FiltroBloom(esperados, TASA_FALSOS_POSITIVOS);
+            AtomicLong total = new AtomicLong();
+            TransactionTemplate lectura = new TransactionTemplate(transactionManager);
+            lectura.setReadOnly(true);
+            lectura.executeWithoutResult(estado -> {
+                try (Stream<Object[]> filas = usuarioRepository.streamCorreosYNombres()) {
+                    filas.forEach(fila -> {
+                        if (fila[0] != null) {
+                            correos.agregar(normalizar((String) fila[0]));
+                        }
+                        if (fila[1] != null) {
+                            nombres.agregar(normalizar((String) fila[1]));
+                        }
+                        total.incrementAndGet();
+                    });
+                }
+            });
+            Filtros nuevos = new Filtros(correos, nombres);
+            long desde = inicio - MARGEN_ALTAS_MS;
+            reemplazo.writeLock().lock();
+            try {
+                altasRecientes.removeIf(alta -> alta.instante() < desde);
+                altasRecientes.forEach(alta -> agregar(nuevos, alta));
+                filtros = nuevos;
+            } finally {
+                reemplazo.writeLock().unlock();
+            }
+            log.info("Filtros de disponibilidad cargados: {} usuarios en {} ms", total, System.currentTimeMillis() - inicio);
+        } catch (RuntimeException e) {
+            // Se mantienen los filtros anteriores (o la consulta directa si nunca se cargaron)
+            log.error("No se pudieron cargar los filtros de disponibilidad: {}", e.getMessage());
+        }
+    }
+
+    private static String normalizar(String valor) {
+        return valor.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.Proyecto.Service;
+
+import com.example.Proyecto.Model.EliminacionUsuario;
+import com.example.Proyecto.Repository.EliminacionUsuarioRepository;
+import com.example.Proyecto.Repository.UsuarioRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Borrado de cuentas sin cargar las colecciones de Usuario: al pedirlo la cuenta se marca como eliminada
+ * (no puede iniciar sesión y sus tokens se revocan) y después un hilo en segundo plano borra los datos
+ * con DELETE por lotes, tabla por tabla, de hijos a padres. Cada lote es una transacción corta.
+ */
+@Service
+public class EliminacionUsuarioService {
+    private static final Logger log = LoggerFactory.getLogger(EliminacionUsuarioService.class);
+
+    // Si una eliminación en curso no avanza en este tiempo, otra ejecución la retoma
+    private static final long MINUTOS_SIN_AVANCE = 5;
+
+    private record Paso(String tabla, String sql) {
+    }
+
+    // Lote por ctid: Postgres no admite LIMIT en DELETE
+    private static Paso porUsuario(String tabla) {
+        return new Paso(tabla, "DELETE FROM " + tabla + " WHERE ctid IN (SELECT ctid FROM " + tabla +
+                " WHERE id_usuario = :idUsuario LIMIT :limite)");
+    }
+
+    private static Paso porPadre(String tabla, String padre, String columna) {
+        return new Paso(tabla, "DELETE FROM " + tabla + " WHERE ctid IN (SELECT h.ctid FROM " + tabla + " h JOIN " + padre +
+                " p ON p." + columna + " = h." + columna + " WHERE p.id_usuario = :idUsuario LIMIT :limite)");
+    }
+
+    // Orden de dependencias: primero lo que referencia a rutinas y sesiones, al final la fila de Usuario
+    private static final List<Paso> PASOS = List.of(
+            new Paso("comida_rutina_ia_alimento", "DELETE FROM comida_rutina_ia_alimento WHERE ctid IN (SELECT h.ctid " +
+                    "FROM comida_rutina_ia_alimento h JOIN comida_rutina_ia c ON c.id_comida = h.id_comida " +
+                    "JOIN rutina_alimentia_ia p ON p.id_rutina = c.id_rutina WHERE p.id_usuario = :idUsuario LIMIT :limite)"),
+            porPadre("comida_rutina_ia", "rutina_alimentia_ia", "id_rutina"),
+            porPadre("modificacion_rutina_chatbot", "rutina_alimentia_ia", "id_rutina"),
+            porUsuario("modificacion_rutina_chatbot"),
+            porUsuario("rutina_alimentia_ia"),
+            porPadre("interaccion_chatbot", "sesion_chatbot", "id_sesion"),
+            porPadre("registro_respuestas_ia", "sesion_chatbot", "id_sesion"),
+            porUsuario("registro_respuestas_ia"),
+            porUsuario("sesion_chatbot"),
+            porUsuario("sesion_chatbot_archivada"),
+            porUsuario("registro_alimento"),
+            porUsuario("registro_agua"),
+            porUsuario("ingesta_agua"),
+            porUsuario("estadisticas_diarias"),
+            porUsuario("estadisticas_mensuales"),
+            porUsuario("estadisticas_nutricionales"),
+            porUsuario("recordatorio"),
+            porUsuario("token_sesion"),
+            porUsuario("alimento_reciente"),
+            porUsuario("usuario_alimento_favorito"),
+            porUsuario("preferencias_usuario"),
+            porUsuario("configuracion_apilcacion"),
+            porUsuario("actividad_anual"),
+            porUsuario("medida_corporal"),
+            porUsuario("registro_eliminado"),
+            // Una sola fila; ":limite > 0" solo para que todos los pasos tengan los mismos parámetros
+            new Paso("usuario", "DELETE FROM usuario WHERE id_usuario = :idUsuario AND :limite > 0"));
+
+    @Autowired
+    public EliminacionUsuarioRepository eliminacionUsuarioRepository;
+
+    @Autowired
+    public UsuarioRepository usuarioRepository;
+
+    @Autowired
+    public TokenSesionService tokenSesionService;
+
+    @Autowired
+    public TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public IngestaAguaService ingestaAguaService;
+
+    @Autowired
+    public BitacoraChatbotService bitacoraChatbotService;
+
+    @Autowired
+    public GestorSesionesChatbotService gestorSesionesChatbotService;
+
+    @Autowired
+    @Qualifier("ejecutorVirtual")
+    public ExecutorService ejecutorVirtual;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${usuario.eliminacion.lote:1000}")
+    private int tamanoLote;
+
+    @Value("${usuario.eliminacion.pausa-ms:20}")
+    private long pausaMs;
+
+    @Value("${usuario.eliminacion.max-intentos:8}")
+    private int maximoIntentos;
+
+    /**
+     * Marca la cuenta como eliminada y agenda la purga. Si ya se había pedido, devuelve el progreso existente.
+     */
+    @Transactional
+    public EliminacionUsuario solicitar(long idUsuario) {
+        if (idUsuario <= 0) {
+            throw new IllegalArgumentException("El ID del usuario debe ser un número positivo.");
+        }
+        Optional<EliminacionUsuario> existente = eliminacionUsuarioRepository.findByIdUsuario(idUsuario);
+        if (existente.isPresent()) {
+            return existente.get();
+        }
+        if (!usuarioRepository.existsById(idUsuario)) {
+            throw new NoSuchElementException("No se encontró un usuario con el ID: " + idUsuario);
+        }
+
+        LocalDateTime ahora = LocalDateTime.now();
+        usuarioRepository.marcarEliminado(idUsuario, Timestamp.valueOf(ahora));
+        tokenSesionService.revocarTodas(idUsuario);
+
+        EliminacionUsuario eliminacion = new EliminacionUsuario();
+        eliminacion.setIdUsuario(idUsuario);
+        eliminacion.setEstado(EliminacionUsuario.Estado.PENDIENTE);
+        eliminacion.setPasoActual(0);
+        eliminacion.setTotalPasos(PASOS.size());
+        eliminacion.setFilasEliminadas(0);
+        eliminacion.setSolicitadoEn(ahora);
+        eliminacion.setActualizadoEn(ahora);
+        EliminacionUsuario guardada = eliminacionUsuarioRepository.save(eliminacion);
+
+        // La purga arranca cuando la marca ya es visible para todos y sin nada del usuario pendiente en memoria
+        Long idEliminacion = guardada.getIdEliminacion();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                ejecutorVirtual.submit(() -> {
+                    descartarEnMemoria(idUsuario);
+                    procesar(idEliminacion);
+                });
+            }
+        });
+        return guardada;
+    }
+
+    /**
+     * Quita lo que esta instancia guarda del usuario sin haberlo escrito: toques de agua sin volcar, turnos del
+     * chatbot en el buffer y sus sesiones abiertas. Si no, un volcado posterior a la purga dejaría filas huérfanas
+     * o haría fallar el borrado de la fila de Usuario.
+     */
+    private void descartarEnMemoria(long idUsuario) {
+        try {
+            ingestaAguaService.descartarUsuario(idUsuario);
+            int turnos = bitacoraChatbotService.descartarSesiones(gestorSesionesChatbotService.descartarDeUsuario(idUsuario));
+            if (turnos > 0) {
+                log.info("Descartados {} turnos del chatbot sin guardar del usuario {}", turnos, idUsuario);
+            }
+        } catch (RuntimeException e) {
+            log.warn("No se pudo descartar el estado en memoria del usuario {}: {}", idUsuario, e.getMessage());
+        }
+    }
+
+    public Optional<EliminacionUsuario> obtenerProgreso(long idUsuario) {
+        return eliminacionUsuarioRepository.findByIdUsuario(idUsuario);
+    }
+
+    /**
+     * Retoma las eliminaciones pendientes, interrumpidas (reinicio, caída de la instancia) o con error.
+     * Cada purga corre en un hilo virtual: el hilo único de @Scheduled queda libre para el resto de tareas
+     * (por ejemplo el volcado de agua), y tomar() impide que una misma eliminación corra dos veces.
+     */
+    @Scheduled(fixedDelay = 60_000, initialDelay = 30_000)
+    public void reanudarPendientes() {
+        LocalDateTime ahora = LocalDateTime.now();
+        for (Long id : eliminacionUsuarioRepository.findIdsParaProcesar(ahora.minusMinutes(MINUTOS_SIN_AVANCE), ahora, maximoIntentos)) {
+            ejecutorVirtual.submit(() -> procesar(id));
+        }
+    }
+
+    public void procesar(Long idEliminacion) {
+        LocalDateTime ahora = LocalDateTime.now();
+        if (eliminacionUsuarioRepository.tomar(idEliminacion, ahora, ahora.minusMinutes(MINUTOS_SIN_AVANCE), maximoIntentos) == 0) {
+            return; // la está procesando otro hilo o ya terminó
+        }
+        EliminacionUsuario eliminacion = eliminacionUsuarioRepository.findById(idEliminacion).orElseThrow();
+        Long idUsuario = eliminacion.getIdUsuario();
+        long inicio = System.currentTimeMillis();
+        try {
+            // Cada intento recorre todos los pasos (borrar lo ya borrado no cuesta nada): retomar desde el paso guardado
+            // dejaría las filas escritas después de pasar por su tabla y el borrado de Usuario fallaría siempre por la FK
+            for (int i = 0; i < PASOS.size(); i++) {
+                Paso paso = PASOS.get(i);
+                int borradas;
+                do {
+                    borradas = transactionTemplate.execute(estado -> entityManager.createNativeQuery(paso.sql())
+                            .setParameter("idUsuario", idUsuario)
+                            .setParameter("limite", tamanoLote)
+                            .executeUpdate());
+                    eliminacionUsuarioRepository.registrarAvance(idEliminacion, i, paso.tabla(), borradas, LocalDateTime.now());
+                    if (borradas == tamanoLote && pausaMs > 0) {
+                        Thread.sleep(pausaMs); // deja conexiones libres para el tráfico normal
+                    }
+                } while (borradas == tamanoLote);
+            }
+            eliminacionUsuarioRepository.registrarAvance(idEliminacion, PASOS.size(), null, 0, LocalDateTime.now());
+            eliminacionUsuarioRepository.terminar(idEliminacion, EliminacionUsuario.Estado.COMPLETADA, null, LocalDateTime.now());
+            log.info("Usuario {} eliminado en {} ms", idUsuario, System.currentTimeMillis() - inicio);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // Queda EN_CURSO y la retoma reanudarPendientes cuando venza
+        } catch (RuntimeException e) {
+            String mensaje = e.getMessage() != null && e.getMessage().length() > 500 ? e.getMessage().substring(0, 500) : e.getMessage();
+            int intento = eliminacion.getIntentos() + 1;
+            // Espera exponencial entre reintentos: 2, 4, 8... minutos, hasta 6 horas
+            LocalDateTime ahoraError = LocalDateTime.now();
+            LocalDateTime reintentarEn = ahoraError.plusMinutes(Math.min(360, 1L << Math.min(intento, 9)));
+            eliminacionUsuarioRepository.fallar(idEliminacion, mensaje, reintentarEn, ahoraError);
+            if (intento >= maximoIntentos) {
+                log.error("Eliminación del usuario {} abandonada tras {} intentos: {}", idUsuario, intento, e.getMessage(), e);
+            } else {
+                log.error("Error eliminando el usuario {} (intento {}, se reintenta a las {}): {}",
+                        idUsuario, intento, reintentarEn, e.getMessage(), e);
+            }
+        }
+    }
+}
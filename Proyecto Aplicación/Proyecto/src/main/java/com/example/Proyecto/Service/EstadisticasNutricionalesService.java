@@ -2,6 +2,8 @@ package com.example.Proyecto.Service;
 
 import com.example.Proyecto.DTO.EstadisticaPorDiaDTO;
 import com.example.Proyecto.DTO.EstadisticaPorMesDTO;
+import com.example.Proyecto.DTO.EstadisticasNutricionalesDTO;
+import com.example.Proyecto.DTO.HidratacionPeriodoDTO;
 import com.example.Proyecto.DTO.NutrientesRecomendadosDTO;
 import com.example.Proyecto.DTO.NutrientesTotalesDTO;
 import com.example.Proyecto.Model.*;
@@ -13,9 +15,12 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import java.time.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 @Service
@@ -35,24 +40,39 @@ public class EstadisticasNutricionalesService {
     @Autowired
     public UnidadEquivalenciaRepository unidadEquivalenciaRepository;
 
+    @Autowired
+    public AlimentoRepository alimentoRepository;
+
     @Autowired
     public UsuarioRepository usuarioRepository;
 
     @Autowired
     public RegistroAguaRepository registroAguaRepository;
 
+    @Autowired
+    public MedidaCorporalService medidaCorporalService;
+
     private static final Logger log = LoggerFactory.getLogger(EstadisticasNutricionalesService.class);
 
-    public EstadisticasNutricionales obtenerEstadisticasDiarias(@Param("idUsuario") Long idUsuario, @Param("fecha") String fecha){
-        return estadisticasNutricionalesRepository.calcularEstadisticasDiarias(idUsuario,fecha);
+    private record RecomendacionCacheada(LocalDate dia, NutrientesRecomendadosDTO valor) {
+    }
+
+    private final ConcurrentHashMap<Long, RecomendacionCacheada> recomendaciones = new ConcurrentHashMap<>();
+    // Generación por usuario: el cambio de perfil de uno no impide cachear los cálculos en curso de los demás.
+    // No se eliminan (una generación que vuelve a 0 podría coincidir con la de un cálculo viejo)
+    private final ConcurrentHashMap<Long, AtomicLong> generacionRecomendaciones = new ConcurrentHashMap<>();
+
+    public EstadisticasNutricionalesDTO obtenerEstadisticasDiarias(@Param("idUsuario") Long idUsuario, @Param("fecha") String fecha){
+        return estadisticasNutricionalesRepository.calcularEstadisticasDiarias(idUsuario, LocalDate.parse(fecha));
     }
 
-    public List<EstadisticasNutricionales> obtenerProgresosSemanales(@Param("idUsuario") Long idUsuario,@Param("fechaInicio") String fechaInicio,@Param("fechaFin") String fechaFin){
-        return estadisticasNutricionalesRepository.obtenerProgresoSemanal(idUsuario,fechaInicio,fechaFin);
+    public List<EstadisticasNutricionalesDTO> obtenerProgresosSemanales(@Param("idUsuario") Long idUsuario,@Param("fechaInicio") String fechaInicio,@Param("fechaFin") String fechaFin){
+        return estadisticasNutricionalesRepository.obtenerProgresoSemanal(idUsuario, LocalDate.parse(fechaInicio), LocalDate.parse(fechaFin));
     }
 
-    public Float obtenerIMC(@Param("idUsuario") Long idUsuario, @Param("fecha") String fecha){
-        return estadisticasNutricionalesRepository.calcularIMC(idUsuario,fecha);
+    // IMC vigente en la fecha según la serie de medidas corporales
+    public Float obtenerIMC(Long idUsuario, String fecha){
+        return medidaCorporalService.obtenerImc(idUsuario, LocalDate.parse(fecha));
     }
 
     public Integer totalComidasRegistradas(@Param("idUsuario") Long idUsuario, @Param("fecha") String fecha){
@@ -72,9 +92,6 @@ public class EstadisticasNutricionalesService {
     }
 
     public NutrientesTotalesDTO obtenerTotalesPorFecha(Long idUsuario, LocalDate fecha) {
-        NutrientesTotalesDTO totales = new NutrientesTotalesDTO();
-        inicializarTotales(totales);
-
         // Obtener todos los registros del usuario para la fecha
         List<RegistroAlimento> registros = registroAlimentoRepository.findByUsuarioAndFecha(
                 idUsuario,
@@ -86,6 +103,16 @@ public class EstadisticasNutricionalesService {
             System.out.println("🔍 No se encontraron registros para el usuario " + idUsuario + " el " + fecha);
         }
 
+        return sumarTotales(registros);
+    }
+
+    /**
+     * Suma los nutrientes de una lista de registros ya cargada (sin volver a consultar la BD)
+     */
+    public NutrientesTotalesDTO sumarTotales(List<RegistroAlimento> registros) {
+        NutrientesTotalesDTO totales = new NutrientesTotalesDTO();
+        inicializarTotales(totales);
+
         for (RegistroAlimento registro : registros) {
             Alimento alimento = registro.getAlimento();
             if (alimento == null) {
@@ -143,7 +170,32 @@ public class EstadisticasNutricionalesService {
                 t.getAzucares(), t.getFibra(), t.getSodio(), t.getGrasasSaturadas());
     }
 
+    /**
+     * Recomendaciones diarias cacheadas por usuario y día (la edad cambia con la fecha).
+     * Se invalidan con PerfilActualizadoEvent; la generación evita guardar un cálculo que empezó antes del cambio.
+     */
     public NutrientesRecomendadosDTO calcularRecomendacionesDiarias(Long idUsuario) {
+        LocalDate hoy = LocalDate.now();
+        RecomendacionCacheada cacheada = recomendaciones.get(idUsuario);
+        if (cacheada != null && cacheada.dia().equals(hoy)) {
+            return cacheada.valor();
+        }
+        AtomicLong generacionUsuario = generacionRecomendaciones.computeIfAbsent(idUsuario, k -> new AtomicLong());
+        long generacion = generacionUsuario.get();
+        NutrientesRecomendadosDTO valor = calcularRecomendaciones(idUsuario);
+        if (generacionUsuario.get() == generacion) {
+            recomendaciones.put(idUsuario, new RecomendacionCacheada(hoy, valor));
+        }
+        return valor;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alActualizarPerfil(PerfilActualizadoEvent evento) {
+        generacionRecomendaciones.computeIfAbsent(evento.idUsuario(), k -> new AtomicLong()).incrementAndGet();
+        recomendaciones.remove(evento.idUsuario());
+    }
+
+    private NutrientesRecomendadosDTO calcularRecomendaciones(Long idUsuario) {
         Usuario usuario = usuarioRepository.findById(idUsuario)
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
 
@@ -486,6 +538,139 @@ public class EstadisticasNutricionalesService {
         estadisticaMensualRepository.save(estadisticaMensual);
     }
 
+    /**
+     * Aplica a la estadística del día una diferencia en el consumo de agua y rehace el agua de su mes.
+     * Crea las filas que falten: hay días con agua y sin comidas.
+     */
+    @Transactional
+    public void sumarAgua(Long idUsuario, LocalDate fecha, int delta) {
+        if (delta == 0) {
+            return;
+        }
+        sumarAguaDia(idUsuario, fecha, delta);
+        recalcularAguaMes(idUsuario, YearMonth.from(fecha));
+    }
+
+    /**
+     * Solo la fila del día; quien la use debe llamar después a recalcularAguaMes. Un lote con varios días
+     * toca primero todos los días y luego cada mes una vez: mismo orden de bloqueos que el recálculo de
+     * nutrientes (día y después mes), así dos transacciones no se esperan en cruz.
+     */
+    @Transactional
+    public void sumarAguaDia(Long idUsuario, LocalDate fecha, int delta) {
+        if (delta != 0) {
+            estadisticaDiariaRepository.sumarAgua(idUsuario, fecha, delta);
+        }
+    }
+
+    @Transactional
+    public void recalcularAguaMes(Long idUsuario, YearMonth mes) {
+        estadisticaMensualRepository.bloquearMes(idUsuario, mes.getYear(), mes.getMonthValue());
+        estadisticaMensualRepository.recalcularAgua(idUsuario, mes.getYear(), mes.getMonthValue(), mes.atDay(1), mes.atEndOfMonth());
+    }
+
+    // Hidratación por día entre dos fechas (los días sin agua van en 0 para las gráficas)
+    public List<HidratacionPeriodoDTO> obtenerAguaPorDia(Long idUsuario, LocalDate desde, LocalDate hasta) {
+        Map<LocalDate, Long> porDia = new HashMap<>();
+        for (Object[] fila : estadisticaDiariaRepository.aguaPorDia(idUsuario, desde, hasta)) {
+            porDia.put((LocalDate) fila[0], ((Number) fila[1]).longValue());
+        }
+        List<HidratacionPeriodoDTO> resultado = new ArrayList<>();
+        for (LocalDate dia = desde; !dia.isAfter(hasta); dia = dia.plusDays(1)) {
+            Long total = porDia.get(dia);
+            resultado.add(new HidratacionPeriodoDTO(dia.toString(), total != null ? total : 0L, total != null ? 1 : 0));
+        }
+        return resultado;
+    }
+
+    // Hidratación por mes de un año (12 entradas)
+    public List<HidratacionPeriodoDTO> obtenerAguaPorMesDelAnio(Long idUsuario, int anio) {
+        Map<YearMonth, HidratacionPeriodoDTO> porMes = agruparAguaPorMes(idUsuario, anio, anio);
+        List<HidratacionPeriodoDTO> resultado = new ArrayList<>();
+        for (int mes = 1; mes <= 12; mes++) {
+            YearMonth periodo = YearMonth.of(anio, mes);
+            resultado.add(porMes.getOrDefault(periodo, new HidratacionPeriodoDTO(periodo.toString(), 0L, 0)));
+        }
+        return resultado;
+    }
+
+    // Hidratación por año: se suma a partir de las mismas filas mensuales
+    public List<HidratacionPeriodoDTO> obtenerAguaPorAnio(Long idUsuario, int desde, int hasta) {
+        Map<Integer, HidratacionPeriodoDTO> porAnio = new TreeMap<>();
+        agruparAguaPorMes(idUsuario, desde, hasta).forEach((mes, dto) -> {
+            HidratacionPeriodoDTO anio = porAnio.computeIfAbsent(mes.getYear(),
+                    a -> new HidratacionPeriodoDTO(String.valueOf(a), 0L, 0));
+            anio.setCantidadml(anio.getCantidadml() + dto.getCantidadml());
+            anio.setDiasConRegistro(anio.getDiasConRegistro() + dto.getDiasConRegistro());
+        });
+        List<HidratacionPeriodoDTO> resultado = new ArrayList<>();
+        for (int anio = desde; anio <= hasta; anio++) {
+            resultado.add(porAnio.getOrDefault(anio, new HidratacionPeriodoDTO(String.valueOf(anio), 0L, 0)));
+        }
+        return resultado;
+    }
+
+    private Map<YearMonth, HidratacionPeriodoDTO> agruparAguaPorMes(Long idUsuario, int desde, int hasta) {
+        Map<YearMonth, HidratacionPeriodoDTO> porMes = new TreeMap<>();
+        for (Object[] fila : estadisticaMensualRepository.aguaPorMes(idUsuario, desde, hasta)) {
+            YearMonth periodo = YearMonth.of(((Number) fila[0]).intValue(), ((Number) fila[1]).intValue());
+            porMes.put(periodo, new HidratacionPeriodoDTO(periodo.toString(),
+                    ((Number) fila[2]).longValue(), fila[3] != null ? ((Number) fila[3]).intValue() : 0));
+        }
+        return porMes;
+    }
+
+    /**
+     * Descuenta de las estadísticas diarias y mensuales los nutrientes de registros ya borrados.
+     * Un UPDATE por día y por mes afectado; si la estadística aún no existe no hay nada que corregir.
+     */
+    @Transactional
+    public void descontarRegistrosBorrados(Long idUsuario, List<RegistroAlimentoRepository.RegistroBorrado> borrados) {
+        Map<Long, Alimento> alimentos = alimentoRepository.findAllById(
+                        borrados.stream().map(RegistroAlimentoRepository.RegistroBorrado::getIdAlimento).distinct().toList())
+                .stream().collect(Collectors.toMap(Alimento::getIdAlimento, a -> a));
+
+        Map<LocalDate, NutrientesTotalesDTO> porDia = new TreeMap<>();
+        for (RegistroAlimentoRepository.RegistroBorrado borrado : borrados) {
+            NutrientesTotalesDTO totales = porDia.computeIfAbsent(borrado.getConsumidoEn().toLocalDate(), d -> {
+                NutrientesTotalesDTO t = new NutrientesTotalesDTO();
+                inicializarTotales(t);
+                return t;
+            });
+            // Misma conversión y mismos descartes que al guardar la estadística: se descuenta lo que el registro aportó
+            sumarRegistro(totales, borrado.getIdRegistro(), alimentos.get(borrado.getIdAlimento()),
+                    borrado.getTamanoPorcion(), borrado.getUnidadMedida());
+        }
+
+        Map<YearMonth, NutrientesTotalesDTO> porMes = new TreeMap<>();
+        porDia.forEach((dia, t) -> {
+            estadisticaDiariaRepository.descontarNutrientes(idUsuario, dia,
+                    t.getCalorias(), t.getProteinas(), t.getCarbohidratos(), t.getGrasas(),
+                    t.getAzucares(), t.getFibra(), t.getSodio(), t.getGrasasSaturadas());
+
+            NutrientesTotalesDTO mes = porMes.computeIfAbsent(YearMonth.from(dia), m -> {
+                NutrientesTotalesDTO nuevo = new NutrientesTotalesDTO();
+                inicializarTotales(nuevo);
+                return nuevo;
+            });
+            mes.setCalorias(mes.getCalorias() + t.getCalorias());
+            mes.setProteinas(mes.getProteinas() + t.getProteinas());
+            mes.setCarbohidratos(mes.getCarbohidratos() + t.getCarbohidratos());
+            mes.setGrasas(mes.getGrasas() + t.getGrasas());
+            mes.setAzucares(mes.getAzucares() + t.getAzucares());
+            mes.setFibra(mes.getFibra() + t.getFibra());
+            mes.setSodio(mes.getSodio() + t.getSodio());
+            mes.setGrasasSaturadas(mes.getGrasasSaturadas() + t.getGrasasSaturadas());
+        });
+
+        porMes.forEach((mes, t) -> estadisticaMensualRepository.descontarNutrientes(idUsuario,
+                mes.getYear(), mes.getMonthValue(),
+                t.getCalorias(), t.getProteinas(), t.getCarbohidratos(), t.getGrasas(),
+                t.getAzucares(), t.getFibra(), t.getSodio(), t.getGrasasSaturadas()));
+
+        log.info("Estadísticas corregidas para usuario {}: {} registros borrados en {} días", idUsuario, borrados.size(), porDia.size());
+    }
+
     /**
      * Metodo que calcula nutrientes totales del usuario en una fecha específica.
      * Este es tu metodo original adaptado.
@@ -506,57 +691,89 @@ public class EstadisticasNutricionalesService {
         }
 
         for (RegistroAlimento registro : registros) {
-            Alimento alimento = registro.getAlimento();
-            if (alimento == null) {
-                System.out.println("⚠️ Registro sin alimento asociado. ID Registro: " + registro.getIdRegistroAlimento());
-                continue;
-            }
+            sumarRegistro(totales, registro.getIdRegistroAlimento(), registro.getAlimento(),
+                    registro.getTamanoPorcion(), registro.getUnidadMedida());
+        }
 
-            Float cantidadBase = alimento.getCantidadBase();
-            String unidadBase = alimento.getUnidadBase();
-            Float tamanoPorcion = registro.getTamanoPorcion();
-            String unidadMedida = registro.getUnidadMedida();
+        return totales;
+    }
 
-            if (cantidadBase == null || unidadBase == null || tamanoPorcion == null || unidadMedida == null) {
-                System.out.println("⚠️ Datos incompletos en registro con ID " + registro.getIdRegistroAlimento());
-                continue;
-            }
+    /**
+     * Suma una lista de registros ya cargada con la conversión de unidades de las estadísticas diarias
+     */
+    public NutrientesTotalesDTO sumarRegistros(List<RegistroAlimento> registros) {
+        NutrientesTotalesDTO totales = new NutrientesTotalesDTO();
+        inicializarTotales(totales);
+        for (RegistroAlimento registro : registros) {
+            sumarRegistro(totales, registro.getIdRegistroAlimento(), registro.getAlimento(),
+                    registro.getTamanoPorcion(), registro.getUnidadMedida());
+        }
+        return totales;
+    }
 
-            // 2. Calcular factor de conversión
-            float factor = 1f;
-            if (!unidadBase.equalsIgnoreCase(unidadMedida)) {
-                Optional<UnidadEquivalencia> equivalenciaOpt =
-                        unidadEquivalenciaRepository.findByAlimentoAndUnidadOrigenAndUnidadDestino(
-                                alimento, unidadMedida.toLowerCase(), unidadBase.toLowerCase());
-
-                if (equivalenciaOpt.isPresent()) {
-                    factor = equivalenciaOpt.get().getFactorConversion();
-                } else {
-                    System.out.println("❌ No se encontró equivalencia para el alimento " +
-                            alimento.getNombreAlimento() + " de " + unidadMedida + " a " + unidadBase +
-                            " (registro ID " + registro.getIdRegistroAlimento() + ")");
-                    continue;
-                }
-            }
+    /**
+     * Nutrientes de un solo registro, con la misma conversión de unidades que el total del día
+     */
+    public NutrientesTotalesDTO nutrientesDeRegistro(RegistroAlimento registro) {
+        NutrientesTotalesDTO totales = new NutrientesTotalesDTO();
+        inicializarTotales(totales);
+        sumarRegistro(totales, registro.getIdRegistroAlimento(), registro.getAlimento(),
+                registro.getTamanoPorcion(), registro.getUnidadMedida());
+        return totales;
+    }
 
-            float proporcion = (tamanoPorcion * factor) / cantidadBase;
-            if (proporcion <= 0) {
-                System.out.println("❌ Proporción inválida para el alimento " + alimento.getNombreAlimento());
-                continue;
+    /**
+     * Suma a los totales los nutrientes de un registro, convirtiendo la cantidad a la unidad base del alimento
+     * con Unidad_Equivalencia. No suma nada si falta el alimento, algún dato o la equivalencia.
+     * El cálculo del día y el descuento de registros borrados pasan por aquí para que ambos cuadren.
+     */
+    private void sumarRegistro(NutrientesTotalesDTO totales, Long idRegistro, Alimento alimento,
+                                  Float tamanoPorcion, String unidadMedida) {
+        if (alimento == null) {
+            System.out.println("⚠️ Registro sin alimento asociado. ID Registro: " + idRegistro);
+            return;
+        }
+
+        Float cantidadBase = alimento.getCantidadBase();
+        String unidadBase = alimento.getUnidadBase();
+
+        if (cantidadBase == null || unidadBase == null || tamanoPorcion == null || unidadMedida == null) {
+            System.out.println("⚠️ Datos incompletos en registro con ID " + idRegistro);
+            return;
+        }
+
+        // 2. Calcular factor de conversión
+        float factor = 1f;
+        if (!unidadBase.equalsIgnoreCase(unidadMedida)) {
+            Optional<UnidadEquivalencia> equivalenciaOpt =
+                    unidadEquivalenciaRepository.findByAlimentoAndUnidadOrigenAndUnidadDestino(
+                            alimento, unidadMedida.toLowerCase(), unidadBase.toLowerCase());
+
+            if (equivalenciaOpt.isPresent()) {
+                factor = equivalenciaOpt.get().getFactorConversion();
+            } else {
+                System.out.println("❌ No se encontró equivalencia para el alimento " +
+                        alimento.getNombreAlimento() + " de " + unidadMedida + " a " + unidadBase +
+                        " (registro ID " + idRegistro + ")");
+                return;
             }
+        }
 
-            // 3. Sumar nutrientes aplicando la proporción
-            totales.setCalorias(totales.getCalorias() + alimento.getCalorias() * proporcion);
-            totales.setProteinas(totales.getProteinas() + alimento.getProteinas() * proporcion);
-            totales.setCarbohidratos(totales.getCarbohidratos() + alimento.getCarbohidratos() * proporcion);
-            totales.setGrasas(totales.getGrasas() + alimento.getGrasas() * proporcion);
-            totales.setAzucares(totales.getAzucares() + alimento.getAzucares() * proporcion);
-            totales.setFibra(totales.getFibra() + alimento.getFibra() * proporcion);
-            totales.setSodio(totales.getSodio() + alimento.getSodio() * proporcion);
-            totales.setGrasasSaturadas(totales.getGrasasSaturadas() + alimento.getGrasasSaturadas() * proporcion);
+        float proporcion = (tamanoPorcion * factor) / cantidadBase;
+        if (proporcion <= 0) {
+            System.out.println("❌ Proporción inválida para el alimento " + alimento.getNombreAlimento());
+            return;
         }
 
-        return totales;
+        // 3. Sumar nutrientes aplicando la proporción
+        totales.setCalorias(totales.getCalorias() + alimento.getCalorias() * proporcion);
+        totales.setProteinas(totales.getProteinas() + alimento.getProteinas() * proporcion);
+        totales.setCarbohidratos(totales.getCarbohidratos() + alimento.getCarbohidratos() * proporcion);
+        totales.setGrasas(totales.getGrasas() + alimento.getGrasas() * proporcion);
+        totales.setAzucares(totales.getAzucares() + alimento.getAzucares() * proporcion);
+        totales.setFibra(totales.getFibra() + alimento.getFibra() * proporcion);
+        totales.setSodio(totales.getSodio() + alimento.getSodio() * proporcion);
+        totales.setGrasasSaturadas(totales.getGrasasSaturadas() + alimento.getGrasasSaturadas() * proporcion);
     }
 
     @Scheduled(cron = "59 59 23 * * *") // Cada día a las 23:59:59
@@ -0,0 +1,257 @@
+package com.example.Proyecto.Service;
+
+import com.example.Proyecto.DTO.NutrientesTotalesDTO;
+import com.example.Proyecto.Model.EstadisticaDiaria;
+import com.example.Proyecto.Model.RegistroAgua;
+import com.example.Proyecto.Model.RegistroAlimento;
+import com.example.Proyecto.Repository.EstadisticaDiariaRepository;
+import com.example.Proyecto.Repository.RegistroAguaRepository;
+import com.example.Proyecto.Repository.RegistroAlimentoRepository;
+import com.example.Proyecto.Repository.UsuarioRepository;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+
+/**
+ * Exporta el historial de un usuario (registros de alimento, agua y estadísticas diarias) en CSV o JSON.
+ * Cada tabla se lee con un cursor y se escribe fila por fila, así la memoria no crece con el historial.
+ * Una exportación retiene una conexión del pool mientras el cliente descarga, por eso solo se permiten
+ * exportacion.max-simultaneas a la vez; las demás se rechazan para que el resto de la API siga teniendo conexiones.
+ */
+@Service
+public class ExportacionService {
+    @Autowired
+    public RegistroAlimentoRepository registroAlimentoRepository;
+
+    @Autowired
+    public RegistroAguaRepository registroAguaRepository;
+
+    @Autowired
+    public EstadisticaDiariaRepository estadisticaDiariaRepository;
+
+    @Autowired
+    public UsuarioRepository usuarioRepository;
+
+    @Autowired
+    public EstadisticasNutricionalesService estadisticasService;
+
+    @Autowired
+    public ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final Semaphore exportaciones;
+
+    public ExportacionService(@Value("${exportacion.max-simultaneas:1}") int maxSimultaneas) {
+        this.exportaciones = new Semaphore(maxSimultaneas);
+    }
+
+    private static final String CABECERA_CSV = "tipo,fecha,hora,momento,alimento,cantidad,unidad,agua_ml," +
+            "calorias,proteinas,carbohidratos,grasas,azucares,fibra,sodio,grasas_saturadas";
+
+    public enum Formato {
+        CSV,
+        JSON
+    }
+
+    public boolean existeUsuario(Long idUsuario) {
+        return usuarioRepository.existsById(idUsuario);
+    }
+
+    /** Reserva un cupo de exportación sin esperar; quien lo obtiene debe llamar a liberarCupo al terminar */
+    public boolean tomarCupo() {
+        return exportaciones.tryAcquire();
+    }
+
+    public void liberarCupo() {
+        exportaciones.release();
+    }
+
+    // La transacción mantiene abiertos los cursores mientras se escribe la respuesta
+    @Transactional(readOnly = true)
+    public void exportar(Long idUsuario, LocalDate desde, LocalDate hasta, Formato formato, OutputStream salida) throws IOException {
+        if (formato == Formato.JSON) {
+            exportarJson(idUsuario, desde, hasta, salida);
+        } else {
+            exportarCsv(idUsuario, desde, hasta, salida);
+        }
+    }
+
+    private void exportarCsv(Long idUsuario, LocalDate desde, LocalDate hasta, OutputStream salida) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8));
+        writer.write(CABECERA_CSV);
+        writer.write('\n');
+
+        try (Stream<RegistroAlimento> registros = registroAlimentoRepository.streamPorRango(
+                idUsuario, desde.atStartOfDay(), hasta.plusDays(1).atStartOfDay().minusNanos(1))) {
+            recorrer(registros, r -> {
+                float[] n = nutrientes(r);
+                writer.write(String.join(",", "alimento",
+                        r.getConsumidoEn().toLocalDate().toString(),
+                        r.getConsumidoEn().toLocalTime().withNano(0).toString(),
+                        csv(r.getMomentoDelDia()),
+                        csv(r.getAlimento().getNombreAlimento()),
+                        valor(r.getTamanoOriginal()),
+                        csv(r.getUnidadOriginal()),
+                        "",
+                        valores(n)));
+                writer.write('\n');
+            });
+        }
+
+        try (Stream<RegistroAgua> aguas = registroAguaRepository.streamPorRango(idUsuario, desde, hasta)) {
+            recorrer(aguas, a -> {
+                writer.write("agua," + a.getFecha() + ",,,,,," + a.getCantidadml() + ",,,,,,,,");
+                writer.write('\n');
+            });
+        }
+
+        try (Stream<EstadisticaDiaria> dias = estadisticaDiariaRepository.streamPorRango(idUsuario, desde, hasta)) {
+            recorrer(dias, e -> {
+                writer.write("total_diario," + e.getFecha() + ",,,,,," + (e.getAguaml() != null ? e.getAguaml() : "") + "," + valores(new float[]{
+                        safeFloat(e.getCalorias()), safeFloat(e.getProteinas()), safeFloat(e.getCarbohidratos()),
+                        safeFloat(e.getGrasas()), safeFloat(e.getAzucares()), safeFloat(e.getFibra()),
+                        safeFloat(e.getSodio()), safeFloat(e.getGrasasSaturadas())}));
+                writer.write('\n');
+            });
+        }
+        writer.flush();
+    }
+
+    private void exportarJson(Long idUsuario, LocalDate desde, LocalDate hasta, OutputStream salida) throws IOException {
+        JsonGenerator json = objectMapper.getFactory().createGenerator(salida, JsonEncoding.UTF8);
+        json.writeStartObject();
+        json.writeNumberField("idUsuario", idUsuario);
+        json.writeStringField("desde", desde.toString());
+        json.writeStringField("hasta", hasta.toString());
+
+        json.writeArrayFieldStart("alimentos");
+        try (Stream<RegistroAlimento> registros = registroAlimentoRepository.streamPorRango(
+                idUsuario, desde.atStartOfDay(), hasta.plusDays(1).atStartOfDay().minusNanos(1))) {
+            recorrer(registros, r -> {
+                json.writeStartObject();
+                json.writeNumberField("idRegistro", r.getIdRegistroAlimento());
+                json.writeStringField("consumidoEn", r.getConsumidoEn().toString());
+                json.writeStringField("momentoDelDia", r.getMomentoDelDia());
+                json.writeNumberField("idAlimento", r.getAlimento().getIdAlimento());
+                json.writeStringField("alimento", r.getAlimento().getNombreAlimento());
+                json.writeObjectField("tamanoOriginal", r.getTamanoOriginal());
+                json.writeStringField("unidadOriginal", r.getUnidadOriginal());
+                json.writeObjectField("tamanoPorcion", r.getTamanoPorcion());
+                escribirNutrientes(json, nutrientes(r));
+                json.writeEndObject();
+            });
+        }
+        json.writeEndArray();
+
+        json.writeArrayFieldStart("agua");
+        try (Stream<RegistroAgua> aguas = registroAguaRepository.streamPorRango(idUsuario, desde, hasta)) {
+            recorrer(aguas, a -> {
+                json.writeStartObject();
+                json.writeStringField("fecha", a.getFecha().toString());
+                json.writeNumberField("cantidadml", a.getCantidadml());
+                json.writeEndObject();
+            });
+        }
+        json.writeEndArray();
+
+        json.writeArrayFieldStart("totalesDiarios");
+        try (Stream<EstadisticaDiaria> dias = estadisticaDiariaRepository.streamPorRango(idUsuario, desde, hasta)) {
+            recorrer(dias, e -> {
+                json.writeStartObject();
+                json.writeStringField("fecha", e.getFecha().toString());
+                json.writeObjectField("aguaml", e.getAguaml());
+                escribirNutrientes(json, new float[]{
+                        safeFloat(e.getCalorias()), safeFloat(e.getProteinas()), safeFloat(e.getCarbohidratos()),
+                        safeFloat(e.getGrasas()), safeFloat(e.getAzucares()), safeFloat(e.getFibra()),
+                        safeFloat(e.getSodio()), safeFloat(e.getGrasasSaturadas())});
+                json.writeEndObject();
+            });
+        }
+        json.writeEndArray();
+
+        json.writeEndObject();
+        json.flush();
+    }
+
+    @FunctionalInterface
+    private interface Escritor<T> {
+        void escribir(T fila) throws IOException;
+    }
+
+    // Escribe cada fila y la saca del contexto de persistencia para que no se acumulen entidades en memoria
+    private <T> void recorrer(Stream<T> filas, Escritor<T> escritor) throws IOException {
+        Iterator<T> it = filas.iterator();
+        while (it.hasNext()) {
+            T fila = it.next();
+            escritor.escribir(fila);
+            entityManager.detach(fila);
+        }
+    }
+
+    // Misma conversión que el total del día, así las filas de un día suman su total_diario
+    private float[] nutrientes(RegistroAlimento registro) {
+        NutrientesTotalesDTO n = estadisticasService.nutrientesDeRegistro(registro);
+        return new float[]{
+                n.getCalorias(), n.getProteinas(), n.getCarbohidratos(), n.getGrasas(),
+                n.getAzucares(), n.getFibra(), n.getSodio(), n.getGrasasSaturadas()
+        };
+    }
+
+    private void escribirNutrientes(JsonGenerator json, float[] n) throws IOException {
+        json.writeNumberField("calorias", n[0]);
+        json.writeNumberField("proteinas", n[1]);
+        json.writeNumberField("carbohidratos", n[2]);
+        json.writeNumberField("grasas", n[3]);
+        json.writeNumberField("azucares", n[4]);
+        json.writeNumberField("fibra", n[5]);
+        json.writeNumberField("sodio", n[6]);
+        json.writeNumberField("grasasSaturadas", n[7]);
+    }
+
+    private String valores(float[] n) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(n[i]);
+        }
+        return sb.toString();
+    }
+
+    private String valor(Float f) {
+        return f == null ? "" : f.toString();
+    }
+
+    // Comillas solo cuando hace falta (comas, comillas o saltos de línea en nombres de alimentos)
+    private String csv(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        if (texto.indexOf(',') < 0 && texto.indexOf('"') < 0 && texto.indexOf('\n') < 0) {
+            return texto;
+        }
+        return '"' + texto.replace("\"", "\"\"") + '"';
+    }
+
+    private float safeFloat(Float f) {
+        return f == null ? 0f : f;
+    }
+}
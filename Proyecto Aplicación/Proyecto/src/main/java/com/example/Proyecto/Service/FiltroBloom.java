@@ -0,0 +1,64 @@
+package com.example.Proyecto.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom sencillo para descartar rápido valores que seguro no están en un conjunto.
+ * "false" es definitivo; "true" puede ser un falso positivo y hay que confirmar con el conjunto real.
+ * Se puede agregar desde varios hilos a la vez.
+ */
+public class FiltroBloom {
+    private final AtomicLongArray bits;
+    private final int totalBits;
+    private final int funciones;
+
+    /**
+     * @param elementosEsperados   cantidad aproximada de valores que se van a agregar
+     * @param tasaFalsosPositivos  por ejemplo 0.01 para 1%
+     */
+    public FiltroBloom(int elementosEsperados, double tasaFalsosPositivos) {
+        int n = Math.max(elementosEsperados, 1);
+        long m = (long) Math.ceil(-n * Math.log(tasaFalsosPositivos) / (Math.log(2) * Math.log(2)));
+        this.totalBits = (int) Math.max(64, Math.min(m, Integer.MAX_VALUE - 63));
+        this.funciones = Math.max(1, (int) Math.round((double) totalBits / n * Math.log(2)));
+        this.bits = new AtomicLongArray((totalBits + 63) / 64);
+    }
+
+    public void agregar(String valor) {
+        long hash = hash64(valor);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < funciones; i++) {
+            int posicion = Math.floorMod(h1 + i * h2, totalBits);
+            long mascara = 1L << (posicion & 63);
+            bits.getAndUpdate(posicion >>> 6, palabra -> palabra | mascara);
+        }
+    }
+
+    public boolean puedeContener(String valor) {
+        long hash = hash64(valor);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < funciones; i++) {
+            int posicion = Math.floorMod(h1 + i * h2, totalBits);
+            if ((bits.get(posicion >>> 6) & (1L << (posicion & 63))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // FNV-1a de 64 bits con una mezcla final para repartir mejor los bits altos y bajos
+    private static long hash64(String valor) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : valor.getBytes(StandardCharsets.UTF_8)) {
+            h ^= (b & 0xff);
+            h *= 0x100000001b3L;
+        }
+        h ^= (h >>> 33);
+        h *= 0xff51afd7ed558ccdL;
+        h ^= (h >>> 33);
+        return h;
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.Proyecto.Service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Proveedor Gemini (API generateContent), con la misma configuración que usaba la app.
+ * El tiempo límite se aplica a cada petición HTTP, así que una llamada vencida no queda ocupando la conexión.
+ */
+@Component
+@ConditionalOnProperty(name = "ia.proveedor", havingValue = "gemini", matchIfMissing = true)
+public class GeminiProveedorIA implements ProveedorIA {
+
+    @Autowired
+    public ObjectMapper objectMapper;
+
+    private final HttpClient cliente = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final String url;
+    private final String modelo;
+    private final String clave;
+    private final String promptSistema;
+
+    public GeminiProveedorIA(@Value("${ia.gemini.url}") String url,
+                             @Value("${ia.gemini.modelo}") String modelo,
+                             @Value("${ia.gemini.clave}") String clave,
+                             @Value("${ia.prompt-sistema:}") String promptSistema) {
+        if (clave == null || clave.isBlank()) {
+            // Falla el arranque: sin clave cada consulta terminaría en error
+            throw new IllegalStateException("ia.proveedor=gemini (valor por defecto) requiere GEMINI_API_KEY; "
+                    + "para desarrollo sin red usar ia.proveedor=stub");
+        }
+        this.url = url;
+        this.modelo = modelo;
+        this.clave = clave;
+        this.promptSistema = promptSistema;
+    }
+
+    @Override
+    public String nombre() {
+        return "gemini:" + modelo;
+    }
+
+    @Override
+    public String generar(String prompt, Duration limite) {
+        HttpRequest peticion = peticion(prompt, limite, ":generateContent?");
+        try {
+            HttpResponse<String> respuesta = cliente.send(peticion, HttpResponse.BodyHandlers.ofString());
+            JsonNode json = objectMapper.readTree(respuesta.body());
+            if (respuesta.statusCode() != 200 || json.has("error")) {
+                throw new IllegalStateException("Error de Gemini (" + respuesta.statusCode() + "): "
+                        + json.path("error").path("message").asText(""));
+            }
+            String texto = texto(json);
+            if (texto.isEmpty()) {
+                throw new IllegalStateException("Gemini respondió vacío");
+            }
+            return texto;
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo contactar a Gemini: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Llamada a Gemini interrumpida", e);
+        }
+    }
+
+    /**
+     * streamGenerateContent con alt=sse: cada línea "data:" trae un fragmento de la respuesta.
+     * Al cancelar se cierra el flujo, lo que corta la conexión con Gemini.
+     */
+    @Override
+    public String generarEnPartes(String prompt, Duration limite, Consumer<String> alFragmento, BooleanSupplier cancelado) {
+        HttpRequest peticion = peticion(prompt, limite, ":streamGenerateContent?alt=sse&");
+        StringBuilder completo = new StringBuilder();
+        try {
+            HttpResponse<Stream<String>> respuesta = cliente.send(peticion, HttpResponse.BodyHandlers.ofLines());
+            try (Stream<String> lineas = respuesta.body()) {
+                if (respuesta.statusCode() != 200) {
+                    throw new IllegalStateException("Error de Gemini (" + respuesta.statusCode() + "): "
+                            + lineas.collect(Collectors.joining(" ")));
+                }
+                Iterator<String> iterador = lineas.iterator();
+                while (iterador.hasNext()) {
+                    if (cancelado.getAsBoolean()) {
+                        throw new CancellationException("Consulta cancelada");
+                    }
+                    String linea = iterador.next();
+                    if (!linea.startsWith("data:")) {
+                        continue;
+                    }
+                    String fragmento = texto(objectMapper.readTree(linea.substring(5)));
+                    if (!fragmento.isEmpty()) {
+                        completo.append(fragmento);
+                        alFragmento.accept(fragmento);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo contactar a Gemini: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Llamada a Gemini interrumpida");
+        }
+        if (completo.isEmpty()) {
+            throw new IllegalStateException("Gemini respondió vacío");
+        }
+        return completo.toString();
+    }
+
+    private HttpRequest peticion(String prompt, Duration limite, String metodo) {
+        ObjectNode cuerpo = objectMapper.createObjectNode();
+        cuerpo.putArray("contents").addObject().putArray("parts").addObject()
+                .put("text", promptSistema.isBlank() ? prompt : promptSistema + "\n\n" + prompt);
+        cuerpo.putObject("generationConfig").put("temperature", 0.7).put("maxOutputTokens", 8000);
+
+        return HttpRequest.newBuilder()
+                .uri(URI.create(url + "/models/" + modelo + metodo + "key=" + URLEncoder.encode(clave, StandardCharsets.UTF_8)))
+                .timeout(limite)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(cuerpo.toString()))
+                .build();
+    }
+
+    // Texto del primer candidato; falla si Gemini cortó la respuesta por límite o por seguridad
+    private String texto(JsonNode json) {
+        if (json.has("error")) {
+            throw new IllegalStateException("Error de Gemini: " + json.path("error").path("message").asText(""));
+        }
+        JsonNode candidato = json.path("candidates").path(0);
+        String fin = candidato.path("finishReason").asText("");
+        if ("MAX_TOKENS".equals(fin) || "SAFETY".equals(fin)) {
+            throw new IllegalStateException("Gemini cortó la respuesta: " + fin);
+        }
+        StringBuilder texto = new StringBuilder();
+        for (JsonNode parte : candidato.path("content").path("parts")) {
+            texto.append(parte.path("text").asText(""));
+        }
+        return texto.toString();
+    }
+}
@@ -0,0 +1,379 @@
+package com.example.Proyecto.Service;
+
+import com.example.Proyecto.DTO.InteraccionResumenDTO;
+import com.example.Proyecto.DTO.RespuestaIAResumenDTO;
+import com.example.Proyecto.DTO.SesionActivaDTO;
+import com.example.Proyecto.DTO.SesionArchivadaDTO;
+import com.example.Proyecto.Model.SesionChatbot;
+import com.example.Proyecto.Model.SesionChatbotArchivada;
+import com.example.Proyecto.Repository.InteraccionChatbotRepository;
+import com.example.Proyecto.Repository.RegistroRespuestasIARepository;
+import com.example.Proyecto.Repository.SesionChatbotArchivadaRepository;
+import com.example.Proyecto.Repository.SesionChatbotRepository;
+import com.example.Proyecto.Repository.UsuarioRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Ciclo de vida de las sesiones del chatbot.
+ * - Las sesiones abiertas viven en un registro en memoria (búsqueda O(1) por id) con un tiempo máximo de inactividad.
+ * - Una rueda de tiempo agrupa las sesiones por el tick en que vencen; en cada tick se revisa solo esa ranura
+ *   y las vencidas se cierran en un único UPDATE. Usar una sesión solo actualiza su última actividad:
+ *   si al revisar la ranura todavía no venció, se vuelve a agendar.
+ * - Las sesiones cerradas hace más de chatbot.sesiones.archivar-despues-horas se compactan en Sesion_Chatbot_Archivada
+ *   (JSON con gzip) y se borran de las tablas de conversación.
+ */
+@Service
+public class GestorSesionesChatbotService {
+    private static final Logger log = LoggerFactory.getLogger(GestorSesionesChatbotService.class);
+
+    // Máximo de ids por UPDATE al cerrar vencidas
+    private static final int LOTE_CIERRE = 500;
+
+    private static final class SesionActiva {
+        final Long idSesion;
+        final Long idUsuario;
+        volatile long ultimoUso;
+
+        SesionActiva(Long idSesion, Long idUsuario, long ultimoUso) {
+            this.idSesion = idSesion;
+            this.idUsuario = idUsuario;
+            this.ultimoUso = ultimoUso;
+        }
+    }
+
+    @Autowired
+    public SesionChatbotRepository sesionRepository;
+
+    @Autowired
+    public SesionChatbotArchivadaRepository archivadaRepository;
+
+    @Autowired
+    public InteraccionChatbotRepository interaccionRepository;
+
+    @Autowired
+    public RegistroRespuestasIARepository respuestasIARepository;
+
+    @Autowired
+    public UsuarioRepository usuarioRepository;
+
+    @Autowired
+    public TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public ObjectMapper objectMapper;
+
+    private final long ttlMs;
+    private final long tickMs;
+    private final long archivarDespuesMs;
+    private final int loteArchivo;
+
+    private final ConcurrentHashMap<Long, SesionActiva> activas = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Set<Long>> activasPorUsuario = new ConcurrentHashMap<>();
+    private final List<ConcurrentLinkedQueue<Long>> ranuras;
+    // Último tick ya revisado (en unidades de tickMs desde la época)
+    private long ultimoTick;
+
+    public GestorSesionesChatbotService(@Value("${chatbot.sesiones.ttl-minutos:30}") long ttlMinutos,
+                                        @Value("${chatbot.sesiones.tick-ms:60000}") long tickMs,
+                                        @Value("${chatbot.sesiones.archivar-despues-horas:24}") long archivarDespuesHoras,
+                                        @Value("${chatbot.sesiones.archivo-lote:50}") int loteArchivo) {
+        this.ttlMs = TimeUnit.MINUTES.toMillis(ttlMinutos);
+        this.tickMs = tickMs;
+        this.archivarDespuesMs = TimeUnit.HOURS.toMillis(archivarDespuesHoras);
+        this.loteArchivo = loteArchivo;
+        // Una vuelta de la rueda cubre el tiempo de inactividad completo
+        int tamano = (int) (ttlMs / tickMs) + 2;
+        this.ranuras = new ArrayList<>(tamano);
+        for (int i = 0; i < tamano; i++) {
+            ranuras.add(new ConcurrentLinkedQueue<>());
+        }
+        this.ultimoTick = System.currentTimeMillis() / tickMs;
+    }
+
+    // Las sesiones que quedaron abiertas (reinicio) entran al registro con la actividad en "ahora"
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarAbiertas() {
+        long ahora = System.currentTimeMillis();
+        List<SesionChatbotRepository.SesionAbierta> abiertas = sesionRepository.buscarAbiertas();
+        abiertas.forEach(s -> registrar(s.getIdSesion(), s.getIdUsuario(), ahora));
+        log.info("Sesiones del chatbot abiertas al arrancar: {}", abiertas.size());
+    }
+
+    /**
+     * Abre una sesión nueva para el usuario y la agrega al registro.
+     *
+     * @throws NoSuchElementException Si el usuario no existe
+     */
+    public SesionChatbot iniciar(Long idUsuario) {
+        if (idUsuario == null || !usuarioRepository.existsById(idUsuario)) {
+            throw new NoSuchElementException("Usuario no encontrado");
+        }
+        SesionChatbot sesion = new SesionChatbot();
+        sesion.setInicioSesion(new Timestamp(System.currentTimeMillis()));
+        sesion.setUsuario(usuarioRepository.getReferenceById(idUsuario));
+        SesionChatbot guardada = sesionRepository.save(sesion);
+        registrar(guardada.getIdSesion(), idUsuario, System.currentTimeMillis());
+        return guardada;
+    }
+
+    /**
+     * Marca actividad en la sesión. Devuelve false si la sesión no está abierta o no es del usuario.
+     * Si no está en el registro (la abrió otra instancia o entró por /guardar) se busca una vez en la BD.
+     */
+    public boolean usar(Long idSesion, Long idUsuario) {
+        if (idSesion == null || idUsuario == null) {
+            return false;
+        }
+        SesionActiva sesion = activas.get(idSesion);
+        if (sesion == null) {
+            Optional<SesionChatbotRepository.SesionAbierta> abierta = sesionRepository.buscarAbierta(idSesion);
+            if (abierta.isEmpty()) {
+                return false;
+            }
+            sesion = registrar(idSesion, abierta.get().getIdUsuario(), System.currentTimeMillis());
+        }
+        if (!sesion.idUsuario.equals(idUsuario)) {
+            return false;
+        }
+        sesion.ultimoUso = System.currentTimeMillis();
+        return true;
+    }
+
+    public List<SesionActivaDTO> activasDeUsuario(Long idUsuario) {
+        Set<Long> ids = activasPorUsuario.get(idUsuario);
+        if (ids == null) {
+            return List.of();
+        }
+        List<SesionActivaDTO> resultado = new ArrayList<>();
+        for (Long id : ids) {
+            SesionActiva s = activas.get(id);
+            if (s != null) {
+                resultado.add(new SesionActivaDTO(s.idSesion, new Timestamp(s.ultimoUso)));
+            }
+        }
+        resultado.sort(Comparator.comparing(SesionActivaDTO::ultimaActividad).reversed());
+        return resultado;
+    }
+
+    /**
+     * Cierra la sesión y la saca del registro.
+     *
+     * @throws NoSuchElementException Si la sesión no existe
+     */
+    public void finalizar(Long idSesion) {
+        Timestamp ahora = new Timestamp(System.currentTimeMillis());
+        int cerradas = transactionTemplate.execute(estado -> sesionRepository.cerrar(List.of(idSesion), ahora));
+        quitar(idSesion);
+        if (cerradas == 0 && !sesionRepository.existsById(idSesion)) {
+            throw new NoSuchElementException("No se encontró una Sesion de Chatbot con el ID: " + idSesion);
+        }
+    }
+
+    /**
+     * Saca del registro las sesiones abiertas del usuario sin cerrarlas en la BD (la cuenta se va a purgar)
+     * y devuelve sus ids.
+     */
+    public Set<Long> descartarDeUsuario(Long idUsuario) {
+        Set<Long> ids = activasPorUsuario.remove(idUsuario);
+        if (ids == null) {
+            return Set.of();
+        }
+        ids.forEach(activas::remove);
+        return ids;
+    }
+
+    // Sesión creada por fuera de iniciar (ej. /guardar sin Fin_Sesion)
+    public void registrarAbierta(SesionChatbot sesion) {
+        if (sesion.getFinSesion() == null && sesion.getUsuario() != null) {
+            registrar(sesion.getIdSesion(), sesion.getUsuario().getIdUsuario(), System.currentTimeMillis());
+        }
+    }
+
+    private SesionActiva registrar(Long idSesion, Long idUsuario, long ahora) {
+        SesionActiva nueva = new SesionActiva(idSesion, idUsuario, ahora);
+        SesionActiva existente = activas.putIfAbsent(idSesion, nueva);
+        if (existente != null) {
+            return existente;
+        }
+        activasPorUsuario.computeIfAbsent(idUsuario, k -> ConcurrentHashMap.newKeySet()).add(idSesion);
+        agendar(nueva);
+        return nueva;
+    }
+
+    private void quitar(Long idSesion) {
+        SesionActiva sesion = activas.remove(idSesion);
+        if (sesion != null) {
+            activasPorUsuario.computeIfPresent(sesion.idUsuario, (k, ids) -> {
+                ids.remove(idSesion);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    // Ranura del tick en que vence; si queda más allá de una vuelta va a la última y se reagenda al revisarla
+    private void agendar(SesionActiva sesion) {
+        long tickVence = (sesion.ultimoUso + ttlMs) / tickMs + 1;
+        long base = System.currentTimeMillis() / tickMs;
+        long tick = Math.min(Math.max(tickVence, base + 1), base + ranuras.size() - 1);
+        ranuras.get((int) (tick % ranuras.size())).add(sesion.idSesion);
+    }
+
+    /**
+     * Revisa las ranuras de los ticks transcurridos desde la última vez (si el hilo se atrasó, se ponen al día)
+     * y cierra en lote las sesiones vencidas.
+     */
+    @Scheduled(fixedDelayString = "${chatbot.sesiones.tick-ms:60000}", initialDelayString = "${chatbot.sesiones.tick-ms:60000}")
+    public synchronized void expirar() {
+        long ahora = System.currentTimeMillis();
+        long tickActual = ahora / tickMs;
+        List<Long> vencidas = new ArrayList<>();
+        List<SesionActiva> reagendar = new ArrayList<>();
+        for (long tick = ultimoTick + 1; tick <= tickActual && tick <= ultimoTick + ranuras.size(); tick++) {
+            ConcurrentLinkedQueue<Long> ranura = ranuras.get((int) (tick % ranuras.size()));
+            Long id;
+            while ((id = ranura.poll()) != null) {
+                SesionActiva sesion = activas.get(id);
+                if (sesion == null) {
+                    continue; // ya se cerró
+                }
+                if (sesion.ultimoUso + ttlMs <= ahora) {
+                    vencidas.add(id);
+                } else {
+                    reagendar.add(sesion);
+                }
+            }
+        }
+        ultimoTick = tickActual;
+        reagendar.forEach(this::agendar);
+        if (vencidas.isEmpty()) {
+            return;
+        }
+
+        Timestamp fin = new Timestamp(ahora);
+        for (int desde = 0; desde < vencidas.size(); desde += LOTE_CIERRE) {
+            List<Long> lote = vencidas.subList(desde, Math.min(desde + LOTE_CIERRE, vencidas.size()));
+            try {
+                transactionTemplate.executeWithoutResult(estado -> sesionRepository.cerrar(lote, fin));
+                lote.forEach(this::quitar);
+            } catch (RuntimeException e) {
+                // Se quedan en el registro y se reintentan en el próximo tick
+                log.warn("No se pudieron cerrar {} sesiones vencidas: {}", lote.size(), e.getMessage());
+                lote.forEach(idSesion -> Optional.ofNullable(activas.get(idSesion)).ifPresent(this::agendar));
+            }
+        }
+        log.info("Sesiones del chatbot cerradas por inactividad: {}", vencidas.size());
+    }
+
+    /**
+     * Compacta las sesiones cerradas hace más de archivar-despues-horas: sus turnos y respuestas van a un JSON
+     * comprimido en Sesion_Chatbot_Archivada y se borran de las tablas de conversación. Una transacción por sesión.
+     * Con el valor por defecto (24 h, igual a ia.cache.ttl-horas) las respuestas borradas ya no sirven como caché.
+     */
+    @Scheduled(fixedDelayString = "${chatbot.sesiones.archivo-ms:3600000}", initialDelay = 300_000)
+    public void archivar() {
+        Timestamp antes = new Timestamp(System.currentTimeMillis() - archivarDespuesMs);
+        int total = 0;
+        List<SesionChatbotRepository.SesionCerrada> lote;
+        do {
+            lote = sesionRepository.buscarParaArchivar(antes, Limit.of(loteArchivo));
+            for (SesionChatbotRepository.SesionCerrada sesion : lote) {
+                try {
+                    transactionTemplate.executeWithoutResult(estado -> archivar(sesion));
+                    total++;
+                } catch (RuntimeException e) {
+                    log.error("No se pudo archivar la sesión {}: {}", sesion.getIdSesion(), e.getMessage());
+                    return; // se reintenta en la próxima ejecución
+                }
+            }
+        } while (lote.size() == loteArchivo);
+        if (total > 0) {
+            log.info("Sesiones del chatbot archivadas: {}", total);
+        }
+    }
+
+    private void archivar(SesionChatbotRepository.SesionCerrada sesion) {
+        Long idSesion = sesion.getIdSesion();
+        List<InteraccionResumenDTO> interacciones = interaccionRepository.buscarParaArchivar(idSesion);
+        List<RespuestaIAResumenDTO> respuestas = respuestasIARepository.buscarParaArchivar(idSesion);
+        SesionArchivadaDTO contenido = new SesionArchivadaDTO(idSesion, sesion.getIdUsuario(), sesion.getInicioSesion(),
+                sesion.getFinSesion(), sesion.getRetroalimentacion(), interacciones, respuestas);
+
+        archivadaRepository.saveAndFlush(new SesionChatbotArchivada(idSesion, sesion.getIdUsuario(), sesion.getInicioSesion(),
+                sesion.getFinSesion(), interacciones.size(), comprimir(contenido), new Timestamp(System.currentTimeMillis())));
+        indexar(contenido);
+        respuestasIARepository.borrarPorSesion(idSesion);
+        interaccionRepository.borrarPorSesion(idSesion);
+        sesionRepository.borrar(idSesion);
+    }
+
+    /**
+     * Llena la columna de búsqueda de una sesión archivada con el texto de sus turnos, para que BusquedaHistorialService
+     * la siga encontrando después de que sus interacciones se borran.
+     */
+    public void indexar(SesionArchivadaDTO contenido) {
+        List<InteraccionResumenDTO> turnos = contenido.interacciones();
+        archivadaRepository.indexar(contenido.idSesion(), unir(turnos, InteraccionResumenDTO::tema),
+                unir(turnos, InteraccionResumenDTO::consultaUsuario), unir(turnos, InteraccionResumenDTO::respuestaIA));
+    }
+
+    private static String unir(List<InteraccionResumenDTO> turnos, Function<InteraccionResumenDTO, String> campo) {
+        return turnos.stream().map(campo).filter(Objects::nonNull).collect(Collectors.joining("\n"));
+    }
+
+    /**
+     * Contenido completo de una sesión archivada.
+     *
+     * @throws NoSuchElementException Si la sesión no está archivada
+     */
+    public SesionArchivadaDTO obtenerArchivada(Long idSesion) {
+        SesionChatbotArchivada archivada = archivadaRepository.findById(idSesion)
+                .orElseThrow(() -> new NoSuchElementException("La sesión " + idSesion + " no está archivada"));
+        try (InputStream entrada = new GZIPInputStream(new ByteArrayInputStream(archivada.getContenido()))) {
+            return objectMapper.readValue(entrada, SesionArchivadaDTO.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer la sesión archivada " + idSesion, e);
+        }
+    }
+
+    private byte[] comprimir(SesionArchivadaDTO contenido) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream salida = new GZIPOutputStream(bytes)) {
+            objectMapper.writeValue(salida, contenido);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
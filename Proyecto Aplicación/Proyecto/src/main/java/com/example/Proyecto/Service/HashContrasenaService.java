@@ -0,0 +1,62 @@
+package com.example.Proyecto.Service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Ejecuta BCrypt en un pool propio y acotado, para que el coste del hash no ocupe los hilos de Tomcat.
+ * Si la cola está llena la tarea se rechaza (RejectedExecutionException) en lugar de esperar.
+ */
+@Service
+public class HashContrasenaService {
+
+    @Autowired
+    public PasswordEncoder passwordEncoder;
+
+    @Autowired
+    @Qualifier("ejecutorHash")
+    public ExecutorService ejecutorHash;
+
+    // Hash de referencia para igualar el tiempo de respuesta cuando el correo no existe
+    private volatile String hashFicticio;
+
+    public CompletableFuture<Boolean> verificar(String contrasena, String hash) {
+        return enviar(() -> {
+            String referencia = hash != null ? hash : hashFicticio();
+            return passwordEncoder.matches(contrasena, referencia) && hash != null;
+        });
+    }
+
+    public CompletableFuture<String> codificar(String contrasena) {
+        return enviar(() -> passwordEncoder.encode(contrasena));
+    }
+
+    // true si el hash se generó con otro coste distinto al configurado
+    public boolean necesitaRehash(String hash) {
+        return passwordEncoder.upgradeEncoding(hash);
+    }
+
+    private <T> CompletableFuture<T> enviar(Supplier<T> tarea) {
+        try {
+            return CompletableFuture.supplyAsync(tarea, ejecutorHash);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private String hashFicticio() {
+        String actual = hashFicticio;
+        if (actual == null) {
+            actual = passwordEncoder.encode("contrasena-ficticia");
+            hashFicticio = actual;
+        }
+        return actual;
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.Proyecto.Service;
+
+import com.example.Proyecto.Model.ClaveIdempotencia;
+import com.example.Proyecto.Repository.ClaveIdempotenciaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Almacén de respuestas por clave de idempotencia.
+ *
+ * Cuando la app reintenta un POST con la misma cabecera Idempotency-Key se devuelve la respuesta
+ * guardada sin volver a ejecutar la escritura (ni el recálculo de estadísticas).
+ * Las entradas caducan tras idempotencia.ttl-horas; opcionalmente se respaldan en la tabla Clave_Idempotencia
+ * para sobrevivir a un reinicio del servidor.
+ * En memoria se guardan como mucho idempotencia.max-entradas respuestas; al pasarse se expulsan las más antiguas
+ * (si se persisten, siguen disponibles en la BD).
+ */
+@Service
+public class IdempotenciaService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotenciaService.class);
+
+    /** Respuesta guardada; estado 0 indica que la petición original aún se está procesando */
+    public record RespuestaGuardada(int estado, String contentType, byte[] cuerpo, long creadoEn) {
+        public boolean enCurso() {
+            return estado == 0;
+        }
+    }
+
+    @Autowired
+    public ClaveIdempotenciaRepository claveIdempotenciaRepository;
+
+    @Value("${idempotencia.ttl-horas:24}")
+    private long ttlHoras;
+
+    @Value("${idempotencia.persistir:false}")
+    private boolean persistir;
+
+    @Value("${idempotencia.max-entradas:10000}")
+    private int maxEntradas;
+
+    private final ConcurrentHashMap<String, RespuestaGuardada> respuestas = new ConcurrentHashMap<>();
+
+    /** Orden de llegada de las entradas; una entrada cuyo creadoEn ya no coincide con el mapa está obsoleta */
+    private record Entrada(String clave, long creadoEn) {}
+
+    private final ConcurrentLinkedQueue<Entrada> orden = new ConcurrentLinkedQueue<>();
+
+    public Optional<RespuestaGuardada> buscar(String clave) {
+        RespuestaGuardada respuesta = respuestas.get(clave);
+        if (respuesta != null) {
+            return caducada(respuesta) ? Optional.empty() : Optional.of(respuesta);
+        }
+        if (!persistir) {
+            return Optional.empty();
+        }
+        // Solo se llega aquí tras un reinicio: se recupera de la BD y se vuelve a cachear
+        return claveIdempotenciaRepository.findById(clave)
+                .map(c -> new RespuestaGuardada(c.getEstadoHttp(), c.getContentType(),
+                        c.getCuerpo() != null ? c.getCuerpo().getBytes(StandardCharsets.UTF_8) : new byte[0],
+                        c.getCreadoEn().getTime()))
+                .filter(r -> !caducada(r))
+                .map(r -> {
+                    if (respuestas.putIfAbsent(clave, r) == null) {
+                        registrar(clave, r.creadoEn());
+                    }
+                    return r;
+                });
+    }
+
+    /**
+     * Marca la clave como "en curso". Devuelve false si otra petición con la misma clave llegó primero.
+     * Una entrada caducada que la limpieza aún no quitó se reemplaza en la misma operación atómica.
+     */
+    public boolean reservar(String clave) {
+        RespuestaGuardada reserva = new RespuestaGuardada(0, null, null, System.currentTimeMillis());
+        if (respuestas.compute(clave, (k, r) -> r == null || caducada(r) ? reserva : r) != reserva) {
+            return false;
+        }
+        registrar(clave, reserva.creadoEn());
+        return true;
+    }
+
+    public void guardar(String clave, int estado, String contentType, byte[] cuerpo) {
+        long ahora = System.currentTimeMillis();
+        respuestas.put(clave, new RespuestaGuardada(estado, contentType, cuerpo, ahora));
+        registrar(clave, ahora);
+        if (persistir) {
+            try {
+                claveIdempotenciaRepository.save(new ClaveIdempotencia(clave, estado, contentType,
+                        new String(cuerpo, StandardCharsets.UTF_8), new Timestamp(ahora)));
+            } catch (Exception e) {
+                // La copia en memoria sigue siendo válida; no se debe fallar la petición por esto
+                log.warn("No se pudo persistir la clave de idempotencia {}: {}", clave, e.getMessage());
+            }
+        }
+    }
+
+    /** Libera una clave reservada cuya petición falló, para que el cliente pueda reintentar */
+    public void liberar(String clave) {
+        respuestas.computeIfPresent(clave, (k, r) -> r.enCurso() ? null : r);
+    }
+
+    /**
+     * Anota la entrada y, si el mapa supera maxEntradas, expulsa las más antiguas.
+     * Las reservas en curso no se expulsan: su respuesta vuelve a anotarse al guardarse.
+     */
+    private void registrar(String clave, long creadoEn) {
+        orden.add(new Entrada(clave, creadoEn));
+        Entrada antigua;
+        while (respuestas.size() > maxEntradas && (antigua = orden.poll()) != null) {
+            Entrada e = antigua;
+            respuestas.computeIfPresent(e.clave(), (k, r) -> !r.enCurso() && r.creadoEn() == e.creadoEn() ? null : r);
+        }
+    }
+
+    private boolean caducada(RespuestaGuardada respuesta) {
+        return System.currentTimeMillis() - respuesta.creadoEn() > ttlHoras * 3_600_000L;
+    }
+
+    @Scheduled(fixedDelay = 600_000) // Cada 10 minutos
+    public void eliminarCaducadas() {
+        respuestas.values().removeIf(r -> !r.enCurso() && caducada(r));
+        orden.removeIf(e -> {
+            RespuestaGuardada r = respuestas.get(e.clave());
+            return r == null || r.creadoEn() != e.creadoEn();
+        });
+        if (persistir) {
+            int eliminadas = claveIdempotenciaRepository.eliminarAnterioresA(
+                    new Timestamp(System.currentTimeMillis() - ttlHoras * 3_600_000L));
+            log.info("Claves de idempotencia caducadas eliminadas de la BD: {}", eliminadas);
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.example.Proyecto.Service;
+
+import com.example.Proyecto.DTO.AguaPorHoraDTO;
+import com.example.Proyecto.DTO.IngestaAguaDTO;
+import com.example.Proyecto.Model.IngestaAgua;
+import com.example.Proyecto.Repository.IngestaAguaRepository;
+import com.example.Proyecto.Repository.RegistroAguaRepository;
+import com.example.Proyecto.Repository.UsuarioRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Consumo de agua como eventos (Ingesta_Agua) más el total diario en Registro_Agua, que se actualiza con un upsert atómico.
+ * Con agua.acumular-en-memoria=true los toques se acumulan en memoria y se vuelcan a la BD cada agua.volcado-ms.
+ * El upsert necesita la restricción única (id_usuario, Fecha), que asegura MigracionesService.
+ */
+@Service
+public class IngestaAguaService {
+    private static final Logger log = LoggerFactory.getLogger(IngestaAguaService.class);
+
+    @Autowired
+    public IngestaAguaRepository ingestaAguaRepository;
+
+    @Autowired
+    public RegistroAguaRepository registroAguaRepository;
+
+    @Autowired
+    public UsuarioRepository usuarioRepository;
+
+    @Autowired
+    public ActividadService actividadService;
+
+    @Autowired
+    public EstadisticasNutricionalesService estadisticasService;
+
+    // El lote se confirma en su propia transacción
+    @Autowired
+    @Qualifier("transaccionNueva")
+    public TransactionTemplate transaccionNueva;
+
+    @Value("${agua.acumular-en-memoria:false}")
+    private boolean acumularEnMemoria;
+
+    // Eventos aún no guardados y, por usuario|fecha, cuánto falta sumar al total de la BD (contador con franjas, sin bloqueos)
+    private final ConcurrentLinkedQueue<IngestaAgua> pendientes = new ConcurrentLinkedQueue<>();
+    private final ConcurrentHashMap<String, LongAdder> pendientePorDia = new ConcurrentHashMap<>();
+
+    // Cuentas en eliminación: sus toques ya no se acumulan ni se vuelcan (pocas por instancia, no se limpia)
+    private final Set<Long> usuariosEliminados = ConcurrentHashMap.newKeySet();
+
+    // Un solo volcado a la vez; el programado no espera si ya hay uno en curso
+    private final ReentrantLock volcando = new ReentrantLock();
+
+    /**
+     * Suma (o resta, si es negativa) una cantidad al consumo de hoy y devuelve el total del día.
+     */
+    @Transactional
+    public int sumar(Long idUsuario, int cantidadml) {
+        if (cantidadml == 0) {
+            throw new IllegalArgumentException("La cantidad no puede ser 0");
+        }
+        if (!usuarioRepository.existsById(idUsuario)) {
+            throw new RuntimeException("Usuario no encontrado");
+        }
+        LocalDate hoy = LocalDate.now();
+        IngestaAgua evento = new IngestaAgua(null, idUsuario, hoy, LocalDateTime.now(), cantidadml);
+
+        if (acumularEnMemoria) {
+            if (usuariosEliminados.contains(idUsuario)) {
+                throw new RuntimeException("Usuario no encontrado");
+            }
+            pendientes.add(evento);
+            pendientePorDia.computeIfAbsent(clave(idUsuario, hoy), k -> new LongAdder()).add(cantidadml);
+            return Math.max(registroAguaRepository.obtenerTotalAguaPorFecha(idUsuario, hoy) + (int) pendiente(idUsuario, hoy), 0);
+        }
+
+        ingestaAguaRepository.save(evento);
+        int total = registroAguaRepository.sumarCantidad(idUsuario, hoy, cantidadml);
+        estadisticasService.sumarAgua(idUsuario, hoy, cantidadml);
+        actividadService.marcar(idUsuario, hoy, ActividadService.TipoActividad.AGUA);
+        return total;
+    }
+
+    // Ajuste del total hecho por otra vía (registrar total, editar, sincronizar): se guarda la diferencia como evento
+    public void registrarAjuste(Long idUsuario, LocalDate fecha, int diferencia) {
+        if (diferencia != 0) {
+            ingestaAguaRepository.save(new IngestaAgua(null, idUsuario, fecha, LocalDateTime.now(), diferencia));
+            estadisticasService.sumarAgua(idUsuario, fecha, diferencia);
+        }
+    }
+
+    // Se borró el registro del día: se quitan sus eventos y su total de las estadísticas
+    public void eliminarDia(Long idUsuario, LocalDate fecha, int cantidadEliminada) {
+        ingestaAguaRepository.eliminarPorUsuarioYFecha(idUsuario, fecha);
+        estadisticasService.sumarAgua(idUsuario, fecha, -cantidadEliminada);
+    }
+
+    public List<IngestaAguaDTO> obtenerEventos(Long idUsuario, LocalDate fecha) {
+        return ingestaAguaRepository.buscarEventosDTO(idUsuario, fecha);
+    }
+
+    public List<AguaPorHoraDTO> obtenerPorHora(Long idUsuario, LocalDate fecha) {
+        return ingestaAguaRepository.sumarPorHora(idUsuario, fecha).stream()
+                .map(fila -> new AguaPorHoraDTO(((Number) fila[0]).intValue(), ((Number) fila[1]).longValue()))
+                .toList();
+    }
+
+    /**
+     * Descarta lo que el usuario tenga sin volcar, antes de que empiece la purga de su cuenta.
+     * Espera al volcado en curso, así un lote ya tomado de la cola queda guardado antes de que la purga lo borre;
+     * por eso se llama sin transacción abierta, igual que volcar().
+     */
+    public void descartarUsuario(Long idUsuario) {
+        usuariosEliminados.add(idUsuario);
+        volcando.lock();
+        try {
+            pendientes.removeIf(e -> idUsuario.equals(e.getIdUsuario()));
+            String prefijo = idUsuario + "|";
+            pendientePorDia.keySet().removeIf(clave -> clave.startsWith(prefijo));
+        } finally {
+            volcando.unlock();
+        }
+    }
+
+    public long pendiente(Long idUsuario, LocalDate fecha) {
+        LongAdder adder = pendientePorDia.get(clave(idUsuario, fecha));
+        return adder == null ? 0 : adder.sum();
+    }
+
+    @Scheduled(fixedDelayString = "${agua.volcado-ms:2000}")
+    public void volcarPeriodico() {
+        if (volcando.tryLock()) {
+            try {
+                volcarLote();
+            } finally {
+                volcando.unlock();
+            }
+        }
+    }
+
+    /**
+     * Vuelca lo pendiente antes de una operación que fija o borra el total del día, esperando al volcado en curso.
+     * Se llama sin transacción abierta: esperar con una conexión tomada mientras el volcado pide otra
+     * puede agotar el pool de 3 conexiones.
+     */
+    public void volcar() {
+        if (!acumularEnMemoria && pendientes.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("El volcado del agua no se puede hacer dentro de una transacción");
+        }
+        volcando.lock();
+        try {
+            volcarLote();
+        } finally {
+            volcando.unlock();
+        }
+    }
+
+    /**
+     * Guarda los eventos acumulados en un solo lote y aplica un upsert por usuario y día.
+     * La cola es la fuente de verdad: cada evento se saca una sola vez, así que no se pierde ni se duplica ninguno.
+     */
+    private void volcarLote() {
+        if (pendientes.isEmpty()) {
+            return;
+        }
+        List<IngestaAgua> lote = new ArrayList<>();
+        IngestaAgua evento;
+        while ((evento = pendientes.poll()) != null) {
+            if (!usuariosEliminados.contains(evento.getIdUsuario())) {
+                lote.add(evento);
+            }
+        }
+        if (lote.isEmpty()) {
+            return;
+        }
+
+        Map<String, IngestaAgua> primeroPorDia = new HashMap<>();
+        // Ordenado: los lotes toman los bloqueos de filas siempre en el mismo orden
+        Map<String, Integer> sumaPorDia = new TreeMap<>();
+        for (IngestaAgua e : lote) {
+            String clave = clave(e.getIdUsuario(), e.getFecha());
+            primeroPorDia.putIfAbsent(clave, e);
+            sumaPorDia.merge(clave, e.getCantidadml(), Integer::sum);
+        }
+
+        try {
+            transaccionNueva.executeWithoutResult(estado -> {
+                ingestaAguaRepository.saveAll(lote);
+                Map<Long, Set<YearMonth>> meses = new TreeMap<>();
+                sumaPorDia.forEach((clave, suma) -> {
+                    IngestaAgua e = primeroPorDia.get(clave);
+                    registroAguaRepository.sumarCantidad(e.getIdUsuario(), e.getFecha(), suma);
+                    estadisticasService.sumarAguaDia(e.getIdUsuario(), e.getFecha(), suma);
+                    actividadService.marcar(e.getIdUsuario(), e.getFecha(), ActividadService.TipoActividad.AGUA);
+                    meses.computeIfAbsent(e.getIdUsuario(), u -> new TreeSet<>()).add(YearMonth.from(e.getFecha()));
+                });
+                // Los meses al final y una vez cada uno (ver sumarAguaDia)
+                meses.forEach((idUsuario, delUsuario) ->
+                        delUsuario.forEach(mes -> estadisticasService.recalcularAguaMes(idUsuario, mes)));
+            });
+        } catch (RuntimeException ex) {
+            // Se devuelven a la cola para el próximo volcado
+            log.error("No se pudo volcar el consumo de agua ({} eventos): {}", lote.size(), ex.getMessage());
+            lote.forEach(e -> e.setIdIngestaAgua(null));
+            pendientes.addAll(lote);
+            return;
+        }
+
+        sumaPorDia.forEach((clave, suma) -> {
+            LongAdder adder = pendientePorDia.get(clave);
+            if (adder != null) {
+                adder.add(-suma);
+            }
+        });
+        // Los días anteriores ya no reciben toques
+        String hoy = "|" + LocalDate.now();
+        pendientePorDia.entrySet().removeIf(e -> !e.getKey().endsWith(hoy) && e.getValue().sum() == 0);
+    }
+
+    @PreDestroy
+    public void alCerrar() {
+        volcar();
+    }
+
+    private String clave(Long idUsuario, LocalDate fecha) {
+        return idUsuario + "|" + fecha;
+    }
+}
@@ -1,14 +1,23 @@
 package com.example.Proyecto.Service;
 
+import com.example.Proyecto.DTO.InteraccionChatbotDTO;
+import com.example.Proyecto.DTO.InteraccionEntradaDTO;
+import com.example.Proyecto.DTO.InteraccionResumenDTO;
+import com.example.Proyecto.DTO.PaginaHistorialDTO;
 import com.example.Proyecto.Model.InteraccionChatbot;
 import com.example.Proyecto.Repository.InteraccionChatbotRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Service;
 
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.UUID;
 
 /**
  * Servicio que contiene la lógica de negocio para gestionar las interacciones del chatbot
@@ -34,16 +43,20 @@ public class InteraccionChatbotService {
     @Autowired
     public InteraccionChatbotRepository interaccionChatbotRepository;
 
+    // Escritura diferida de los turnos de la conversación
+    @Autowired
+    public BitacoraChatbotService bitacoraChatbotService;
+
     /**
      * Lista todas las interacciones del chatbot registradas en el sistema
      * 
      * @return Lista de todas las interacciones del chatbot
      * @throws RuntimeException Si ocurre un error al consultar la base de datos
      */
-    public List<InteraccionChatbot> listarInteraccionesChatbot(){
+    public List<InteraccionChatbotDTO> listarInteraccionesChatbot(){
         // Validacion para intentar obtener la lista de Interacciones del Chatbot
         try {
-            List<InteraccionChatbot> interaccionChatbots = interaccionChatbotRepository.findAll();
+            List<InteraccionChatbotDTO> interaccionChatbots = interaccionChatbotRepository.listarDTO();
             // Validar que la lista no sea nula
             if (interaccionChatbots == null) {
                 throw new IllegalStateException("No se encontraron Interacciones de Chatbot.");
@@ -135,19 +148,62 @@ public class InteraccionChatbotService {
         }
     }
 
-    public void obtenerInteraccion(@Param("id_sesion") Long id_sesion, @Param("mensajeUsuario") String mensajeUsuario, @Param("respuestaChatbot") String respuestaChatbot, @Param("tipoConsulta") String tipoConsulta){
-        interaccionChatbotRepository.registrarInteraccion(id_sesion,mensajeUsuario,respuestaChatbot,tipoConsulta);
+    /**
+     * Registra un turno de la conversación sin esperar a la base de datos (ver BitacoraChatbotService)
+     *
+     * @return Identificador del turno (Id_Entrada)
+     * @throws IllegalArgumentException Si falta la sesión, la consulta o la respuesta
+     */
+    public UUID registrarInteraccion(InteraccionEntradaDTO entrada){
+        if (entrada == null || entrada.getIdSesion() == null) {
+            throw new IllegalArgumentException("La sesión del chatbot es obligatoria.");
+        }
+        if (entrada.getConsultaUsuario() == null || entrada.getConsultaUsuario().isEmpty()) {
+            throw new IllegalArgumentException("La consulta con el usuario es obligatorio.");
+        }
+        if (entrada.getRespuestaIA() == null || entrada.getRespuestaIA().isEmpty()) {
+            throw new IllegalArgumentException("La respuesta de IA es obligatoria.");
+        }
+        return bitacoraChatbotService.registrar(entrada.getIdSesion(), entrada.getConsultaUsuario(), entrada.getRespuestaIA(),
+                entrada.getTipoIntento(), entrada.getTipoAccion(), entrada.getTema());
     }
 
-    public List<InteraccionChatbot> HistorialInteracciones(@Param("id_sesion") Long id_sesion){
-        return interaccionChatbotRepository.obtenerHistorialInteracciones(id_sesion);
+    /**
+     * Historial de una sesión por páginas, del turno más nuevo al más viejo
+     *
+     * @param cursor siguienteCursor de la página anterior (null para la primera)
+     * @param tamano Turnos por página (por defecto 20, máximo 100)
+     * @param maximoRespuesta Si se indica, la respuesta de la IA se recorta a ese número de caracteres
+     * @throws IllegalArgumentException Si el cursor o el máximo no son válidos
+     */
+    public PaginaHistorialDTO<InteraccionResumenDTO> HistorialInteracciones(Long id_sesion, String cursor, Integer tamano, Integer maximoRespuesta){
+        CursorHistorial desde = CursorHistorial.decodificar(cursor);
+        int tamanoPagina = CursorHistorial.tamanoPagina(tamano);
+        List<InteraccionResumenDTO> filas = interaccionChatbotRepository.obtenerHistorial(id_sesion, desde.momento(), desde.id(),
+                CursorHistorial.maximoTexto(maximoRespuesta), Limit.of(tamanoPagina + 1));
+        return CursorHistorial.pagina(filas, tamanoPagina, i -> new CursorHistorial(i.timestamp(), i.idInteraccion()));
     }
 
     public String obtenerRespuestaPorTipo(@Param("id_sesion") Long id_sesion, @Param("tipoConsulta") String tipoConsulta){
         return interaccionChatbotRepository.consultarRespuestaPorTipo(id_sesion,tipoConsulta);
     }
 
+    /**
+     * Turnos de la sesión entre dos días (ambos incluidos) con el tipo de intento indicado
+     *
+     * @param fechaInicio Fecha en formato yyyy-MM-dd
+     * @param fechaFin Fecha en formato yyyy-MM-dd
+     * @param tipoConsulta Nombre de un TipoIntento
+     * @throws IllegalArgumentException Si una fecha o el tipo no son válidos
+     */
     public List<InteraccionChatbot> obtenerPorFechaYTipo(@Param("id_sesion") Long id_sesion,@Param("fechaInicio") String fechaInicio,@Param("fechaFin") String fechaFin,@Param("tipoConsulta") String tipoConsulta){
-        return interaccionChatbotRepository.filtrarPorFechaYTipo(id_sesion,fechaInicio,fechaFin,tipoConsulta);
+        try {
+            return interaccionChatbotRepository.filtrarPorFechaYTipo(id_sesion,
+                    Timestamp.valueOf(LocalDate.parse(fechaInicio).atStartOfDay()),
+                    Timestamp.valueOf(LocalDate.parse(fechaFin).plusDays(1).atStartOfDay()),
+                    InteraccionChatbot.TipoIntento.valueOf(tipoConsulta));
+        } catch (DateTimeParseException | NullPointerException e) {
+            throw new IllegalArgumentException("Fecha o tipo de consulta inválidos", e);
+        }
     }
 }
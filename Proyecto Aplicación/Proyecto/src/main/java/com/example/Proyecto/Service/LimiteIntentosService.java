@@ -0,0 +1,115 @@
+package com.example.Proyecto.Service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Limita los intentos de login fallidos con cubetas de tokens en memoria, antes de gastar un hash BCrypt:
+ * por IP, por cuenta en esa IP y por cuenta.
+ *
+ * La cubeta de cuenta e IP es la estricta: quien prueba contraseñas contra una cuenta ajena desde una IP se bloquea
+ * a sí mismo, no al dueño que entra desde otra. La de la cuenta sola es más holgada y acota el total de intentos
+ * contra una cuenta aunque vengan repartidos entre muchas IPs. El intento se cobra antes de verificar
+ * (así no se cuelan ráfagas en paralelo) y se devuelve si el login fue correcto.
+ */
+@Service
+public class LimiteIntentosService {
+
+    public static class LimiteExcedidoException extends RuntimeException {
+        private final long segundosEspera;
+
+        public LimiteExcedidoException(long segundosEspera) {
+            super("Demasiados intentos, reintente en " + segundosEspera + " s");
+            this.segundosEspera = segundosEspera;
+        }
+
+        public long getSegundosEspera() {
+            return segundosEspera;
+        }
+    }
+
+    @Value("${login.limite.cuenta.rafaga:5}")
+    private double rafagaCuenta;
+
+    @Value("${login.limite.cuenta.por-minuto:1}")
+    private double porMinutoCuenta;
+
+    @Value("${login.limite.cuenta-total.rafaga:20}")
+    private double rafagaCuentaTotal;
+
+    @Value("${login.limite.cuenta-total.por-minuto:5}")
+    private double porMinutoCuentaTotal;
+
+    @Value("${login.limite.ip.rafaga:20}")
+    private double rafagaIp;
+
+    @Value("${login.limite.ip.por-minuto:10}")
+    private double porMinutoIp;
+
+    private final ConcurrentHashMap<String, CubetaTokens> porCuentaEIp = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CubetaTokens> porCuenta = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CubetaTokens> porIp = new ConcurrentHashMap<>();
+
+    /**
+     * Consume un intento de la IP, de la cuenta en esa IP y de la cuenta; lanza LimiteExcedidoException si alguna
+     * está agotada. Si el login resulta correcto hay que llamar a exito() para devolverlo.
+     */
+    public void consumir(String correo, String ip) {
+        List<CubetaTokens> cobradas = new ArrayList<>(3);
+        if (ip != null) {
+            cobrar(porIp.computeIfAbsent(ip, k -> new CubetaTokens(rafagaIp, porMinutoIp / 60)), cobradas);
+        }
+        if (correo != null) {
+            cobrar(porCuentaEIp.computeIfAbsent(clave(correo, ip), k -> new CubetaTokens(rafagaCuenta, porMinutoCuenta / 60)), cobradas);
+            cobrar(porCuenta.computeIfAbsent(cuenta(correo), k -> new CubetaTokens(rafagaCuentaTotal, porMinutoCuentaTotal / 60)), cobradas);
+        }
+    }
+
+    private void cobrar(CubetaTokens cubeta, List<CubetaTokens> cobradas) {
+        if (!cubeta.intentarConsumir()) {
+            // Las cubetas anteriores no deben pagar un intento que no se hizo
+            cobradas.forEach(CubetaTokens::devolver);
+            throw new LimiteExcedidoException(cubeta.segundosHastaDisponible());
+        }
+        cobradas.add(cubeta);
+    }
+
+    // Login correcto: los intentos solo cuentan cuando fallan
+    public void exito(String correo, String ip) {
+        if (ip != null) {
+            devolver(porIp.get(ip));
+        }
+        if (correo != null) {
+            devolver(porCuentaEIp.get(clave(correo, ip)));
+            devolver(porCuenta.get(cuenta(correo)));
+        }
+    }
+
+    private static void devolver(CubetaTokens cubeta) {
+        if (cubeta != null) {
+            cubeta.devolver();
+        }
+    }
+
+    private static String cuenta(String correo) {
+        return correo.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String clave(String correo, String ip) {
+        return cuenta(correo) + "|" + (ip != null ? ip : "");
+    }
+
+    // Una cubeta llena equivale a no tenerla: se eliminan para no crecer sin límite
+    @Scheduled(fixedDelay = 300_000)
+    public void limpiar() {
+        porCuentaEIp.values().removeIf(CubetaTokens::estaLlena);
+        porCuenta.values().removeIf(CubetaTokens::estaLlena);
+        porIp.values().removeIf(CubetaTokens::estaLlena);
+    }
+}
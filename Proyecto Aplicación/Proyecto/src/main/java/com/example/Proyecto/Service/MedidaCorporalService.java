@@ -0,0 +1,184 @@
+package com.example.Proyecto.Service;
+
+import com.example.Proyecto.DTO.MedidaCorporalDTO;
+import com.example.Proyecto.DTO.MedidaPeriodoDTO;
+import com.example.Proyecto.DTO.TendenciaCorporalDTO;
+import com.example.Proyecto.Model.MedidaCorporal;
+import com.example.Proyecto.Model.Usuario;
+import com.example.Proyecto.Repository.MedidaCorporalRepository;
+import com.example.Proyecto.Repository.UsuarioRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Serie temporal de peso, altura e IMC. Cada cambio de peso o altura del perfil agrega una medida;
+ * las gráficas piden los periodos ya agregados (min/prom/max) y la recta de tendencia en una sola llamada.
+ */
+@Service
+public class MedidaCorporalService {
+    private static final Logger log = LoggerFactory.getLogger(MedidaCorporalService.class);
+
+    public enum Granularidad {
+        DIA("day"), SEMANA("week"), MES("month");
+
+        private final String unidadSql;
+
+        Granularidad(String unidadSql) {
+            this.unidadSql = unidadSql;
+        }
+    }
+
+    @Autowired
+    public MedidaCorporalRepository medidaCorporalRepository;
+
+    @Autowired
+    public UsuarioRepository usuarioRepository;
+
+    public MedidaCorporal registrar(Long idUsuario, Float peso, Float altura, LocalDateTime medidoEn) {
+        if (peso == null || peso <= 0) {
+            throw new IllegalArgumentException("El peso debe ser positivo");
+        }
+        LocalDateTime momento = medidoEn != null ? medidoEn : LocalDateTime.now();
+        if (momento.isAfter(LocalDateTime.now().plusMinutes(5))) {
+            throw new IllegalArgumentException("La medida no puede estar en el futuro");
+        }
+        Float alturaMedida = altura != null ? altura : alturaConocida(idUsuario, momento);
+        if (alturaMedida == null || alturaMedida <= 0) {
+            throw new IllegalArgumentException("La altura debe ser positiva");
+        }
+
+        MedidaCorporal medida = new MedidaCorporal();
+        medida.setIdUsuario(idUsuario);
+        medida.setMedidoEn(momento);
+        medida.setPeso(peso);
+        medida.setAltura(alturaMedida);
+        medida.setImc(calcularImc(peso, alturaMedida));
+        return medidaCorporalRepository.save(medida);
+    }
+
+    public List<MedidaCorporalDTO> listar(Long idUsuario, LocalDate desde, LocalDate hasta) {
+        validarRango(desde, hasta);
+        return medidaCorporalRepository.listarPorRango(idUsuario, desde.atStartOfDay(), hasta.plusDays(1).atStartOfDay());
+    }
+
+    /**
+     * Periodos agregados en la BD (un GROUP BY) más la recta de mínimos cuadrados sobre las medidas crudas
+     * (un agregado); cada periodo trae el valor de la tendencia para dibujarla sin cálculos en el cliente.
+     */
+    public TendenciaCorporalDTO obtenerTendencia(Long idUsuario, LocalDate desde, LocalDate hasta, Granularidad granularidad) {
+        validarRango(desde, hasta);
+        LocalDateTime inicio = desde.atStartOfDay();
+        LocalDateTime fin = hasta.plusDays(1).atStartOfDay();
+
+        Object[] recta = medidaCorporalRepository.calcularRegresion(idUsuario, inicio, fin).stream().findFirst().orElse(null);
+        Double pesoPendiente = recta != null ? aDouble(recta[0]) : null;
+        Double pesoIntercepto = recta != null ? aDouble(recta[1]) : null;
+        Double imcPendiente = recta != null ? aDouble(recta[2]) : null;
+        Double imcIntercepto = recta != null ? aDouble(recta[3]) : null;
+
+        List<MedidaPeriodoDTO> periodos = new ArrayList<>();
+        for (Object[] fila : medidaCorporalRepository.agruparPorPeriodo(idUsuario, granularidad.unidadSql, inicio, fin)) {
+            LocalDate inicioPeriodo = aFecha(fila[0]);
+            long dia = inicioPeriodo.toEpochDay();
+            periodos.add(new MedidaPeriodoDTO(
+                    inicioPeriodo,
+                    ((Number) fila[1]).longValue(),
+                    aFloat(fila[2]), aFloat(fila[3]), aFloat(fila[4]),
+                    aFloat(fila[5]), aFloat(fila[6]), aFloat(fila[7]),
+                    evaluar(pesoPendiente, pesoIntercepto, dia),
+                    evaluar(imcPendiente, imcIntercepto, dia)));
+        }
+
+        return new TendenciaCorporalDTO(
+                granularidad.name(),
+                periodos,
+                pesoPendiente != null ? (float) (pesoPendiente * 7) : null,
+                imcPendiente != null ? (float) (imcPendiente * 7) : null);
+    }
+
+    // IMC vigente en una fecha: última medida hasta ese día o, si no hay historia, el perfil actual
+    public Float obtenerImc(Long idUsuario, LocalDate fecha) {
+        return medidaCorporalRepository.findFirstByIdUsuarioAndMedidoEnLessThanOrderByMedidoEnDesc(idUsuario, fecha.plusDays(1).atStartOfDay())
+                .map(MedidaCorporal::getImc)
+                .orElseGet(() -> usuarioRepository.findById(idUsuario)
+                        .filter(u -> u.getPeso() != null && u.getAltura() != null && u.getAltura() > 0)
+                        .map(u -> calcularImc(u.getPeso(), u.getAltura()))
+                        .orElse(null));
+    }
+
+    // Después del commit del perfil; REQUIRES_NEW porque la transacción original ya terminó
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void alActualizarPerfil(PerfilActualizadoEvent evento) {
+        if (!evento.campos().contains("peso") && !evento.campos().contains("altura")) {
+            return;
+        }
+        Usuario usuario = usuarioRepository.findById(evento.idUsuario())
+                .orElseThrow(() -> new NoSuchElementException("Usuario no encontrado"));
+        // Un PATCH que reenvía el mismo peso y altura no agrega otra medida idéntica
+        Optional<MedidaCorporal> ultima = medidaCorporalRepository.findFirstByIdUsuarioAndMedidoEnLessThanOrderByMedidoEnDesc(
+                usuario.getIdUsuario(), LocalDateTime.now().plusMinutes(5));
+        if (ultima.isPresent() && Objects.equals(ultima.get().getPeso(), usuario.getPeso())
+                && Objects.equals(ultima.get().getAltura(), usuario.getAltura())) {
+            return;
+        }
+        try {
+            registrar(usuario.getIdUsuario(), usuario.getPeso(), usuario.getAltura(), LocalDateTime.now());
+        } catch (IllegalArgumentException e) {
+            log.warn("No se registró la medida del usuario {}: {}", usuario.getIdUsuario(), e.getMessage());
+        }
+    }
+
+    private Float alturaConocida(Long idUsuario, LocalDateTime antes) {
+        return medidaCorporalRepository.findFirstByIdUsuarioAndMedidoEnLessThanOrderByMedidoEnDesc(idUsuario, antes.plusSeconds(1))
+                .map(MedidaCorporal::getAltura)
+                .orElseGet(() -> usuarioRepository.findById(idUsuario).map(Usuario::getAltura).orElse(null));
+    }
+
+    private static Float calcularImc(float peso, float alturaCm) {
+        double metros = alturaCm / 100.0;
+        return (float) (Math.round(peso / (metros * metros) * 100) / 100.0);
+    }
+
+    private static void validarRango(LocalDate desde, LocalDate hasta) {
+        if (desde == null || hasta == null || hasta.isBefore(desde)) {
+            throw new IllegalArgumentException("Rango de fechas inválido");
+        }
+    }
+
+    private static Float evaluar(Double pendiente, Double intercepto, long dia) {
+        if (pendiente == null || intercepto == null) {
+            return null;
+        }
+        return (float) (Math.round((intercepto + pendiente * dia) * 100) / 100.0);
+    }
+
+    private static LocalDate aFecha(Object valor) {
+        if (valor instanceof Timestamp t) {
+            return t.toLocalDateTime().toLocalDate();
+        }
+        return ((LocalDateTime) valor).toLocalDate();
+    }
+
+    private static Double aDouble(Object valor) {
+        return valor == null ? null : ((Number) valor).doubleValue();
+    }
+
+    private static Float aFloat(Object valor) {
+        return valor == null ? null : (float) (Math.round(((Number) valor).doubleValue() * 100) / 100.0);
+    }
+}
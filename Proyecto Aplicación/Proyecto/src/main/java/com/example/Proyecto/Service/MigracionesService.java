@@ -0,0 +1,231 @@
+package com.example.Proyecto.Service;
+
+import com.example.Proyecto.Repository.SesionChatbotArchivadaRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Pasos de esquema y datos que ddl-auto=update no sabe hacer (deduplicar antes de una restricción única,
+ * columnas generadas, rellenar columnas nuevas). Cada paso se aplica una sola vez y queda anotado en
+ * Migracion_Esquema; corre en su propia transacción, así que si falla no se anota y se reintenta al siguiente arranque.
+ *
+ * Se ejecutan después de que Hibernate actualiza el esquema y antes de que el servidor empiece a recibir peticiones.
+ */
+@Service
+public class MigracionesService implements SmartInitializingSingleton {
+    private static final Logger log = LoggerFactory.getLogger(MigracionesService.class);
+
+    private record Migracion(String nombre, Runnable paso) {
+    }
+
+    private static final String CREAR_TABLA = "CREATE TABLE IF NOT EXISTS migracion_esquema (" +
+            "nombre varchar(100) PRIMARY KEY, aplicada_en timestamp NOT NULL DEFAULT now())";
+    // Si hay varias instancias arrancando a la vez, solo una aplica cada paso
+    private static final String BLOQUEAR = "SELECT pg_advisory_xact_lock(hashtext('migracion_esquema'))";
+    private static final String ANOTAR = "INSERT INTO migracion_esquema (nombre) VALUES (?) ON CONFLICT DO NOTHING";
+
+    // Duplicados de la época sin restricción: se conserva la fila más antigua con la suma del día
+    private static final String SUMAR_AGUA_DUPLICADA = "WITH grupos AS (SELECT id_usuario, fecha, " +
+            "min(id_registro_agua) AS conservar, sum(cantidadml) AS total FROM registro_agua " +
+            "GROUP BY id_usuario, fecha HAVING count(*) > 1) " +
+            "UPDATE registro_agua r SET cantidadml = g.total, version = COALESCE(r.version, 0) + 1, modificado_en = now() " +
+            "FROM grupos g WHERE r.id_registro_agua = g.conservar";
+    private static final String BORRAR_AGUA_DUPLICADA = "DELETE FROM registro_agua r USING registro_agua o " +
+            "WHERE r.id_usuario = o.id_usuario AND r.fecha = o.fecha AND r.id_registro_agua > o.id_registro_agua";
+    // Hibernate no la pudo crear si había duplicados; en una BD nueva ya existe
+    private static final String RESTRICCION_AGUA = "DO $$ BEGIN " +
+            "IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'uk_registro_agua_usuario_fecha') THEN " +
+            "ALTER TABLE registro_agua ADD CONSTRAINT uk_registro_agua_usuario_fecha UNIQUE (id_usuario, fecha); " +
+            "END IF; END $$";
+
+    // varchar(255) -> text no reescribe la tabla
+    private static final String INTERACCION_TEXTO = "ALTER TABLE interaccion_chatbot " +
+            "ALTER COLUMN consulta_usuario TYPE text, ALTER COLUMN respuesta_ia TYPE text";
+
+    // Columna generada para la búsqueda de texto del historial (ver BusquedaHistorialService). Agregarla reescribe
+    // la tabla, por eso va como paso único y no en cada arranque
+    private static final String CREAR_BUSQUEDA = "ALTER TABLE interaccion_chatbot ADD COLUMN IF NOT EXISTS busqueda tsvector " +
+            "GENERATED ALWAYS AS (" +
+            "setweight(to_tsvector('spanish'::regconfig, coalesce(tema, '')), 'A') || " +
+            "setweight(to_tsvector('spanish'::regconfig, coalesce(consulta_usuario, '')), 'B') || " +
+            "setweight(to_tsvector('spanish'::regconfig, coalesce(respuesta_ia, '')), 'C')) STORED";
+    private static final String INDICE_BUSQUEDA = "CREATE INDEX IF NOT EXISTS idx_interaccion_chatbot_busqueda " +
+            "ON interaccion_chatbot USING GIN (busqueda)";
+    // En las archivadas no puede ser generada: el texto está comprimido en Contenido (ver GestorSesionesChatbotService.indexar)
+    private static final String CREAR_BUSQUEDA_ARCHIVADA = "ALTER TABLE sesion_chatbot_archivada ADD COLUMN IF NOT EXISTS busqueda tsvector";
+    private static final String INDICE_BUSQUEDA_ARCHIVADA = "CREATE INDEX IF NOT EXISTS idx_sesion_chatbot_archivada_busqueda " +
+            "ON sesion_chatbot_archivada USING GIN (busqueda)";
+
+    // Estadísticas repetidas por usuario y día o mes (guardadas a la vez sin restricción): se conserva la más antigua.
+    // Los nutrientes se rehacen con el siguiente registro de ese día; el agua se rellena abajo
+    private static final String BORRAR_DIA_DUPLICADO = "DELETE FROM estadisticas_diarias e USING estadisticas_diarias o " +
+            "WHERE e.id_usuario = o.id_usuario AND e.fecha = o.fecha AND e.id_estadistica > o.id_estadistica";
+    private static final String BORRAR_MES_DUPLICADO = "DELETE FROM estadisticas_mensuales e USING estadisticas_mensuales o " +
+            "WHERE e.id_usuario = o.id_usuario AND e.anio = o.anio AND e.mes = o.mes AND e.id_estadistica > o.id_estadistica";
+    // Los upserts del agua (EstadisticaDiariaRepository.sumarAgua, EstadisticaMensualRepository.bloquearMes) las necesitan
+    private static final String RESTRICCION_ESTADISTICAS = "DO $$ BEGIN " +
+            "IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'uk_estadistica_diaria_usuario_fecha') THEN " +
+            "ALTER TABLE estadisticas_diarias ADD CONSTRAINT uk_estadistica_diaria_usuario_fecha UNIQUE (id_usuario, fecha); " +
+            "END IF; " +
+            "IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'uk_estadistica_mensual_usuario_mes') THEN " +
+            "ALTER TABLE estadisticas_mensuales ADD CONSTRAINT uk_estadistica_mensual_usuario_mes UNIQUE (id_usuario, anio, mes); " +
+            "END IF; END $$";
+    // El agua ya registrada pasa a las estadísticas, con fila nueva para los días y meses que solo tienen agua
+    private static final String AGUA_DIARIA = "INSERT INTO estadisticas_diarias (id_usuario, fecha, calorias, agua_ml) " +
+            "SELECT id_usuario, fecha, 0, cantidadml FROM registro_agua " +
+            "ON CONFLICT (id_usuario, fecha) DO UPDATE SET agua_ml = EXCLUDED.agua_ml";
+    private static final String AGUA_MENSUAL = "INSERT INTO estadisticas_mensuales (id_usuario, anio, mes, calorias, agua_ml, dias_agua) " +
+            "SELECT id_usuario, extract(YEAR FROM fecha)::int, extract(MONTH FROM fecha)::int, 0, " +
+            "COALESCE(sum(agua_ml), 0), count(*) FILTER (WHERE agua_ml > 0) FROM estadisticas_diarias " +
+            "GROUP BY id_usuario, extract(YEAR FROM fecha), extract(MONTH FROM fecha) " +
+            "ON CONFLICT (id_usuario, anio, mes) DO UPDATE SET agua_ml = EXCLUDED.agua_ml, dias_agua = EXCLUDED.dias_agua";
+
+    // Cuentas repetidas de antes de la restricción: la más antigua conserva el valor. Las demás no se tocan salvo que
+    // se pida (migraciones.usuarios.marcar-duplicados): entonces quedan marcadas con su id, recortado a los
+    // 100 caracteres de la columna, y esa cuenta ya no entra con el valor anterior
+    private static final String DUPLICADOS = "SELECT u.id_usuario FROM usuario u " +
+            "WHERE EXISTS (SELECT 1 FROM usuario o WHERE o.%1$s = u.%1$s AND o.id_usuario < u.id_usuario) ORDER BY u.id_usuario";
+    private static final String MARCAR_CORREO_DUPLICADO = "UPDATE usuario u SET correo = " +
+            "left(u.correo, 100 - length('#dup' || u.id_usuario)) || '#dup' || u.id_usuario " +
+            "WHERE EXISTS (SELECT 1 FROM usuario o WHERE o.correo = u.correo AND o.id_usuario < u.id_usuario) " +
+            "RETURNING u.id_usuario";
+    private static final String MARCAR_NOMBRE_DUPLICADO = "UPDATE usuario u SET nombre = " +
+            "left(u.nombre, 100 - length(' #' || u.id_usuario)) || ' #' || u.id_usuario " +
+            "WHERE EXISTS (SELECT 1 FROM usuario o WHERE o.nombre = u.nombre AND o.id_usuario < u.id_usuario) " +
+            "RETURNING u.id_usuario";
+    // Igual que con el agua: Hibernate no las pudo crear mientras hubo duplicados
+    private static final String RESTRICCION_USUARIO = "DO $$ BEGIN " +
+            "IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'uk_usuario_correo') THEN " +
+            "ALTER TABLE usuario ADD CONSTRAINT uk_usuario_correo UNIQUE (correo); " +
+            "END IF; " +
+            "IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'uk_usuario_nombre') THEN " +
+            "ALTER TABLE usuario ADD CONSTRAINT uk_usuario_nombre UNIQUE (nombre); " +
+            "END IF; END $$";
+
+    // Rutinas de IA guardadas como texto libre, antes de las filas por alimento; las columnas viejas no se borran
+    private static final String EXISTE_COLUMNA = "SELECT EXISTS (SELECT 1 FROM information_schema.columns " +
+            "WHERE table_schema = current_schema() AND table_name = ? AND column_name = ?)";
+    private static final String COMIDAS_ANTERIORES = "SELECT c.id_comida, c.alimentos_sugeridos, c.tamano_porciones " +
+            "FROM comida_rutina_ia c WHERE c.alimentos_sugeridos IS NOT NULL AND btrim(c.alimentos_sugeridos) <> '' " +
+            "AND NOT EXISTS (SELECT 1 FROM comida_rutina_ia_alimento i WHERE i.id_comida = c.id_comida)";
+    private static final String DETALLES_ANTERIORES = "UPDATE rutina_alimentia_ia " +
+            "SET detalles_rutina = jsonb_build_object('descripcion', detalles, 'recomendaciones', '[]'::jsonb) " +
+            "WHERE detalles_rutina IS NULL AND detalles IS NOT NULL AND btrim(detalles) <> ''";
+
+    private record ComidaAnterior(Long idComida, String alimentosSugeridos, String tamanoPorciones) {
+    }
+
+    @Autowired
+    public JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public RutinaEstructuradaService rutinaEstructuradaService;
+
+    @Autowired
+    public GestorSesionesChatbotService gestorSesiones;
+
+    @Autowired
+    public SesionChatbotArchivadaRepository archivadaRepository;
+
+    // Garantiza que Hibernate ya creó o actualizó las tablas
+    @Autowired
+    public EntityManagerFactory entityManagerFactory;
+
+    @Value("${migraciones.usuarios.marcar-duplicados:false}")
+    private boolean marcarUsuariosDuplicados;
+
+    // En orden de aplicación; los nombres no se cambian una vez publicados
+    private List<Migracion> migraciones() {
+        return List.of(
+                sql("2026-10-registro-agua-unico", SUMAR_AGUA_DUPLICADA, BORRAR_AGUA_DUPLICADA, RESTRICCION_AGUA),
+                sql("2026-10-interaccion-chatbot-texto", INTERACCION_TEXTO),
+                sql("2026-10-interaccion-chatbot-busqueda", CREAR_BUSQUEDA, INDICE_BUSQUEDA),
+                new Migracion("2026-10-rutina-ia-texto-anterior", this::migrarRutinasAnteriores),
+                new Migracion("2026-10-usuario-correo-nombre-unico", this::restringirUsuarios),
+                new Migracion("2026-10-sesion-archivada-busqueda", this::indexarArchivadas),
+                sql("2026-10-estadisticas-agua", BORRAR_DIA_DUPLICADO, BORRAR_MES_DUPLICADO, RESTRICCION_ESTADISTICAS,
+                        AGUA_DIARIA, AGUA_MENSUAL));
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        jdbcTemplate.execute(CREAR_TABLA);
+        for (Migracion migracion : migraciones()) {
+            long inicio = System.currentTimeMillis();
+            Boolean aplicada = transactionTemplate.execute(estado -> {
+                jdbcTemplate.execute(BLOQUEAR);
+                if (jdbcTemplate.update(ANOTAR, migracion.nombre()) == 0) {
+                    return false;
+                }
+                migracion.paso().run();
+                return true;
+            });
+            if (Boolean.TRUE.equals(aplicada)) {
+                log.info("Migración {} aplicada en {} ms", migracion.nombre(), System.currentTimeMillis() - inicio);
+            }
+        }
+    }
+
+    // En una BD creada después del cambio las columnas viejas no existen y no hay nada que pasar
+    private void migrarRutinasAnteriores() {
+        if (existeColumna("comida_rutina_ia", "alimentos_sugeridos") && existeColumna("comida_rutina_ia", "tamano_porciones")) {
+            List<ComidaAnterior> comidas = jdbcTemplate.query(COMIDAS_ANTERIORES,
+                    (rs, n) -> new ComidaAnterior(rs.getLong(1), rs.getString(2), rs.getString(3)));
+            comidas.forEach(c -> rutinaEstructuradaService.importarTextoAnterior(c.idComida(), c.alimentosSugeridos(), c.tamanoPorciones()));
+            log.info("Comidas de rutinas de IA pasadas a filas por alimento: {}", comidas.size());
+        }
+        if (existeColumna("rutina_alimentia_ia", "detalles")) {
+            jdbcTemplate.update(DETALLES_ANTERIORES);
+        }
+    }
+
+    // Con duplicados el paso falla (y la app no arranca) hasta que alguien los resuelva o pida marcarlos
+    private void restringirUsuarios() {
+        List<Long> correos = jdbcTemplate.queryForList(String.format(DUPLICADOS, "correo"), Long.class);
+        List<Long> nombres = jdbcTemplate.queryForList(String.format(DUPLICADOS, "nombre"), Long.class);
+        if (!correos.isEmpty() || !nombres.isEmpty()) {
+            if (!marcarUsuariosDuplicados) {
+                throw new IllegalStateException("Cuentas con correo repetido " + correos + " y con nombre repetido " + nombres +
+                        ": corrígelas a mano o arranca con migraciones.usuarios.marcar-duplicados=true");
+            }
+            jdbcTemplate.queryForList(MARCAR_CORREO_DUPLICADO, Long.class)
+                    .forEach(id -> log.warn("Usuario {}: correo repetido, marcado con #dup{}", id, id));
+            jdbcTemplate.queryForList(MARCAR_NOMBRE_DUPLICADO, Long.class)
+                    .forEach(id -> log.warn("Usuario {}: nombre repetido, marcado con #{}", id, id));
+        }
+        jdbcTemplate.execute(RESTRICCION_USUARIO);
+    }
+
+    // Las sesiones archivadas antes de la columna se descomprimen una vez para indexarlas
+    private void indexarArchivadas() {
+        jdbcTemplate.execute(CREAR_BUSQUEDA_ARCHIVADA);
+        jdbcTemplate.execute(INDICE_BUSQUEDA_ARCHIVADA);
+        List<Long> pendientes = archivadaRepository.buscarSinIndexar();
+        pendientes.forEach(idSesion -> gestorSesiones.indexar(gestorSesiones.obtenerArchivada(idSesion)));
+        log.info("Sesiones archivadas indexadas para la búsqueda: {}", pendientes.size());
+    }
+
+    private boolean existeColumna(String tabla, String columna) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(EXISTE_COLUMNA, Boolean.class, tabla, columna));
+    }
+
+    private Migracion sql(String nombre, String... sentencias) {
+        return new Migracion(nombre, () -> {
+            for (String sentencia : sentencias) {
+                jdbcTemplate.execute(sentencia);
+            }
+        });
+    }
+}
@@ -0,0 +1,377 @@
+package com.example.Proyecto.Service;
+
+import com.example.Proyecto.DTO.ContextoNutricionalDTO;
+import com.example.Proyecto.DTO.NutrientesRecomendadosDTO;
+import com.example.Proyecto.DTO.NutrientesTotalesDTO;
+import com.example.Proyecto.DTO.RespuestaChatbotDTO;
+import com.example.Proyecto.Model.ComidaRutinaIA;
+import com.example.Proyecto.Model.InteraccionChatbot.TipoAccion;
+import com.example.Proyecto.Model.InteraccionChatbot.TipoIntento;
+import com.example.Proyecto.Repository.ComidaRutinaIARepository;
+import com.example.Proyecto.Repository.ComidaRutinaIARepository.AlimentoDelDia;
+import com.example.Proyecto.Repository.RegistroAguaRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Clasifica los mensajes del chat y responde directamente los que no necesitan IA.
+ *
+ * Las frases clave de cada intención se compilan una sola vez en un autómata de Aho–Corasick, así que
+ * clasificar cuesta una pasada por el mensaje. Fechas y cantidades se sacan con unas pocas expresiones regulares.
+ * Registrar o consultar agua, ver la rutina de un día y el consumo de hoy se responden desde los servicios;
+ * agregar, cambiar o eliminar alimentos solo se clasifican (la app sigue su flujo). Lo demás va a la pasarela de IA.
+ */
+@Service
+public class MotorIntencionesService {
+
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    /** Intenciones en orden de prioridad: si el mensaje tiene frases de varias, gana la primera. */
+    public enum Intencion {
+        REGISTRAR_AGUA(TipoIntento.Otros, TipoAccion.Agregar, false),
+        AGREGAR_ALIMENTO(TipoIntento.Modificar_Rutina, TipoAccion.Agregar, false),
+        CAMBIAR_ALIMENTO(TipoIntento.Modificar_Rutina, TipoAccion.Modificar, false),
+        ELIMINAR_ALIMENTO(TipoIntento.Modificar_Rutina, TipoAccion.Eliminar, false),
+        GENERAR_RUTINA(TipoIntento.Modificar_Rutina, TipoAccion.Agregar, true),
+        VER_RUTINA(TipoIntento.Otros, null, false),
+        CONSULTAR_AGUA(TipoIntento.Otros, null, false),
+        CONSUMO_HOY(TipoIntento.Pregunta_Nutricional, null, false),
+        PREGUNTA_NUTRICIONAL(TipoIntento.Pregunta_Nutricional, null, true),
+        OTRO(TipoIntento.Otros, null, true);
+
+        public final TipoIntento tipoIntento;
+        public final TipoAccion tipoAccion;
+        public final boolean requiereIA;
+
+        Intencion(TipoIntento tipoIntento, TipoAccion tipoAccion, boolean requiereIA) {
+            this.tipoIntento = tipoIntento;
+            this.tipoAccion = tipoAccion;
+            this.requiereIA = requiereIA;
+        }
+    }
+
+    /** Resultado de clasificar un mensaje; fecha y cantidad son null si el mensaje no las trae. */
+    public record Clasificacion(Intencion intencion, String tema, LocalDate fecha, boolean fechaInvalida, Integer cantidadMl) {
+    }
+
+    // Frases ya normalizadas (minúsculas, sin tildes, sin puntuación); ver PasarelaIAService.normalizar
+    private static final Map<String, Intencion> FRASES = new LinkedHashMap<>();
+
+    static {
+        // Solo cuentan como registro con un verbo de orden o en pasado y sin ser pregunta (ver esOrdenDeRegistro)
+        frases(Intencion.REGISTRAR_AGUA, "registrar agua", "registra agua", "agregar agua", "añadir agua", "anadir agua",
+                "tome agua", "bebi agua", "vaso de agua", "vasos de agua", "ml de agua", "litro de agua", "litros de agua",
+                "taza de agua", "tazas de agua");
+        frases(Intencion.AGREGAR_ALIMENTO, "agregar alimento", "añadir alimento", "anadir alimento", "agregar un alimento",
+                "añadir un alimento", "agregar comida");
+        frases(Intencion.CAMBIAR_ALIMENTO, "cambiar alimento", "modificar alimento", "reemplazar alimento",
+                "cambiar un alimento", "cambiar el alimento");
+        frases(Intencion.ELIMINAR_ALIMENTO, "eliminar alimento", "quitar alimento", "borrar alimento",
+                "eliminar un alimento", "quitar el alimento");
+        frases(Intencion.GENERAR_RUTINA, "generar rutina", "generar una rutina", "generar otra", "nueva rutina",
+                "otra rutina", "rutina diferente", "otra diferente", "cambiar rutina", "cambiar mi rutina");
+        frases(Intencion.VER_RUTINA, "ver rutina", "ver mi rutina", "mi rutina", "rutina de hoy", "rutina de mañana",
+                "rutina de pasado mañana", "rutina de ayer", "rutina del", "mostrar rutina", "rutina nutricional", "ver rurina");
+        frases(Intencion.CONSULTAR_AGUA, "cuanta agua", "agua de hoy", "agua llevo", "agua he tomado", "mi hidratacion");
+        frases(Intencion.CONSUMO_HOY, "calorias llevo", "cuantas calorias llevo", "que he comido", "comido hoy",
+                "consumo de hoy", "mi consumo", "resumen de hoy", "como voy hoy", "cuanto me falta", "me faltan");
+        frases(Intencion.PREGUNTA_NUTRICIONAL, "caloria", "calorias", "proteina", "proteinas", "carbohidrato", "carbohidratos",
+                "grasa", "grasas", "fibra", "azucar", "azucares", "sodio", "vitamina", "vitaminas", "dieta", "nutricion",
+                "alimentacion", "desayuno", "almuerzo", "cena", "snack", "fruta", "frutas", "verduras", "vegetales",
+                "perder peso", "bajar peso", "adelgazar", "ganar musculo", "masa muscular", "saludable", "es bueno", "es buena");
+    }
+
+    private static void frases(Intencion intencion, String... textos) {
+        for (String texto : textos) {
+            FRASES.putIfAbsent(PasarelaIAService.normalizar(texto), intencion);
+        }
+    }
+
+    private static final AhoCorasick<Intencion> AUTOMATA = new AhoCorasick<>(FRASES);
+
+    private static final String UNIDADES = "(ml|mililitros?|cc|l|lt|litros?|vasos?|tazas?)\\b";
+
+    // Sobre el texto en minúsculas (sin normalizar: se necesitan / - y los decimales)
+    private static final Pattern FECHA_ISO = Pattern.compile("\\b(\\d{4})-(\\d{1,2})-(\\d{1,2})\\b");
+    private static final Pattern FECHA_DIA_MES = Pattern.compile(
+            "\\b(\\d{1,2})[/-](\\d{1,2})(?:[/-](\\d{2,4}))?\\b(?!\\s*" + UNIDADES + ")", Pattern.UNICODE_CHARACTER_CLASS);
+    // El número no puede venir pegado a otro (así "1/2 litro" no se lee como "2 litro")
+    private static final Pattern CANTIDAD = Pattern.compile(
+            "(?<![\\d/.,])(\\d+(?:[.,]\\d+)?)\\s*" + UNIDADES, Pattern.UNICODE_CHARACTER_CLASS);
+    // "1/2 litro", "1 1/2 vasos"; la fecha dd/mm no se confunde con esto porque no va seguida de una unidad
+    private static final Pattern CANTIDAD_FRACCION = Pattern.compile(
+            "(?<![\\d/.,])(?:(\\d+)\\s+)?(\\d+)\\s*/\\s*(\\d+)\\s*" + UNIDADES, Pattern.UNICODE_CHARACTER_CLASS);
+    private static final Pattern CANTIDAD_PALABRA = Pattern.compile(
+            "\\b(un|una|medio)\\s+(vaso|taza|litro)\\b", Pattern.UNICODE_CHARACTER_CLASS);
+    // Sobre el texto normalizado; "por la mañana" no es una fecha
+    private static final Pattern FECHA_RELATIVA = Pattern.compile(
+            "\\b(pasado mañana|(?<!la )mañana|ayer|hoy)\\b", Pattern.UNICODE_CHARACTER_CLASS);
+    // Sobre el texto normalizado: orden (registra, anota...) o pasado (tomé, bebí, he tomado...)
+    private static final Pattern VERBO_REGISTRO = Pattern.compile(
+            "\\b(registra|registrar|registre|anota|anotar|apunta|apuntar|agrega|agregar|añade|añadir|anade|anadir|suma|sumar" +
+                    "|tome|bebi|tomamos|bebimos|he tomado|he bebido|acabo de tomar|acabo de beber)\\b",
+            Pattern.UNICODE_CHARACTER_CLASS);
+    private static final Pattern INICIO_PREGUNTA = Pattern.compile(
+            "^(cuanto|cuanta|cuantos|cuantas|que|como|cual|cuales|cuando|por que|debo|deberia|puedo|es)\\b",
+            Pattern.UNICODE_CHARACTER_CLASS);
+
+    @Autowired
+    public GestorSesionesChatbotService gestorSesiones;
+
+    @Autowired
+    public IngestaAguaService ingestaAguaService;
+
+    @Autowired
+    public RegistroAguaRepository registroAguaRepository;
+
+    @Autowired
+    public ComidaRutinaIARepository comidaRutinaIARepository;
+
+    @Autowired
+    public ContextoNutricionalService contextoService;
+
+    @Autowired
+    public PasarelaIAService pasarelaIAService;
+
+    @Autowired
+    public BitacoraChatbotService bitacoraChatbotService;
+
+    public Clasificacion clasificar(String mensaje) {
+        String normalizado = PasarelaIAService.normalizar(mensaje);
+        String minusculas = mensaje.toLowerCase(Locale.ROOT);
+
+        Intencion intencion = Intencion.OTRO;
+        String tema = null;
+        Boolean registro = null;
+        for (AhoCorasick.Coincidencia<Intencion> c : AUTOMATA.buscar(normalizado)) {
+            if (c.valor() == Intencion.REGISTRAR_AGUA) {
+                if (registro == null) {
+                    registro = esOrdenDeRegistro(mensaje, normalizado);
+                }
+                // "¿cuántos vasos de agua debo tomar?" no registra nada: sigue con las demás intenciones
+                if (!registro) {
+                    continue;
+                }
+            }
+            if (c.valor().ordinal() < intencion.ordinal()) {
+                intencion = c.valor();
+                tema = c.frase();
+            }
+        }
+
+        LocalDate fecha = null;
+        boolean fechaInvalida = false;
+        try {
+            fecha = extraerFecha(minusculas, normalizado);
+        } catch (DateTimeException e) {
+            fechaInvalida = true;
+        }
+        return new Clasificacion(intencion, tema, fecha, fechaInvalida, extraerCantidadMl(minusculas));
+    }
+
+    /**
+     * Responde un mensaje del chat. Lo que se puede resolver con los datos del usuario se responde en el momento;
+     * el resto se pasa a la pasarela de IA con el contexto nutricional del usuario. El turno queda en la bitácora.
+     *
+     * @throws IllegalArgumentException Si falta el mensaje o la sesión no está abierta o no es del usuario
+     */
+    public CompletableFuture<RespuestaChatbotDTO> responder(Long idUsuario, Long idSesion, String mensaje) {
+        return responder(idUsuario, idSesion, mensaje, true, null, () -> false);
+    }
+
+    /**
+     * Igual que responder, pero si el mensaje va a la IA el texto se entrega a alFragmento a medida que llega
+     * (ver PasarelaIAService). Las respuestas directas no pasan por alFragmento: van completas en el resultado.
+     *
+     * @param conContexto Si la pregunta abierta se envía con el contexto nutricional del usuario
+     * @param cancelado Se consulta entre fragmentos para cortar la generación; si se corta el turno no se guarda
+     * @throws IllegalArgumentException Si falta el mensaje o la sesión no está abierta o no es del usuario
+     */
+    public CompletableFuture<RespuestaChatbotDTO> responder(Long idUsuario, Long idSesion, String mensaje, boolean conContexto,
+                                                         Consumer<String> alFragmento, BooleanSupplier cancelado) {
+        if (mensaje == null || mensaje.isBlank()) {
+            throw new IllegalArgumentException("El mensaje es obligatorio");
+        }
+        if (!gestorSesiones.usar(idSesion, idUsuario)) {
+            throw new IllegalArgumentException("La sesión no está abierta o no pertenece al usuario");
+        }
+        Clasificacion c = clasificar(mensaje);
+        if (c.intencion().requiereIA) {
+            return pasarelaIAService.consultar(idUsuario, idSesion, mensaje, conContexto, alFragmento, cancelado)
+                    .thenApply(respuesta -> turno(idSesion, mensaje, c, respuesta.respuesta(), true));
+        }
+        return CompletableFuture.completedFuture(turno(idSesion, mensaje, c, responderDirecto(idUsuario, c), false));
+    }
+
+    private RespuestaChatbotDTO turno(Long idSesion, String mensaje, Clasificacion c, String respuesta, boolean desdeIA) {
+        Intencion i = c.intencion();
+        UUID idEntrada = bitacoraChatbotService.registrar(idSesion, mensaje, respuesta, i.tipoIntento, i.tipoAccion, c.tema());
+        return new RespuestaChatbotDTO(i.name(), i.tipoIntento, i.tipoAccion, c.fecha(), c.cantidadMl(), respuesta, desdeIA, idEntrada);
+    }
+
+    private String responderDirecto(Long idUsuario, Clasificacion c) {
+        switch (c.intencion()) {
+            case REGISTRAR_AGUA -> {
+                if (c.cantidadMl() == null) {
+                    return "¿Cuánta agua tomaste? Por ejemplo: \"registrar 250 ml de agua\".";
+                }
+                int total = ingestaAguaService.sumar(idUsuario, c.cantidadMl());
+                return "Listo, registré " + c.cantidadMl() + " ml de agua. Hoy llevas " + total + " ml.";
+            }
+            case CONSULTAR_AGUA -> {
+                LocalDate hoy = LocalDate.now();
+                long total = registroAguaRepository.obtenerTotalAguaPorFecha(idUsuario, hoy) + ingestaAguaService.pendiente(idUsuario, hoy);
+                return "Hoy llevas " + Math.max(total, 0) + " ml de agua.";
+            }
+            case VER_RUTINA -> {
+                if (c.fechaInvalida()) {
+                    return "La fecha no es válida. Escríbela como dd/mm/aaaa, por ejemplo \"ver rutina 12/10/2025\".";
+                }
+                return describirRutina(idUsuario, c.fecha() != null ? c.fecha() : LocalDate.now());
+            }
+            case CONSUMO_HOY -> {
+                return describirConsumo(contextoService.obtener(idUsuario));
+            }
+            case AGREGAR_ALIMENTO -> {
+                return "¿Qué alimento quieres agregar y en qué comida (desayuno, almuerzo, cena o snack)?";
+            }
+            case CAMBIAR_ALIMENTO -> {
+                return "¿Qué alimento de tu rutina quieres cambiar y por cuál?";
+            }
+            case ELIMINAR_ALIMENTO -> {
+                return "¿Qué alimento quieres quitar de tu rutina?";
+            }
+            default -> throw new IllegalStateException("La intención " + c.intencion() + " necesita IA");
+        }
+    }
+
+    private String describirRutina(Long idUsuario, LocalDate fecha) {
+        // DiaSemana sigue el mismo orden que DayOfWeek (lunes a domingo)
+        ComidaRutinaIA.DiaSemana dia = ComidaRutinaIA.DiaSemana.values()[fecha.getDayOfWeek().ordinal()];
+        List<AlimentoDelDia> filas = comidaRutinaIARepository.buscarComidasDelDia(idUsuario, fecha, dia);
+        if (filas.isEmpty()) {
+            return "No tienes una rutina para el " + fecha.format(FORMATO_FECHA) + ". Puedes pedir \"generar rutina\".";
+        }
+        // Una línea por comida en el orden de la consulta; dos comidas del mismo tipo (dos snacks) van por separado
+        Map<Long, List<AlimentoDelDia>> comidas = new LinkedHashMap<>();
+        filas.forEach(f -> comidas.computeIfAbsent(f.getIdComida(), id -> new ArrayList<>()).add(f));
+        StringBuilder texto = new StringBuilder("Rutina del ").append(fecha.format(FORMATO_FECHA)).append(":");
+        comidas.forEach((idComida, alimentos) -> {
+            texto.append("\n- ").append(alimentos.get(0).getTipoComida());
+            if (alimentos.get(0).getNutrientes() != null) {
+                texto.append(String.format(Locale.US, " (%.0f kcal)", alimentos.get(0).getNutrientes().calorias()));
+            }
+            texto.append(": ").append(String.join(", ", alimentos.stream()
+                    .filter(a -> a.getNombreAlimento() != null)
+                    .map(a -> String.format(Locale.US, "%s %.0f %s", a.getNombreAlimento(), a.getCantidad(),
+                            a.getUnidad() == null ? "" : a.getUnidad()).trim())
+                    .toList()));
+        });
+        return texto.toString();
+    }
+
+    private static String describirConsumo(ContextoNutricionalDTO contexto) {
+        NutrientesTotalesDTO hoy = contexto.hoy();
+        NutrientesRecomendadosDTO meta = contexto.objetivos();
+        return String.format(Locale.US, "Hoy llevas %.0f de %.0f kcal. Proteínas %.0f/%.0f g, carbohidratos %.0f/%.0f g, grasas %.0f/%.0f g.",
+                valor(hoy.getCalorias()), valor(meta.getCalorias()),
+                valor(hoy.getProteinas()), valor(meta.getProteinas()),
+                valor(hoy.getCarbohidratos()), valor(meta.getCarbohidratos()),
+                valor(hoy.getGrasas()), valor(meta.getGrasas()));
+    }
+
+    private static float valor(Float f) {
+        return f == null ? 0f : f;
+    }
+
+    // Escribir en los registros del usuario exige un verbo de orden o en pasado, y que el mensaje no sea una pregunta
+    static boolean esOrdenDeRegistro(String mensaje, String normalizado) {
+        if (mensaje.indexOf('?') >= 0 || mensaje.indexOf('¿') >= 0 || INICIO_PREGUNTA.matcher(normalizado).find()) {
+            return false;
+        }
+        return VERBO_REGISTRO.matcher(normalizado).find();
+    }
+
+    // Fecha explícita (aaaa-mm-dd o dd/mm[/aaaa]) o relativa (hoy, mañana, ayer); lanza DateTimeException si no existe
+    static LocalDate extraerFecha(String minusculas, String normalizado) {
+        LocalDate hoy = LocalDate.now();
+        Matcher m = FECHA_ISO.matcher(minusculas);
+        if (m.find()) {
+            return LocalDate.of(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2)), Integer.parseInt(m.group(3)));
+        }
+        m = FECHA_DIA_MES.matcher(minusculas);
+        if (m.find()) {
+            int anio = hoy.getYear();
+            if (m.group(3) != null) {
+                anio = Integer.parseInt(m.group(3));
+                if (anio < 100) {
+                    anio += 2000;
+                }
+            }
+            return LocalDate.of(anio, Integer.parseInt(m.group(2)), Integer.parseInt(m.group(1)));
+        }
+        m = FECHA_RELATIVA.matcher(normalizado);
+        if (m.find()) {
+            return switch (m.group(1)) {
+                case "pasado mañana" -> hoy.plusDays(2);
+                case "mañana" -> hoy.plusDays(1);
+                case "ayer" -> hoy.minusDays(1);
+                default -> hoy;
+            };
+        }
+        return null;
+    }
+
+    // Cantidad de líquido en ml (vaso = 250 ml, taza = 240 ml); fuera de 1..5000 ml o con divisor 0 se ignora
+    static Integer extraerCantidadMl(String minusculas) {
+        double ml;
+        Matcher m = CANTIDAD_FRACCION.matcher(minusculas);
+        if (m.find()) {
+            double divisor = Double.parseDouble(m.group(3));
+            if (divisor == 0) {
+                return null;
+            }
+            double entero = m.group(1) == null ? 0 : Double.parseDouble(m.group(1));
+            ml = (entero + Double.parseDouble(m.group(2)) / divisor) * mlPorUnidad(m.group(4));
+        } else if ((m = CANTIDAD.matcher(minusculas)).find()) {
+            double numero = Double.parseDouble(m.group(1).replace(',', '.'));
+            ml = numero * mlPorUnidad(m.group(2));
+        } else {
+            m = CANTIDAD_PALABRA.matcher(minusculas);
+            if (!m.find()) {
+                return null;
+            }
+            ml = (m.group(1).equals("medio") ? 0.5 : 1) * mlPorUnidad(m.group(2));
+        }
+        long redondeado = Math.round(ml);
+        return redondeado >= 1 && redondeado <= 5000 ? (int) redondeado : null;
+    }
+
+    private static double mlPorUnidad(String unidad) {
+        if (unidad.startsWith("vaso")) {
+            return 250;
+        }
+        if (unidad.startsWith("taza")) {
+            return 240;
+        }
+        if (unidad.equals("l") || unidad.equals("lt") || unidad.startsWith("litro")) {
+            return 1000;
+        }
+        return 1;
+    }
+}
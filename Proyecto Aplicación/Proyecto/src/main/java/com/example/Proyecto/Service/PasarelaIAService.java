@@ -0,0 +1,345 @@
+package com.example.Proyecto.Service;
+
+import com.example.Proyecto.DTO.ContextoNutricionalDTO;
+import com.example.Proyecto.DTO.RespuestaIADTO;
+import com.example.Proyecto.DTO.UsuarioRespuestaDTO;
+import com.example.Proyecto.Model.RegistroRespuestasIA;
+import com.example.Proyecto.Repository.RegistroRespuestasIARepository;
+import com.example.Proyecto.Repository.SesionChatbotRepository;
+import com.example.Proyecto.Repository.UsuarioRepository;
+import com.example.Proyecto.Service.LimiteIntentosService.LimiteExcedidoException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Pasarela hacia el proveedor de IA configurado (ver ProveedorIA).
+ * - Caché semántica en Registro_Respuestas_IA: la clave es el prompt normalizado más un hash del perfil del usuario,
+ *   así una pregunta repetida con el mismo perfil no vuelve a llamar al proveedor.
+ * - Las consultas idénticas en curso comparten una sola llamada (single-flight).
+ * - Cada usuario tiene un máximo de llamadas simultáneas; cada llamada tiene tiempo límite y un cortocircuito común.
+ * - Con conContexto se antepone al prompt el contexto nutricional del usuario (ya armado en memoria) y la clave
+ *   usa ese contexto en lugar del perfil.
+ */
+@Service
+public class PasarelaIAService {
+    private static final Logger log = LoggerFactory.getLogger(PasarelaIAService.class);
+
+    // Largo de Datos_Respuesta: ahí va solo el inicio del texto
+    private static final int LARGO_RESUMEN = 100;
+
+    /** El proveedor está fallando y el cortocircuito está abierto. */
+    public static class ProveedorNoDisponibleException extends RuntimeException {
+        private final long segundosEspera;
+
+        public ProveedorNoDisponibleException(long segundosEspera) {
+            super("Proveedor de IA no disponible, reintente en " + segundosEspera + " s");
+            this.segundosEspera = segundosEspera;
+        }
+
+        public long getSegundosEspera() {
+            return segundosEspera;
+        }
+    }
+
+    @Autowired
+    public ProveedorIA proveedorIA;
+
+    @Autowired
+    public RegistroRespuestasIARepository respuestasIARepository;
+
+    @Autowired
+    public UsuarioRepository usuarioRepository;
+
+    @Autowired
+    public SesionChatbotRepository sesionRepository;
+
+    @Autowired
+    public ContextoNutricionalService contextoService;
+
+    @Autowired
+    public GestorSesionesChatbotService gestorSesiones;
+
+    @Autowired
+    @Qualifier("ejecutorVirtual")
+    public ExecutorService ejecutorVirtual;
+
+    private final long timeoutMs;
+    private final int concurrenciaPorUsuario;
+    private final long ttlCacheMs;
+    private final CircuitoIA circuito;
+
+    /** Una llamada al proveedor en curso y quienes esperan su respuesta (cada uno con su indicador de cancelación). */
+    private static final class Vuelo {
+        final CompletableFuture<RespuestaIADTO> resultado = new CompletableFuture<>();
+        final List<BooleanSupplier> interesados = new CopyOnWriteArrayList<>();
+
+        // La llamada se corta solo cuando ya no queda nadie esperándola
+        boolean abandonado() {
+            return interesados.stream().allMatch(BooleanSupplier::getAsBoolean);
+        }
+    }
+
+    // Consultas en curso por clave y permisos de llamadas simultáneas por usuario
+    private final ConcurrentHashMap<String, Vuelo> enCurso = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Semaphore> permisos = new ConcurrentHashMap<>();
+
+    public PasarelaIAService(@Value("${ia.timeout-ms:30000}") long timeoutMs,
+                             @Value("${ia.concurrencia-por-usuario:2}") int concurrenciaPorUsuario,
+                             @Value("${ia.cache.ttl-horas:24}") long ttlCacheHoras,
+                             @Value("${ia.circuito.fallos:5}") int fallosParaAbrir,
+                             @Value("${ia.circuito.espera-ms:30000}") long esperaCircuitoMs) {
+        this.timeoutMs = timeoutMs;
+        this.concurrenciaPorUsuario = concurrenciaPorUsuario;
+        this.ttlCacheMs = TimeUnit.HOURS.toMillis(ttlCacheHoras);
+        this.circuito = new CircuitoIA(fallosParaAbrir, esperaCircuitoMs);
+    }
+
+    /**
+     * Devuelve la respuesta para el prompt: desde la caché, uniéndose a una consulta idéntica en curso
+     * o llamando al proveedor (la respuesta queda guardada en la sesión).
+     *
+     * @throws IllegalArgumentException Si falta el prompt o la sesión no está abierta o no es del usuario
+     * @throws NoSuchElementException Si el usuario no existe
+     */
+    public CompletableFuture<RespuestaIADTO> consultar(Long idUsuario, Long idSesion, String prompt) {
+        return consultar(idUsuario, idSesion, prompt, false, null, () -> false);
+    }
+
+    /**
+     * Igual que consultar, pero entrega el texto a alFragmento a medida que lo produce el proveedor.
+     * Una respuesta de la caché (o de una consulta idéntica en curso) se entrega en un solo fragmento.
+     * Si cancelado pasa a true el futuro termina con CancellationException; la llamada se corta (y no se guarda nada)
+     * solo si tampoco queda otro cliente esperando la misma respuesta.
+     * Los límites por usuario y el cortocircuito se verifican antes de devolver, así que se pueden responder con su estado HTTP.
+     */
+    public CompletableFuture<RespuestaIADTO> consultar(Long idUsuario, Long idSesion, String prompt, boolean conContexto,
+                                                      Consumer<String> alFragmento, BooleanSupplier cancelado) {
+        if (prompt == null || prompt.isBlank()) {
+            throw new IllegalArgumentException("El prompt es obligatorio");
+        }
+        if (!gestorSesiones.usar(idSesion, idUsuario)) {
+            throw new IllegalArgumentException("La sesión no está abierta o no pertenece al usuario");
+        }
+        String clave;
+        String enviado;
+        if (conContexto) {
+            ContextoNutricionalDTO contexto = contextoService.obtener(idUsuario);
+            String texto = contextoService.comoTexto(contexto);
+            clave = sha256(proveedorIA.nombre() + "\n" + normalizar(prompt) + "\n" + sha256(texto));
+            enviado = texto + "\nPregunta: " + prompt;
+        } else {
+            UsuarioRespuestaDTO perfil = usuarioRepository.buscarRespuestaPorId(idUsuario)
+                    .orElseThrow(() -> new NoSuchElementException("Usuario no encontrado"));
+            clave = clave(prompt, perfil);
+            enviado = prompt;
+        }
+
+        List<RespuestaIADTO> guardada = respuestasIARepository.buscarEnCache(clave,
+                new Timestamp(System.currentTimeMillis() - ttlCacheMs), Limit.of(1));
+        if (!guardada.isEmpty()) {
+            entregar(alFragmento, guardada.get(0));
+            return CompletableFuture.completedFuture(guardada.get(0));
+        }
+
+        Supplier<CompletableFuture<RespuestaIADTO>> porCuentaPropia =
+                () -> consultar(idUsuario, idSesion, prompt, conContexto, alFragmento, cancelado);
+        Vuelo existente = enCurso.get(clave);
+        if (existente != null) {
+            return suscribir(existente, true, alFragmento, cancelado, porCuentaPropia);
+        }
+        // El permiso se toma antes de publicar la consulta: quien se une nunca hereda el 429 de otro usuario
+        Semaphore permiso = tomarPermiso(idUsuario);
+        Vuelo nuevo = new Vuelo();
+        existente = enCurso.putIfAbsent(clave, nuevo);
+        if (existente != null) {
+            permiso.release();
+            return suscribir(existente, true, alFragmento, cancelado, porCuentaPropia);
+        }
+        CompletableFuture<RespuestaIADTO> propia = suscribir(nuevo, false, alFragmento, cancelado, porCuentaPropia);
+        nuevo.resultado.whenComplete((respuesta, error) -> enCurso.remove(clave, nuevo));
+        if (!circuito.permitir()) {
+            permiso.release();
+            ProveedorNoDisponibleException e = new ProveedorNoDisponibleException(circuito.segundosHastaReintento());
+            nuevo.resultado.completeExceptionally(e);
+            throw e;
+        }
+        llamarProveedor(idUsuario, idSesion, enviado, clave, permiso, nuevo.resultado, alFragmento, nuevo::abandonado);
+        return propia;
+    }
+
+    public CircuitoIA.Estado estadoCircuito() {
+        return circuito.estado();
+    }
+
+    private RespuestaIADTO entregar(Consumer<String> alFragmento, RespuestaIADTO respuesta) {
+        if (alFragmento != null) {
+            alFragmento.accept(respuesta.respuesta());
+        }
+        return respuesta;
+    }
+
+    /**
+     * Futuro propio de quien espera la llamada: si este cliente se va, termina con CancellationException
+     * sin cortar la llamada para los demás. Quien se unió a una llamada que igual se cortó (todos los demás
+     * se fueron justo antes) consulta por su cuenta en lugar de heredar la cancelación.
+     */
+    private CompletableFuture<RespuestaIADTO> suscribir(Vuelo vuelo, boolean compartida, Consumer<String> alFragmento,
+                                                        BooleanSupplier cancelado, Supplier<CompletableFuture<RespuestaIADTO>> porCuentaPropia) {
+        vuelo.interesados.add(cancelado);
+        CompletableFuture<RespuestaIADTO> propia = new CompletableFuture<>();
+        vuelo.resultado.whenComplete((respuesta, error) -> {
+            if (cancelado.getAsBoolean()) {
+                propia.completeExceptionally(new CancellationException("Consulta cancelada"));
+            } else if (error == null) {
+                try {
+                    propia.complete(compartida ? entregar(alFragmento, respuesta.comoCompartida()) : respuesta);
+                } catch (RuntimeException e) {
+                    propia.completeExceptionally(e);
+                }
+            } else if (compartida && esCancelacion(error)) {
+                CompletableFuture.supplyAsync(porCuentaPropia, ejecutorVirtual).thenCompose(f -> f)
+                        .whenComplete((otra, errorOtra) -> {
+                            if (errorOtra != null) {
+                                propia.completeExceptionally(errorOtra);
+                            } else {
+                                propia.complete(otra);
+                            }
+                        });
+            } else {
+                propia.completeExceptionally(error);
+            }
+        });
+        return propia;
+    }
+
+    // Se toma dentro de compute para no competir con limpiar(): un semáforo con permisos tomados nunca se descarta
+    private Semaphore tomarPermiso(Long idUsuario) {
+        boolean[] tomado = new boolean[1];
+        Semaphore permiso = permisos.compute(idUsuario, (id, actual) -> {
+            Semaphore semaforo = actual != null ? actual : new Semaphore(concurrenciaPorUsuario);
+            tomado[0] = semaforo.tryAcquire();
+            return semaforo;
+        });
+        if (!tomado[0]) {
+            throw new LimiteExcedidoException(1);
+        }
+        return permiso;
+    }
+
+    private static boolean esCancelacion(Throwable error) {
+        return error instanceof CancellationException || error != null && error.getCause() instanceof CancellationException;
+    }
+
+    private void llamarProveedor(Long idUsuario, Long idSesion, String prompt, String clave, Semaphore permiso,
+                                 CompletableFuture<RespuestaIADTO> resultado, Consumer<String> alFragmento, BooleanSupplier cancelado) {
+        Duration limite = Duration.ofMillis(timeoutMs);
+        CompletableFuture.supplyAsync(() -> alFragmento == null
+                        ? proveedorIA.generar(prompt, limite)
+                        : proveedorIA.generarEnPartes(prompt, limite, alFragmento, cancelado), ejecutorVirtual)
+                .orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .whenComplete((texto, error) -> {
+                    permiso.release();
+                    if (esCancelacion(error)) {
+                        // Todos los clientes se fueron: no cuenta como fallo del proveedor, pero libera la prueba del semiabierto
+                        circuito.cancelado();
+                        resultado.completeExceptionally(new CancellationException("Consulta cancelada"));
+                        return;
+                    }
+                    if (error != null) {
+                        circuito.fallo();
+                        log.warn("Falló la llamada a {}: {}", proveedorIA.nombre(), error.toString());
+                        resultado.completeExceptionally(error);
+                        return;
+                    }
+                    circuito.exito();
+                    resultado.complete(guardar(idUsuario, idSesion, clave, texto));
+                });
+    }
+
+    // Si no se puede guardar, la respuesta igual se entrega (solo se pierde la entrada de caché)
+    private RespuestaIADTO guardar(Long idUsuario, Long idSesion, String clave, String texto) {
+        try {
+            RegistroRespuestasIA registro = new RegistroRespuestasIA();
+            registro.setDatosRespuesta(texto.length() > LARGO_RESUMEN ? texto.substring(0, LARGO_RESUMEN) : texto);
+            registro.setRespuestaCompleta(texto);
+            registro.setClaveCache(clave);
+            registro.setProveedor(proveedorIA.nombre());
+            registro.setCreadoEn(new Timestamp(System.currentTimeMillis()));
+            registro.setSesionChatbot(sesionRepository.getReferenceById(idSesion));
+            registro.setUsuario(usuarioRepository.getReferenceById(idUsuario));
+            RegistroRespuestasIA guardado = respuestasIARepository.save(registro);
+            return new RespuestaIADTO(guardado.getIdRespuesta(), texto, proveedorIA.nombre(), false);
+        } catch (RuntimeException e) {
+            log.error("No se pudo guardar la respuesta de IA de la sesión {}: {}", idSesion, e.getMessage());
+            return new RespuestaIADTO(null, texto, proveedorIA.nombre(), false);
+        }
+    }
+
+    // Los semáforos sin llamadas en curso se descartan; se vuelven a crear en la próxima consulta.
+    // computeIfPresent bloquea la entrada igual que tomarPermiso, así no se descarta uno que se está tomando
+    @Scheduled(fixedDelay = 600_000)
+    public void limpiar() {
+        for (Long idUsuario : permisos.keySet()) {
+            permisos.computeIfPresent(idUsuario, (id, semaforo) ->
+                    semaforo.availablePermits() >= concurrenciaPorUsuario ? null : semaforo);
+        }
+    }
+
+    /**
+     * Clave de caché: proveedor, prompt normalizado y los datos del perfil que cambian la recomendación.
+     */
+    String clave(String prompt, UsuarioRespuestaDTO perfil) {
+        String contexto = String.join("|",
+                String.valueOf(perfil.getFechaNacimiento()), String.valueOf(perfil.getSexo()),
+                String.valueOf(perfil.getAltura()), String.valueOf(perfil.getPeso()), String.valueOf(perfil.getPesoObjetivo()),
+                String.valueOf(perfil.getNivelActividad()), String.valueOf(perfil.getObjetivosSalud()),
+                String.valueOf(perfil.getRestriccionesDieta()));
+        return sha256(proveedorIA.nombre() + "\n" + normalizar(prompt) + "\n" + sha256(contexto));
+    }
+
+    /**
+     * Minúsculas, sin tildes ni diéresis (la ñ se conserva), sin signos de puntuación y con espacios simples:
+     * "¿Qué desayuno me recomiendas?" y "que desayuno me recomiendas" dan lo mismo.
+     */
+    static String normalizar(String prompt) {
+        String texto = Normalizer.normalize(prompt.toLowerCase(Locale.ROOT), Normalizer.Form.NFD)
+                .replaceAll("[\\u0301\\u0308]", "");
+        texto = Normalizer.normalize(texto, Normalizer.Form.NFC);
+        return texto.replaceAll("[^\\p{L}\\p{N}]+", " ").trim();
+    }
+
+    private static String sha256(String texto) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(texto.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.Proyecto.Service;
+
+import java.util.Set;
+
+/**
+ * Se publica una vez por cada actualización de perfil, con los campos que cambiaron,
+ * para invalidar los datos derivados (recomendaciones, etc.).
+ */
+public record PerfilActualizadoEvent(Long idUsuario, Set<String> campos) {
+}
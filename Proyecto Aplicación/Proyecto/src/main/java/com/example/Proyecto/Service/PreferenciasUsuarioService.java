@@ -1,8 +1,10 @@
 package com.example.Proyecto.Service;
 
+import com.example.Proyecto.DTO.PreferenciasUsuarioDTO;
 import com.example.Proyecto.Model.PreferenciasUsuario;
 import com.example.Proyecto.Repository.PreferenciasUsuarioRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Service;
 
@@ -15,10 +17,13 @@ public class PreferenciasUsuarioService {
     @Autowired
     public PreferenciasUsuarioRepository preferenciaRepository;
 
-    public List<PreferenciasUsuario> listarPreferenciasUsuario(){
+    @Autowired
+    public ApplicationEventPublisher eventPublisher;
+
+    public List<PreferenciasUsuarioDTO> listarPreferenciasUsuario(){
         // Validacion para intentar obtener la lista de Preferencias de Usuario
         try {
-            List<PreferenciasUsuario> preferenciasUsuarios = preferenciaRepository.findAll();
+            List<PreferenciasUsuarioDTO> preferenciasUsuarios = preferenciaRepository.listarDTO();
             // Validar que la lista no sea nula
             if (preferenciasUsuarios == null) {
                 throw new IllegalStateException("No se encontraron Preferencias de Usuario.");
@@ -48,7 +53,9 @@ public class PreferenciasUsuarioService {
             if(preferenciasUsuario==null) {
                 throw new IllegalArgumentException("La Preferencia de Usuario no puede ser nulo");
             }else {
-                return preferenciaRepository.save(preferenciasUsuario);
+                PreferenciasUsuario guardada = preferenciaRepository.save(preferenciasUsuario);
+                avisarCambio(guardada);
+                return guardada;
             }
         }catch (Exception e){
             throw new RuntimeException("Error al intentar guardar la preferencia de usuario" + e.getMessage(), e);
@@ -60,10 +67,10 @@ public class PreferenciasUsuarioService {
             if (id_preferencia<=0) {
                 throw new IllegalArgumentException("El ID de la Preferencia del Usuario debe ser un número positivo.");
             }
-            if (!preferenciaRepository.existsById(id_preferencia)) {
-                throw new NoSuchElementException("No se encontró una Preferencia del Usuario con el ID: " + id_preferencia);
-            }
+            PreferenciasUsuario preferencia = preferenciaRepository.findById(id_preferencia)
+                    .orElseThrow(() -> new NoSuchElementException("No se encontró una Preferencia del Usuario con el ID: " + id_preferencia));
             preferenciaRepository.deleteById(id_preferencia);
+            avisarCambio(preferencia);
         }catch (Exception e){
             throw new RuntimeException("Error al eliminar la Preferencia de Usuario "+ id_preferencia +": "+ e.getMessage(), e);
         }
@@ -77,12 +84,21 @@ public class PreferenciasUsuarioService {
             preferenciaExistente.setComidasPreferidas(preferenciaActualizado.getComidasPreferidas());
             preferenciaExistente.setAlimentosExcluidos(preferenciaActualizado.getAlimentosExcluidos());
             preferenciaExistente.setConfiguracionesNotificaciones(preferenciaActualizado.getConfiguracionesNotificaciones());
-            return preferenciaRepository.save(preferenciaExistente);
+            PreferenciasUsuario guardada = preferenciaRepository.save(preferenciaExistente);
+            avisarCambio(guardada);
+            return guardada;
         }else{
             return null;
         }
     }
 
+    // Los alimentos excluidos son parte del contexto nutricional del usuario
+    private void avisarCambio(PreferenciasUsuario preferencia) {
+        if (preferencia.getUsuario() != null) {
+            eventPublisher.publishEvent(new DatosNutricionalesCambiadosEvent(preferencia.getUsuario().getIdUsuario()));
+        }
+    }
+
     public List<PreferenciasUsuario> obtenerPreferenciaPorUsuario(@Param("id_usuario") Integer id_usuario){
         return preferenciaRepository.obtenerPreferenciasPorUsuario(id_usuario);
     }
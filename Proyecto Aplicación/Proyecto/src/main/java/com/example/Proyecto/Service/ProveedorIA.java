@@ -0,0 +1,40 @@
+package com.example.Proyecto.Service;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Proveedor de modelos de lenguaje detrás de PasarelaIAService.
+ * Se elige con ia.proveedor (gemini por defecto, stub para desarrollo y pruebas); cada implementación es un bean condicional.
+ */
+public interface ProveedorIA {
+
+    // Nombre corto del proveedor y modelo (se guarda con la respuesta y forma parte de la clave de caché)
+    String nombre();
+
+    /**
+     * Genera la respuesta completa para el prompt.
+     *
+     * @param limite Tiempo máximo de la llamada; el proveedor debe cortar la conexión al vencer
+     * @throws RuntimeException Si el proveedor falla o responde en un formato inesperado
+     */
+    String generar(String prompt, Duration limite);
+
+    /**
+     * Genera la respuesta entregando cada fragmento apenas llega y devuelve el texto completo.
+     * Por defecto entrega todo en un solo fragmento; los proveedores con streaming lo sobrescriben.
+     *
+     * @param cancelado Se consulta entre fragmentos; si devuelve true se corta la llamada
+     * @throws CancellationException Si se canceló antes de terminar
+     */
+    default String generarEnPartes(String prompt, Duration limite, Consumer<String> alFragmento, BooleanSupplier cancelado) {
+        String texto = generar(prompt, limite);
+        if (cancelado.getAsBoolean()) {
+            throw new CancellationException("Consulta cancelada");
+        }
+        alFragmento.accept(texto);
+        return texto;
+    }
+}
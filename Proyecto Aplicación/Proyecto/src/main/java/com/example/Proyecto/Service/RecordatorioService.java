@@ -1,5 +1,6 @@
 package com.example.Proyecto.Service;
 
+import com.example.Proyecto.DTO.RecordatorioDTO;
 import com.example.Proyecto.Model.Recordatorio;
 import com.example.Proyecto.Repository.RecordatorioRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,10 +16,10 @@ public class RecordatorioService {
     @Autowired
     public RecordatorioRepository recordatorioRepository;
 
-    public List<Recordatorio> listarRecordatorios(){
+    public List<RecordatorioDTO> listarRecordatorios(){
         // Validacion para intentar obtener la lista de Recordatorios
         try {
-            List<Recordatorio> recordatorios = recordatorioRepository.findAll();
+            List<RecordatorioDTO> recordatorios = recordatorioRepository.listarDTO();
             // Validar que la lista no sea nula
             if (recordatorios == null) {
                 throw new IllegalStateException("No se encontraron Recordatorios.");
@@ -1,11 +1,12 @@
 package com.example.Proyecto.Service;
 
+import com.example.Proyecto.DTO.RegistroAguaRespuestaDTO;
 import com.example.Proyecto.Model.RegistroAgua;
-import com.example.Proyecto.Model.Usuario;
 import com.example.Proyecto.Repository.RegistroAguaRepository;
 import com.example.Proyecto.Repository.UsuarioRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -20,10 +21,24 @@ public class RegistroAguaService {
     @Autowired
     public UsuarioRepository usuarioRepository;
 
-    public List<RegistroAgua> listarRegistrosAgua(){
+    @Autowired
+    public RegistroEliminadoService registroEliminadoService;
+
+    @Autowired
+    public ActividadService actividadService;
+
+    @Autowired
+    public IngestaAguaService ingestaAguaService;
+
+    // Las operaciones que fijan o borran el total vuelcan antes los toques pendientes, y eso debe pasar sin
+    // transacción abierta: el volcado toma su propia conexión y el pool solo tiene 3
+    @Autowired
+    public TransactionTemplate transactionTemplate;
+
+    public List<RegistroAguaRespuestaDTO> listarRegistrosAgua(){
         // Validacion para intentar obtener la lista de Registros de Agua
         try {
-            List<RegistroAgua> registroAguas = registroAguaRepository.findAll();
+            List<RegistroAguaRespuestaDTO> registroAguas = registroAguaRepository.listarDTO();
             // Validar que la lista no sea nula
             if (registroAguas == null) {
                 throw new IllegalStateException("No se encontraron Registros de Agua.");
@@ -64,7 +79,13 @@ public class RegistroAguaService {
                 }
 
                  */
-                return  registroAguaRepository.save(registroAgua);
+                boolean nuevo = registroAgua.getIdRegistroAgua() == null;
+                RegistroAgua guardado = registroAguaRepository.save(registroAgua);
+                if (nuevo) {
+                    ingestaAguaService.registrarAjuste(registroAgua.getUsuario().getIdUsuario(), guardado.getFecha(), guardado.getCantidadml());
+                }
+                actividadService.marcar(registroAgua.getUsuario().getIdUsuario(), guardado.getFecha(), ActividadService.TipoActividad.AGUA);
+                return guardado;
             }
         }catch (Exception e){
             throw new RuntimeException("Error al intentar guardar el Registro del Agua" + e.getMessage(), e);
@@ -76,41 +97,60 @@ public class RegistroAguaService {
             if (idRegistroAgua<=0) {
                 throw new IllegalArgumentException("El ID del Registro de Agua debe ser un número positivo.");
             }
-            if (!registroAguaRepository.existsById(idRegistroAgua)) {
-                throw new NoSuchElementException("No se encontró un Registro de Agua con el ID: " + idRegistroAgua);
-            }
-            registroAguaRepository.deleteById(idRegistroAgua);
+            ingestaAguaService.volcar();
+            transactionTemplate.executeWithoutResult(estado -> {
+                RegistroAgua registro = registroAguaRepository.findById(idRegistroAgua)
+                        .orElseThrow(() -> new NoSuchElementException("No se encontró un Registro de Agua con el ID: " + idRegistroAgua));
+                registroEliminadoService.registrarAgua(registro.getUsuario().getIdUsuario(), registro);
+                registroAguaRepository.delete(registro);
+                ingestaAguaService.eliminarDia(registro.getUsuario().getIdUsuario(), registro.getFecha(), registro.getCantidadml());
+                actividadService.revisar(registro.getUsuario().getIdUsuario(), registro.getFecha(), ActividadService.TipoActividad.AGUA);
+            });
         }catch (Exception e){
             throw new RuntimeException("Error al eliminar el Registro de Agua "+ idRegistroAgua +": "+ e.getMessage(), e);
         }
     }
 
     public RegistroAgua actualizarRegistroAgua(long idRegistroAgua, RegistroAgua registroAguaActualizado){
-        Optional<RegistroAgua> registroAguaOpt = registroAguaRepository.findById(idRegistroAgua);
-        if(registroAguaOpt.isPresent()){
-            RegistroAgua registroAguaExistente = registroAguaOpt.get();
-            registroAguaExistente.setCantidadml(registroAguaActualizado.getCantidadml());
-            //registroAguaExistente.setRegistradoEn(new Timestamp(System.currentTimeMillis()));
-            return registroAguaRepository.save(registroAguaExistente);
-        }else{
-            return null;
-        }
+        ingestaAguaService.volcar();
+        return transactionTemplate.execute(estado -> {
+            Optional<RegistroAgua> registroAguaOpt = registroAguaRepository.findById(idRegistroAgua);
+            if(registroAguaOpt.isPresent()){
+                RegistroAgua registroAguaExistente = registroAguaOpt.get();
+                ingestaAguaService.registrarAjuste(registroAguaExistente.getUsuario().getIdUsuario(), registroAguaExistente.getFecha(),
+                        registroAguaActualizado.getCantidadml() - registroAguaExistente.getCantidadml());
+                registroAguaExistente.setCantidadml(registroAguaActualizado.getCantidadml());
+                //registroAguaExistente.setRegistradoEn(new Timestamp(System.currentTimeMillis()));
+                return registroAguaRepository.save(registroAguaExistente);
+            }else{
+                return null;
+            }
+        });
     }
 
+    /**
+     * Fija el total de hoy. La fila se crea con un upsert y se bloquea antes de leerla,
+     * así dos toques seguidos no se pisan; la diferencia queda como evento en Ingesta_Agua.
+     */
     public RegistroAgua registrarAgua(Long idUsuario, int cantidadml) {
-        Usuario usuario = usuarioRepository.findById(idUsuario)
-                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
+        if (!usuarioRepository.existsById(idUsuario)) {
+            throw new RuntimeException("Usuario no encontrado");
+        }
 
         LocalDate hoy = LocalDate.now();
-
-        RegistroAgua registro = registroAguaRepository.findByUsuario_IdUsuarioAndFecha(idUsuario, hoy)
-                .orElse(new RegistroAgua());
-
-        registro.setUsuario(usuario);
-        registro.setFecha(hoy);
-        registro.setCantidadml(cantidadml);
-
-        return registroAguaRepository.save(registro);
+        ingestaAguaService.volcar();
+        return transactionTemplate.execute(estado -> {
+            registroAguaRepository.sumarCantidad(idUsuario, hoy, 0);
+
+            RegistroAgua registro = registroAguaRepository.bloquearPorUsuarioYFecha(idUsuario, hoy)
+                    .orElseThrow(() -> new IllegalStateException("No se pudo crear el registro de agua de hoy"));
+            ingestaAguaService.registrarAjuste(idUsuario, hoy, cantidadml - registro.getCantidadml());
+            registro.setCantidadml(cantidadml);
+
+            RegistroAgua guardado = registroAguaRepository.save(registro);
+            actividadService.marcar(idUsuario, hoy, ActividadService.TipoActividad.AGUA);
+            return guardado;
+        });
     }
 
     public RegistroAgua obtenerRegistroDeHoy(Long idUsuario) {
@@ -119,9 +159,22 @@ public class RegistroAguaService {
                 .orElse(null);
     }
 
+    public RegistroAgua obtenerRegistroPorFecha(Long idUsuario, LocalDate fecha) {
+        return registroAguaRepository
+                .findByUsuario_IdUsuarioAndFecha(idUsuario, fecha)
+                .orElse(null);
+    }
+
     public void eliminarRegistroDeHoy(Long idUsuario) {
         LocalDate hoy = LocalDate.now();
-        registroAguaRepository.eliminarRegistroPorUsuarioYFecha(idUsuario, hoy);
+        ingestaAguaService.volcar();
+        transactionTemplate.executeWithoutResult(estado -> {
+            Optional<RegistroAgua> registro = registroAguaRepository.findByUsuario_IdUsuarioAndFecha(idUsuario, hoy);
+            registro.ifPresent(r -> registroEliminadoService.registrarAgua(idUsuario, r));
+            registroAguaRepository.eliminarRegistroPorUsuarioYFecha(idUsuario, hoy);
+            ingestaAguaService.eliminarDia(idUsuario, hoy, registro.map(RegistroAgua::getCantidadml).orElse(0));
+            actividadService.revisar(idUsuario, hoy, ActividadService.TipoActividad.AGUA);
+        });
     }
 
 }
@@ -1,6 +1,7 @@
 package com.example.Proyecto.Service;
 
 import com.example.Proyecto.DTO.RegistroAlimentoEntradaDTO;
+import com.example.Proyecto.DTO.RegistroAlimentoSalidaDTO;
 import com.example.Proyecto.Model.Alimento;
 import com.example.Proyecto.Model.RegistroAlimento;
 import com.example.Proyecto.Model.UnidadEquivalencia;
@@ -15,6 +16,7 @@ import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -82,8 +84,28 @@ public class RegistroAlimentoService {
         }
     }
 
+    @Autowired
+    public RegistroEliminadoService registroEliminadoService;
+
+    @Autowired
+    public ActividadService actividadService;
+
+    @Autowired
+    public ApplicationEventPublisher eventPublisher;
+
     @Transactional
     public RegistroAlimento guardarRegistro(RegistroAlimentoEntradaDTO dto) {
+        RegistroAlimento registroGuardado = crearRegistro(dto, LocalDateTime.now(), null);
+        // Actualizar estadísticas diarias y mensuales justo después de guardar el registro
+        actualizarEstadisticas(registroGuardado.getUsuario().getIdUsuario(), registroGuardado.getConsumidoEn().toLocalDate());
+        return registroGuardado;
+    }
+
+    /**
+     * Convierte la cantidad a gramos y guarda el registro sin recalcular estadísticas.
+     * Lo usan guardarRegistro y la sincronización offline (que recalcula una sola vez por día afectado).
+     */
+    public RegistroAlimento crearRegistro(RegistroAlimentoEntradaDTO dto, LocalDateTime consumidoEn, String idCliente) {
         Usuario usuario = usuarioRepository.findById(dto.getIdUsuario())
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
 
@@ -93,6 +115,30 @@ public class RegistroAlimentoService {
         String unidadOrigen = dto.getUnidadOriginal().toLowerCase();  // <- original
         String unidadDestino = "gramos";
         float cantidadOriginal = dto.getTamanoOriginal();
+        float cantidadEnGramos = convertirAGramos(alimento, unidadOrigen, cantidadOriginal);
+
+        RegistroAlimento registro = new RegistroAlimento();
+        registro.setUsuario(usuario);
+        registro.setAlimento(alimento);
+        registro.setTamanoPorcion(cantidadEnGramos);      // convertido
+        registro.setUnidadMedida(unidadDestino);          // convertido (gramos)
+        registro.setTamanoOriginal(cantidadOriginal);     // original
+        registro.setUnidadOriginal(unidadOrigen);         // original
+        registro.setMomentoDelDia(dto.getMomentoDelDia());
+        registro.setConsumidoEn(consumidoEn);
+        registro.setIdCliente(idCliente);
+
+        RegistroAlimento guardado = registroAlimentoRepository.save(registro);
+        actividadService.marcar(usuario.getIdUsuario(), consumidoEn.toLocalDate(), ActividadService.TipoActividad.COMIDA);
+        eventPublisher.publishEvent(new DatosNutricionalesCambiadosEvent(usuario.getIdUsuario()));
+        return guardado;
+    }
+
+    /**
+     * Convierte la cantidad original (ej. 2 tazas) a gramos usando la equivalencia del alimento o su cantidad base
+     */
+    public float convertirAGramos(Alimento alimento, String unidadOrigen, float cantidadOriginal) {
+        String unidadDestino = "gramos";
 
         // Validación explícita de unidad original (evita valores inválidos)
         // Aceptar todas las unidades válidas, no solo gramos
@@ -106,8 +152,6 @@ public class RegistroAlimentoService {
             throw new IllegalArgumentException("Unidad original inválida: " + unidadOrigen);
         }
 
-        float cantidadEnGramos;
-
         Optional<UnidadEquivalencia> equivalenciaOpt = unidadEquivalenciaRepository
                 .findByAlimentoAndUnidadOrigenAndUnidadDestino(alimento, unidadOrigen, unidadDestino);
 
@@ -145,44 +189,27 @@ public class RegistroAlimentoService {
             // o se puede crear manualmente más tarde
             // Por ahora, simplemente usar el factor calculado y continuar
         }
-        cantidadEnGramos = cantidadOriginal * factor;
-
-        RegistroAlimento registro = new RegistroAlimento();
-        registro.setUsuario(usuario);
-        registro.setAlimento(alimento);
-        registro.setTamanoPorcion(cantidadEnGramos);      // convertido
-        registro.setUnidadMedida(unidadDestino);          // convertido (gramos)
-        registro.setTamanoOriginal(cantidadOriginal);     // original
-        registro.setUnidadOriginal(unidadOrigen);         // original
-        registro.setMomentoDelDia(dto.getMomentoDelDia());
-        registro.setConsumidoEn(LocalDateTime.now());
-
-        RegistroAlimento registroGuardado = registroAlimentoRepository.save(registro);
-        // Actualizar estadísticas diarias justo después de guardar el registro
-        LocalDate fechaRegistro = registroGuardado.getConsumidoEn().toLocalDate();
-        estadisticasService.guardarEstadisticaDiaria(usuario.getIdUsuario(), fechaRegistro);
-
-        // Actualizar estadísticas mensuales
-        int anio = fechaRegistro.getYear();
-        int mes = fechaRegistro.getMonthValue();
-        estadisticasService.guardarEstadisticaMensual(usuario.getIdUsuario(), anio, mes);
+        return cantidadOriginal * factor;
+    }
 
-        return registroGuardado;
+    public void actualizarEstadisticas(Long idUsuario, LocalDate fechaRegistro) {
+        estadisticasService.guardarEstadisticaDiaria(idUsuario, fechaRegistro);
+        estadisticasService.guardarEstadisticaMensual(idUsuario, fechaRegistro.getYear(), fechaRegistro.getMonthValue());
     }
 
-    public List<RegistroAlimento> obtenerRecientesPorUsuario(Long idUsuario) {
-        return registroAlimentoRepository.findRecientesConAlimento(idUsuario);
+    public List<RegistroAlimentoSalidaDTO> obtenerRecientesPorUsuario(Long idUsuario) {
+        return registroAlimentoRepository.buscarRecientesDTO(idUsuario);
     }
 
+    @Transactional
     public void eliminarRegistroAlimento(long idRegistroAlimento){
         try {
             if (idRegistroAlimento<=0) {
                 throw new IllegalArgumentException("El ID del Registro del Alimento debe ser un número positivo.");
             }
-            if (!registroAlimentoRepository.existsById(idRegistroAlimento)) {
+            if (borrarRegistros(registroAlimentoRepository.borrarPorId(idRegistroAlimento)) == 0) {
                 throw new NoSuchElementException("No se encontró un Registro del Alimento con el ID: " + idRegistroAlimento);
             }
-            registroAlimentoRepository.deleteById(idRegistroAlimento);
         }catch (Exception e){
             throw new RuntimeException("Error al eliminar el Registro del Alimento "+ idRegistroAlimento +": "+ e.getMessage(), e);
         }
@@ -195,7 +222,9 @@ public class RegistroAlimentoService {
             registroAlimentoExistente.setTamanoPorcion(registroAlimentoActualizado.getTamanoPorcion());
             registroAlimentoExistente.setUnidadMedida(registroAlimentoActualizado.getUnidadMedida());
             registroAlimentoExistente.setMomentoDelDia(registroAlimentoActualizado.getMomentoDelDia());
-            return registroAlimentoRepository.save(registroAlimentoExistente);
+            RegistroAlimento guardado = registroAlimentoRepository.save(registroAlimentoExistente);
+            eventPublisher.publishEvent(new DatosNutricionalesCambiadosEvent(guardado.getUsuario().getIdUsuario()));
+            return guardado;
         }else{
             return null;
         }
@@ -207,17 +236,43 @@ public class RegistroAlimentoService {
         return registroAlimentoRepository.findByUsuarioFechaYMomento(idUsuario, inicio, fin, momento);
     }
 
+    @Transactional
     public void eliminarPorMomentoYFecha(Long idUsuario, String momento, LocalDate fecha) {
-        LocalDateTime inicio = fecha.atStartOfDay();
-        LocalDateTime fin = fecha.atTime(LocalTime.MAX);
-        registroAlimentoRepository.deleteByUsuarioFechaYMomento(idUsuario, momento, inicio, fin);
+        eliminarPorRango(idUsuario, fecha, fecha, momento);
+    }
+
+    /**
+     * Borra los registros del usuario entre dos fechas (inclusive), opcionalmente de un solo momento del día.
+     * Devuelve cuántos registros se borraron.
+     */
+    @Transactional
+    public int eliminarPorRango(Long idUsuario, LocalDate desde, LocalDate hasta, String momento) {
+        if (hasta.isBefore(desde)) {
+            throw new IllegalArgumentException("La fecha final no puede ser anterior a la inicial");
+        }
+        return borrarRegistros(registroAlimentoRepository.borrarPorRango(
+                idUsuario, desde.atStartOfDay(), hasta.atTime(LocalTime.MAX), momento));
     }
 
+    @Transactional
     public void eliminarRegistroPorId(Long idRegistro) {
-        if (!registroAlimentoRepository.existsById(idRegistro)) {
+        if (borrarRegistros(registroAlimentoRepository.borrarPorId(idRegistro)) == 0) {
             throw new RuntimeException("Registro no encontrado");
         }
-        registroAlimentoRepository.deleteById(idRegistro);
+    }
+
+    // Con las filas que devolvió el DELETE: deja la marca para la sincronización y descuenta sus nutrientes de las estadísticas
+    private int borrarRegistros(List<RegistroAlimentoRepository.RegistroBorrado> borrados) {
+        if (borrados.isEmpty()) {
+            return 0;
+        }
+        Long idUsuario = borrados.get(0).getIdUsuario();
+        registroEliminadoService.registrarAlimentosBorrados(idUsuario, borrados);
+        estadisticasService.descontarRegistrosBorrados(idUsuario, borrados);
+        borrados.stream().map(b -> b.getConsumidoEn().toLocalDate()).distinct()
+                .forEach(dia -> actividadService.revisar(idUsuario, dia, ActividadService.TipoActividad.COMIDA));
+        eventPublisher.publishEvent(new DatosNutricionalesCambiadosEvent(idUsuario));
+        return borrados.size();
     }
 
     // Obtener todas las unidades de origen de un alimento por su ID.
@@ -0,0 +1,43 @@
+package com.example.Proyecto.Service;
+
+import com.example.Proyecto.Model.RegistroAgua;
+import com.example.Proyecto.Model.RegistroAlimento;
+import com.example.Proyecto.Model.RegistroEliminado;
+import com.example.Proyecto.Repository.RegistroAlimentoRepository;
+import com.example.Proyecto.Repository.RegistroEliminadoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Service
+public class RegistroEliminadoService {
+    @Autowired
+    public RegistroEliminadoRepository registroEliminadoRepository;
+
+    public void registrarAlimentos(Long idUsuario, List<RegistroAlimento> registros) {
+        LocalDateTime ahora = LocalDateTime.now();
+        registroEliminadoRepository.saveAll(registros.stream()
+                .map(r -> new RegistroEliminado(null, RegistroEliminado.TipoRegistro.Alimento,
+                        r.getIdRegistroAlimento(), r.getIdCliente(), idUsuario, ahora))
+                .toList());
+    }
+
+    public void registrarAlimentosBorrados(Long idUsuario, List<RegistroAlimentoRepository.RegistroBorrado> borrados) {
+        LocalDateTime ahora = LocalDateTime.now();
+        registroEliminadoRepository.saveAll(borrados.stream()
+                .map(b -> new RegistroEliminado(null, RegistroEliminado.TipoRegistro.Alimento,
+                        b.getIdRegistro(), b.getIdCliente(), idUsuario, ahora))
+                .toList());
+    }
+
+    public void registrarAgua(Long idUsuario, RegistroAgua registro) {
+        registroEliminadoRepository.save(new RegistroEliminado(null, RegistroEliminado.TipoRegistro.Agua,
+                registro.getIdRegistroAgua(), registro.getIdCliente(), idUsuario, LocalDateTime.now()));
+    }
+
+    public List<RegistroEliminado> eliminadosDesde(Long idUsuario, LocalDateTime desde) {
+        return registroEliminadoRepository.findByIdUsuarioAndEliminadoEnAfter(idUsuario, desde);
+    }
+}
@@ -1,8 +1,11 @@
 package com.example.Proyecto.Service;
 
+import com.example.Proyecto.DTO.PaginaHistorialDTO;
+import com.example.Proyecto.DTO.RespuestaIAResumenDTO;
 import com.example.Proyecto.Model.RegistroRespuestasIA;
 import com.example.Proyecto.Repository.RegistroRespuestasIARepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Service;
 
@@ -93,7 +96,12 @@ public class RegistroRespuestasIAService {
         respuestasIARepository.guardarRespuestaGenerada(id_sesion,datosRespuesta);
     }
 
-    public List<RegistroRespuestasIA> obtenerRespuestasAnteriores(@Param("id_sesion") Integer id_sesion){
-        return respuestasIARepository.consultarRespuestasAnteriores(id_sesion);
+    // Respuestas anteriores de la sesión por páginas, de la más nueva a la más vieja
+    public PaginaHistorialDTO<RespuestaIAResumenDTO> obtenerRespuestasAnteriores(Long id_sesion, String cursor, Integer tamano, Integer maximoRespuesta){
+        CursorHistorial desde = CursorHistorial.decodificar(cursor);
+        int tamanoPagina = CursorHistorial.tamanoPagina(tamano);
+        List<RespuestaIAResumenDTO> filas = respuestasIARepository.consultarRespuestasAnteriores(id_sesion, desde.momento(), desde.id(),
+                CursorHistorial.maximoTexto(maximoRespuesta), Limit.of(tamanoPagina + 1));
+        return CursorHistorial.pagina(filas, tamanoPagina, r -> new CursorHistorial(r.creadoEn(), r.idRespuesta()));
     }
 }
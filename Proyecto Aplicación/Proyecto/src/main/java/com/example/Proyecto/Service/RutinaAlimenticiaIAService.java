@@ -1,5 +1,6 @@
 package com.example.Proyecto.Service;
 
+import com.example.Proyecto.DTO.RutinaAlimenticiaIADTO;
 import com.example.Proyecto.Model.RutinaAlimenticiaIA;
 import com.example.Proyecto.Repository.RutinaAlimenticiaIARepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,10 +17,10 @@ public class RutinaAlimenticiaIAService {
     @Autowired
     public RutinaAlimenticiaIARepository rutinaRepository;
 
-    public List<RutinaAlimenticiaIA> listarRutinasAlimenticiaIA(){
+    public List<RutinaAlimenticiaIADTO> listarRutinasAlimenticiaIA(){
         // Validacion para intentar obtener la lista de las Rutinas AlimenticiaIA
         try {
-            List<RutinaAlimenticiaIA> rutinaAlimenticiaIAS = rutinaRepository.findAll();
+            List<RutinaAlimenticiaIADTO> rutinaAlimenticiaIAS = rutinaRepository.listarDTO();
             // Validar que la lista no sea nula
             if (rutinaAlimenticiaIAS == null) {
                 throw new IllegalStateException("No se encontraron Rutinas AlimenticiaIA.");
@@ -89,7 +90,6 @@ public class RutinaAlimenticiaIAService {
             rutinaExistente.setObjetivoCaloricoDia(rutinaActualizado.getObjetivoCaloricoDia());
             rutinaExistente.setDetalles(rutinaActualizado.getDetalles());
             rutinaExistente.setActualizadoEn(new Timestamp(System.currentTimeMillis()));
-            rutinaExistente.setDias(rutinaActualizado.getDias());
             return rutinaRepository.save(rutinaExistente);
         }else{
             return null;
@@ -0,0 +1,395 @@
+package com.example.Proyecto.Service;
+
+import com.example.Proyecto.DTO.RutinaCompletaDTO;
+import com.example.Proyecto.DTO.RutinaEntradaDTO;
+import com.example.Proyecto.Model.Alimento;
+import com.example.Proyecto.Model.ComidaRutinaIA;
+import com.example.Proyecto.Model.ComidaRutinaIAAlimento;
+import com.example.Proyecto.Model.RutinaAlimenticiaIA;
+import com.example.Proyecto.Model.UnidadEquivalencia;
+import com.example.Proyecto.Model.ValoresNutricionales;
+import com.example.Proyecto.Repository.AlimentoRepository;
+import com.example.Proyecto.Repository.ComidaRutinaIARepository;
+import com.example.Proyecto.Repository.RutinaAlimenticiaIARepository;
+import com.example.Proyecto.Repository.RutinaAlimenticiaIARepository.FilaRutina;
+import com.example.Proyecto.Repository.UnidadEquivalenciaRepository;
+import com.example.Proyecto.Repository.UsuarioRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Rutinas de la IA guardadas de forma estructurada.
+ *
+ * Cada comida guarda sus alimentos en Comida_Rutina_IA_Alimento con la cantidad, la unidad y los nutrientes ya
+ * calculados desde el catálogo; la comida guarda la suma (JSONB) y la rutina el total de cada día (JSONB).
+ * Todo se calcula al escribir, así que leer una rutina es una sola consulta sin interpretar texto.
+ * Los alimentos que no están en el catálogo, o cuya unidad no tiene equivalencia en Unidad_Equivalencia,
+ * se guardan con su nombre y sin nutrientes.
+ */
+@Service
+public class RutinaEstructuradaService {
+
+    // Porción del formato de texto anterior: "150 g", "1 taza", "2"
+    private static final Pattern PORCION = Pattern.compile("(\\d+(?:[.,]\\d+)?)\\s*(\\p{L}+)?", Pattern.UNICODE_CHARACTER_CLASS);
+
+    @Autowired
+    public RutinaAlimenticiaIARepository rutinaRepository;
+
+    @Autowired
+    public ComidaRutinaIARepository comidaRepository;
+
+    @Autowired
+    public AlimentoRepository alimentoRepository;
+
+    @Autowired
+    public UnidadEquivalenciaRepository unidadEquivalenciaRepository;
+
+    @Autowired
+    public UsuarioRepository usuarioRepository;
+
+    /**
+     * Guarda una rutina completa con sus comidas y alimentos, calculando todos los totales.
+     *
+     * @throws IllegalArgumentException Si faltan datos obligatorios o una cantidad no es positiva
+     * @throws NoSuchElementException Si el usuario o un idAlimento no existen
+     */
+    @Transactional
+    public RutinaCompletaDTO crear(RutinaEntradaDTO entrada) {
+        if (entrada == null || entrada.idUsuario() == null) {
+            throw new IllegalArgumentException("El usuario de la rutina es obligatorio.");
+        }
+        if (entrada.fechaInicio() == null) {
+            throw new IllegalArgumentException("La fecha de inicio de la rutina es obligatoria.");
+        }
+        if (entrada.fechaFin() != null && entrada.fechaFin().isBefore(entrada.fechaInicio())) {
+            throw new IllegalArgumentException("La fecha de fin es anterior a la de inicio.");
+        }
+        if (entrada.objetivoCaloricoDia() == null || entrada.objetivoCaloricoDia() <= 0) {
+            throw new IllegalArgumentException("El objetivo calórico diario de la rutina es obligatorio.");
+        }
+
+        RutinaAlimenticiaIA rutina = new RutinaAlimenticiaIA();
+        rutina.setUsuario(usuarioRepository.findById(entrada.idUsuario())
+                .orElseThrow(() -> new NoSuchElementException("Usuario no encontrado")));
+        rutina.setFechaInicio(entrada.fechaInicio());
+        rutina.setFechaFin(entrada.fechaFin());
+        rutina.setObjetivoCaloricoDia(entrada.objetivoCaloricoDia());
+        rutina.setDetalles(entrada.detalles());
+        rutina.setCreadoEn(new Timestamp(System.currentTimeMillis()));
+
+        List<ComidaRutinaIA> comidas = new ArrayList<>();
+        for (RutinaEntradaDTO.Comida c : entrada.comidas() == null ? List.<RutinaEntradaDTO.Comida>of() : entrada.comidas()) {
+            if (c.tipoComida() == null || c.diaSemana() == null || c.diaNumero() <= 0) {
+                throw new IllegalArgumentException("Cada comida necesita tipo, día de la semana y número de día.");
+            }
+            ComidaRutinaIA comida = new ComidaRutinaIA();
+            comida.setRutina(rutina);
+            comida.setTipoComida(c.tipoComida());
+            comida.setDiaNumero(c.diaNumero());
+            comida.setDiaSemana(c.diaSemana());
+            for (RutinaEntradaDTO.AlimentoEntrada a : c.alimentos() == null ? List.<RutinaEntradaDTO.AlimentoEntrada>of() : c.alimentos()) {
+                ComidaRutinaIAAlimento item = new ComidaRutinaIAAlimento();
+                item.setIdAlimento(a.idAlimento());
+                item.setNombreAlimento(a.nombreAlimento());
+                item.setCantidad(a.cantidad());
+                item.setUnidad(a.unidad());
+                comida.getAlimentos().add(item);
+            }
+            comidas.add(comida);
+        }
+        calcular(comidas);
+        rutina.setComidaRutinaIAS(comidas);
+        rutina.setDias(resumirDias(comidas));
+        rutinaRepository.save(rutina);
+        return obtener(rutina.getIdRutina());
+    }
+
+    /**
+     * Rutina con sus días, comidas y alimentos, armada desde una sola consulta.
+     *
+     * @throws NoSuchElementException Si la rutina no existe
+     */
+    @Transactional(readOnly = true)
+    public RutinaCompletaDTO obtener(Long idRutina) {
+        List<FilaRutina> filas = rutinaRepository.buscarRutinaCompleta(idRutina);
+        if (filas.isEmpty()) {
+            throw new NoSuchElementException("Rutina no encontrada");
+        }
+        FilaRutina primera = filas.get(0);
+        Map<Integer, ValoresNutricionales> totalesDia = primera.getDias() == null ? Map.of() : primera.getDias().stream()
+                .collect(Collectors.toMap(RutinaAlimenticiaIA.ResumenDia::diaNumero, RutinaAlimenticiaIA.ResumenDia::nutrientes, (a, b) -> a));
+
+        // Las filas llegan ordenadas por día, comida y orden del alimento
+        Map<Long, List<FilaRutina>> porComida = filas.stream()
+                .filter(f -> f.getIdComida() != null)
+                .collect(Collectors.groupingBy(FilaRutina::getIdComida, LinkedHashMap::new, Collectors.toList()));
+        TreeMap<Integer, List<RutinaCompletaDTO.Comida>> comidasPorDia = new TreeMap<>();
+        Map<Integer, ComidaRutinaIA.DiaSemana> diasSemana = new HashMap<>();
+        porComida.forEach((idComida, filasComida) -> {
+            FilaRutina c = filasComida.get(0);
+            List<RutinaCompletaDTO.Alimento> alimentos = filasComida.stream()
+                    .filter(f -> f.getIdItem() != null)
+                    .map(f -> new RutinaCompletaDTO.Alimento(f.getIdItem(), f.getIdAlimento(), f.getNombreAlimento(),
+                            f.getCantidad(), f.getUnidad(), f.getNutrientesAlimento()))
+                    .toList();
+            comidasPorDia.computeIfAbsent(c.getDiaNumero(), d -> new ArrayList<>())
+                    .add(new RutinaCompletaDTO.Comida(idComida, c.getTipoComida(), c.getNutrientesComida(), alimentos));
+            diasSemana.putIfAbsent(c.getDiaNumero(), c.getDiaSemana());
+        });
+
+        List<RutinaCompletaDTO.Dia> dias = new ArrayList<>();
+        comidasPorDia.forEach((diaNumero, comidas) -> {
+            comidas.sort(Comparator.comparing(RutinaCompletaDTO.Comida::tipoComida));
+            dias.add(new RutinaCompletaDTO.Dia(diaNumero, diasSemana.get(diaNumero),
+                    totalesDia.getOrDefault(diaNumero, ValoresNutricionales.CERO), comidas));
+        });
+        return new RutinaCompletaDTO(primera.getIdRutina(), primera.getFechaInicio(), primera.getFechaFin(),
+                primera.getObjetivoCaloricoDia(), primera.getDetalles(), dias);
+    }
+
+    /**
+     * Agrega un alimento del catálogo al final de una comida y recalcula la comida y el día.
+     *
+     * @param unidad Unidad de la cantidad; sin ella se usa la unidad base del alimento
+     * @throws NoSuchElementException Si la comida o el alimento no existen
+     * @throws IllegalArgumentException Si la cantidad no es positiva o la unidad no tiene equivalencia para el alimento
+     */
+    @Transactional
+    public ComidaRutinaIA agregarAlimento(Long idComida, Long idAlimento, Float cantidad, String unidad) {
+        ComidaRutinaIA comida = comidaRepository.findById(idComida)
+                .orElseThrow(() -> new NoSuchElementException("Comida no encontrada"));
+        if (idAlimento == null) {
+            throw new IllegalArgumentException("El alimento es obligatorio.");
+        }
+        ComidaRutinaIAAlimento item = new ComidaRutinaIAAlimento();
+        item.setIdAlimento(idAlimento);
+        item.setCantidad(cantidad);
+        item.setUnidad(unidad);
+        comida.getAlimentos().add(item);
+        recalcularComida(comida);
+        // Aquí el alimento es del catálogo: sin nutrientes solo puede ser por la unidad
+        if (item.getNutrientes() == null) {
+            throw new IllegalArgumentException("La unidad " + item.getUnidad() + " no tiene equivalencia para el alimento.");
+        }
+        actualizarDias(comida.getRutina());
+        return comidaRepository.save(comida);
+    }
+
+    /**
+     * Quita un alimento de una comida y recalcula la comida y el día.
+     *
+     * @param idItem Fila del alimento dentro de la comida (el mismo alimento puede estar más de una vez)
+     * @throws NoSuchElementException Si la comida no existe o no tiene ese alimento
+     */
+    @Transactional
+    public ComidaRutinaIA quitarAlimento(Long idComida, Long idItem) {
+        ComidaRutinaIA comida = comidaRepository.findById(idComida)
+                .orElseThrow(() -> new NoSuchElementException("Comida no encontrada"));
+        if (!comida.getAlimentos().removeIf(i -> Objects.equals(i.getIdItem(), idItem))) {
+            throw new NoSuchElementException("La comida no tiene ese alimento");
+        }
+        recalcularComida(comida);
+        actualizarDias(comida.getRutina());
+        return comidaRepository.save(comida);
+    }
+
+    /**
+     * Pasa a filas los alimentos de una comida guardada con el formato de texto anterior (Alimentos_Sugeridos y
+     * Tamano_Porciones separados por ", ", punto y coma o saltos de línea, en el mismo orden) y recalcula la comida
+     * y el día. Una porción sin número queda como "1 porción", que no tiene equivalencia y se guarda sin nutrientes.
+     * Lo usa la migración de datos; una comida que ya tiene filas no se toca.
+     */
+    @Transactional
+    public void importarTextoAnterior(Long idComida, String alimentosSugeridos, String tamanoPorciones) {
+        ComidaRutinaIA comida = comidaRepository.findById(idComida).orElse(null);
+        if (comida == null || !comida.getAlimentos().isEmpty()) {
+            return;
+        }
+        List<String> nombres = partes(alimentosSugeridos);
+        List<String> porciones = partes(tamanoPorciones);
+        for (int i = 0; i < nombres.size(); i++) {
+            ComidaRutinaIAAlimento item = new ComidaRutinaIAAlimento();
+            item.setNombreAlimento(recortar(nombres.get(i), 100));
+            Matcher m = PORCION.matcher(i < porciones.size() ? porciones.get(i) : "");
+            float cantidad = m.find() ? Float.parseFloat(m.group(1).replace(',', '.')) : 0;
+            if (cantidad > 0) {
+                item.setCantidad(cantidad);
+                item.setUnidad(m.group(2) == null ? null : recortar(m.group(2), 50));
+            } else {
+                item.setCantidad(1f);
+                item.setUnidad("porción");
+            }
+            comida.getAlimentos().add(item);
+        }
+        if (comida.getAlimentos().isEmpty()) {
+            return;
+        }
+        recalcularComida(comida);
+        actualizarDias(comida.getRutina());
+        comidaRepository.save(comida);
+    }
+
+    /**
+     * Enlaza los alimentos con su comida, los resuelve en el catálogo y recalcula los nutrientes de la comida.
+     */
+    public void recalcularComida(ComidaRutinaIA comida) {
+        calcular(List.of(comida));
+    }
+
+    /**
+     * Recalcula el total de cada día de la rutina a partir de los totales ya guardados en sus comidas.
+     */
+    public void actualizarDias(RutinaAlimenticiaIA rutina) {
+        if (rutina == null || rutina.getIdRutina() == null) {
+            return;
+        }
+        // La consulta devuelve las mismas instancias del contexto de persistencia, con los cambios pendientes
+        rutina.setDias(resumirDias(comidaRepository.findByRutina_IdRutina(rutina.getIdRutina())));
+        rutina.setActualizadoEn(new Timestamp(System.currentTimeMillis()));
+    }
+
+    // Resuelve todos los alimentos de las comidas con dos consultas (catálogo y equivalencias) y asigna nutrientes
+    private void calcular(List<ComidaRutinaIA> comidas) {
+        List<ComidaRutinaIAAlimento> items = new ArrayList<>();
+        for (ComidaRutinaIA comida : comidas) {
+            int orden = 0;
+            for (ComidaRutinaIAAlimento item : comida.getAlimentos()) {
+                if (item.getCantidad() == null || item.getCantidad() <= 0) {
+                    throw new IllegalArgumentException("La cantidad de cada alimento debe ser positiva.");
+                }
+                if (item.getIdAlimento() == null && (item.getNombreAlimento() == null || item.getNombreAlimento().isBlank())) {
+                    throw new IllegalArgumentException("Cada alimento necesita idAlimento o nombreAlimento.");
+                }
+                item.setComida(comida);
+                item.setOrden(orden++);
+                items.add(item);
+            }
+        }
+
+        Set<Long> ids = items.stream().map(ComidaRutinaIAAlimento::getIdAlimento).filter(Objects::nonNull).collect(Collectors.toSet());
+        Set<String> nombres = items.stream().filter(i -> i.getIdAlimento() == null)
+                .map(i -> normalizar(i.getNombreAlimento())).collect(Collectors.toSet());
+        Map<Long, Alimento> porId = ids.isEmpty() ? Map.of() : alimentoRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Alimento::getIdAlimento, Function.identity()));
+        Map<String, Alimento> porNombre = nombres.isEmpty() ? Map.of() : alimentoRepository.buscarPorNombres(nombres).stream()
+                .collect(Collectors.toMap(a -> normalizar(a.getNombreAlimento()), Function.identity(), (a, b) -> a));
+
+        List<Long> encontrados = new ArrayList<>(porId.keySet());
+        porNombre.values().forEach(a -> encontrados.add(a.getIdAlimento()));
+        Map<String, Float> factores = factores(encontrados);
+
+        for (ComidaRutinaIAAlimento item : items) {
+            Alimento alimento;
+            if (item.getIdAlimento() != null) {
+                alimento = porId.get(item.getIdAlimento());
+                if (alimento == null) {
+                    throw new NoSuchElementException("Alimento no encontrado: " + item.getIdAlimento());
+                }
+            } else {
+                alimento = porNombre.get(normalizar(item.getNombreAlimento()));
+            }
+            item.setAlimento(alimento);
+            if (alimento == null) {
+                item.setNutrientes(null);
+                continue;
+            }
+            item.setIdAlimento(alimento.getIdAlimento());
+            item.setNombreAlimento(alimento.getNombreAlimento());
+            if (item.getUnidad() == null || item.getUnidad().isBlank()) {
+                item.setUnidad(alimento.getUnidadBase());
+            }
+            Float proporcion = proporcion(item, alimento, factores);
+            item.setNutrientes(proporcion == null ? null : ValoresNutricionales.de(alimento, proporcion));
+        }
+
+        for (ComidaRutinaIA comida : comidas) {
+            ValoresNutricionales total = ValoresNutricionales.CERO;
+            for (ComidaRutinaIAAlimento item : comida.getAlimentos()) {
+                total = total.mas(item.getNutrientes());
+            }
+            comida.setNutrientes(total);
+        }
+    }
+
+    // "idAlimento|unidad" -> factor a la unidad base del alimento
+    private Map<String, Float> factores(Collection<Long> idsAlimento) {
+        if (idsAlimento.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, Float> factores = new HashMap<>();
+        for (UnidadEquivalencia u : unidadEquivalenciaRepository.buscarPorAlimentos(idsAlimento)) {
+            Alimento alimento = u.getAlimento();
+            if (alimento.getUnidadBase() != null && u.getUnidadDestino().equalsIgnoreCase(alimento.getUnidadBase())) {
+                factores.put(alimento.getIdAlimento() + "|" + normalizar(u.getUnidadOrigen()), u.getFactorConversion());
+            }
+        }
+        return factores;
+    }
+
+    // Igual que en las estadísticas: proporción respecto a la cantidad base del alimento (100 g si no tiene).
+    // null si la unidad no es la base ni tiene equivalencia: tomar la cantidad tal cual daría nutrientes inventados
+    private static Float proporcion(ComidaRutinaIAAlimento item, Alimento alimento, Map<String, Float> factores) {
+        float enUnidadBase = item.getCantidad();
+        if (item.getUnidad() != null && !item.getUnidad().equalsIgnoreCase(alimento.getUnidadBase())) {
+            Float factor = factores.get(alimento.getIdAlimento() + "|" + normalizar(item.getUnidad()));
+            if (factor == null) {
+                return null;
+            }
+            enUnidadBase = item.getCantidad() * factor;
+        }
+        float cantidadBase = alimento.getCantidadBase() != null && alimento.getCantidadBase() > 0 ? alimento.getCantidadBase() : 100f;
+        return enUnidadBase / cantidadBase;
+    }
+
+    private static List<RutinaAlimenticiaIA.ResumenDia> resumirDias(Collection<ComidaRutinaIA> comidas) {
+        TreeMap<Integer, RutinaAlimenticiaIA.ResumenDia> dias = new TreeMap<>();
+        for (ComidaRutinaIA comida : comidas) {
+            dias.merge(comida.getDiaNumero(),
+                    new RutinaAlimenticiaIA.ResumenDia(comida.getDiaNumero(), comida.getDiaSemana(),
+                            ValoresNutricionales.CERO.mas(comida.getNutrientes())),
+                    (a, b) -> new RutinaAlimenticiaIA.ResumenDia(a.diaNumero(), a.diaSemana(), a.nutrientes().mas(b.nutrientes())));
+        }
+        return new ArrayList<>(dias.values());
+    }
+
+    // Una coma seguida de un dígito es decimal ("1,5 tazas"); solo separa la que va seguida de un espacio
+    static List<String> partes(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return List.of();
+        }
+        List<String> partes = new ArrayList<>();
+        for (String parte : texto.split("[;\\n]|,(?=\\s)")) {
+            if (!parte.isBlank()) {
+                partes.add(parte.trim());
+            }
+        }
+        return partes;
+    }
+
+    private static String recortar(String texto, int largo) {
+        return texto.length() > largo ? texto.substring(0, largo) : texto;
+    }
+
+    private static String normalizar(String texto) {
+        return texto.trim().toLowerCase(Locale.ROOT);
+    }
+}
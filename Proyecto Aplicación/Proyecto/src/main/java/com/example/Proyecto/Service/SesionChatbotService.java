@@ -1,10 +1,13 @@
 package com.example.Proyecto.Service;
 
-import com.example.Proyecto.Model.InteraccionChatbot;
+import com.example.Proyecto.DTO.InteraccionResumenDTO;
+import com.example.Proyecto.DTO.PaginaHistorialDTO;
+import com.example.Proyecto.DTO.SesionActivaDTO;
+import com.example.Proyecto.DTO.SesionArchivadaDTO;
+import com.example.Proyecto.DTO.SesionChatbotDTO;
 import com.example.Proyecto.Model.SesionChatbot;
 import com.example.Proyecto.Repository.SesionChatbotRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -16,10 +19,16 @@ public class SesionChatbotService {
     @Autowired
     public SesionChatbotRepository sesionRepository;
 
-    public List<SesionChatbot> listarSesionesChatbot(){
+    @Autowired
+    public InteraccionChatbotService interaccionChatbotService;
+
+    @Autowired
+    public GestorSesionesChatbotService gestorSesiones;
+
+    public List<SesionChatbotDTO> listarSesionesChatbot(){
         // Validacion para intentar obtener la lista de las sesiones del chatbot
         try {
-            List<SesionChatbot> sesionChatbots = sesionRepository.findAll();
+            List<SesionChatbotDTO> sesionChatbots = sesionRepository.listarDTO();
             // Validar que la lista no sea nula
             if (sesionChatbots == null) {
                 throw new IllegalStateException("No se encontraron Sesiones del Chatbot.");
@@ -53,7 +62,9 @@ public class SesionChatbotService {
                 if (sesionChatbot.getInicioSesion() == null) {
                     throw new IllegalArgumentException("El inicio de sesion del chatbot es obligatorio.");
                 }
-                return  sesionRepository.save(sesionChatbot);
+                SesionChatbot guardada = sesionRepository.save(sesionChatbot);
+                gestorSesiones.registrarAbierta(guardada);
+                return guardada;
             }
         }catch (Exception e){
             throw new RuntimeException("Error al intentar guardar la Sesion Chatbot" + e.getMessage(), e);
@@ -88,19 +99,25 @@ public class SesionChatbotService {
         }
     }
 
-    public List<SesionChatbot> sesionesActivas(@Param("id_usuario") Integer id_usuario){
-        return sesionRepository.obtenerSesionesActivas(id_usuario);
+    // Sesiones abiertas del usuario, desde el registro en memoria (ver GestorSesionesChatbotService)
+    public List<SesionActivaDTO> sesionesActivas(Long id_usuario){
+        return gestorSesiones.activasDeUsuario(id_usuario);
+    }
+
+    public SesionChatbot obtenerNuevaSesion(Long id_usuario){
+        return gestorSesiones.iniciar(id_usuario);
     }
 
-    public void obtenerNuevaSesion(@Param("id_usuario") Integer id_usuario){
-        sesionRepository.crearNuevaSesion(id_usuario);
+    public void obtenerFinalizarSesion(Long id_sesion){
+        gestorSesiones.finalizar(id_sesion);
     }
 
-    public void obtenerFinalizarSesion(@Param("id_sesion") Integer id_sesion){
-        sesionRepository.finalizarSesion(id_sesion);
+    public SesionArchivadaDTO sesionArchivada(Long id_sesion){
+        return gestorSesiones.obtenerArchivada(id_sesion);
     }
 
-    public List<InteraccionChatbot> mensajesYRecomendaciones(@Param("id_sesion") Integer id_sesion){
-        return sesionRepository.obtenerMensajesYRecomendaciones(id_sesion);
+    // Mensajes de la sesión por páginas (ver InteraccionChatbotService.HistorialInteracciones)
+    public PaginaHistorialDTO<InteraccionResumenDTO> mensajesYRecomendaciones(Long id_sesion, String cursor, Integer tamano, Integer maximoRespuesta){
+        return interaccionChatbotService.HistorialInteracciones(id_sesion, cursor, tamano, maximoRespuesta);
     }
 }
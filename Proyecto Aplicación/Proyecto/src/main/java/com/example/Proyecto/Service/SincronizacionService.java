@@ -0,0 +1,324 @@
+package com.example.Proyecto.Service;
+
+import com.example.Proyecto.DTO.CambioRegistroDTO;
+import com.example.Proyecto.DTO.MutacionSincronizacionDTO;
+import com.example.Proyecto.DTO.RegistroAlimentoEntradaDTO;
+import com.example.Proyecto.DTO.ResultadoMutacionDTO;
+import com.example.Proyecto.DTO.SincronizacionEntradaDTO;
+import com.example.Proyecto.DTO.SincronizacionRespuestaDTO;
+import com.example.Proyecto.Model.Alimento;
+import com.example.Proyecto.Model.RegistroAgua;
+import com.example.Proyecto.Model.RegistroAlimento;
+import com.example.Proyecto.Model.Usuario;
+import com.example.Proyecto.Repository.AlimentoRepository;
+import com.example.Proyecto.Repository.RegistroAguaRepository;
+import com.example.Proyecto.Repository.RegistroAlimentoRepository;
+import com.example.Proyecto.Repository.UsuarioRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Sincronización de registros de alimento y agua hechos sin conexión.
+ * Cada registro lleva un contador de versión del servidor; si la versión base del cliente no coincide
+ * gana la escritura más reciente (marca del cliente vs. hora de la última escritura en el servidor).
+ * Cada mutación se aplica en su propia transacción: una que falla en la BD no deshace las demás.
+ */
+@Service
+public class SincronizacionService {
+    private static final Logger logger = LoggerFactory.getLogger(SincronizacionService.class);
+
+    // Margen para no perder escrituras que se confirmaron mientras se armaba la respuesta
+    private static final long MARGEN_TOKEN_MS = 2_000;
+
+    @Autowired
+    public RegistroAlimentoRepository registroAlimentoRepository;
+
+    @Autowired
+    public RegistroAguaRepository registroAguaRepository;
+
+    @Autowired
+    public UsuarioRepository usuarioRepository;
+
+    @Autowired
+    public AlimentoRepository alimentoRepository;
+
+    @Autowired
+    public RegistroAlimentoService registroAlimentoService;
+
+    @Autowired
+    public RegistroEliminadoService registroEliminadoService;
+
+    @Autowired
+    public ActividadService actividadService;
+
+    @Autowired
+    public IngestaAguaService ingestaAguaService;
+
+    @Autowired
+    public ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    @Qualifier("transaccionNueva")
+    public TransactionTemplate transaccionNueva;
+
+    public SincronizacionRespuestaDTO sincronizar(SincronizacionEntradaDTO entrada) {
+        Long idUsuario = entrada.getIdUsuario();
+        Usuario usuario = usuarioRepository.findById(idUsuario)
+                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
+
+        // Que los toques de agua acumulados en memoria lleguen a la BD antes de comparar versiones
+        ingestaAguaService.volcar();
+
+        // El token se calcula antes de aplicar las mutaciones para que la app también reciba sus propios cambios
+        long ahora = System.currentTimeMillis();
+
+        List<MutacionSincronizacionDTO> mutaciones = new ArrayList<>(
+                entrada.getMutaciones() == null ? List.of() : entrada.getMutaciones());
+        // Aplicar en el orden en que se hicieron en el dispositivo
+        mutaciones.sort(Comparator.comparing(MutacionSincronizacionDTO::getMarcaCliente,
+                        Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparing(MutacionSincronizacionDTO::getIdCliente,
+                        Comparator.nullsFirst(Comparator.naturalOrder())));
+
+        List<ResultadoMutacionDTO> resultados = new ArrayList<>();
+        Set<LocalDate> diasAfectados = new HashSet<>();
+        for (MutacionSincronizacionDTO mutacion : mutaciones) {
+            try {
+                if (mutacion.getEntidad() == null || mutacion.getOperacion() == null) {
+                    throw new IllegalArgumentException("Entidad y operación son obligatorias");
+                }
+                Set<LocalDate> diasMutacion = new HashSet<>();
+                resultados.add(transaccionNueva.execute(estado ->
+                        mutacion.getEntidad() == MutacionSincronizacionDTO.Entidad.AGUA
+                                ? aplicarAgua(usuario, mutacion)
+                                : aplicarAlimento(usuario, mutacion, diasMutacion)));
+                // Solo cuentan los días de mutaciones confirmadas
+                diasAfectados.addAll(diasMutacion);
+            } catch (RuntimeException e) {
+                logger.warn("Mutación {} rechazada: {}", mutacion.getIdCliente(), e.getMessage());
+                resultados.add(new ResultadoMutacionDTO(mutacion.getIdCliente(), mutacion.getIdServidor(),
+                        ResultadoMutacionDTO.Estado.ERROR, null, e.getMessage()));
+            }
+        }
+
+        // Recalcular estadísticas una sola vez por día afectado
+        if (!diasAfectados.isEmpty()) {
+            transaccionNueva.executeWithoutResult(estado -> diasAfectados.forEach(dia -> {
+                registroAlimentoService.actualizarEstadisticas(idUsuario, dia);
+                actividadService.revisar(idUsuario, dia, ActividadService.TipoActividad.COMIDA);
+            }));
+            // Altas, cambios y bajas de comidas: el contexto nutricional del chatbot queda desactualizado
+            eventPublisher.publishEvent(new DatosNutricionalesCambiadosEvent(idUsuario));
+        }
+
+        return new SincronizacionRespuestaDTO(ahora - MARGEN_TOKEN_MS, resultados, cambiosDesde(idUsuario, entrada.getToken()));
+    }
+
+    private ResultadoMutacionDTO aplicarAlimento(Usuario usuario, MutacionSincronizacionDTO m, Set<LocalDate> diasAfectados) {
+        Long idUsuario = usuario.getIdUsuario();
+
+        if (m.getOperacion() == MutacionSincronizacionDTO.Operacion.CREAR) {
+            // Reintento de una creación que ya llegó
+            Optional<RegistroAlimento> existente = m.getIdCliente() == null ? Optional.empty()
+                    : registroAlimentoRepository.findByUsuario_IdUsuarioAndIdCliente(idUsuario, m.getIdCliente());
+            if (existente.isPresent()) {
+                return resultado(m, existente.get().getIdRegistroAlimento(), existente.get().getVersion(),
+                        ResultadoMutacionDTO.Estado.DUPLICADA);
+            }
+            RegistroAlimentoEntradaDTO dto = new RegistroAlimentoEntradaDTO();
+            dto.setIdUsuario(idUsuario);
+            dto.setIdAlimento(m.getIdAlimento());
+            dto.setTamanoOriginal(m.getTamanoOriginal());
+            dto.setUnidadOriginal(m.getUnidadOriginal());
+            dto.setMomentoDelDia(m.getMomentoDelDia());
+            validarAlimento(dto);
+            LocalDateTime consumidoEn = m.getConsumidoEn() != null ? m.getConsumidoEn() : m.getMarcaCliente();
+            if (consumidoEn == null) {
+                throw new IllegalArgumentException("La fecha de consumo es obligatoria");
+            }
+            RegistroAlimento creado = registroAlimentoService.crearRegistro(dto, consumidoEn, m.getIdCliente());
+            diasAfectados.add(consumidoEn.toLocalDate());
+            return resultado(m, creado.getIdRegistroAlimento(), creado.getVersion(), ResultadoMutacionDTO.Estado.APLICADA);
+        }
+
+        RegistroAlimento registro = buscarAlimento(idUsuario, m);
+        if (registro == null) {
+            // Ya no existe: eliminar es idempotente, actualizar no tiene sobre qué aplicarse
+            if (m.getOperacion() == MutacionSincronizacionDTO.Operacion.ELIMINAR) {
+                return resultado(m, m.getIdServidor(), null, ResultadoMutacionDTO.Estado.APLICADA);
+            }
+            return resultado(m, m.getIdServidor(), null, ResultadoMutacionDTO.Estado.CONFLICTO);
+        }
+        if (!registro.getUsuario().getIdUsuario().equals(idUsuario)) {
+            throw new IllegalArgumentException("El registro no pertenece al usuario");
+        }
+        if (!ganaCliente(m, registro.getVersion(), registro.getModificadoEn())) {
+            return resultado(m, registro.getIdRegistroAlimento(), registro.getVersion(), ResultadoMutacionDTO.Estado.CONFLICTO);
+        }
+
+        diasAfectados.add(registro.getConsumidoEn().toLocalDate());
+        if (m.getOperacion() == MutacionSincronizacionDTO.Operacion.ELIMINAR) {
+            registroEliminadoService.registrarAlimentos(idUsuario, List.of(registro));
+            registroAlimentoRepository.delete(registro);
+            return resultado(m, registro.getIdRegistroAlimento(), null, ResultadoMutacionDTO.Estado.APLICADA);
+        }
+
+        // ACTUALIZAR: solo se cambian los campos que vienen en la mutación
+        if (m.getIdAlimento() != null) {
+            Alimento alimento = alimentoRepository.findById(m.getIdAlimento())
+                    .orElseThrow(() -> new IllegalArgumentException("Alimento no encontrado"));
+            registro.setAlimento(alimento);
+        }
+        if (m.getUnidadOriginal() != null) {
+            registro.setUnidadOriginal(m.getUnidadOriginal().toLowerCase());
+        }
+        if (m.getTamanoOriginal() != null) {
+            registro.setTamanoOriginal(m.getTamanoOriginal());
+        }
+        if (m.getIdAlimento() != null || m.getUnidadOriginal() != null || m.getTamanoOriginal() != null) {
+            registro.setTamanoPorcion(registroAlimentoService.convertirAGramos(
+                    registro.getAlimento(), registro.getUnidadOriginal(), registro.getTamanoOriginal()));
+        }
+        if (m.getMomentoDelDia() != null) {
+            registro.setMomentoDelDia(m.getMomentoDelDia());
+        }
+        if (m.getConsumidoEn() != null) {
+            registro.setConsumidoEn(m.getConsumidoEn());
+            diasAfectados.add(m.getConsumidoEn().toLocalDate());
+        }
+        RegistroAlimento actualizado = registroAlimentoRepository.saveAndFlush(registro);
+        return resultado(m, actualizado.getIdRegistroAlimento(), actualizado.getVersion(), ResultadoMutacionDTO.Estado.APLICADA);
+    }
+
+    private ResultadoMutacionDTO aplicarAgua(Usuario usuario, MutacionSincronizacionDTO m) {
+        Long idUsuario = usuario.getIdUsuario();
+
+        Optional<RegistroAgua> existente;
+        if (m.getIdServidor() != null) {
+            existente = registroAguaRepository.findById(m.getIdServidor());
+        } else if (m.getFecha() != null) {
+            // Hay un único registro de agua por usuario y día, así que la fecha lo identifica
+            existente = registroAguaRepository.findByUsuario_IdUsuarioAndFecha(idUsuario, m.getFecha());
+        } else {
+            throw new IllegalArgumentException("La fecha del registro de agua es obligatoria");
+        }
+        if (existente.isPresent() && !existente.get().getUsuario().getIdUsuario().equals(idUsuario)) {
+            throw new IllegalArgumentException("El registro no pertenece al usuario");
+        }
+
+        if (m.getOperacion() == MutacionSincronizacionDTO.Operacion.ELIMINAR) {
+            if (existente.isEmpty()) {
+                return resultado(m, m.getIdServidor(), null, ResultadoMutacionDTO.Estado.APLICADA);
+            }
+            RegistroAgua registro = existente.get();
+            if (!ganaCliente(m, registro.getVersion(), registro.getModificadoEn())) {
+                return resultado(m, registro.getIdRegistroAgua(), registro.getVersion(), ResultadoMutacionDTO.Estado.CONFLICTO);
+            }
+            registroEliminadoService.registrarAgua(idUsuario, registro);
+            registroAguaRepository.delete(registro);
+            ingestaAguaService.eliminarDia(idUsuario, registro.getFecha(), registro.getCantidadml());
+            actividadService.revisar(idUsuario, registro.getFecha(), ActividadService.TipoActividad.AGUA);
+            return resultado(m, registro.getIdRegistroAgua(), null, ResultadoMutacionDTO.Estado.APLICADA);
+        }
+
+        if (m.getCantidadml() == null || m.getCantidadml() < 0) {
+            throw new IllegalArgumentException("La cantidad de agua es obligatoria");
+        }
+
+        RegistroAgua registro;
+        if (existente.isPresent()) {
+            registro = existente.get();
+            if (m.getOperacion() == MutacionSincronizacionDTO.Operacion.CREAR) {
+                if (!Objects.equals(registro.getIdCliente(), m.getIdCliente())) {
+                    // El día ya tenía total (de otro dispositivo o de la app en línea) que este cliente no vio:
+                    // reemplazarlo perdería esa agua. El cliente recibe el registro del servidor y reenvía
+                    // el cambio como ACTUALIZAR con su versión base.
+                    return resultado(m, registro.getIdRegistroAgua(), registro.getVersion(), ResultadoMutacionDTO.Estado.CONFLICTO);
+                }
+                if (registro.getCantidadml() == m.getCantidadml()) {
+                    return resultado(m, registro.getIdRegistroAgua(), registro.getVersion(), ResultadoMutacionDTO.Estado.DUPLICADA);
+                }
+            }
+            if (!ganaCliente(m, registro.getVersion(), registro.getModificadoEn())) {
+                return resultado(m, registro.getIdRegistroAgua(), registro.getVersion(), ResultadoMutacionDTO.Estado.CONFLICTO);
+            }
+        } else {
+            registro = new RegistroAgua();
+            registro.setUsuario(usuario);
+            registro.setFecha(m.getFecha());
+            registro.setIdCliente(m.getIdCliente());
+        }
+        ingestaAguaService.registrarAjuste(idUsuario, registro.getFecha(), m.getCantidadml() - registro.getCantidadml());
+        registro.setCantidadml(m.getCantidadml());
+        RegistroAgua guardado = registroAguaRepository.saveAndFlush(registro);
+        actividadService.marcar(idUsuario, guardado.getFecha(), ActividadService.TipoActividad.AGUA);
+        return resultado(m, guardado.getIdRegistroAgua(), guardado.getVersion(), ResultadoMutacionDTO.Estado.APLICADA);
+    }
+
+    private RegistroAlimento buscarAlimento(Long idUsuario, MutacionSincronizacionDTO m) {
+        if (m.getIdServidor() != null) {
+            return registroAlimentoRepository.findById(m.getIdServidor()).orElse(null);
+        }
+        if (m.getIdCliente() != null) {
+            return registroAlimentoRepository.findByUsuario_IdUsuarioAndIdCliente(idUsuario, m.getIdCliente()).orElse(null);
+        }
+        throw new IllegalArgumentException("Se requiere idServidor o idCliente");
+    }
+
+    /**
+     * Sin versión base o con la misma versión el cambio se aplica directo.
+     * Si el servidor ya avanzó, gana la escritura más reciente; en empate gana el servidor.
+     */
+    private boolean ganaCliente(MutacionSincronizacionDTO m, Long versionServidor, LocalDateTime modificadoEnServidor) {
+        if (m.getVersionBase() == null || Objects.equals(m.getVersionBase(), versionServidor)) {
+            return true;
+        }
+        return m.getMarcaCliente() != null && modificadoEnServidor != null
+                && m.getMarcaCliente().isAfter(modificadoEnServidor);
+    }
+
+    private void validarAlimento(RegistroAlimentoEntradaDTO dto) {
+        if (dto.getIdAlimento() == null || dto.getTamanoOriginal() == null || dto.getUnidadOriginal() == null) {
+            throw new IllegalArgumentException("Alimento, cantidad y unidad son obligatorios");
+        }
+        if (!alimentoRepository.existsById(dto.getIdAlimento())) {
+            throw new IllegalArgumentException("Alimento no encontrado");
+        }
+    }
+
+    private List<CambioRegistroDTO> cambiosDesde(Long idUsuario, Long token) {
+        List<CambioRegistroDTO> cambios = new ArrayList<>();
+        if (token == null) {
+            // Primera sincronización del dispositivo: copia completa
+            registroAlimentoRepository.findTodosConAlimento(idUsuario).forEach(r -> cambios.add(new CambioRegistroDTO(r)));
+            registroAguaRepository.findByUsuario_IdUsuario(idUsuario).forEach(r -> cambios.add(new CambioRegistroDTO(r)));
+            return cambios;
+        }
+        LocalDateTime desde = LocalDateTime.ofInstant(Instant.ofEpochMilli(token), ZoneId.systemDefault());
+        registroAlimentoRepository.findModificadosDesde(idUsuario, desde).forEach(r -> cambios.add(new CambioRegistroDTO(r)));
+        registroAguaRepository.findModificadosDesde(idUsuario, desde).forEach(r -> cambios.add(new CambioRegistroDTO(r)));
+        registroEliminadoService.eliminadosDesde(idUsuario, desde).forEach(e -> cambios.add(new CambioRegistroDTO(e)));
+        return cambios;
+    }
+
+    private ResultadoMutacionDTO resultado(MutacionSincronizacionDTO m, Long idServidor, Long version, ResultadoMutacionDTO.Estado estado) {
+        return new ResultadoMutacionDTO(m.getIdCliente(), idServidor, estado, version, null);
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.Proyecto.Service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Proveedor local sin red para desarrollo y pruebas: responde siempre lo mismo para el mismo prompt.
+ * Solo se activa con ia.proveedor=stub explícito (lo fija el perfil test); sin la propiedad se usa Gemini.
+ * ia.stub.latencia-ms simula la demora del modelo; llamadas() permite verificar cuántas veces se llegó al proveedor.
+ */
+@Component
+@ConditionalOnProperty(name = "ia.proveedor", havingValue = "stub")
+public class StubProveedorIA implements ProveedorIA {
+
+    private final long latenciaMs;
+    private final AtomicLong llamadas = new AtomicLong();
+
+    public StubProveedorIA(@Value("${ia.stub.latencia-ms:0}") long latenciaMs) {
+        this.latenciaMs = latenciaMs;
+    }
+
+    @Override
+    public String nombre() {
+        return "stub";
+    }
+
+    @Override
+    public String generar(String prompt, Duration limite) {
+        llamadas.incrementAndGet();
+        if (latenciaMs > 0) {
+            try {
+                Thread.sleep(Math.min(latenciaMs, limite.toMillis()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Llamada interrumpida");
+            }
+        }
+        String inicio = prompt.length() > 80 ? prompt.substring(0, 80) : prompt;
+        return "Respuesta de prueba para: " + inicio;
+    }
+
+    // Entrega la respuesta palabra por palabra, repartiendo la latencia simulada entre los fragmentos
+    @Override
+    public String generarEnPartes(String prompt, Duration limite, Consumer<String> alFragmento, BooleanSupplier cancelado) {
+        llamadas.incrementAndGet();
+        String inicio = prompt.length() > 80 ? prompt.substring(0, 80) : prompt;
+        String texto = "Respuesta de prueba para: " + inicio;
+        String[] palabras = texto.split("(?<= )");
+        long pausa = latenciaMs / palabras.length;
+        for (String palabra : palabras) {
+            if (cancelado.getAsBoolean()) {
+                throw new CancellationException("Consulta cancelada");
+            }
+            if (pausa > 0) {
+                try {
+                    Thread.sleep(pausa);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new CancellationException("Consulta interrumpida");
+                }
+            }
+            alFragmento.accept(palabra);
+        }
+        return texto;
+    }
+
+    public long llamadas() {
+        return llamadas.get();
+    }
+}
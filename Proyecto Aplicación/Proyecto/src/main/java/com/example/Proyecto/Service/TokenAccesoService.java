@@ -0,0 +1,189 @@
+package com.example.Proyecto.Service;
+
+import com.example.Proyecto.Repository.TokenSesionRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.sql.Timestamp;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tokens de acceso firmados (JWT HS256) que se validan sin consultar la BD.
+ * Cada token lleva el id de la sesión (fila de Token_Sesion) en "sid"; si esa sesión se revoca,
+ * el token deja de valer gracias a un conjunto de sesiones revocadas en memoria con un filtro de Bloom delante.
+ */
+@Service
+public class TokenAccesoService {
+    private static final Logger log = LoggerFactory.getLogger(TokenAccesoService.class);
+    private static final Base64.Encoder B64 = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder B64_DECODER = Base64.getUrlDecoder();
+    private static final String CABECERA_JWT = B64.encodeToString("{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+
+    /** Datos de un token de acceso válido */
+    public record TokenAcceso(Long idUsuario, Long idSesion, long expiraEn) {
+    }
+
+    /** Conjunto de sesiones revocadas; se reemplaza completo en cada sincronización */
+    private record Revocaciones(FiltroBloom filtro, Set<Long> sesiones) {
+    }
+
+    @Autowired
+    public TokenSesionRepository tokenSesionRepository;
+
+    @Autowired
+    public ObjectMapper objectMapper;
+
+    @Value("${token.secreto:}")
+    private String secreto;
+
+    @Value("${token.acceso-minutos:15}")
+    private long accesoMinutos;
+
+    private SecretKeySpec clave;
+    private volatile Revocaciones revocaciones = new Revocaciones(new FiltroBloom(1024, 0.01), ConcurrentHashMap.newKeySet());
+
+    // Revocaciones hechas en esta instancia (id sesión -> momento), para no perderlas si coinciden con una sincronización
+    private final ConcurrentHashMap<Long, Long> revocacionesLocales = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void iniciar() {
+        byte[] bytes;
+        if (secreto == null || secreto.isBlank()) {
+            // Sin secreto configurado los tokens dejan de valer al reiniciar; en producción definir TOKEN_SECRETO
+            log.warn("token.secreto no configurado: se usa una clave aleatoria para esta ejecución");
+            bytes = new byte[32];
+            new SecureRandom().nextBytes(bytes);
+        } else {
+            bytes = secreto.getBytes(StandardCharsets.UTF_8);
+        }
+        clave = new SecretKeySpec(bytes, "HmacSHA256");
+        sincronizarRevocaciones();
+    }
+
+    public long getAccesoSegundos() {
+        return accesoMinutos * 60;
+    }
+
+    public String emitir(Long idUsuario, Long idSesion) {
+        long ahora = System.currentTimeMillis() / 1000;
+        Map<String, Object> datos = new LinkedHashMap<>();
+        datos.put("sub", String.valueOf(idUsuario));
+        datos.put("sid", idSesion);
+        datos.put("iat", ahora);
+        datos.put("exp", ahora + getAccesoSegundos());
+        datos.put("jti", UUID.randomUUID().toString());
+        try {
+            String cuerpo = B64.encodeToString(objectMapper.writeValueAsBytes(datos));
+            String firmado = CABECERA_JWT + "." + cuerpo;
+            return firmado + "." + B64.encodeToString(firmar(firmado));
+        } catch (Exception e) {
+            throw new IllegalStateException("No se pudo emitir el token de acceso", e);
+        }
+    }
+
+    /**
+     * Valida firma, expiración y revocación. Solo CPU: no consulta la BD.
+     */
+    public Optional<TokenAcceso> validar(String token) {
+        if (token == null) {
+            return Optional.empty();
+        }
+        int punto1 = token.indexOf('.');
+        int punto2 = token.lastIndexOf('.');
+        if (punto1 <= 0 || punto2 <= punto1 || !token.substring(0, punto1).equals(CABECERA_JWT)) {
+            return Optional.empty();
+        }
+        try {
+            byte[] esperado = firmar(token.substring(0, punto2));
+            if (!MessageDigest.isEqual(esperado, B64_DECODER.decode(token.substring(punto2 + 1)))) {
+                return Optional.empty();
+            }
+            Map<String, Object> datos = objectMapper.readValue(
+                    B64_DECODER.decode(token.substring(punto1 + 1, punto2)), new TypeReference<>() {});
+            long exp = ((Number) datos.get("exp")).longValue();
+            if (exp <= System.currentTimeMillis() / 1000) {
+                return Optional.empty();
+            }
+            Long idSesion = ((Number) datos.get("sid")).longValue();
+            if (estaRevocada(idSesion)) {
+                return Optional.empty();
+            }
+            return Optional.of(new TokenAcceso(Long.valueOf((String) datos.get("sub")), idSesion, exp));
+        } catch (Exception e) {
+            // Token mal formado
+            return Optional.empty();
+        }
+    }
+
+    // Revocación local inmediata (la sincronización periódica la reparte al resto de instancias)
+    public void revocarSesion(Long idSesion) {
+        revocacionesLocales.put(idSesion, System.currentTimeMillis());
+        agregar(revocaciones, idSesion);
+    }
+
+    private void agregar(Revocaciones destino, Long idSesion) {
+        destino.sesiones().add(idSesion);
+        destino.filtro().agregar(String.valueOf(idSesion));
+    }
+
+    private boolean estaRevocada(Long idSesion) {
+        Revocaciones actual = revocaciones;
+        // El filtro descarta casi todas las sesiones vigentes sin tocar el conjunto
+        return actual.filtro().puedeContener(String.valueOf(idSesion)) && actual.sesiones().contains(idSesion);
+    }
+
+    /**
+     * Recarga las sesiones revocadas que aún no vencen (las vencidas ya no pueden emitir tokens válidos).
+     */
+    @Scheduled(fixedDelayString = "${token.sincronizar-ms:60000}", initialDelayString = "${token.sincronizar-ms:60000}")
+    public void sincronizarRevocaciones() {
+        long inicio = System.currentTimeMillis();
+        try {
+            List<Long> ids = tokenSesionRepository.findIdsRevocadosVigentes(new Timestamp(System.currentTimeMillis()));
+            FiltroBloom filtro = new FiltroBloom(Math.max(ids.size() * 2, 1024), 0.01);
+            Set<Long> sesiones = ConcurrentHashMap.newKeySet(ids.size());
+            for (Long id : ids) {
+                filtro.agregar(String.valueOf(id));
+                sesiones.add(id);
+            }
+            Revocaciones nuevas = new Revocaciones(filtro, sesiones);
+            revocaciones = nuevas;
+            // Las revocaciones locales recientes pueden no haber llegado a la consulta; las más viejas ya están en la BD
+            revocacionesLocales.forEach((id, momento) -> {
+                if (momento >= inicio - 5_000) {
+                    agregar(nuevas, id);
+                } else {
+                    revocacionesLocales.remove(id, momento);
+                }
+            });
+        } catch (RuntimeException e) {
+            log.error("No se pudieron sincronizar las sesiones revocadas: {}", e.getMessage());
+        }
+    }
+
+    private byte[] firmar(String contenido) throws GeneralSecurityException {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(clave);
+        return mac.doFinal(contenido.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,24 +1,52 @@
 package com.example.Proyecto.Service;
 
+import com.example.Proyecto.DTO.TokenRespuestaDTO;
+import com.example.Proyecto.DTO.TokenSesionDTO;
+import com.example.Proyecto.DTO.UsuarioRespuestaDTO;
 import com.example.Proyecto.Model.TokenSesion;
+import com.example.Proyecto.Model.Usuario;
 import com.example.Proyecto.Repository.TokenSesionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.repository.query.Param;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.sql.Timestamp;
+import java.util.Base64;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class TokenSesionService {
+    private static final Logger log = LoggerFactory.getLogger(TokenSesionService.class);
+    private static final SecureRandom GENERADOR = new SecureRandom();
+
     @Autowired
     public TokenSesionRepository tokenRepository;
 
-    public List<TokenSesion> listarTokenSesion(){
+    @Autowired
+    public TokenAccesoService tokenAccesoService;
+
+    @Autowired
+    public UsuarioService usuarioService;
+
+    @Value("${token.refresco-dias:30}")
+    private long refrescoDias;
+
+    public List<TokenSesionDTO> listarTokenSesion(){
         // Validacion para intentar obtener la lista de Tokens de Sesion
         try {
-            List<TokenSesion> tokenSesions = tokenRepository.findAll();
+            List<TokenSesionDTO> tokenSesions = tokenRepository.listarDTO();
             // Validar que la lista no sea nula
             if (tokenSesions == null) {
                 throw new IllegalStateException("No se encontraron Tokens de Sesion.");
@@ -88,15 +116,82 @@ public class TokenSesionService {
         }
     }
 
-    public void obtenerToken(@Param("id_usuario") Integer id_usuario, @Param("token") String token){
-        tokenRepository.generarToken(id_usuario,token);
+    /**
+     * Login: valida las credenciales y abre una sesión (fila en Token_Sesion con el hash del token de refresco).
+     * Se completa con null si las credenciales no son válidas.
+     */
+    public CompletableFuture<TokenRespuestaDTO> iniciarSesion(String correo, String contrasena, String ip) {
+        return usuarioService.autenticar(correo, contrasena, ip)
+                .thenApply(usuario -> usuario == null ? null : abrirSesion(usuario));
+    }
+
+    /**
+     * Rota el token de refresco: revoca la sesión actual y abre una nueva.
+     * Si llega un token ya rotado (posible robo) se revocan todas las sesiones del usuario.
+     */
+    @Transactional(noRollbackFor = IllegalArgumentException.class)
+    public TokenRespuestaDTO refrescar(String tokenRefresco) {
+        TokenSesion sesion = tokenRepository.findByToken(hash(tokenRefresco))
+                .orElseThrow(() -> new IllegalArgumentException("Token de refresco inválido"));
+        if (sesion.getExpiracion().before(new Timestamp(System.currentTimeMillis()))) {
+            throw new IllegalArgumentException("Token de refresco vencido");
+        }
+        if (tokenRepository.revocarSiActiva(sesion.getIdToken()) == 0) {
+            Long idUsuario = sesion.getUsuario().getIdUsuario();
+            log.warn("Reutilización de token de refresco para el usuario {}: se revocan todas sus sesiones", idUsuario);
+            revocarTodas(idUsuario);
+            throw new IllegalArgumentException("Token de refresco ya utilizado");
+        }
+        tokenAccesoService.revocarSesion(sesion.getIdToken());
+        return abrirSesion(sesion.getUsuario());
+    }
+
+    @Transactional
+    public void cerrarSesion(String tokenRefresco) {
+        tokenRepository.findByToken(hash(tokenRefresco)).ifPresent(sesion -> {
+            tokenRepository.revocarSiActiva(sesion.getIdToken());
+            tokenAccesoService.revocarSesion(sesion.getIdToken());
+        });
+    }
+
+    @Transactional
+    public void revocarTodas(Long idUsuario) {
+        List<Long> activas = tokenRepository.findIdsActivosPorUsuario(idUsuario);
+        tokenRepository.revocarTodasPorUsuario(idUsuario);
+        activas.forEach(tokenAccesoService::revocarSesion);
+    }
+
+    @Scheduled(cron = "0 30 3 * * *") // Cada día a las 3:30
+    public void eliminarSesionesVencidas() {
+        int eliminadas = tokenRepository.eliminarVencidas(new Timestamp(System.currentTimeMillis()));
+        log.info("Sesiones vencidas eliminadas: {}", eliminadas);
     }
 
-    public boolean obtenerTokenPorExpiracion(@Param("token") String token){
-        return tokenRepository.validarTokenPorExpiracion(token);
+    private TokenRespuestaDTO abrirSesion(Usuario usuario) {
+        byte[] aleatorio = new byte[32];
+        GENERADOR.nextBytes(aleatorio);
+        String tokenRefresco = Base64.getUrlEncoder().withoutPadding().encodeToString(aleatorio);
+
+        TokenSesion sesion = new TokenSesion();
+        sesion.setUsuario(usuario);
+        sesion.setToken(hash(tokenRefresco));
+        sesion.setExpiracion(new Timestamp(System.currentTimeMillis() + refrescoDias * 24 * 60 * 60 * 1000));
+        sesion.setRevocado(false);
+        sesion = tokenRepository.save(sesion);
+
+        return new TokenRespuestaDTO(
+                tokenAccesoService.emitir(usuario.getIdUsuario(), sesion.getIdToken()),
+                tokenRefresco,
+                "Bearer",
+                tokenAccesoService.getAccesoSegundos(),
+                new UsuarioRespuestaDTO(usuario));
     }
 
-    public void obtenerTokenActivo(@Param("token") String token){
-        tokenRepository.revocarTokenActivo(token);
+    private static String hash(String token) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 }
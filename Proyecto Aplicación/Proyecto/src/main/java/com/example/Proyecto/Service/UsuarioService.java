@@ -3,41 +3,92 @@ package com.example.Proyecto.Service;
 import com.example.Proyecto.DTO.UsuarioEntradaDTO;
 import com.example.Proyecto.Model.Usuario;
 import com.example.Proyecto.Repository.UsuarioRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 
 @Service
 public class UsuarioService {
     @Autowired
     public UsuarioRepository usuarioRepository;
 
+    private static final Logger log = LoggerFactory.getLogger(UsuarioService.class);
+
+    // Campos que admite el merge patch del perfil: nombre JSON -> atributo, tipo y si acepta null
+    private record CampoPerfil(String atributo, Class<?> tipo, boolean anulable) {
+    }
+
+    private static final Map<String, CampoPerfil> CAMPOS_PERFIL = Map.of(
+            "nombre", new CampoPerfil("nombre", String.class, false),
+            "correo", new CampoPerfil("correo", String.class, false),
+            "fechaNacimiento", new CampoPerfil("fechaNacimiento", LocalDate.class, false),
+            "altura", new CampoPerfil("altura", Float.class, false),
+            "peso", new CampoPerfil("peso", Float.class, false),
+            "sexo", new CampoPerfil("sexo", String.class, false),
+            "pesoObjetivo", new CampoPerfil("pesoObjetivo", Float.class, true),
+            "objetivosSalud", new CampoPerfil("objetivosSalud", String.class, true),
+            "restriccionesDieta", new CampoPerfil("restriccionesDieta", String.class, true),
+            "nivelActividad", new CampoPerfil("nivelActividad", String.class, true));
+
     @Autowired
     public PasswordEncoder passwordEncoder;
 
-    public Optional<Usuario> listarPorIdUsuario(long id_usuario){
-        try {
-            Optional<Usuario> usuario = usuarioRepository.findById(id_usuario);
-            if (usuario.isPresent()) {
-                return usuario;
-            } else {
-                throw new IllegalStateException("No se encontraron usuarios.");
-            }
-        }catch (Exception e){
-            throw new RuntimeException("Error al listar el usuario " + id_usuario +": "+ e.getMessage(), e);
-        }
-    }
+    @Autowired
+    public HashContrasenaService hashContrasenaService;
+
+    @Autowired
+    public LimiteIntentosService limiteIntentosService;
+
+    @Autowired
+    @Qualifier("ejecutorVirtual")
+    public ExecutorService ejecutorVirtual;
+
+    @Autowired
+    public ObjectMapper objectMapper;
+
+    @Autowired
+    public MedidaCorporalService medidaCorporalService;
+
+    @Autowired
+    public DisponibilidadUsuarioService disponibilidadUsuarioService;
 
+    @Autowired
+    public ApplicationEventPublisher eventPublisher;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Transactional
     public Usuario registrarUsuario(UsuarioEntradaDTO dto) {
-        if (usuarioRepository.existsByCorreo(dto.getCorreo())) {
+        if (disponibilidadUsuarioService.existeCorreo(dto.getCorreo())) {
             throw new IllegalArgumentException("El correo ya está registrado");
         }
 
-        if (usuarioRepository.existsByNombre(dto.getNombre())) {
+        if (disponibilidadUsuarioService.existeNombre(dto.getNombre())) {
             throw new IllegalArgumentException("El nombre de usuario ya está en uso");
         }
 
@@ -55,39 +106,65 @@ public class UsuarioService {
         nuevo.setNivelActividad(dto.getNivelActividad());
         nuevo.setCreadoEn(new Timestamp(System.currentTimeMillis()));
 
-        return usuarioRepository.save(nuevo);
+        disponibilidadUsuarioService.registrar(nuevo.getCorreo(), nuevo.getNombre());
+        Usuario guardado = usuarioRepository.save(nuevo);
+        // Primera medida de la serie de peso/IMC; la app manda 0 cuando el usuario no los llenó
+        if (positivo(guardado.getPeso()) && positivo(guardado.getAltura())) {
+            medidaCorporalService.registrar(guardado.getIdUsuario(), guardado.getPeso(), guardado.getAltura(), null);
+        }
+        return guardado;
     }
     
-    public Usuario autenticar(String correo, String contrasena) {
-        Optional<Usuario> usuarioOptional = usuarioRepository.findByCorreo(correo);
+    /**
+     * Login sin ocupar el hilo de la petición: BCrypt corre en el pool de hash y el resto en hilos virtuales.
+     * Devuelve null si las credenciales no son válidas; lanza LimiteExcedidoException si se superan los intentos fallidos.
+     */
+    public CompletableFuture<Usuario> autenticar(String correo, String contrasena, String ip) {
+        limiteIntentosService.consumir(correo, ip);
+        Usuario usuario = usuarioRepository.findByCorreo(correo)
+                .filter(u -> u.getEliminadoEn() == null) // cuenta en proceso de eliminación
+                .orElse(null);
+        String hash = usuario != null ? usuario.getContrasena() : null;
 
-        if (usuarioOptional.isPresent()) {
-            Usuario usuario = usuarioOptional.get();
-            if (passwordEncoder.matches(contrasena, usuario.getContrasena())) {
-                return usuario; // Login exitoso
-            }
-        }
-        return null; // Usuario no encontrado o contraseña incorrecta
+        return hashContrasenaService.verificar(contrasena, hash)
+                .thenApplyAsync(valida -> {
+                    if (!valida) {
+                        return null; // Usuario no encontrado o contraseña incorrecta
+                    }
+                    limiteIntentosService.exito(correo, ip);
+                    if (hashContrasenaService.necesitaRehash(hash)) {
+                        rehashear(usuario.getIdUsuario(), hash, contrasena);
+                    }
+                    return usuario; // Login exitoso
+                }, ejecutorVirtual);
     }
 
-    public void eliminarUsuario(long id_usuario){
-        try {
-            if (id_usuario<=0) {
-                throw new IllegalArgumentException("El ID del usuario debe ser un número positivo.");
-            }
-            if (!usuarioRepository.existsById(id_usuario)) {
-                throw new NoSuchElementException("No se encontró un usuario con el ID: " + id_usuario);
-            }
-            usuarioRepository.deleteById(id_usuario);
-        }catch (Exception e){
-            throw new RuntimeException("Error al eliminar el usuario "+ id_usuario +": "+ e.getMessage(), e);
-        }
+    // Cambió el coste de BCrypt: se guarda el nuevo hash sin retrasar la respuesta del login
+    private void rehashear(Long idUsuario, String hashAnterior, String contrasena) {
+        hashContrasenaService.codificar(contrasena)
+                .thenAcceptAsync(nuevo -> {
+                    if (usuarioRepository.actualizarContrasena(idUsuario, hashAnterior, nuevo) == 1) {
+                        log.info("Contraseña del usuario {} rehasheada con el coste actual", idUsuario);
+                    }
+                }, ejecutorVirtual)
+                .exceptionally(e -> {
+                    log.warn("No se pudo rehashear la contraseña del usuario {}: {}", idUsuario, e.getMessage());
+                    return null;
+                });
     }
 
     public Usuario actualizarUsuario(long id_usuario, Usuario usuarioActualizado){
         Optional<Usuario> usuarioOpt = usuarioRepository.findById(id_usuario);
         if(usuarioOpt.isPresent()){
             Usuario usuarioExistente = usuarioOpt.get();
+            // Peso y altura solo cuentan como cambio si el valor es otro: cada cambio agrega una medida corporal
+            Set<String> campos = new HashSet<>(CAMPOS_PERFIL.keySet());
+            if (Objects.equals(usuarioExistente.getPeso(), usuarioActualizado.getPeso())) {
+                campos.remove("peso");
+            }
+            if (Objects.equals(usuarioExistente.getAltura(), usuarioActualizado.getAltura())) {
+                campos.remove("altura");
+            }
             usuarioExistente.setNombre(usuarioActualizado.getNombre());
             usuarioExistente.setCorreo(usuarioActualizado.getCorreo());
             usuarioExistente.setContrasena(usuarioActualizado.getContrasena());
@@ -98,76 +175,111 @@ public class UsuarioService {
             usuarioExistente.setObjetivosSalud(usuarioActualizado.getObjetivosSalud());
             usuarioExistente.setSexo(usuarioActualizado.getSexo());
             usuarioExistente.setActualizadoEn(new Timestamp(System.currentTimeMillis()));
-            return usuarioRepository.save(usuarioExistente);
+            disponibilidadUsuarioService.registrar(usuarioExistente.getCorreo(), usuarioExistente.getNombre());
+            Usuario guardado = usuarioRepository.save(usuarioExistente);
+            eventPublisher.publishEvent(new PerfilActualizadoEvent(id_usuario, Set.copyOf(campos)));
+            return guardado;
         }else{
             return null;
         }
     }
 
-    public Usuario actualizarAltura(long id_usuario, Float alturaActualizada){
-        Optional<Usuario> usuarioOpt = usuarioRepository.findById(id_usuario);
-        if(usuarioOpt.isPresent()){
-            Usuario usuarioExistente = usuarioOpt.get();
-            usuarioExistente.setAltura(alturaActualizada);
-            usuarioExistente.setActualizadoEn(new Timestamp(System.currentTimeMillis()));
-            return usuarioRepository.save(usuarioExistente);
-        }else{
-            return null;
+    /**
+     * Actualización parcial del perfil (JSON merge patch): un solo UPDATE con las columnas recibidas.
+     * Si llega versionEsperada se aplica bloqueo optimista; al terminar se publica un único PerfilActualizadoEvent.
+     */
+    @Transactional
+    public Usuario actualizarPerfil(long idUsuario, Map<String, Object> cambios, Long versionEsperada) {
+        if (cambios == null || cambios.isEmpty()) {
+            throw new IllegalArgumentException("No hay cambios para aplicar");
         }
+        Map<String, Object> valores = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> cambio : cambios.entrySet()) {
+            CampoPerfil campo = CAMPOS_PERFIL.get(cambio.getKey());
+            if (campo == null) {
+                throw new IllegalArgumentException("Campo no modificable: " + cambio.getKey());
+            }
+            if (cambio.getValue() == null && !campo.anulable()) {
+                throw new IllegalArgumentException("El campo " + cambio.getKey() + " no puede ser nulo");
+            }
+            valores.put(campo.atributo(), cambio.getValue() == null ? null : objectMapper.convertValue(cambio.getValue(), campo.tipo()));
+        }
+        // Un correo o nombre ya tomado por otro usuario es un conflicto (409), no una petición mal formada
+        if (valores.get("correo") != null && usuarioRepository.existsByCorreoAndIdUsuarioNot((String) valores.get("correo"), idUsuario)) {
+            throw new DuplicateKeyException("El correo ya está registrado");
+        }
+        if (valores.get("nombre") != null && usuarioRepository.existsByNombreAndIdUsuarioNot((String) valores.get("nombre"), idUsuario)) {
+            throw new DuplicateKeyException("El nombre de usuario ya está en uso");
+        }
+
+        disponibilidadUsuarioService.registrar((String) valores.get("correo"), (String) valores.get("nombre"));
+
+        StringBuilder jpql = new StringBuilder("UPDATE Usuario u SET ");
+        valores.keySet().forEach(atributo -> jpql.append("u.").append(atributo).append(" = :").append(atributo).append(", "));
+        jpql.append("u.actualizadoEn = :actualizadoEn, u.version = u.version + 1 WHERE u.idUsuario = :idUsuario");
+        if (versionEsperada != null) {
+            jpql.append(" AND u.version = :version");
+        }
+        Query update = entityManager.createQuery(jpql.toString());
+        valores.forEach(update::setParameter);
+        update.setParameter("actualizadoEn", new Timestamp(System.currentTimeMillis()));
+        update.setParameter("idUsuario", idUsuario);
+        if (versionEsperada != null) {
+            update.setParameter("version", versionEsperada);
+        }
+
+        if (update.executeUpdate() == 0) {
+            if (!usuarioRepository.existsById(idUsuario)) {
+                throw new NoSuchElementException("Usuario no encontrado");
+            }
+            throw new OptimisticLockingFailureException("El perfil fue modificado por otra petición");
+        }
+
+        Usuario actualizado = usuarioRepository.findById(idUsuario)
+                .orElseThrow(() -> new NoSuchElementException("Usuario no encontrado"));
+        entityManager.refresh(actualizado); // el UPDATE masivo no pasa por el contexto de persistencia
+        eventPublisher.publishEvent(new PerfilActualizadoEvent(idUsuario, Set.copyOf(cambios.keySet())));
+        return actualizado;
     }
 
+    // Endpoints de un solo campo: se mantienen para la app actual y usan la misma ruta de actualización
+
+    @Transactional
+    public Usuario actualizarAltura(long id_usuario, Float alturaActualizada){
+        return actualizarPerfil(id_usuario, Collections.singletonMap("altura", alturaActualizada), null);
+    }
+
+    @Transactional
     public Usuario actualizarPeso(long id_usuario, Float pesoActualizado){
-        Optional<Usuario> usuarioOpt = usuarioRepository.findById(id_usuario);
-        if(usuarioOpt.isPresent()){
-            Usuario usuarioExistente = usuarioOpt.get();
-            usuarioExistente.setPeso(pesoActualizado);
-            usuarioExistente.setActualizadoEn(new Timestamp(System.currentTimeMillis()));
-            return usuarioRepository.save(usuarioExistente);
-        }else{
-            return null;
-        }
+        return actualizarPerfil(id_usuario, Collections.singletonMap("peso", pesoActualizado), null);
     }
 
+    @Transactional
     public Usuario actualizarPesoObjetivo(long id_usuario, Float pesoObjetivoActualizado){
-        Optional<Usuario> usuarioOpt = usuarioRepository.findById(id_usuario);
-        if(usuarioOpt.isPresent()){
-            Usuario usuarioExistente = usuarioOpt.get();
-            usuarioExistente.setPesoObjetivo(pesoObjetivoActualizado);
-            usuarioExistente.setActualizadoEn(new Timestamp(System.currentTimeMillis()));
-            return usuarioRepository.save(usuarioExistente);
-        }else{
-            return null;
-        }
+        return actualizarPerfil(id_usuario, Collections.singletonMap("pesoObjetivo", pesoObjetivoActualizado), null);
     }
 
+    @Transactional
     public Usuario actualizarDieta(long id_usuario, String dietaActualizada){
-        return usuarioRepository.findById(id_usuario) .map(u -> {
-            u.setRestriccionesDieta(dietaActualizada);
-            u.setActualizadoEn(new Timestamp(System.currentTimeMillis()));
-            return usuarioRepository.save(u); }) .orElseThrow(() -> new NoSuchElementException("Usuario no encontrado"));
-
+        return actualizarPerfil(id_usuario, Collections.singletonMap("restriccionesDieta", dietaActualizada), null);
     }
 
+    @Transactional
     public Usuario actualizarObjetivo(long id_usuario, String objetivoActualizado){
-        return usuarioRepository.findById(id_usuario) .map(u -> {
-            u.setObjetivosSalud(objetivoActualizado);
-            u.setActualizadoEn(new Timestamp(System.currentTimeMillis()));
-            return usuarioRepository.save(u); }) .orElseThrow(() -> new NoSuchElementException("Usuario no encontrado"));
-
+        return actualizarPerfil(id_usuario, Collections.singletonMap("objetivosSalud", objetivoActualizado), null);
     }
 
+    @Transactional
     public Usuario actualizarNivelActividad(long id_usuario, String nivelActividadActualizado){
-        return usuarioRepository.findById(id_usuario) .map(u -> {
-            u.setNivelActividad(nivelActividadActualizado);
-            u.setActualizadoEn(new Timestamp(System.currentTimeMillis()));
-            return usuarioRepository.save(u); }) .orElseThrow(() -> new NoSuchElementException("Usuario no encontrado"));
-
+        return actualizarPerfil(id_usuario, Collections.singletonMap("nivelActividad", nivelActividadActualizado), null);
     }
 
+    @Transactional
     public Usuario actualizarCorreo(long idUsuario, String correoActualizado) {
-        return usuarioRepository.findById(idUsuario) .map(u -> {
-            u.setCorreo(correoActualizado);
-            u.setActualizadoEn(new Timestamp(System.currentTimeMillis()));
-            return usuarioRepository.save(u); }) .orElseThrow(() -> new NoSuchElementException("Usuario no encontrado"));
+        return actualizarPerfil(idUsuario, Collections.singletonMap("correo", correoActualizado), null);
+    }
+
+    private static boolean positivo(Float valor) {
+        return valor != null && valor > 0;
     }
 }
@@ -0,0 +1,86 @@
+package com.example.Proyecto.Service;
+
+import com.example.Proyecto.DTO.*;
+import com.example.Proyecto.Model.RegistroAgua;
+import com.example.Proyecto.Model.RegistroAlimento;
+import com.example.Proyecto.Repository.RegistroAlimentoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Arma la vista completa de un día para la pantalla de inicio.
+ *
+ * Antes la app hacía 6-8 llamadas (totales, recomendados, agua, actividad y una por cada momento del día).
+ * Aquí se hacen las mismas lecturas una tras otra, en una sola transacción, y se devuelve un único DTO.
+ * Son consultas cortas: lanzarlas en paralelo tomaba hasta 4 conexiones de un pool de 3 por cada vista.
+ * Los registros del día se consultan una sola vez: se agrupan por momento y con ellos mismos se calculan los totales.
+ */
+@Service
+public class VistaDiaService {
+
+    @Autowired
+    public RegistroAlimentoRepository registroAlimentoRepository;
+
+    @Autowired
+    public EstadisticasNutricionalesService estadisticasService;
+
+    @Autowired
+    public RegistroAguaService registroAguaService;
+
+    @Autowired
+    public ActividadService actividadService;
+
+    // No es de solo lectura: la primera consulta de actividad de un usuario puede armar su calendario
+    @Autowired
+    public TransactionTemplate transactionTemplate;
+
+    public VistaDiaDTO obtenerVistaDia(Long idUsuario, LocalDate fecha) {
+        return transactionTemplate.execute(estado -> armar(idUsuario, fecha));
+    }
+
+    // Las excepciones (ej. "Usuario no encontrado") llegan al controlador tal cual
+    private VistaDiaDTO armar(Long idUsuario, LocalDate fecha) {
+        List<RegistroAlimento> registros = registroAlimentoRepository.findByUsuarioAndFecha(
+                idUsuario, fecha.atStartOfDay(), fecha.atTime(LocalTime.MAX));
+        NutrientesRecomendadosDTO recomendados = estadisticasService.calcularRecomendacionesDiarias(idUsuario);
+        RegistroAgua agua = registroAguaService.obtenerRegistroPorFecha(idUsuario, fecha);
+        List<ActividadDiaDTO> actividad = actividadService.obtenerDiasConActividad(idUsuario);
+
+        Map<String, List<RegistroAlimentoSalidaDTO>> comidas = registros.stream()
+                .collect(Collectors.groupingBy(
+                        r -> Objects.requireNonNullElse(r.getMomentoDelDia(), "Otro"),
+                        LinkedHashMap::new,
+                        Collectors.mapping(RegistroAlimentoSalidaDTO::new, Collectors.toList())));
+
+        VistaDiaDTO vista = new VistaDiaDTO();
+        vista.setIdUsuario(idUsuario);
+        vista.setFecha(fecha);
+        vista.setComidas(comidas);
+        vista.setTotales(estadisticasService.sumarTotales(registros));
+        vista.setRecomendados(recomendados);
+        vista.setAgua(mapearAgua(agua, idUsuario));
+        vista.setActividad(actividad);
+        return vista;
+    }
+
+    private RegistroAguaRespuestaDTO mapearAgua(RegistroAgua registro, Long idUsuario) {
+        if (registro == null) {
+            return null;
+        }
+        RegistroAguaRespuestaDTO dto = new RegistroAguaRespuestaDTO();
+        dto.setIdRegistroAgua(registro.getIdRegistroAgua());
+        dto.setIdUsuario(idUsuario);
+        dto.setFecha(registro.getFecha().toString());
+        dto.setCantidadml(registro.getCantidadml());
+        return dto;
+    }
+}
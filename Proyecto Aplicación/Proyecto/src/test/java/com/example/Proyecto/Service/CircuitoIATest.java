@@ -0,0 +1,58 @@
+package com.example.Proyecto.Service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitoIATest {
+
+    @Test
+    void seAbreTrasLosFallosSeguidos() {
+        CircuitoIA circuito = new CircuitoIA(2, 60_000);
+
+        circuito.fallo();
+        assertTrue(circuito.permitir());
+        circuito.fallo();
+
+        assertEquals(CircuitoIA.Estado.ABIERTO, circuito.estado());
+        assertFalse(circuito.permitir());
+        assertTrue(circuito.segundosHastaReintento() > 0);
+    }
+
+    @Test
+    void enSemiabiertoSoloPasaUnaLlamadaDePrueba() {
+        CircuitoIA circuito = new CircuitoIA(1, 0);
+        circuito.fallo();
+
+        assertTrue(circuito.permitir());
+        assertEquals(CircuitoIA.Estado.SEMIABIERTO, circuito.estado());
+        assertFalse(circuito.permitir());
+
+        circuito.exito();
+        assertEquals(CircuitoIA.Estado.CERRADO, circuito.estado());
+        assertTrue(circuito.permitir());
+    }
+
+    @Test
+    void unaPruebaCanceladaDejaProbarALaSiguiente() {
+        CircuitoIA circuito = new CircuitoIA(1, 0);
+        circuito.fallo();
+        assertTrue(circuito.permitir());
+
+        circuito.cancelado();
+
+        assertEquals(CircuitoIA.Estado.ABIERTO, circuito.estado());
+        assertTrue(circuito.permitir());
+        assertEquals(CircuitoIA.Estado.SEMIABIERTO, circuito.estado());
+    }
+
+    @Test
+    void cancelarConElCircuitoCerradoNoCambiaNada() {
+        CircuitoIA circuito = new CircuitoIA(1, 60_000);
+
+        circuito.cancelado();
+
+        assertEquals(CircuitoIA.Estado.CERRADO, circuito.estado());
+        assertTrue(circuito.permitir());
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.Proyecto.Service;
+
+import com.example.Proyecto.Service.ColaJustaPonderada.Resultado;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColaJustaPonderadaTest {
+
+    private final ExecutorService ejecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @AfterEach
+    void cerrar() {
+        ejecutor.shutdownNow();
+    }
+
+    private Future<Resultado> esperar(ColaJustaPonderada cola, String cliente, long maximoMs) {
+        return ejecutor.submit(() -> cola.adquirir(cliente, 1, maximoMs));
+    }
+
+    private static void hastaQueEsperen(ColaJustaPonderada cola, int cuantos) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 5_000;
+        while (cola.enEspera() != cuantos) {
+            assertTrue(System.currentTimeMillis() < limite, "nadie llegó a la cola");
+            Thread.sleep(5);
+        }
+    }
+
+    // Sin espera: si hay un permiso libre se concede al instante, si no vence enseguida
+    private static boolean hayPermisoLibre(ColaJustaPonderada cola) throws InterruptedException {
+        if (cola.adquirir("sonda", 1, 0) != Resultado.CONCEDIDO) {
+            return false;
+        }
+        cola.liberar();
+        return true;
+    }
+
+    @Test
+    void alLiberarElPermisoPasaAlSiguienteTurno() throws Exception {
+        ColaJustaPonderada cola = new ColaJustaPonderada(1, 10, 2);
+        assertEquals(Resultado.CONCEDIDO, cola.adquirir("a", 1, 0));
+
+        Future<Resultado> b = esperar(cola, "b", 5_000);
+        hastaQueEsperen(cola, 1);
+        assertFalse(b.isDone());
+
+        cola.liberar();
+        assertEquals(Resultado.CONCEDIDO, b.get(5, TimeUnit.SECONDS));
+        assertEquals(0, cola.enEspera());
+        // El permiso pasó de mano sin quedar libre entre medio
+        assertFalse(hayPermisoLibre(cola));
+        cola.liberar();
+        assertTrue(hayPermisoLibre(cola));
+    }
+
+    @Test
+    void pasaPrimeroElClienteQueMenosHaUsado() throws Exception {
+        ColaJustaPonderada cola = new ColaJustaPonderada(1, 10, 5);
+        assertEquals(Resultado.CONCEDIDO, cola.adquirir("a", 1, 0));
+        Future<Resultado> a2 = esperar(cola, "a", 5_000);
+        hastaQueEsperen(cola, 1);
+        Future<Resultado> b = esperar(cola, "b", 5_000);
+        hastaQueEsperen(cola, 2);
+
+        cola.liberar();
+        assertEquals(Resultado.CONCEDIDO, b.get(5, TimeUnit.SECONDS));
+        assertFalse(a2.isDone());
+        cola.liberar();
+        assertEquals(Resultado.CONCEDIDO, a2.get(5, TimeUnit.SECONDS));
+        cola.liberar();
+    }
+
+    @Test
+    void laEsperaVenceSinQuedarseConElPermiso() throws Exception {
+        ColaJustaPonderada cola = new ColaJustaPonderada(1, 10, 2);
+        assertEquals(Resultado.CONCEDIDO, cola.adquirir("a", 1, 0));
+
+        assertEquals(Resultado.TIEMPO_AGOTADO, cola.adquirir("b", 1, 50));
+        assertEquals(0, cola.enEspera());
+        cola.liberar();
+        assertTrue(hayPermisoLibre(cola));
+    }
+
+    @Test
+    void laEsperaVencidaNoCuentaContraElCliente() throws Exception {
+        ColaJustaPonderada cola = new ColaJustaPonderada(1, 10, 2);
+        assertEquals(Resultado.CONCEDIDO, cola.adquirir("a", 1, 0));
+        assertEquals(Resultado.TIEMPO_AGOTADO, cola.adquirir("b", 1, 50));
+
+        // a y b piden a la vez: si b hubiera pagado la espera vencida empatarían y pasaría a, que llegó antes
+        Future<Resultado> a2 = esperar(cola, "a", 5_000);
+        hastaQueEsperen(cola, 1);
+        Future<Resultado> b = esperar(cola, "b", 5_000);
+        hastaQueEsperen(cola, 2);
+
+        cola.liberar();
+        assertEquals(Resultado.CONCEDIDO, b.get(5, TimeUnit.SECONDS));
+        assertFalse(a2.isDone());
+        cola.liberar();
+        assertEquals(Resultado.CONCEDIDO, a2.get(5, TimeUnit.SECONDS));
+        cola.liberar();
+    }
+
+    @Test
+    void siElPermisoLlegaAlVencerLaEsperaNoSePierdeNiSeDuplica() throws Exception {
+        ColaJustaPonderada cola = new ColaJustaPonderada(1, 10, 2);
+        for (int i = 0; i < 200; i++) {
+            assertEquals(Resultado.CONCEDIDO, cola.adquirir("a", 1, 0));
+            Future<Resultado> b = esperar(cola, "b", 2);
+            hastaQueEsperenOTermine(cola, b);
+            // Se libera más o menos cuando vence la espera de b: gane quien gane, el permiso queda con uno solo
+            cola.liberar();
+
+            Resultado resultado = b.get(5, TimeUnit.SECONDS);
+            assertEquals(0, cola.enEspera());
+            if (resultado == Resultado.CONCEDIDO) {
+                assertFalse(hayPermisoLibre(cola));
+                cola.liberar();
+            } else {
+                assertEquals(Resultado.TIEMPO_AGOTADO, resultado);
+            }
+            assertTrue(hayPermisoLibre(cola));
+        }
+    }
+
+    private static void hastaQueEsperenOTermine(ColaJustaPonderada cola, Future<Resultado> turno) throws InterruptedException {
+        while (cola.enEspera() == 0 && !turno.isDone()) {
+            Thread.onSpinWait();
+        }
+    }
+
+    @Test
+    void unClienteNoPuedeAcapararLaCola() throws Exception {
+        ColaJustaPonderada cola = new ColaJustaPonderada(1, 10, 1);
+        assertEquals(Resultado.CONCEDIDO, cola.adquirir("a", 1, 0));
+        Future<Resultado> primera = esperar(cola, "b", 5_000);
+        hastaQueEsperen(cola, 1);
+
+        assertEquals(Resultado.CLIENTE_EN_ESPERA, cola.adquirir("b", 1, 5_000));
+        // Otro cliente sí entra a la cola
+        Future<Resultado> otro = esperar(cola, "c", 5_000);
+        hastaQueEsperen(cola, 2);
+
+        cola.liberar();
+        cola.liberar();
+        assertEquals(Resultado.CONCEDIDO, primera.get(5, TimeUnit.SECONDS));
+        assertEquals(Resultado.CONCEDIDO, otro.get(5, TimeUnit.SECONDS));
+        cola.liberar();
+    }
+
+    @Test
+    void conLaColaLlenaSeRechazaSinEsperar() throws Exception {
+        ColaJustaPonderada cola = new ColaJustaPonderada(1, 1, 1);
+        assertEquals(Resultado.CONCEDIDO, cola.adquirir("a", 1, 0));
+        Future<Resultado> b = esperar(cola, "b", 5_000);
+        hastaQueEsperen(cola, 1);
+
+        assertEquals(Resultado.COLA_LLENA, cola.adquirir("c", 1, 5_000));
+        cola.liberar();
+        assertEquals(Resultado.CONCEDIDO, b.get(5, TimeUnit.SECONDS));
+        cola.liberar();
+    }
+
+    // Hilo propio en vez de Future: al interrumpir hay que saber si alcanzó a recibir el permiso
+    private record Espera(Thread hilo, AtomicReference<Object> resultado) {
+    }
+
+    private static Espera esperarEnHilo(ColaJustaPonderada cola, String cliente) {
+        AtomicReference<Object> resultado = new AtomicReference<>();
+        Thread hilo = Thread.ofVirtual().start(() -> {
+            try {
+                resultado.set(cola.adquirir(cliente, 1, 5_000));
+            } catch (InterruptedException e) {
+                resultado.set(e);
+            }
+        });
+        return new Espera(hilo, resultado);
+    }
+
+    @Test
+    void laInterrupcionSacaElTurnoYNoRetieneElPermiso() throws Exception {
+        ColaJustaPonderada cola = new ColaJustaPonderada(1, 10, 1);
+        assertEquals(Resultado.CONCEDIDO, cola.adquirir("a", 1, 0));
+        Espera b = esperarEnHilo(cola, "b");
+        hastaQueEsperen(cola, 1);
+
+        b.hilo().interrupt();
+        b.hilo().join(5_000);
+        assertInstanceOf(InterruptedException.class, b.resultado().get());
+        assertEquals(0, cola.enEspera());
+        // El turno de b ya no cuenta para su límite por cliente
+        Future<Resultado> deNuevo = esperar(cola, "b", 5_000);
+        hastaQueEsperen(cola, 1);
+        cola.liberar();
+        assertEquals(Resultado.CONCEDIDO, deNuevo.get(5, TimeUnit.SECONDS));
+        cola.liberar();
+        assertTrue(hayPermisoLibre(cola));
+    }
+
+    @Test
+    void siLaInterrupcionLlegaConElPermisoYaConcedidoSeDevuelve() throws Exception {
+        ColaJustaPonderada cola = new ColaJustaPonderada(1, 10, 1);
+        for (int i = 0; i < 200; i++) {
+            assertEquals(Resultado.CONCEDIDO, cola.adquirir("a", 1, 0));
+            Espera b = esperarEnHilo(cola, "b");
+            hastaQueEsperen(cola, 1);
+            // Permiso e interrupción casi a la vez: o b se queda con el permiso, o lo devuelve al salir
+            cola.liberar();
+            b.hilo().interrupt();
+            b.hilo().join(5_000);
+
+            if (b.resultado().get() == Resultado.CONCEDIDO) {
+                assertFalse(hayPermisoLibre(cola));
+                cola.liberar();
+            } else {
+                assertInstanceOf(InterruptedException.class, b.resultado().get());
+            }
+            assertEquals(0, cola.enEspera());
+            assertTrue(hayPermisoLibre(cola));
+        }
+    }
+}
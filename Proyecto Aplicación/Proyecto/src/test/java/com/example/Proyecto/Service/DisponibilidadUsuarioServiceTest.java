@@ -0,0 +1,92 @@
+package com.example.Proyecto.Service;
+
+import com.example.Proyecto.Repository.UsuarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+class DisponibilidadUsuarioServiceTest {
+
+    private UsuarioRepository usuarioRepository;
+    private PlatformTransactionManager transactionManager;
+    private DisponibilidadUsuarioService servicio;
+
+    @BeforeEach
+    void preparar() {
+        usuarioRepository = mock(UsuarioRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(usuarioRepository.count()).thenReturn(2L);
+        when(usuarioRepository.streamCorreosYNombres()).thenReturn(Stream.<Object[]>of(
+                new Object[]{"Ana@Correo.com", "ana"},
+                new Object[]{"luis@correo.com", "Luis"}));
+
+        servicio = new DisponibilidadUsuarioService();
+        servicio.usuarioRepository = usuarioRepository;
+        servicio.transactionManager = transactionManager;
+    }
+
+    @Test
+    void alIniciarRecorreLosUsuariosDentroDeUnaTransaccionDeLectura() {
+        servicio.alIniciar();
+
+        InOrder orden = inOrder(transactionManager, usuarioRepository);
+        orden.verify(transactionManager).getTransaction(argThat(TransactionDefinition::isReadOnly));
+        orden.verify(usuarioRepository).streamCorreosYNombres();
+        orden.verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void conLosFiltrosCargadosLosValoresNuevosNoConsultanLaBd() {
+        servicio.alIniciar();
+
+        assertFalse(servicio.existeCorreo("nadie@correo.com"));
+        assertFalse(servicio.existeNombre("nadie"));
+        verify(usuarioRepository, never()).existsByCorreo(any());
+        verify(usuarioRepository, never()).existsByNombre(any());
+    }
+
+    @Test
+    void conLosFiltrosCargadosLosValoresTomadosSeConfirmanEnLaBd() {
+        when(usuarioRepository.existsByCorreo("ana@correo.com")).thenReturn(true);
+        servicio.alIniciar();
+
+        assertTrue(servicio.existeCorreo("ana@correo.com"));
+        verify(usuarioRepository).existsByCorreo("ana@correo.com");
+    }
+
+    @Test
+    void lasAltasQueElCursorNoVioPasanAlFiltroNuevo() {
+        // Alta anotada antes de la carga cuyo INSERT todavía no era visible para el cursor
+        servicio.registrar("nueva@correo.com", "nueva");
+        servicio.alIniciar();
+
+        servicio.existeCorreo("nueva@correo.com");
+        servicio.existeNombre("nueva");
+        verify(usuarioRepository).existsByCorreo("nueva@correo.com");
+        verify(usuarioRepository).existsByNombre("nueva");
+    }
+
+    @Test
+    void lasAltasDuranteLaCargaPasanAlFiltroNuevo() {
+        when(usuarioRepository.streamCorreosYNombres()).thenAnswer(invocacion -> {
+            servicio.registrar("durante@correo.com", null);
+            return Stream.<Object[]>of(new Object[]{"ana@correo.com", "ana"});
+        });
+        servicio.alIniciar();
+
+        servicio.existeCorreo("durante@correo.com");
+        verify(usuarioRepository).existsByCorreo("durante@correo.com");
+    }
+}
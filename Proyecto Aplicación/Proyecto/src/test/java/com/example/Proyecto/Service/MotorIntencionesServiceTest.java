@@ -0,0 +1,40 @@
+package com.example.Proyecto.Service;
+
+import com.example.Proyecto.Service.MotorIntencionesService.Intencion;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MotorIntencionesServiceTest {
+
+    private final MotorIntencionesService motor = new MotorIntencionesService();
+
+    @Test
+    void registraAguaSoloConUnVerboDeOrdenOEnPasado() {
+        assertEquals(Intencion.REGISTRAR_AGUA, motor.clasificar("Tomé 2 vasos de agua").intencion());
+        assertEquals(Intencion.REGISTRAR_AGUA, motor.clasificar("registra 500 ml de agua").intencion());
+        assertEquals(Intencion.REGISTRAR_AGUA, motor.clasificar("he tomado 3 tazas de agua").intencion());
+
+        assertNotEquals(Intencion.REGISTRAR_AGUA, motor.clasificar("¿Cuántos vasos de agua debo tomar al día?").intencion());
+        assertNotEquals(Intencion.REGISTRAR_AGUA, motor.clasificar("cuantos litros de agua necesito").intencion());
+        assertNotEquals(Intencion.REGISTRAR_AGUA, motor.clasificar("¿es bueno que tome 2 litros de agua?").intencion());
+    }
+
+    @Test
+    void lasFraccionesSeLeenComoCantidadYNoComoFecha() {
+        MotorIntencionesService.Clasificacion c = motor.clasificar("bebí 1/2 litro de agua");
+
+        assertEquals(500, c.cantidadMl());
+        assertNull(c.fecha());
+        assertEquals(1500, MotorIntencionesService.extraerCantidadMl("tomé 1 1/2 litros"));
+        assertEquals(125, MotorIntencionesService.extraerCantidadMl("1/2 vaso"));
+        assertNull(MotorIntencionesService.extraerCantidadMl("1/0 litro"));
+    }
+
+    @Test
+    void verRutinaNoAtrapaCualquierRutinaDe() {
+        assertEquals(Intencion.VER_RUTINA, motor.clasificar("rutina de mañana").intencion());
+        assertEquals(Intencion.VER_RUTINA, motor.clasificar("mi rutina del 12/10/2025").intencion());
+        assertNotEquals(Intencion.VER_RUTINA, motor.clasificar("rutina de ejercicio para piernas").intencion());
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.Proyecto.Service;
+
+import com.example.Proyecto.DTO.RespuestaIADTO;
+import com.example.Proyecto.DTO.UsuarioRespuestaDTO;
+import com.example.Proyecto.Repository.RegistroRespuestasIARepository;
+import com.example.Proyecto.Repository.SesionChatbotRepository;
+import com.example.Proyecto.Repository.UsuarioRepository;
+import com.example.Proyecto.Service.LimiteIntentosService.LimiteExcedidoException;
+import com.example.Proyecto.Service.PasarelaIAService.ProveedorNoDisponibleException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class PasarelaIAServiceTest {
+
+    private final ExecutorService ejecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private RegistroRespuestasIARepository respuestasIARepository;
+
+    @AfterEach
+    void cerrar() {
+        ejecutor.shutdownNow();
+    }
+
+    private PasarelaIAService pasarela(ProveedorIA proveedor, int concurrenciaPorUsuario, int fallosParaAbrir) {
+        respuestasIARepository = mock(RegistroRespuestasIARepository.class);
+        when(respuestasIARepository.buscarEnCache(any(), any(), any())).thenReturn(List.of());
+        when(respuestasIARepository.save(any())).thenAnswer(invocacion -> invocacion.getArgument(0));
+        UsuarioRepository usuarioRepository = mock(UsuarioRepository.class);
+        when(usuarioRepository.buscarRespuestaPorId(anyLong())).thenReturn(Optional.of(new UsuarioRespuestaDTO()));
+        GestorSesionesChatbotService gestorSesiones = mock(GestorSesionesChatbotService.class);
+        when(gestorSesiones.usar(anyLong(), anyLong())).thenReturn(true);
+
+        PasarelaIAService servicio = new PasarelaIAService(5_000, concurrenciaPorUsuario, 24, fallosParaAbrir, 60_000);
+        servicio.proveedorIA = proveedor;
+        servicio.respuestasIARepository = respuestasIARepository;
+        servicio.usuarioRepository = usuarioRepository;
+        servicio.sesionRepository = mock(SesionChatbotRepository.class);
+        servicio.contextoService = mock(ContextoNutricionalService.class);
+        servicio.gestorSesiones = gestorSesiones;
+        servicio.ejecutorVirtual = ejecutor;
+        return servicio;
+    }
+
+    @Test
+    void unaRespuestaEnCacheNoLlamaAlProveedor() throws Exception {
+        StubProveedorIA proveedor = new StubProveedorIA(0);
+        PasarelaIAService servicio = pasarela(proveedor, 2, 5);
+        RespuestaIADTO guardada = new RespuestaIADTO(7L, "Avena con fruta", "stub", true);
+        when(respuestasIARepository.buscarEnCache(any(), any(), any())).thenReturn(List.of(guardada));
+
+        assertEquals(guardada, servicio.consultar(1L, 1L, "¿Qué desayuno?").get(1, TimeUnit.SECONDS));
+        assertEquals(0, proveedor.llamadas());
+    }
+
+    @Test
+    void lasConsultasIdenticasEnCursoCompartenUnaLlamada() throws Exception {
+        StubProveedorIA proveedor = new StubProveedorIA(300);
+        PasarelaIAService servicio = pasarela(proveedor, 2, 5);
+
+        CompletableFuture<RespuestaIADTO> primera = servicio.consultar(1L, 1L, "¿Qué desayuno?");
+        CompletableFuture<RespuestaIADTO> segunda = servicio.consultar(2L, 2L, "que desayuno");
+
+        RespuestaIADTO original = primera.get(5, TimeUnit.SECONDS);
+        RespuestaIADTO compartida = segunda.get(5, TimeUnit.SECONDS);
+        assertEquals(1, proveedor.llamadas());
+        assertEquals(original.respuesta(), compartida.respuesta());
+        assertFalse(original.desdeCache());
+        assertTrue(compartida.desdeCache());
+        verify(respuestasIARepository, times(1)).save(any());
+    }
+
+    @Test
+    void cadaUsuarioTieneSuMaximoDeLlamadasSimultaneas() throws Exception {
+        StubProveedorIA proveedor = new StubProveedorIA(300);
+        PasarelaIAService servicio = pasarela(proveedor, 1, 5);
+
+        CompletableFuture<RespuestaIADTO> enCurso = servicio.consultar(1L, 1L, "Primera pregunta");
+        assertThrows(LimiteExcedidoException.class, () -> servicio.consultar(1L, 1L, "Segunda pregunta"));
+        // Otro usuario no se ve afectado, y unirse a una consulta en curso no gasta permiso
+        CompletableFuture<RespuestaIADTO> otroUsuario = servicio.consultar(2L, 2L, "Segunda pregunta");
+        CompletableFuture<RespuestaIADTO> unida = servicio.consultar(1L, 1L, "Segunda pregunta");
+
+        enCurso.get(5, TimeUnit.SECONDS);
+        otroUsuario.get(5, TimeUnit.SECONDS);
+        unida.get(5, TimeUnit.SECONDS);
+        // Terminada la llamada, el permiso se devolvió y el semáforo se puede descartar
+        servicio.limpiar();
+        servicio.consultar(1L, 1L, "Tercera pregunta").get(5, TimeUnit.SECONDS);
+        assertEquals(3, proveedor.llamadas());
+    }
+
+    @Test
+    void quienSeUneNoHeredaLaCancelacionDeQuienInicioLaConsulta() throws Exception {
+        StubProveedorIA proveedor = new StubProveedorIA(300);
+        PasarelaIAService servicio = pasarela(proveedor, 2, 5);
+        AtomicBoolean seFue = new AtomicBoolean();
+
+        CompletableFuture<RespuestaIADTO> inicial = servicio.consultar(1L, 1L, "¿Qué ceno?", false,
+                fragmento -> seFue.set(true), seFue::get);
+        CompletableFuture<RespuestaIADTO> unida = servicio.consultar(2L, 2L, "¿Qué ceno?");
+
+        assertNotNull(unida.get(5, TimeUnit.SECONDS).respuesta());
+        assertThrows(CancellationException.class, () -> inicial.get(5, TimeUnit.SECONDS));
+        // La llamada siguió para quien se unió: no hizo falta repetirla
+        assertEquals(1, proveedor.llamadas());
+    }
+
+    @Test
+    void laLlamadaSeCortaCuandoSeVaElUltimoQueLaEspera() {
+        StubProveedorIA proveedor = new StubProveedorIA(300);
+        PasarelaIAService servicio = pasarela(proveedor, 2, 5);
+        AtomicBoolean primeroSeFue = new AtomicBoolean();
+        AtomicBoolean segundoSeFue = new AtomicBoolean();
+
+        CompletableFuture<RespuestaIADTO> primera = servicio.consultar(1L, 1L, "¿Qué ceno?", false,
+                fragmento -> primeroSeFue.set(true), primeroSeFue::get);
+        CompletableFuture<RespuestaIADTO> segunda = servicio.consultar(2L, 2L, "¿Qué ceno?", false,
+                fragmento -> { }, segundoSeFue::get);
+        segundoSeFue.set(true);
+
+        assertThrows(CancellationException.class, () -> primera.get(5, TimeUnit.SECONDS));
+        assertThrows(CancellationException.class, () -> segunda.get(5, TimeUnit.SECONDS));
+        verify(respuestasIARepository, never()).save(any());
+        assertEquals(CircuitoIA.Estado.CERRADO, servicio.estadoCircuito());
+    }
+
+    @Test
+    void elCortocircuitoSeAbreTrasVariosFallosYRechazaSinLlamar() {
+        ProveedorIA fallando = new ProveedorIA() {
+            @Override
+            public String nombre() {
+                return "falla";
+            }
+
+            @Override
+            public String generar(String prompt, Duration limite) {
+                throw new IllegalStateException("503 del proveedor");
+            }
+        };
+        PasarelaIAService servicio = pasarela(fallando, 2, 2);
+
+        assertThrows(ExecutionException.class, () -> servicio.consultar(1L, 1L, "Uno").get(5, TimeUnit.SECONDS));
+        assertThrows(ExecutionException.class, () -> servicio.consultar(1L, 1L, "Dos").get(5, TimeUnit.SECONDS));
+
+        assertEquals(CircuitoIA.Estado.ABIERTO, servicio.estadoCircuito());
+        ProveedorNoDisponibleException rechazo = assertThrows(ProveedorNoDisponibleException.class,
+                () -> servicio.consultar(1L, 1L, "Tres"));
+        assertTrue(rechazo.getSegundosEspera() > 0);
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.Proyecto.Service;
+
+import com.example.Proyecto.Model.Usuario;
+import com.example.Proyecto.Repository.UsuarioRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Con el agua acumulada en memoria, fijar el total vuelca antes lo pendiente y ese volcado pide su propia conexión.
+ * Si la petición retuviera la suya (open-in-view), unas pocas peticiones simultáneas agotarían el pool de 3.
+ */
+@SpringBootTest(properties = {
+        "agua.acumular-en-memoria=true",
+        "agua.volcado-ms=600000",
+        // Un pool agotado falla en segundos en vez de a los 30 s por defecto
+        "spring.datasource.hikari.connection-timeout=5000"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class RegistroAguaServiceTest {
+
+    private static final String BASIC = "Basic " +
+            Base64.getEncoder().encodeToString("admin:admin123".getBytes(StandardCharsets.UTF_8));
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long idUsuario;
+
+    @BeforeEach
+    void crearUsuario() {
+        String sufijo = UUID.randomUUID().toString().substring(0, 8);
+        Usuario usuario = new Usuario();
+        usuario.setCorreo("agua-" + sufijo + "@prueba.local");
+        usuario.setNombre("agua-" + sufijo);
+        usuario.setContrasena("sin-uso");
+        usuario.setFechaNacimiento(LocalDate.of(1990, 1, 1));
+        usuario.setAltura(170f);
+        usuario.setPeso(70f);
+        usuario.setSexo("Femenino");
+        usuario.setCreadoEn(new Timestamp(System.currentTimeMillis()));
+        idUsuario = usuarioRepository.save(usuario).getIdUsuario();
+    }
+
+    @AfterEach
+    void borrarUsuario() {
+        for (String tabla : List.of("ingesta_agua", "registro_agua", "estadisticas_diarias",
+                "estadisticas_mensuales", "actividad_anual", "usuario")) {
+            jdbcTemplate.update("DELETE FROM " + tabla + " WHERE id_usuario = ?", idUsuario);
+        }
+    }
+
+    @Test
+    void registrarEnParaleloNoAgotaElPool() throws Exception {
+        int peticiones = 8;
+        CountDownLatch salida = new CountDownLatch(1);
+        ExecutorService ejecutor = Executors.newFixedThreadPool(peticiones);
+        try {
+            List<Future<int[]>> estados = new ArrayList<>();
+            for (int i = 0; i < peticiones; i++) {
+                int cantidad = 100 * (i + 1);
+                estados.add(ejecutor.submit((Callable<int[]>) () -> {
+                    salida.await();
+                    // Deja algo pendiente en memoria para que registrar tenga que volcar
+                    int sumar = enviar("/api/RegistroAgua/sumar/" + idUsuario, 50);
+                    int registrar = enviar("/api/RegistroAgua/registrar/" + idUsuario, cantidad);
+                    return new int[]{sumar, registrar};
+                }));
+            }
+            salida.countDown();
+            for (Future<int[]> estado : estados) {
+                int[] respuesta = estado.get(60, TimeUnit.SECONDS);
+                assertEquals(200, respuesta[0]);
+                assertEquals(200, respuesta[1]);
+            }
+        } finally {
+            ejecutor.shutdownNow();
+        }
+    }
+
+    private int enviar(String ruta, int cantidadml) throws Exception {
+        return mockMvc.perform(post(ruta)
+                        .header(HttpHeaders.AUTHORIZATION, BASIC)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"cantidadml\": " + cantidadml + "}"))
+                .andReturn().getResponse().getStatus();
+    }
+}
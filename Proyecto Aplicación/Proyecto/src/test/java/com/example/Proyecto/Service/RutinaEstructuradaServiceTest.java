@@ -0,0 +1,19 @@
+package com.example.Proyecto.Service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RutinaEstructuradaServiceTest {
+
+    @Test
+    void laComaDecimalNoPartePorciones() {
+        assertEquals(List.of("1,5 tazas", "150 g", "0,5 unidad"),
+                RutinaEstructuradaService.partes("1,5 tazas, 150 g, 0,5 unidad"));
+        assertEquals(List.of("2,25 kg", "1 taza", "3 huevos"),
+                RutinaEstructuradaService.partes("2,25 kg; 1 taza\n3 huevos"));
+        assertEquals(List.of(), RutinaEstructuradaService.partes(" "));
+    }
+}